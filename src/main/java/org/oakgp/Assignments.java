@@ -60,6 +60,11 @@ public final class Assignments {
       return assignments[index];
    }
 
+   /** Returns the number of values in this {@code Assignments}. */
+   public int size() {
+      return assignments.length;
+   }
+
    @Override
    public int hashCode() {
       return hashCode;
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp;
+
+import java.util.Collection;
+
+import org.oakgp.node.Node;
+import org.oakgp.util.ConcurrentCache;
+
+/**
+ * Represents a collection of {@code Assignments} stored as columns - one column per variable.
+ * <p>
+ * Used to evaluate a tree structure against every row of a dataset in a single pass - see {@link org.oakgp.node.Node#evaluateBatch(ColumnarAssignments)}.
+ * Columns where every value is an {@code Integer} are also stored as an {@code int[]}, and columns where every value is a {@code Double} are also stored as a
+ * {@code double[]}, so that numeric variables can be processed without unboxing.
+ * <p>
+ * A {@code ColumnarAssignments} can optionally cache the results of evaluating pure subtrees against it. As genetic operators copy most of a parent into its
+ * offspring, the same subtrees will be evaluated against the same dataset generation after generation - caching their results avoids repeating that work.
+ * <p>
+ * The cache is a {@link ConcurrentCache} - so the same {@code ColumnarAssignments} can be used by multiple threads (e.g. when a generation is ranked in
+ * parallel) without those threads contending on a single lock.
+ * <p>
+ * Immutable, other than the contents of the cache. The arrays returned by the methods of this class must not be modified.
+ */
+public final class ColumnarAssignments {
+   private final Assignments[] rows;
+   private final Object[][] columns;
+   private final int[][] intColumns;
+   private final double[][] doubleColumns;
+   private final ConcurrentCache<ResultsKey, Object> resultsCache;
+
+   /**
+    * Returns a new {@code ColumnarAssignments} which contains the specified rows.
+    *
+    * @param rows
+    *           the rows to be stored in the {@code ColumnarAssignments} - the order of the rows is maintained
+    * @return a new {@code ColumnarAssignments} which contains the specified rows
+    */
+   public static ColumnarAssignments createColumnarAssignments(Collection<Assignments> rows) {
+      return new ColumnarAssignments(rows.toArray(new Assignments[rows.size()]), null);
+   }
+
+   /**
+    * Returns a new {@code ColumnarAssignments} which contains the specified rows and caches the results of evaluating pure subtrees against them.
+    *
+    * @param rows
+    *           the rows to be stored in the {@code ColumnarAssignments} - the order of the rows is maintained
+    * @param cacheSize
+    *           the maximum number of subtrees to cache the results of - see {@link ConcurrentCache} for how entries are chosen when the limit is reached
+    * @return a new {@code ColumnarAssignments} which contains the specified rows
+    * @see org.oakgp.node.FunctionNode#isPure()
+    */
+   public static ColumnarAssignments createColumnarAssignments(Collection<Assignments> rows, int cacheSize) {
+      return new ColumnarAssignments(rows.toArray(new Assignments[rows.size()]), new ConcurrentCache<>(cacheSize));
+   }
+
+   private ColumnarAssignments(Assignments[] rows, ConcurrentCache<ResultsKey, Object> resultsCache) {
+      this.resultsCache = resultsCache;
+      int numVariables = 0;
+      for (Assignments row : rows) {
+         numVariables = Math.max(numVariables, row.size());
+      }
+
+      this.rows = rows;
+      this.columns = new Object[numVariables][];
+      this.intColumns = new int[numVariables][];
+      this.doubleColumns = new double[numVariables][];
+      for (int id = 0; id < numVariables; id++) {
+         Object[] column = new Object[rows.length];
+         boolean isIntegers = true;
+         boolean isDoubles = true;
+         for (int r = 0; r < rows.length; r++) {
+            Object value = id < rows[r].size() ? rows[r].get(id) : null;
+            column[r] = value;
+            isIntegers &= value instanceof Integer;
+            isDoubles &= value instanceof Double;
+         }
+         columns[id] = column;
+         if (isIntegers) {
+            intColumns[id] = unboxIntegers(column);
+         }
+         if (isDoubles) {
+            doubleColumns[id] = unboxDoubles(column);
+         }
+      }
+   }
+
+   private ColumnarAssignments(Assignments[] rows, Object[][] columns, int[][] intColumns, double[][] doubleColumns,
+         ConcurrentCache<ResultsKey, Object> resultsCache) {
+      this.rows = rows;
+      this.columns = columns;
+      this.intColumns = intColumns;
+      this.doubleColumns = doubleColumns;
+      this.resultsCache = resultsCache;
+   }
+
+   /** Returns the number of rows. */
+   public int getRowCount() {
+      return rows.length;
+   }
+
+   /**
+    * Returns the row at the specified position.
+    *
+    * @param index
+    *           index of the row to return
+    * @return the {@code Assignments} at the specified position
+    */
+   public Assignments getRow(int index) {
+      return rows[index];
+   }
+
+   /**
+    * Returns the values assigned to the variable with the specified ID - one element per row.
+    *
+    * @param id
+    *           the ID of the variable
+    */
+   public Object[] getColumn(int id) {
+      return columns[id];
+   }
+
+   /**
+    * Returns the values assigned to the variable with the specified ID as primitive {@code int} values.
+    *
+    * @param id
+    *           the ID of the variable
+    * @throws ClassCastException
+    *            if any of the values of the variable are not of type {@code Integer}
+    */
+   public int[] getIntColumn(int id) {
+      int[] column = intColumns[id];
+      return column == null ? unboxIntegers(columns[id]) : column;
+   }
+
+   /**
+    * Returns the values assigned to the variable with the specified ID as primitive {@code double} values.
+    *
+    * @param id
+    *           the ID of the variable
+    * @throws ClassCastException
+    *            if any of the values of the variable are not of type {@code Double}
+    */
+   public double[] getDoubleColumn(int id) {
+      double[] column = doubleColumns[id];
+      return column == null ? unboxDoubles(columns[id]) : column;
+   }
+
+   /**
+    * Returns a new {@code ColumnarAssignments} containing only the rows at the specified positions.
+    * <p>
+    * The returned {@code ColumnarAssignments} does not cache results.
+    *
+    * @param indexes
+    *           the positions of the rows to include
+    * @param count
+    *           the number of elements of {@code indexes} to use
+    */
+   public ColumnarAssignments subset(int[] indexes, int count) {
+      return subset(indexes, count, null);
+   }
+
+   /**
+    * Returns a new {@code ColumnarAssignments} containing only the rows in the specified range - e.g. so a dataset can be evaluated in chunks.
+    * <p>
+    * If this {@code ColumnarAssignments} caches results then the returned {@code ColumnarAssignments} uses the same cache - with the results of evaluating a
+    * node against each slice stored separately - so the total size of the cache is still bounded.
+    *
+    * @param fromIndex
+    *           the position of the first row to include
+    * @param toIndex
+    *           the position after the last row to include
+    */
+   public ColumnarAssignments slice(int fromIndex, int toIndex) {
+      int[] indexes = new int[toIndex - fromIndex];
+      for (int i = 0; i < indexes.length; i++) {
+         indexes[i] = fromIndex + i;
+      }
+      return subset(indexes, indexes.length, resultsCache);
+   }
+
+   private ColumnarAssignments subset(int[] indexes, int count, ConcurrentCache<ResultsKey, Object> subsetResultsCache) {
+      Assignments[] subsetRows = new Assignments[count];
+      for (int i = 0; i < count; i++) {
+         subsetRows[i] = rows[indexes[i]];
+      }
+      // slice the existing columns, rather than recreating them from the rows, so that values are not unboxed again
+      Object[][] subsetColumns = new Object[columns.length][];
+      int[][] subsetIntColumns = new int[columns.length][];
+      double[][] subsetDoubleColumns = new double[columns.length][];
+      for (int id = 0; id < columns.length; id++) {
+         Object[] column = columns[id];
+         Object[] subsetColumn = new Object[count];
+         for (int i = 0; i < count; i++) {
+            subsetColumn[i] = column[indexes[i]];
+         }
+         subsetColumns[id] = subsetColumn;
+
+         int[] intColumn = intColumns[id];
+         if (intColumn != null) {
+            int[] subsetIntColumn = new int[count];
+            for (int i = 0; i < count; i++) {
+               subsetIntColumn[i] = intColumn[indexes[i]];
+            }
+            subsetIntColumns[id] = subsetIntColumn;
+         }
+
+         double[] doubleColumn = doubleColumns[id];
+         if (doubleColumn != null) {
+            double[] subsetDoubleColumn = new double[count];
+            for (int i = 0; i < count; i++) {
+               subsetDoubleColumn[i] = doubleColumn[indexes[i]];
+            }
+            subsetDoubleColumns[id] = subsetDoubleColumn;
+         }
+      }
+      return new ColumnarAssignments(subsetRows, subsetColumns, subsetIntColumns, subsetDoubleColumns, subsetResultsCache);
+   }
+
+   /**
+    * Returns the results of a previous evaluation of the specified node against this dataset, or {@code null} if they are not cached.
+    * <p>
+    * Results are cached separately for each type of array - so the results of evaluating a node using, e.g., {@link Node#evaluateBatch(ColumnarAssignments)}
+    * do not replace the results of evaluating the same node using {@link Node#evaluateIntBatch(ColumnarAssignments)}.
+    *
+    * @param node
+    *           a pure node
+    * @param resultsType
+    *           the type of array the results are stored in, e.g. {@code int[].class}
+    * @return an array containing one element per row, or {@code null}
+    */
+   public <T> T getCachedResults(Node node, Class<T> resultsType) {
+      return resultsCache == null ? null : resultsType.cast(resultsCache.get(new ResultsKey(this, node, resultsType)));
+   }
+
+   /**
+    * Caches the results of evaluating the specified node against this dataset.
+    * <p>
+    * Has no effect if this {@code ColumnarAssignments} was created without a cache.
+    *
+    * @param node
+    *           a pure node
+    * @param resultsType
+    *           the type of array the results are stored in, e.g. {@code int[].class}
+    * @param results
+    *           an array containing one element per row
+    */
+   public <T> void cacheResults(Node node, Class<T> resultsType, T results) {
+      if (resultsCache != null) {
+         resultsCache.put(new ResultsKey(this, node, resultsType), results);
+      }
+   }
+
+   private static int[] unboxIntegers(Object[] column) {
+      int[] result = new int[column.length];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = (Integer) column[i];
+      }
+      return result;
+   }
+
+   private static double[] unboxDoubles(Object[] column) {
+      double[] result = new double[column.length];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = (Double) column[i];
+      }
+      return result;
+   }
+
+   /** Identifies the results of evaluating a node, against a particular dataset, as a particular type of array. */
+   private static final class ResultsKey {
+      /** Compared by identity - as slices of the same dataset share a cache. */
+      private final ColumnarAssignments assignments;
+      private final Node node;
+      private final Class<?> resultsType;
+
+      ResultsKey(ColumnarAssignments assignments, Node node, Class<?> resultsType) {
+         this.assignments = assignments;
+         this.node = node;
+         this.resultsType = resultsType;
+      }
+
+      @Override
+      public int hashCode() {
+         return (node.hashCode() * 31 + resultsType.hashCode()) * 31 + System.identityHashCode(assignments);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) {
+            return true;
+         } else if (o instanceof ResultsKey) {
+            ResultsKey k = (ResultsKey) o;
+            return assignments == k.assignments && resultsType == k.resultsType && node.equals(k.node);
+         } else {
+            return false;
+         }
+      }
+   }
+}
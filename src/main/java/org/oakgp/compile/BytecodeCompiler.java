@@ -0,0 +1,462 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import static org.oakgp.Type.booleanType;
+import static org.oakgp.Type.doubleType;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.longType;
+import static org.oakgp.compile.ClassFileWriter.AALOAD;
+import static org.oakgp.compile.ClassFileWriter.ALOAD_1;
+import static org.oakgp.compile.ClassFileWriter.ALOAD_2;
+import static org.oakgp.compile.ClassFileWriter.ARETURN;
+import static org.oakgp.compile.ClassFileWriter.ASTORE_2;
+import static org.oakgp.compile.ClassFileWriter.DADD;
+import static org.oakgp.compile.ClassFileWriter.DDIV;
+import static org.oakgp.compile.ClassFileWriter.DMUL;
+import static org.oakgp.compile.ClassFileWriter.DSUB;
+import static org.oakgp.compile.ClassFileWriter.GOTO;
+import static org.oakgp.compile.ClassFileWriter.IADD;
+import static org.oakgp.compile.ClassFileWriter.IDIV;
+import static org.oakgp.compile.ClassFileWriter.IFEQ;
+import static org.oakgp.compile.ClassFileWriter.IFGE;
+import static org.oakgp.compile.ClassFileWriter.IFGT;
+import static org.oakgp.compile.ClassFileWriter.IFLE;
+import static org.oakgp.compile.ClassFileWriter.IFLT;
+import static org.oakgp.compile.ClassFileWriter.IFNE;
+import static org.oakgp.compile.ClassFileWriter.IMUL;
+import static org.oakgp.compile.ClassFileWriter.ISUB;
+import static org.oakgp.compile.ClassFileWriter.LADD;
+import static org.oakgp.compile.ClassFileWriter.LDIV;
+import static org.oakgp.compile.ClassFileWriter.LMUL;
+import static org.oakgp.compile.ClassFileWriter.LSUB;
+import static org.oakgp.compile.ClassFileWriter.SWAP;
+import static org.oakgp.function.math.DoubleUtils.DOUBLE_UTILS;
+import static org.oakgp.function.math.IntegerUtils.INTEGER_UTILS;
+import static org.oakgp.function.math.LongUtils.LONG_UTILS;
+import static org.oakgp.node.NodeType.isFunction;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.oakgp.Arguments;
+import org.oakgp.Assignments;
+import org.oakgp.Type;
+import org.oakgp.function.Function;
+import org.oakgp.function.choice.If;
+import org.oakgp.function.classify.IsNegative;
+import org.oakgp.function.classify.IsPositive;
+import org.oakgp.function.classify.IsZero;
+import org.oakgp.function.compare.Equal;
+import org.oakgp.function.compare.GreaterThan;
+import org.oakgp.function.compare.GreaterThanOrEqual;
+import org.oakgp.function.compare.LessThan;
+import org.oakgp.function.compare.LessThanOrEqual;
+import org.oakgp.function.compare.NotEqual;
+import org.oakgp.node.ConstantNode;
+import org.oakgp.node.FunctionNode;
+import org.oakgp.node.Node;
+import org.oakgp.node.VariableNode;
+
+/**
+ * Compiles tree structures into Java bytecode.
+ * <p>
+ * Each compiled tree is represented by a newly generated class with a single method that evaluates the whole tree. As the generated method contains no
+ * virtual calls between the nodes of the tree, the JVM is able to optimise it as a single unit - rather than having to dispatch a call to
+ * {@link Function#evaluate(Arguments, Assignments)} for each function node of the tree.
+ * <p>
+ * Arithmetic (of {@code integer}, {@code long} and {@code double} values), comparisons (of {@code integer}, {@code long} and {@code double} values), the
+ * {@code org.oakgp.function.classify} functions and {@code If} are translated directly into bytecode - using primitive values rather than their boxed
+ * equivalents. Any other function nodes are evaluated by calling {@link Node#evaluate(Assignments)} on the original node.
+ * <p>
+ * Each generated class is defined by its own class loader so that it can be garbage collected as soon as the compiled node is no longer referenced.
+ * <p>
+ * As the cost of generating and loading a class is much greater than the cost of evaluating a tree, a {@code BytecodeCompiler} will normally be used in
+ * combination with a {@link TieredCompiler} so that only nodes that are evaluated many times get compiled.
+ */
+public final class BytecodeCompiler implements NodeCompiler {
+   /** HotSpot will not JIT compile methods that contain more bytecode than this - so there is no benefit in generating them. */
+   private static final int MAX_CODE_LENGTH = 8000;
+   private static final String CLASS_NAME_PREFIX = "org/oakgp/compile/GeneratedProgram$";
+   private static final String PROGRAM_INTERFACE = "java/util/function/Function";
+   private static final String PROGRAM_METHOD_NAME = "apply";
+   private static final String PROGRAM_METHOD_DESCRIPTOR = "(Ljava/lang/Object;)Ljava/lang/Object;";
+   private static final String CONSTANTS_FIELD_NAME = "constants";
+   private static final String CONSTANTS_FIELD_DESCRIPTOR = "[Ljava/lang/Object;";
+   private static final String ASSIGNMENTS_CLASS = "org/oakgp/Assignments";
+   private static final String NODE_CLASS = "org/oakgp/node/Node";
+   private static final int MAX_LOCALS = 3;
+   private static final Map<Function, Integer> ARITHMETIC_OPCODES = createArithmeticOpcodes();
+   private static final AtomicInteger CLASS_COUNTER = new AtomicInteger();
+
+   private static Map<Function, Integer> createArithmeticOpcodes() {
+      Map<Function, Integer> opcodes = new IdentityHashMap<>();
+      opcodes.put(INTEGER_UTILS.getAdd(), IADD);
+      opcodes.put(INTEGER_UTILS.getSubtract(), ISUB);
+      opcodes.put(INTEGER_UTILS.getMultiply(), IMUL);
+      opcodes.put(INTEGER_UTILS.getDivide(), IDIV);
+      opcodes.put(LONG_UTILS.getAdd(), LADD);
+      opcodes.put(LONG_UTILS.getSubtract(), LSUB);
+      opcodes.put(LONG_UTILS.getMultiply(), LMUL);
+      opcodes.put(LONG_UTILS.getDivide(), LDIV);
+      opcodes.put(DOUBLE_UTILS.getAdd(), DADD);
+      opcodes.put(DOUBLE_UTILS.getSubtract(), DSUB);
+      opcodes.put(DOUBLE_UTILS.getMultiply(), DMUL);
+      opcodes.put(DOUBLE_UTILS.getDivide(), DDIV);
+      return opcodes;
+   }
+
+   /**
+    * Returns a compiled version of the specified {@code Node}.
+    * <p>
+    * Terminal nodes, and trees that are too large to benefit from compilation, are returned as-is.
+    */
+   @Override
+   public Node compile(Node node) {
+      if (!isFunction(node)) {
+         // nothing to be gained from compiling a constant or variable
+         return node;
+      }
+
+      String className = CLASS_NAME_PREFIX + CLASS_COUNTER.incrementAndGet();
+      ProgramGenerator generator = new ProgramGenerator(className);
+      byte[] classFile = generator.generate(node);
+      if (classFile == null) {
+         return node;
+      }
+
+      try {
+         Class<?> c = new ProgramClassLoader().define(className.replace('/', '.'), classFile);
+         @SuppressWarnings("unchecked")
+         java.util.function.Function<Object, Object> program = (java.util.function.Function<Object, Object>) c.getConstructor(Object[].class).newInstance(
+               (Object) generator.getConstants());
+         return new ProgramNode(node, program);
+      } catch (ReflectiveOperationException e) {
+         throw new IllegalStateException("Could not instantiate class generated for: " + node, e);
+      }
+   }
+
+   /** Generates the bytecode of a class whose {@code apply} method evaluates a tree structure. */
+   private static final class ProgramGenerator {
+      private final ClassFileWriter writer;
+      private final List<Object> constants = new ArrayList<>();
+
+      ProgramGenerator(String className) {
+         this.writer = new ClassFileWriter(className, PROGRAM_INTERFACE, CONSTANTS_FIELD_NAME, CONSTANTS_FIELD_DESCRIPTOR);
+      }
+
+      /** Returns the class file of a class that evaluates the specified node, or {@code null} if the resulting method would be too large. */
+      byte[] generate(Node node) {
+         writer.op(ALOAD_1, 1);
+         writer.checkCast(ASSIGNMENTS_CLASS);
+         writer.op(ASTORE_2, -1);
+         emit(node, Kind.OBJECT);
+         writer.op(ARETURN, -1);
+         if (writer.getCodeLength() > MAX_CODE_LENGTH) {
+            return null;
+         } else {
+            return writer.toByteArray(PROGRAM_METHOD_NAME, PROGRAM_METHOD_DESCRIPTOR, MAX_LOCALS);
+         }
+      }
+
+      /** Returns the values referred to by the generated code - to be provided to the constructor of the generated class. */
+      Object[] getConstants() {
+         return constants.toArray();
+      }
+
+      /** Writes instructions that push the result of evaluating the specified node, represented as the specified kind, on to the operand stack. */
+      private void emit(Node node, Kind required) {
+         switch (node.getNodeType()) {
+            case CONSTANT:
+               emitConstant((ConstantNode) node, required);
+               break;
+            case VARIABLE:
+               emitVariable((VariableNode) node);
+               convert(Kind.OBJECT, required);
+               break;
+            default:
+               convert(emitFunction((FunctionNode) node), required);
+         }
+      }
+
+      private void emitConstant(ConstantNode node, Kind required) {
+         Object value = node.evaluate(null);
+         if (required == Kind.OBJECT || !required.isInstance(value)) {
+            loadConstant(value);
+            convert(Kind.OBJECT, required);
+         } else if (required == Kind.INT) {
+            writer.pushInt((Integer) value);
+         } else if (required == Kind.LONG) {
+            writer.pushLong((Long) value);
+         } else if (required == Kind.DOUBLE) {
+            writer.pushDouble((Double) value);
+         } else {
+            writer.pushInt((Boolean) value ? 1 : 0);
+         }
+      }
+
+      private void emitVariable(VariableNode node) {
+         writer.op(ALOAD_2, 1);
+         writer.pushInt(node.getId());
+         writer.invokeVirtual(ASSIGNMENTS_CLASS, "get", "(I)Ljava/lang/Object;");
+      }
+
+      /** Writes instructions that evaluate the specified function node and returns the kind of value those instructions push on to the operand stack. */
+      private Kind emitFunction(FunctionNode node) {
+         Function function = node.getFunction();
+         Arguments arguments = node.getArguments();
+         Integer arithmeticOpcode = ARITHMETIC_OPCODES.get(function);
+         if (arithmeticOpcode != null) {
+            return emitArithmetic(node, arithmeticOpcode);
+         } else if (function instanceof If) {
+            return emitIf(node);
+         }
+
+         int conditionOpcode = getClassifyOpcode(function);
+         if (conditionOpcode != -1) {
+            emit(arguments.firstArg(), Kind.INT);
+            emitCondition(conditionOpcode);
+            return Kind.BOOLEAN;
+         }
+
+         conditionOpcode = getComparisonOpcode(function);
+         Kind argumentKind = Kind.of(function.getSignature().getArgumentType(0));
+         if (conditionOpcode != -1 && argumentKind.isNumeric()) {
+            emit(arguments.firstArg(), argumentKind);
+            emit(arguments.secondArg(), argumentKind);
+            String descriptor = "(" + argumentKind.descriptor + argumentKind.descriptor + ")I";
+            writer.invokeStatic(argumentKind.boxClass, "compare", descriptor);
+            emitCondition(conditionOpcode);
+            return Kind.BOOLEAN;
+         }
+
+         // no specific support for this function, so delegate to the original node
+         loadConstant(node);
+         writer.checkCast(NODE_CLASS);
+         writer.op(ALOAD_2, 1);
+         writer.invokeInterface(NODE_CLASS, "evaluate", "(L" + ASSIGNMENTS_CLASS + ";)Ljava/lang/Object;");
+         return Kind.OBJECT;
+      }
+
+      private Kind emitArithmetic(FunctionNode node, int opcode) {
+         Kind kind = Kind.of(node.getType());
+         Arguments arguments = node.getArguments();
+         Node arg2 = arguments.secondArg();
+         if (isDivide(opcode) && isZero(arg2, kind)) {
+            // replicates the behaviour of org.oakgp.function.math.Divide - dividing by a constant zero returns one
+            emitConstant(new ConstantNode(getOne(kind), node.getType()), kind);
+         } else {
+            emit(arguments.firstArg(), kind);
+            emit(arg2, kind);
+            writer.op(opcode, -kind.slots);
+         }
+         return kind;
+      }
+
+      private Kind emitIf(FunctionNode node) {
+         Kind kind = Kind.of(node.getType());
+         Arguments arguments = node.getArguments();
+         emit(arguments.firstArg(), Kind.BOOLEAN);
+         int toFalseBranch = writer.branch(IFEQ);
+         int stackDepth = writer.getStackDepth();
+         emit(arguments.secondArg(), kind);
+         int toEnd = writer.branch(GOTO);
+         writer.setStackDepth(stackDepth);
+         writer.mark(toFalseBranch);
+         emit(arguments.thirdArg(), kind);
+         writer.mark(toEnd);
+         return kind;
+      }
+
+      /** Writes instructions that replace the {@code int} at the top of the operand stack with {@code 1} if the given condition holds, else {@code 0}. */
+      private void emitCondition(int conditionOpcode) {
+         int stackDepth = writer.getStackDepth();
+         int toTrue = writer.branch(conditionOpcode);
+         writer.pushInt(0);
+         int toEnd = writer.branch(GOTO);
+         writer.setStackDepth(stackDepth - 1);
+         writer.mark(toTrue);
+         writer.pushInt(1);
+         writer.mark(toEnd);
+      }
+
+      private void loadConstant(Object value) {
+         writer.getThisField();
+         writer.pushInt(constants.size());
+         writer.op(AALOAD, -1);
+         constants.add(value);
+      }
+
+      /** Writes instructions that convert the value at the top of the operand stack from one kind to another. */
+      private void convert(Kind from, Kind to) {
+         if (from == to) {
+            return;
+         }
+         if (from != Kind.OBJECT) {
+            writer.invokeStatic(from.boxClass, "valueOf", "(" + from.descriptor + ")L" + from.boxClass + ";");
+         }
+         if (to == Kind.BOOLEAN) {
+            // replicates the behaviour of If - which treats anything other than Boolean.TRUE as false
+            writer.getStatic(to.boxClass, "TRUE", "L" + to.boxClass + ";");
+            writer.op(SWAP, 0);
+            writer.invokeVirtual(to.boxClass, "equals", "(Ljava/lang/Object;)Z");
+         } else if (to != Kind.OBJECT) {
+            writer.checkCast(to.boxClass);
+            writer.invokeVirtual(to.boxClass, to.unboxMethod, "()" + to.descriptor);
+         }
+      }
+
+      private static boolean isDivide(int opcode) {
+         return opcode == IDIV || opcode == LDIV || opcode == DDIV;
+      }
+
+      private static boolean isZero(Node node, Kind kind) {
+         switch (kind) {
+            case INT:
+               return INTEGER_UTILS.isZero(node);
+            case LONG:
+               return LONG_UTILS.isZero(node);
+            default:
+               return DOUBLE_UTILS.isZero(node);
+         }
+      }
+
+      private static Object getOne(Kind kind) {
+         switch (kind) {
+            case INT:
+               return INTEGER_UTILS.one().evaluate(null);
+            case LONG:
+               return LONG_UTILS.one().evaluate(null);
+            default:
+               return DOUBLE_UTILS.one().evaluate(null);
+         }
+      }
+
+      private static int getClassifyOpcode(Function function) {
+         if (function instanceof IsZero) {
+            return IFEQ;
+         } else if (function instanceof IsPositive) {
+            return IFGT;
+         } else if (function instanceof IsNegative) {
+            return IFLT;
+         } else {
+            return -1;
+         }
+      }
+
+      private static int getComparisonOpcode(Function function) {
+         if (function instanceof LessThan) {
+            return IFLT;
+         } else if (function instanceof LessThanOrEqual) {
+            return IFLE;
+         } else if (function instanceof GreaterThan) {
+            return IFGT;
+         } else if (function instanceof GreaterThanOrEqual) {
+            return IFGE;
+         } else if (function instanceof Equal) {
+            return IFEQ;
+         } else if (function instanceof NotEqual) {
+            return IFNE;
+         } else {
+            return -1;
+         }
+      }
+   }
+
+   /** The representations of values used by generated code. */
+   private enum Kind {
+      INT("java/lang/Integer", "intValue", "I", 1),
+      LONG("java/lang/Long", "longValue", "J", 2),
+      DOUBLE("java/lang/Double", "doubleValue", "D", 2),
+      BOOLEAN("java/lang/Boolean", "booleanValue", "Z", 1),
+      OBJECT("java/lang/Object", null, "Ljava/lang/Object;", 1);
+
+      private final String boxClass;
+      private final String unboxMethod;
+      private final String descriptor;
+      private final int slots;
+
+      private Kind(String boxClass, String unboxMethod, String descriptor, int slots) {
+         this.boxClass = boxClass;
+         this.unboxMethod = unboxMethod;
+         this.descriptor = descriptor;
+         this.slots = slots;
+      }
+
+      static Kind of(Type type) {
+         if (type == integerType()) {
+            return INT;
+         } else if (type == longType()) {
+            return LONG;
+         } else if (type == doubleType()) {
+            return DOUBLE;
+         } else if (type == booleanType()) {
+            return BOOLEAN;
+         } else {
+            return OBJECT;
+         }
+      }
+
+      boolean isNumeric() {
+         return this == INT || this == LONG || this == DOUBLE;
+      }
+
+      boolean isInstance(Object value) {
+         switch (this) {
+            case INT:
+               return value instanceof Integer;
+            case LONG:
+               return value instanceof Long;
+            case DOUBLE:
+               return value instanceof Double;
+            case BOOLEAN:
+               return value instanceof Boolean;
+            default:
+               return true;
+         }
+      }
+   }
+
+   /** Each generated class is defined by its own class loader so that it can be unloaded once it is no longer used. */
+   private static final class ProgramClassLoader extends ClassLoader {
+      ProgramClassLoader() {
+         super(BytecodeCompiler.class.getClassLoader());
+      }
+
+      Class<?> define(String name, byte[] classFile) {
+         return defineClass(name, classFile, 0, classFile.length);
+      }
+   }
+
+   /** Evaluates a tree structure by invoking an instance of a generated class. */
+   private static final class ProgramNode extends CompiledNode {
+      private final java.util.function.Function<Object, Object> program;
+
+      ProgramNode(Node original, java.util.function.Function<Object, Object> program) {
+         super(original);
+         this.program = program;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public <T> T evaluate(Assignments assignments) {
+         return (T) program.apply(assignments);
+      }
+   }
+}
@@ -0,0 +1,474 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the bytes of a Java class file.
+ * <p>
+ * Only supports the subset of the class file format required by {@link BytecodeCompiler}: a public final class that implements a single interface, has a
+ * single private final field, a constructor that assigns its only argument to that field and one other method. The body of the other method is written using
+ * the {@code push}, {@code invoke}, {@code branch} (etc.) methods of this class.
+ * <p>
+ * Class files are written using version 49 of the format so that no stack map frames need to be calculated - the type-inferencing verifier is used instead.
+ */
+final class ClassFileWriter {
+   static final int ICONST_0 = 0x03;
+   static final int ALOAD_0 = 0x2a;
+   static final int ALOAD_1 = 0x2b;
+   static final int ALOAD_2 = 0x2c;
+   static final int ASTORE_2 = 0x4d;
+   static final int AALOAD = 0x32;
+   static final int SWAP = 0x5f;
+   static final int IADD = 0x60;
+   static final int LADD = 0x61;
+   static final int DADD = 0x63;
+   static final int ISUB = 0x64;
+   static final int LSUB = 0x65;
+   static final int DSUB = 0x67;
+   static final int IMUL = 0x68;
+   static final int LMUL = 0x69;
+   static final int DMUL = 0x6b;
+   static final int IDIV = 0x6c;
+   static final int LDIV = 0x6d;
+   static final int DDIV = 0x6f;
+   static final int IFEQ = 0x99;
+   static final int IFNE = 0x9a;
+   static final int IFLT = 0x9b;
+   static final int IFGE = 0x9c;
+   static final int IFGT = 0x9d;
+   static final int IFLE = 0x9e;
+   static final int GOTO = 0xa7;
+   static final int ARETURN = 0xb0;
+
+   private static final int MAGIC = 0xCAFEBABE;
+   private static final int MAJOR_VERSION = 49;
+   private static final int ACC_PUBLIC = 0x0001;
+   private static final int ACC_PRIVATE = 0x0002;
+   private static final int ACC_FINAL = 0x0010;
+   private static final int ACC_SUPER = 0x0020;
+
+   private static final int CONSTANT_UTF8 = 1;
+   private static final int CONSTANT_INTEGER = 3;
+   private static final int CONSTANT_LONG = 5;
+   private static final int CONSTANT_DOUBLE = 6;
+   private static final int CONSTANT_CLASS = 7;
+   private static final int CONSTANT_FIELDREF = 9;
+   private static final int CONSTANT_METHODREF = 10;
+   private static final int CONSTANT_INTERFACE_METHODREF = 11;
+   private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+   private static final int LCONST_0 = 0x09;
+   private static final int DCONST_0 = 0x0e;
+   private static final int BIPUSH = 0x10;
+   private static final int SIPUSH = 0x11;
+   private static final int LDC = 0x12;
+   private static final int LDC_W = 0x13;
+   private static final int LDC2_W = 0x14;
+   private static final int RETURN = 0xb1;
+   private static final int GETSTATIC = 0xb2;
+   private static final int GETFIELD = 0xb4;
+   private static final int PUTFIELD = 0xb5;
+   private static final int INVOKEVIRTUAL = 0xb6;
+   private static final int INVOKESPECIAL = 0xb7;
+   private static final int INVOKESTATIC = 0xb8;
+   private static final int INVOKEINTERFACE = 0xb9;
+   private static final int CHECKCAST = 0xc0;
+
+   private static final String OBJECT_CLASS = "java/lang/Object";
+   private static final String CONSTRUCTOR_NAME = "<init>";
+
+   private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+   private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+   private final Map<String, Integer> constantPoolIndexes = new HashMap<>();
+   private int constantPoolCount = 1;
+
+   private final String className;
+   private final String interfaceName;
+   private final String fieldName;
+   private final String fieldDescriptor;
+   private final Code code = new Code();
+
+   /**
+    * Creates a {@code ClassFileWriter} for a class with the specified details.
+    *
+    * @param className
+    *           the internal name (e.g. {@code org/oakgp/Example}) of the class to write
+    * @param interfaceName
+    *           the internal name of the interface the class implements
+    * @param fieldName
+    *           the name of the single field of the class
+    * @param fieldDescriptor
+    *           the type descriptor of the single field of the class, which is also the type of the only argument of the constructor
+    */
+   ClassFileWriter(String className, String interfaceName, String fieldName, String fieldDescriptor) {
+      this.className = className;
+      this.interfaceName = interfaceName;
+      this.fieldName = fieldName;
+      this.fieldDescriptor = fieldDescriptor;
+   }
+
+   /** Writes an instruction that has no operands. */
+   void op(int opcode, int stackDelta) {
+      code.op(opcode, stackDelta);
+   }
+
+   /** Writes an instruction that pushes the specified {@code int} value on to the operand stack. */
+   void pushInt(int value) {
+      code.pushInt(value);
+   }
+
+   /** Writes an instruction that pushes the specified {@code long} value on to the operand stack. */
+   void pushLong(long value) {
+      if (value == 0L || value == 1L) {
+         code.op(LCONST_0 + (int) value, 2);
+      } else {
+         code.opU2(LDC2_W, longConstant(value), 2);
+      }
+   }
+
+   /** Writes an instruction that pushes the specified {@code double} value on to the operand stack. */
+   void pushDouble(double value) {
+      if (Double.doubleToRawLongBits(value) == 0L || value == 1d) {
+         code.op(DCONST_0 + (int) value, 2);
+      } else {
+         code.opU2(LDC2_W, doubleConstant(value), 2);
+      }
+   }
+
+   /** Writes an instruction that pushes the value of the single field of {@code this} on to the operand stack. */
+   void getThisField() {
+      code.op(ALOAD_0, 1);
+      code.opU2(GETFIELD, fieldRef(className, fieldName, fieldDescriptor), slots(fieldDescriptor) - 1);
+   }
+
+   /** Writes an instruction that pushes the value of the specified static field on to the operand stack. */
+   void getStatic(String owner, String name, String descriptor) {
+      code.opU2(GETSTATIC, fieldRef(owner, name, descriptor), slots(descriptor));
+   }
+
+   /** Writes an instruction that checks the object reference at the top of the operand stack is of the specified type. */
+   void checkCast(String type) {
+      code.opU2(CHECKCAST, classRef(type), 0);
+   }
+
+   /** Writes an instruction that invokes the specified static method. */
+   void invokeStatic(String owner, String name, String descriptor) {
+      code.opU2(INVOKESTATIC, memberRef(CONSTANT_METHODREF, owner, name, descriptor), invocationStackDelta(descriptor, false));
+   }
+
+   /** Writes an instruction that invokes the specified instance method of a class. */
+   void invokeVirtual(String owner, String name, String descriptor) {
+      code.opU2(INVOKEVIRTUAL, memberRef(CONSTANT_METHODREF, owner, name, descriptor), invocationStackDelta(descriptor, true));
+   }
+
+   /** Writes an instruction that invokes the specified instance method of an interface. */
+   void invokeInterface(String owner, String name, String descriptor) {
+      int stackDelta = invocationStackDelta(descriptor, true);
+      code.opU2(INVOKEINTERFACE, memberRef(CONSTANT_INTERFACE_METHODREF, owner, name, descriptor), stackDelta);
+      code.u1(argumentSlots(descriptor) + 1);
+      code.u1(0);
+   }
+
+   /**
+    * Writes a branch instruction whose target will be specified by a later call to {@link #mark(int)}.
+    *
+    * @return the position of the branch instruction - to be specified when calling {@link #mark(int)}
+    */
+   int branch(int opcode) {
+      int position = code.length;
+      code.opU2(opcode, 0, opcode == GOTO ? 0 : -1);
+      return position;
+   }
+
+   /** Sets the target of the branch instruction at the specified position to be the position of the next instruction to be written. */
+   void mark(int branchPosition) {
+      int offset = code.length - branchPosition;
+      code.bytes[branchPosition + 1] = (byte) (offset >> 8);
+      code.bytes[branchPosition + 2] = (byte) offset;
+   }
+
+   /** Returns the number of slots of the operand stack that will be in use after the instructions written so far have been executed. */
+   int getStackDepth() {
+      return code.stackDepth;
+   }
+
+   /**
+    * Sets the number of slots of the operand stack in use.
+    * <p>
+    * Required when the next instruction is the target of a branch - as the stack depth at that point depends on the instructions that jumped to it, rather
+    * than on the instruction that was written before it.
+    */
+   void setStackDepth(int stackDepth) {
+      code.stackDepth = stackDepth;
+   }
+
+   /** Returns the number of bytes of code written so far. */
+   int getCodeLength() {
+      return code.length;
+   }
+
+   /**
+    * Returns the bytes of a class file containing a method whose body consists of the instructions written to this object.
+    *
+    * @param methodName
+    *           the name of the method whose body consists of the instructions written to this object
+    * @param methodDescriptor
+    *           the type descriptor of the method whose body consists of the instructions written to this object
+    * @param maxLocals
+    *           the number of local variable slots (including those used by {@code this} and the method arguments) used by the instructions
+    */
+   byte[] toByteArray(String methodName, String methodDescriptor, int maxLocals) {
+      // all constant pool entries must be created before the constant pool is written
+      int thisClassIndex = classRef(className);
+      int superClassIndex = classRef(OBJECT_CLASS);
+      int interfaceIndex = classRef(interfaceName);
+      int fieldNameIndex = utf8(fieldName);
+      int fieldDescriptorIndex = utf8(fieldDescriptor);
+      int constructorNameIndex = utf8(CONSTRUCTOR_NAME);
+      int constructorDescriptorIndex = utf8("(" + fieldDescriptor + ")V");
+      int methodNameIndex = utf8(methodName);
+      int methodDescriptorIndex = utf8(methodDescriptor);
+      int codeAttributeNameIndex = utf8("Code");
+      Code constructor = createConstructor();
+
+      try {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         DataOutputStream out = new DataOutputStream(bytes);
+         out.writeInt(MAGIC);
+         out.writeShort(0);
+         out.writeShort(MAJOR_VERSION);
+         out.writeShort(constantPoolCount);
+         constantPoolBytes.writeTo(out);
+         out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+         out.writeShort(thisClassIndex);
+         out.writeShort(superClassIndex);
+         out.writeShort(1);
+         out.writeShort(interfaceIndex);
+
+         out.writeShort(1);
+         out.writeShort(ACC_PRIVATE | ACC_FINAL);
+         out.writeShort(fieldNameIndex);
+         out.writeShort(fieldDescriptorIndex);
+         out.writeShort(0);
+
+         out.writeShort(2);
+         writeMethod(out, constructorNameIndex, constructorDescriptorIndex, codeAttributeNameIndex, constructor, 2);
+         writeMethod(out, methodNameIndex, methodDescriptorIndex, codeAttributeNameIndex, code, maxLocals);
+
+         out.writeShort(0);
+         return bytes.toByteArray();
+      } catch (IOException e) {
+         // should never get here as writing to a ByteArrayOutputStream
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private Code createConstructor() {
+      Code constructor = new Code();
+      constructor.op(ALOAD_0, 1);
+      constructor.opU2(INVOKESPECIAL, memberRef(CONSTANT_METHODREF, OBJECT_CLASS, CONSTRUCTOR_NAME, "()V"), -1);
+      constructor.op(ALOAD_0, 1);
+      constructor.op(ALOAD_1, 1);
+      constructor.opU2(PUTFIELD, fieldRef(className, fieldName, fieldDescriptor), -2);
+      constructor.op(RETURN, 0);
+      return constructor;
+   }
+
+   private static void writeMethod(DataOutputStream out, int nameIndex, int descriptorIndex, int codeAttributeNameIndex, Code code, int maxLocals)
+         throws IOException {
+      out.writeShort(ACC_PUBLIC);
+      out.writeShort(nameIndex);
+      out.writeShort(descriptorIndex);
+      out.writeShort(1);
+      out.writeShort(codeAttributeNameIndex);
+      out.writeInt(12 + code.length);
+      out.writeShort(code.maxStackDepth);
+      out.writeShort(maxLocals);
+      out.writeInt(code.length);
+      out.write(code.bytes, 0, code.length);
+      out.writeShort(0); // exception table length
+      out.writeShort(0); // attributes count
+   }
+
+   private int utf8(String value) {
+      return constant("U" + value, CONSTANT_UTF8, 1, out -> out.writeUTF(value));
+   }
+
+   private int classRef(String internalName) {
+      int nameIndex = utf8(internalName);
+      return constant("C" + internalName, CONSTANT_CLASS, 1, out -> out.writeShort(nameIndex));
+   }
+
+   private int nameAndType(String name, String descriptor) {
+      int nameIndex = utf8(name);
+      int descriptorIndex = utf8(descriptor);
+      return constant("N" + name + ' ' + descriptor, CONSTANT_NAME_AND_TYPE, 1, out -> {
+         out.writeShort(nameIndex);
+         out.writeShort(descriptorIndex);
+      });
+   }
+
+   private int fieldRef(String owner, String name, String descriptor) {
+      return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+   }
+
+   private int memberRef(int tag, String owner, String name, String descriptor) {
+      int classIndex = classRef(owner);
+      int nameAndTypeIndex = nameAndType(name, descriptor);
+      return constant(tag + owner + '.' + name + ' ' + descriptor, tag, 1, out -> {
+         out.writeShort(classIndex);
+         out.writeShort(nameAndTypeIndex);
+      });
+   }
+
+   private int integerConstant(int value) {
+      return constant("I" + value, CONSTANT_INTEGER, 1, out -> out.writeInt(value));
+   }
+
+   private int longConstant(long value) {
+      // long and double constants take up two entries in the constant pool
+      return constant("J" + value, CONSTANT_LONG, 2, out -> out.writeLong(value));
+   }
+
+   private int doubleConstant(double value) {
+      long bits = Double.doubleToRawLongBits(value);
+      return constant("D" + bits, CONSTANT_DOUBLE, 2, out -> out.writeLong(bits));
+   }
+
+   private int constant(String key, int tag, int size, ConstantWriter writer) {
+      Integer existing = constantPoolIndexes.get(key);
+      if (existing != null) {
+         return existing;
+      }
+
+      int index = constantPoolCount;
+      try {
+         constantPool.writeByte(tag);
+         writer.write(constantPool);
+      } catch (IOException e) {
+         // should never get here as writing to a ByteArrayOutputStream
+         throw new UncheckedIOException(e);
+      }
+      constantPoolCount += size;
+      constantPoolIndexes.put(key, index);
+      return index;
+   }
+
+   /** Returns the change in the depth of the operand stack that results from invoking a method with the specified descriptor. */
+   private static int invocationStackDelta(String descriptor, boolean hasReceiver) {
+      int returnSlots = slots(descriptor.substring(descriptor.indexOf(')') + 1));
+      return returnSlots - argumentSlots(descriptor) - (hasReceiver ? 1 : 0);
+   }
+
+   /** Returns the number of operand stack slots used by the arguments of a method with the specified descriptor. */
+   private static int argumentSlots(String descriptor) {
+      int total = 0;
+      int i = 1;
+      while (descriptor.charAt(i) != ')') {
+         char c = descriptor.charAt(i);
+         if (c == 'J' || c == 'D') {
+            total += 2;
+            i++;
+         } else {
+            total++;
+            while (descriptor.charAt(i) == '[') {
+               i++;
+            }
+            i = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+         }
+      }
+      return total;
+   }
+
+   /** Returns the number of operand stack slots used by a value of the type represented by the specified field descriptor. */
+   private static int slots(String fieldDescriptor) {
+      switch (fieldDescriptor.charAt(0)) {
+         case 'V':
+            return 0;
+         case 'J':
+         case 'D':
+            return 2;
+         default:
+            return 1;
+      }
+   }
+
+   @FunctionalInterface
+   private interface ConstantWriter {
+      void write(DataOutputStream out) throws IOException;
+   }
+
+   /** The instructions of a method body. */
+   private final class Code {
+      private byte[] bytes = new byte[64];
+      private int length;
+      private int stackDepth;
+      private int maxStackDepth;
+
+      void op(int opcode, int stackDelta) {
+         u1(opcode);
+         adjustStackDepth(stackDelta);
+      }
+
+      void opU1(int opcode, int operand, int stackDelta) {
+         op(opcode, stackDelta);
+         u1(operand);
+      }
+
+      void opU2(int opcode, int operand, int stackDelta) {
+         op(opcode, stackDelta);
+         u1(operand >> 8);
+         u1(operand);
+      }
+
+      void pushInt(int value) {
+         if (value >= -1 && value <= 5) {
+            op(ICONST_0 + value, 1);
+         } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            opU1(BIPUSH, value, 1);
+         } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            opU2(SIPUSH, value, 1);
+         } else {
+            int index = integerConstant(value);
+            if (index <= 0xff) {
+               opU1(LDC, index, 1);
+            } else {
+               opU2(LDC_W, index, 1);
+            }
+         }
+      }
+
+      void u1(int value) {
+         if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, length * 2);
+         }
+         bytes[length++] = (byte) value;
+      }
+
+      private void adjustStackDepth(int stackDelta) {
+         stackDepth += stackDelta;
+         maxStackDepth = Math.max(maxStackDepth, stackDepth);
+      }
+   }
+}
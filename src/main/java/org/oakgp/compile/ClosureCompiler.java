@@ -0,0 +1,387 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import static org.oakgp.Type.booleanType;
+import static org.oakgp.Type.doubleType;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.longType;
+import static org.oakgp.function.math.DoubleUtils.DOUBLE_UTILS;
+import static org.oakgp.function.math.IntegerUtils.INTEGER_UTILS;
+import static org.oakgp.function.math.LongUtils.LONG_UTILS;
+import static org.oakgp.node.NodeType.isFunction;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import org.oakgp.Arguments;
+import org.oakgp.Assignments;
+import org.oakgp.Type;
+import org.oakgp.function.Function;
+import org.oakgp.function.choice.If;
+import org.oakgp.function.classify.IsNegative;
+import org.oakgp.function.classify.IsPositive;
+import org.oakgp.function.classify.IsZero;
+import org.oakgp.function.compare.Equal;
+import org.oakgp.function.compare.GreaterThan;
+import org.oakgp.function.compare.GreaterThanOrEqual;
+import org.oakgp.function.compare.LessThan;
+import org.oakgp.function.compare.LessThanOrEqual;
+import org.oakgp.function.compare.NotEqual;
+import org.oakgp.node.ConstantNode;
+import org.oakgp.node.EvaluationBudget;
+import org.oakgp.node.FunctionNode;
+import org.oakgp.node.Node;
+import org.oakgp.node.VariableNode;
+
+/**
+ * Compiles tree structures into trees of lambda expressions.
+ * <p>
+ * Each node of the tree is converted, once, into a closure specialised for the type of value it returns and the function it applies. For example, a node that
+ * adds two {@code integer} values is converted into a {@code ToIntFunction} that holds the closures of its two arguments and adds their primitive results. This
+ * avoids the cost of boxing intermediate values, of looking up values in {@link Arguments} and of dispatching calls through
+ * {@link Function#evaluate(Arguments, Assignments)}.
+ * <p>
+ * Unlike {@link BytecodeCompiler}, no classes are generated at runtime - so {@code ClosureCompiler} can be used in environments where dynamic class loading
+ * is not allowed.
+ * <p>
+ * Functions that have no specialised closure are evaluated by calling {@link Function#evaluate(Arguments, Assignments)} with arguments whose function nodes
+ * have themselves been compiled - so any implementation of {@code Function} can be used with a {@code ClosureCompiler}.
+ * <p>
+ * As with an uncompiled {@link FunctionNode}, each application of the closure of a function node counts as a single step against the current
+ * {@link EvaluationBudget}.
+ */
+public final class ClosureCompiler implements NodeCompiler {
+   private static final Map<Function, Operator> OPERATORS = createOperators();
+
+   private static Map<Function, Operator> createOperators() {
+      Map<Function, Operator> operators = new IdentityHashMap<>();
+      operators.put(INTEGER_UTILS.getAdd(), Operator.ADD);
+      operators.put(INTEGER_UTILS.getSubtract(), Operator.SUBTRACT);
+      operators.put(INTEGER_UTILS.getMultiply(), Operator.MULTIPLY);
+      operators.put(INTEGER_UTILS.getDivide(), Operator.DIVIDE);
+      operators.put(LONG_UTILS.getAdd(), Operator.ADD);
+      operators.put(LONG_UTILS.getSubtract(), Operator.SUBTRACT);
+      operators.put(LONG_UTILS.getMultiply(), Operator.MULTIPLY);
+      operators.put(LONG_UTILS.getDivide(), Operator.DIVIDE);
+      operators.put(DOUBLE_UTILS.getAdd(), Operator.ADD);
+      operators.put(DOUBLE_UTILS.getSubtract(), Operator.SUBTRACT);
+      operators.put(DOUBLE_UTILS.getMultiply(), Operator.MULTIPLY);
+      operators.put(DOUBLE_UTILS.getDivide(), Operator.DIVIDE);
+      return operators;
+   }
+
+   /**
+    * Returns a compiled version of the specified {@code Node}.
+    * <p>
+    * Terminal nodes are returned as-is.
+    */
+   @Override
+   public Node compile(Node node) {
+      if (isFunction(node)) {
+         return new ClosureNode(node, objectClosure(node));
+      } else {
+         // nothing to be gained from compiling a constant or variable
+         return node;
+      }
+   }
+
+   private static java.util.function.Function<Assignments, Object> objectClosure(Node node) {
+      if (isFunction(node) && isSpecialised((FunctionNode) node)) {
+         if (node.getType() == integerType()) {
+            ToIntFunction<Assignments> c = intClosure(node);
+            return a -> c.applyAsInt(a);
+         } else if (node.getType() == longType()) {
+            ToLongFunction<Assignments> c = longClosure(node);
+            return a -> c.applyAsLong(a);
+         } else if (node.getType() == doubleType()) {
+            ToDoubleFunction<Assignments> c = doubleClosure(node);
+            return a -> c.applyAsDouble(a);
+         } else if (node.getType() == booleanType()) {
+            Predicate<Assignments> c = booleanClosure(node);
+            return a -> c.test(a);
+         }
+      }
+      return genericClosure(node);
+   }
+
+   /** Returns {@code true} if there is a closure specialised for the function of the given node. */
+   private static boolean isSpecialised(FunctionNode node) {
+      Function function = node.getFunction();
+      return OPERATORS.containsKey(function) || function instanceof If || getClassifier(function) != null
+            || (getComparator(function) != null && isNumeric(function.getSignature().getArgumentType(0)));
+   }
+
+   /** Returns a closure which evaluates the given node without any specialisation. */
+   private static java.util.function.Function<Assignments, Object> genericClosure(Node node) {
+      switch (node.getNodeType()) {
+         case CONSTANT:
+            Object value = node.evaluate(null);
+            return a -> value;
+         case VARIABLE:
+            int id = ((VariableNode) node).getId();
+            return a -> a.get(id);
+         default:
+            FunctionNode functionNode = (FunctionNode) node;
+            Function function = functionNode.getFunction();
+            Arguments arguments = compileArguments(functionNode.getArguments());
+            return a -> {
+               EvaluationBudget.step();
+               return function.evaluate(arguments, a);
+            };
+      }
+   }
+
+   /** Returns a version of the given arguments where each function node has been replaced with a compiled version. */
+   private static Arguments compileArguments(Arguments arguments) {
+      Node[] compiled = new Node[arguments.getArgCount()];
+      for (int i = 0; i < compiled.length; i++) {
+         Node arg = arguments.getArg(i);
+         compiled[i] = isFunction(arg) ? new ClosureNode(arg, objectClosure(arg)) : arg;
+      }
+      return Arguments.createArguments(compiled);
+   }
+
+   private static ToIntFunction<Assignments> intClosure(Node node) {
+      if (node instanceof ConstantNode) {
+         int value = node.evaluate(null);
+         return a -> value;
+      } else if (isFunction(node)) {
+         FunctionNode functionNode = (FunctionNode) node;
+         Function function = functionNode.getFunction();
+         Arguments arguments = functionNode.getArguments();
+         Operator operator = OPERATORS.get(function);
+         if (operator == Operator.DIVIDE && INTEGER_UTILS.isZero(arguments.secondArg())) {
+            // replicates the behaviour of org.oakgp.function.math.Divide - dividing by a constant zero returns one
+            return a -> stepped(1);
+         } else if (operator != null) {
+            ToIntFunction<Assignments> x = intClosure(arguments.firstArg());
+            ToIntFunction<Assignments> y = intClosure(arguments.secondArg());
+            switch (operator) {
+               case ADD:
+                  return a -> stepped(x.applyAsInt(a) + y.applyAsInt(a));
+               case SUBTRACT:
+                  return a -> stepped(x.applyAsInt(a) - y.applyAsInt(a));
+               case MULTIPLY:
+                  return a -> stepped(x.applyAsInt(a) * y.applyAsInt(a));
+               default:
+                  return a -> stepped(x.applyAsInt(a) / y.applyAsInt(a));
+            }
+         } else if (function instanceof If) {
+            Predicate<Assignments> condition = booleanClosure(arguments.firstArg());
+            ToIntFunction<Assignments> x = intClosure(arguments.secondArg());
+            ToIntFunction<Assignments> y = intClosure(arguments.thirdArg());
+            return a -> stepped(condition.test(a) ? x.applyAsInt(a) : y.applyAsInt(a));
+         }
+      }
+      java.util.function.Function<Assignments, Object> c = genericClosure(node);
+      return a -> (Integer) c.apply(a);
+   }
+
+   private static ToLongFunction<Assignments> longClosure(Node node) {
+      if (node instanceof ConstantNode) {
+         long value = node.evaluate(null);
+         return a -> value;
+      } else if (isFunction(node)) {
+         FunctionNode functionNode = (FunctionNode) node;
+         Function function = functionNode.getFunction();
+         Arguments arguments = functionNode.getArguments();
+         Operator operator = OPERATORS.get(function);
+         if (operator == Operator.DIVIDE && LONG_UTILS.isZero(arguments.secondArg())) {
+            // replicates the behaviour of org.oakgp.function.math.Divide - dividing by a constant zero returns one
+            return a -> stepped(1L);
+         } else if (operator != null) {
+            ToLongFunction<Assignments> x = longClosure(arguments.firstArg());
+            ToLongFunction<Assignments> y = longClosure(arguments.secondArg());
+            switch (operator) {
+               case ADD:
+                  return a -> stepped(x.applyAsLong(a) + y.applyAsLong(a));
+               case SUBTRACT:
+                  return a -> stepped(x.applyAsLong(a) - y.applyAsLong(a));
+               case MULTIPLY:
+                  return a -> stepped(x.applyAsLong(a) * y.applyAsLong(a));
+               default:
+                  return a -> stepped(x.applyAsLong(a) / y.applyAsLong(a));
+            }
+         } else if (function instanceof If) {
+            Predicate<Assignments> condition = booleanClosure(arguments.firstArg());
+            ToLongFunction<Assignments> x = longClosure(arguments.secondArg());
+            ToLongFunction<Assignments> y = longClosure(arguments.thirdArg());
+            return a -> stepped(condition.test(a) ? x.applyAsLong(a) : y.applyAsLong(a));
+         }
+      }
+      java.util.function.Function<Assignments, Object> c = genericClosure(node);
+      return a -> (Long) c.apply(a);
+   }
+
+   private static ToDoubleFunction<Assignments> doubleClosure(Node node) {
+      if (node instanceof ConstantNode) {
+         double value = node.evaluate(null);
+         return a -> value;
+      } else if (isFunction(node)) {
+         FunctionNode functionNode = (FunctionNode) node;
+         Function function = functionNode.getFunction();
+         Arguments arguments = functionNode.getArguments();
+         Operator operator = OPERATORS.get(function);
+         if (operator == Operator.DIVIDE && DOUBLE_UTILS.isZero(arguments.secondArg())) {
+            // replicates the behaviour of org.oakgp.function.math.Divide - dividing by a constant zero returns one
+            return a -> stepped(1d);
+         } else if (operator != null) {
+            ToDoubleFunction<Assignments> x = doubleClosure(arguments.firstArg());
+            ToDoubleFunction<Assignments> y = doubleClosure(arguments.secondArg());
+            switch (operator) {
+               case ADD:
+                  return a -> stepped(x.applyAsDouble(a) + y.applyAsDouble(a));
+               case SUBTRACT:
+                  return a -> stepped(x.applyAsDouble(a) - y.applyAsDouble(a));
+               case MULTIPLY:
+                  return a -> stepped(x.applyAsDouble(a) * y.applyAsDouble(a));
+               default:
+                  return a -> stepped(x.applyAsDouble(a) / y.applyAsDouble(a));
+            }
+         } else if (function instanceof If) {
+            Predicate<Assignments> condition = booleanClosure(arguments.firstArg());
+            ToDoubleFunction<Assignments> x = doubleClosure(arguments.secondArg());
+            ToDoubleFunction<Assignments> y = doubleClosure(arguments.thirdArg());
+            return a -> stepped(condition.test(a) ? x.applyAsDouble(a) : y.applyAsDouble(a));
+         }
+      }
+      java.util.function.Function<Assignments, Object> c = genericClosure(node);
+      return a -> (Double) c.apply(a);
+   }
+
+   private static Predicate<Assignments> booleanClosure(Node node) {
+      if (isFunction(node)) {
+         FunctionNode functionNode = (FunctionNode) node;
+         Function function = functionNode.getFunction();
+         Arguments arguments = functionNode.getArguments();
+         IntPredicate classifier = getClassifier(function);
+         IntPredicate comparator = getComparator(function);
+         if (classifier != null) {
+            ToIntFunction<Assignments> x = intClosure(arguments.firstArg());
+            return a -> stepped(classifier.test(x.applyAsInt(a)));
+         } else if (comparator != null && isNumeric(function.getSignature().getArgumentType(0))) {
+            return comparisonClosure(comparator, function.getSignature().getArgumentType(0), arguments.firstArg(), arguments.secondArg());
+         } else if (function instanceof If) {
+            Predicate<Assignments> condition = booleanClosure(arguments.firstArg());
+            Predicate<Assignments> x = booleanClosure(arguments.secondArg());
+            Predicate<Assignments> y = booleanClosure(arguments.thirdArg());
+            return a -> stepped(condition.test(a) ? x.test(a) : y.test(a));
+         }
+      }
+      // replicates the behaviour of If - which treats anything other than Boolean.TRUE as false
+      java.util.function.Function<Assignments, Object> c = genericClosure(node);
+      return a -> Boolean.TRUE.equals(c.apply(a));
+   }
+
+   private static Predicate<Assignments> comparisonClosure(IntPredicate comparator, Type type, Node arg1, Node arg2) {
+      if (type == integerType()) {
+         ToIntFunction<Assignments> x = intClosure(arg1);
+         ToIntFunction<Assignments> y = intClosure(arg2);
+         return a -> stepped(comparator.test(Integer.compare(x.applyAsInt(a), y.applyAsInt(a))));
+      } else if (type == longType()) {
+         ToLongFunction<Assignments> x = longClosure(arg1);
+         ToLongFunction<Assignments> y = longClosure(arg2);
+         return a -> stepped(comparator.test(Long.compare(x.applyAsLong(a), y.applyAsLong(a))));
+      } else {
+         ToDoubleFunction<Assignments> x = doubleClosure(arg1);
+         ToDoubleFunction<Assignments> y = doubleClosure(arg2);
+         return a -> stepped(comparator.test(Double.compare(x.applyAsDouble(a), y.applyAsDouble(a))));
+      }
+   }
+
+   /** Records a step against the current {@code EvaluationBudget} before returning the result of a specialised closure. */
+   private static int stepped(int result) {
+      EvaluationBudget.step();
+      return result;
+   }
+
+   private static long stepped(long result) {
+      EvaluationBudget.step();
+      return result;
+   }
+
+   private static double stepped(double result) {
+      EvaluationBudget.step();
+      return result;
+   }
+
+   private static boolean stepped(boolean result) {
+      EvaluationBudget.step();
+      return result;
+   }
+
+   private static boolean isNumeric(Type type) {
+      return type == integerType() || type == longType() || type == doubleType();
+   }
+
+   /** Returns a predicate that tests an {@code int} value in the same way as the given function, or {@code null} if it is not a classify function. */
+   private static IntPredicate getClassifier(Function function) {
+      if (function instanceof IsZero) {
+         return i -> i == 0;
+      } else if (function instanceof IsPositive) {
+         return i -> i > 0;
+      } else if (function instanceof IsNegative) {
+         return i -> i < 0;
+      } else {
+         return null;
+      }
+   }
+
+   /** Returns a predicate that tests the result of a comparison in the same way as the given function, or {@code null} if it is not a comparison function. */
+   private static IntPredicate getComparator(Function function) {
+      if (function instanceof LessThan) {
+         return diff -> diff < 0;
+      } else if (function instanceof LessThanOrEqual) {
+         return diff -> diff <= 0;
+      } else if (function instanceof GreaterThan) {
+         return diff -> diff > 0;
+      } else if (function instanceof GreaterThanOrEqual) {
+         return diff -> diff >= 0;
+      } else if (function instanceof Equal) {
+         return diff -> diff == 0;
+      } else if (function instanceof NotEqual) {
+         return diff -> diff != 0;
+      } else {
+         return null;
+      }
+   }
+
+   private enum Operator {
+      ADD, SUBTRACT, MULTIPLY, DIVIDE
+   }
+
+   /** Evaluates a tree structure by applying the closure it was compiled into. */
+   private static final class ClosureNode extends CompiledNode {
+      private final java.util.function.Function<Assignments, Object> closure;
+
+      ClosureNode(Node original, java.util.function.Function<Assignments, Object> closure) {
+         super(original);
+         this.closure = closure;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public <T> T evaluate(Assignments assignments) {
+         return (T) closure.apply(assignments);
+      }
+   }
+}
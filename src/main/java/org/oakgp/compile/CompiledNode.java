@@ -0,0 +1,103 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import org.oakgp.Type;
+import org.oakgp.node.Node;
+import org.oakgp.node.NodeType;
+
+/**
+ * The result of compiling a {@code Node}.
+ * <p>
+ * Delegates all operations, other than {@link #evaluate(org.oakgp.Assignments)}, to the original {@code Node} it was compiled from. Two compiled nodes are
+ * considered equal if their originals are equal. (A {@code CompiledNode} is never equal to an uncompiled {@code Node} - as that would not be symmetric.)
+ * <p>
+ * <b>Note:</b> The structure of a compiled node cannot be inspected - use {@link #getOriginal()} to access the tree it was created from.
+ */
+public abstract class CompiledNode implements Node {
+   private final Node original;
+
+   /**
+    * Constructs a {@code CompiledNode} that represents a compiled version of the specified {@code Node}.
+    *
+    * @param original
+    *           the {@code Node} the new {@code CompiledNode} was compiled from
+    */
+   protected CompiledNode(Node original) {
+      this.original = original;
+   }
+
+   /** Returns the {@code Node} this {@code CompiledNode} was compiled from. */
+   public final Node getOriginal() {
+      return original;
+   }
+
+   @Override
+   public final int getNodeCount() {
+      return original.getNodeCount();
+   }
+
+   @Override
+   public final int getNodeCount(Type type) {
+      return original.getNodeCount(type);
+   }
+
+   @Override
+   public final long getVariableMask() {
+      return original.getVariableMask();
+   }
+
+   @Override
+   public final boolean isPure() {
+      return original.isPure();
+   }
+
+   @Override
+   public final int getHeight() {
+      return original.getHeight();
+   }
+
+   @Override
+   public final Type getType() {
+      return original.getType();
+   }
+
+   @Override
+   public final NodeType getNodeType() {
+      return original.getNodeType();
+   }
+
+   @Override
+   public final int hashCode() {
+      return original.hashCode();
+   }
+
+   @Override
+   public final boolean equals(Object o) {
+      if (this == o) {
+         return true;
+      } else if (o instanceof CompiledNode) {
+         return original.equals(((CompiledNode) o).original);
+      } else {
+         return false;
+      }
+   }
+
+   @Override
+   public final String toString() {
+      return original.toString();
+   }
+}
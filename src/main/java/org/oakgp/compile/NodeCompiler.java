@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import org.oakgp.node.Node;
+
+/**
+ * Converts a tree structure into an equivalent {@code Node} that can be evaluated more efficiently.
+ * <p>
+ * The returned {@code Node} must produce the same result as the original when {@link Node#evaluate(org.oakgp.Assignments)} is called with the same
+ * assignments.
+ */
+@FunctionalInterface
+public interface NodeCompiler {
+   /**
+    * Returns a {@code Node} which evaluates to the same results as the specified {@code Node}.
+    *
+    * @param node
+    *           the tree structure to compile
+    * @return a {@code Node} equivalent to {@code node} - or {@code node} itself if it could not be compiled
+    */
+   Node compile(Node node);
+}
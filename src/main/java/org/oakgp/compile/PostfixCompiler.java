@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import static org.oakgp.Type.booleanType;
+import static org.oakgp.Type.doubleType;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.longType;
+import static org.oakgp.compile.PostfixProgram.createPostfixProgram;
+import static org.oakgp.node.NodeType.isFunction;
+
+import org.oakgp.Assignments;
+import org.oakgp.Type;
+import org.oakgp.node.Node;
+
+/**
+ * Compiles tree structures into {@link PostfixProgram} instances.
+ * <p>
+ * Only nodes of type {@code integer}, {@code long}, {@code double} or {@code boolean} are compiled - other nodes are returned as-is.
+ */
+public final class PostfixCompiler implements NodeCompiler {
+   @Override
+   public Node compile(Node node) {
+      if (isFunction(node) && isSupported(node.getType())) {
+         return new PostfixNode(node, createPostfixProgram(node));
+      } else {
+         return node;
+      }
+   }
+
+   private static boolean isSupported(Type type) {
+      return type == integerType() || type == longType() || type == doubleType() || type == booleanType();
+   }
+
+   /** Evaluates a tree structure by executing the {@code PostfixProgram} it was compiled into. */
+   private static final class PostfixNode extends CompiledNode {
+      private final PostfixProgram program;
+
+      PostfixNode(Node original, PostfixProgram program) {
+         super(original);
+         this.program = program;
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public <T> T evaluate(Assignments assignments) {
+         return (T) program.evaluate(assignments);
+      }
+   }
+}
@@ -0,0 +1,537 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import static org.oakgp.Type.booleanType;
+import static org.oakgp.Type.doubleType;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.longType;
+import static org.oakgp.function.math.DoubleUtils.DOUBLE_UTILS;
+import static org.oakgp.function.math.IntegerUtils.INTEGER_UTILS;
+import static org.oakgp.function.math.LongUtils.LONG_UTILS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.oakgp.Arguments;
+import org.oakgp.Assignments;
+import org.oakgp.Type;
+import org.oakgp.function.Function;
+import org.oakgp.function.choice.If;
+import org.oakgp.function.classify.IsNegative;
+import org.oakgp.function.classify.IsPositive;
+import org.oakgp.function.classify.IsZero;
+import org.oakgp.function.compare.Equal;
+import org.oakgp.function.compare.GreaterThan;
+import org.oakgp.function.compare.GreaterThanOrEqual;
+import org.oakgp.function.compare.LessThan;
+import org.oakgp.function.compare.LessThanOrEqual;
+import org.oakgp.function.compare.NotEqual;
+import org.oakgp.node.ConstantNode;
+import org.oakgp.node.FunctionNode;
+import org.oakgp.node.Node;
+import org.oakgp.node.NodeType;
+import org.oakgp.node.VariableNode;
+
+/**
+ * A tree structure flattened into an array of instructions in postfix order.
+ * <p>
+ * Instructions are evaluated by a stack machine that operates on primitive values - avoiding the cost of traversing a graph of {@code FunctionNode},
+ * {@code Arguments} and {@code Node[]} objects, and of boxing intermediate values. Each instruction is represented by a single {@code int} - the low 8 bits
+ * store the opcode and the remaining bits store an operand that refers to an element of the program's function table or node table (or, for jumps, the
+ * position of another instruction).
+ * <p>
+ * Arithmetic (of {@code integer}, {@code long} and {@code double} values), comparisons (of {@code integer}, {@code long} and {@code double} values), the
+ * {@code org.oakgp.function.classify} functions and {@code If} are represented by specific instructions. Any other function nodes are represented by a single
+ * instruction that evaluates the original node.
+ * <p>
+ * The original tree structure can be recreated using {@link #toNode()} - so programs can be stored in their flattened form and converted back to trees when
+ * they need to be modified by genetic operators.
+ */
+public final class PostfixProgram {
+   private static final int OPCODE_BITS = 8;
+   private static final int OPCODE_MASK = (1 << OPCODE_BITS) - 1;
+   private static final int NO_OPERAND = 0;
+
+   // push a constant value - operand is an index into the node table
+   private static final int CONSTANT = 0;
+   // push the value assigned to a variable - operand is an index into the node table
+   private static final int VARIABLE_INT = 1;
+   private static final int VARIABLE_LONG = 2;
+   private static final int VARIABLE_DOUBLE = 3;
+   private static final int VARIABLE_BOOLEAN = 4;
+   // push the result of evaluating a node without specific support - operand is an index into the node table
+   private static final int NODE_INT = 5;
+   private static final int NODE_LONG = 6;
+   private static final int NODE_DOUBLE = 7;
+   private static final int NODE_BOOLEAN = 8;
+   // pop two values and push the result of applying an arithmetic operator - operand is an index into the function table
+   private static final int INT_ADD = 9;
+   private static final int INT_SUBTRACT = 10;
+   private static final int INT_MULTIPLY = 11;
+   private static final int INT_DIVIDE = 12;
+   private static final int LONG_ADD = 13;
+   private static final int LONG_SUBTRACT = 14;
+   private static final int LONG_MULTIPLY = 15;
+   private static final int LONG_DIVIDE = 16;
+   private static final int DOUBLE_ADD = 17;
+   private static final int DOUBLE_SUBTRACT = 18;
+   private static final int DOUBLE_MULTIPLY = 19;
+   private static final int DOUBLE_DIVIDE = 20;
+   // pop two values and push the result of comparing them - no operand
+   private static final int INT_COMPARE = 21;
+   private static final int LONG_COMPARE = 22;
+   private static final int DOUBLE_COMPARE = 23;
+   // pop an integer value and push the result of testing it against zero - operand is an index into the function table
+   private static final int TEST_EQUAL = 24;
+   private static final int TEST_NOT_EQUAL = 25;
+   private static final int TEST_LESS_THAN = 26;
+   private static final int TEST_LESS_THAN_OR_EQUAL = 27;
+   private static final int TEST_GREATER_THAN = 28;
+   private static final int TEST_GREATER_THAN_OR_EQUAL = 29;
+   // pop a boolean value and, if false, jump - operand is the position of the instruction to jump to
+   private static final int JUMP_IF_FALSE = 30;
+   // jump - operand is the position of the instruction to jump to
+   private static final int JUMP = 31;
+   // marks the end of an if expression (the selection has already been performed by jumps) - operand is an index into the function table
+   private static final int END_IF = 32;
+
+   private static final Map<Function, Integer> ARITHMETIC_OPCODES = createArithmeticOpcodes();
+
+   private final int[] instructions;
+   private final Function[] functions;
+   private final Node[] nodes;
+   private final long[] values;
+   private final int maxStackDepth;
+   private final Type type;
+
+   private static Map<Function, Integer> createArithmeticOpcodes() {
+      Map<Function, Integer> opcodes = new IdentityHashMap<>();
+      opcodes.put(INTEGER_UTILS.getAdd(), INT_ADD);
+      opcodes.put(INTEGER_UTILS.getSubtract(), INT_SUBTRACT);
+      opcodes.put(INTEGER_UTILS.getMultiply(), INT_MULTIPLY);
+      opcodes.put(INTEGER_UTILS.getDivide(), INT_DIVIDE);
+      opcodes.put(LONG_UTILS.getAdd(), LONG_ADD);
+      opcodes.put(LONG_UTILS.getSubtract(), LONG_SUBTRACT);
+      opcodes.put(LONG_UTILS.getMultiply(), LONG_MULTIPLY);
+      opcodes.put(LONG_UTILS.getDivide(), LONG_DIVIDE);
+      opcodes.put(DOUBLE_UTILS.getAdd(), DOUBLE_ADD);
+      opcodes.put(DOUBLE_UTILS.getSubtract(), DOUBLE_SUBTRACT);
+      opcodes.put(DOUBLE_UTILS.getMultiply(), DOUBLE_MULTIPLY);
+      opcodes.put(DOUBLE_UTILS.getDivide(), DOUBLE_DIVIDE);
+      return opcodes;
+   }
+
+   /**
+    * Returns a {@code PostfixProgram} that represents the specified {@code Node}.
+    *
+    * @param node
+    *           the tree structure to flatten - must be of type {@code integer}, {@code long}, {@code double} or {@code boolean}
+    * @return a {@code PostfixProgram} that represents {@code node}
+    * @throws IllegalArgumentException
+    *            if {@code node} is not of type {@code integer}, {@code long}, {@code double} or {@code boolean}
+    */
+   public static PostfixProgram createPostfixProgram(Node node) {
+      if (!isPrimitive(node.getType())) {
+         throw new IllegalArgumentException("Unsupported type: " + node.getType());
+      }
+      Builder builder = new Builder();
+      builder.emit(node);
+      return new PostfixProgram(builder, node.getType());
+   }
+
+   private PostfixProgram(Builder builder, Type type) {
+      this.instructions = builder.instructions.stream().mapToInt(Integer::intValue).toArray();
+      this.functions = builder.functions.toArray(new Function[builder.functions.size()]);
+      this.nodes = builder.nodes.toArray(new Node[builder.nodes.size()]);
+      this.values = builder.values.stream().mapToLong(Long::longValue).toArray();
+      this.maxStackDepth = builder.maxStackDepth;
+      this.type = type;
+   }
+
+   /** Returns the number of instructions in this program. */
+   public int getLength() {
+      return instructions.length;
+   }
+
+   /** Returns the {@code Type} of the values returned by evaluating this program. */
+   public Type getType() {
+      return type;
+   }
+
+   /**
+    * Returns the result of evaluating this program using the values of the specified {@code Assignments}.
+    *
+    * @param assignments
+    *           represents the values to assign to any variables used in the evaluation of this program
+    * @return the same result as calling {@link Node#evaluate(Assignments)} on the node this program was created from
+    */
+   public Object evaluate(Assignments assignments) {
+      long result = execute(assignments);
+      if (type == integerType()) {
+         return (int) result;
+      } else if (type == longType()) {
+         return result;
+      } else if (type == doubleType()) {
+         return Double.longBitsToDouble(result);
+      } else {
+         return result != 0;
+      }
+   }
+
+   /**
+    * Executes the instructions of this program and returns the value left on the stack.
+    * <p>
+    * All values are stored on the stack as {@code long} - {@code double} values are represented by their bits and {@code boolean} values by {@code 1} or
+    * {@code 0}.
+    */
+   private long execute(Assignments assignments) {
+      long[] stack = new long[maxStackDepth];
+      int sp = 0;
+      int pc = 0;
+      while (pc < instructions.length) {
+         int instruction = instructions[pc++];
+         int operand = instruction >>> OPCODE_BITS;
+         switch (instruction & OPCODE_MASK) {
+            case CONSTANT:
+               stack[sp++] = values[operand];
+               break;
+            case VARIABLE_INT:
+               stack[sp++] = (Integer) assignments.get((int) values[operand]);
+               break;
+            case VARIABLE_LONG:
+               stack[sp++] = (Long) assignments.get((int) values[operand]);
+               break;
+            case VARIABLE_DOUBLE:
+               stack[sp++] = Double.doubleToRawLongBits((Double) assignments.get((int) values[operand]));
+               break;
+            case VARIABLE_BOOLEAN:
+               stack[sp++] = toLong(assignments.get((int) values[operand]));
+               break;
+            case NODE_INT:
+               stack[sp++] = nodes[operand].evaluateInt(assignments);
+               break;
+            case NODE_LONG:
+               stack[sp++] = nodes[operand].evaluateLong(assignments);
+               break;
+            case NODE_DOUBLE:
+               stack[sp++] = Double.doubleToRawLongBits(nodes[operand].evaluateDouble(assignments));
+               break;
+            case NODE_BOOLEAN:
+               stack[sp++] = toLong(nodes[operand].evaluate(assignments));
+               break;
+            case INT_ADD:
+               sp--;
+               stack[sp - 1] = (int) stack[sp - 1] + (int) stack[sp];
+               break;
+            case INT_SUBTRACT:
+               sp--;
+               stack[sp - 1] = (int) stack[sp - 1] - (int) stack[sp];
+               break;
+            case INT_MULTIPLY:
+               sp--;
+               stack[sp - 1] = (int) stack[sp - 1] * (int) stack[sp];
+               break;
+            case INT_DIVIDE:
+               sp--;
+               stack[sp - 1] = (int) stack[sp - 1] / (int) stack[sp];
+               break;
+            case LONG_ADD:
+               sp--;
+               stack[sp - 1] = stack[sp - 1] + stack[sp];
+               break;
+            case LONG_SUBTRACT:
+               sp--;
+               stack[sp - 1] = stack[sp - 1] - stack[sp];
+               break;
+            case LONG_MULTIPLY:
+               sp--;
+               stack[sp - 1] = stack[sp - 1] * stack[sp];
+               break;
+            case LONG_DIVIDE:
+               sp--;
+               stack[sp - 1] = stack[sp - 1] / stack[sp];
+               break;
+            case DOUBLE_ADD:
+               sp--;
+               stack[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(stack[sp - 1]) + Double.longBitsToDouble(stack[sp]));
+               break;
+            case DOUBLE_SUBTRACT:
+               sp--;
+               stack[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(stack[sp - 1]) - Double.longBitsToDouble(stack[sp]));
+               break;
+            case DOUBLE_MULTIPLY:
+               sp--;
+               stack[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(stack[sp - 1]) * Double.longBitsToDouble(stack[sp]));
+               break;
+            case DOUBLE_DIVIDE:
+               sp--;
+               stack[sp - 1] = Double.doubleToRawLongBits(Double.longBitsToDouble(stack[sp - 1]) / Double.longBitsToDouble(stack[sp]));
+               break;
+            case INT_COMPARE:
+               sp--;
+               stack[sp - 1] = Integer.compare((int) stack[sp - 1], (int) stack[sp]);
+               break;
+            case LONG_COMPARE:
+               sp--;
+               stack[sp - 1] = Long.compare(stack[sp - 1], stack[sp]);
+               break;
+            case DOUBLE_COMPARE:
+               sp--;
+               stack[sp - 1] = Double.compare(Double.longBitsToDouble(stack[sp - 1]), Double.longBitsToDouble(stack[sp]));
+               break;
+            case TEST_EQUAL:
+               stack[sp - 1] = (int) stack[sp - 1] == 0 ? 1 : 0;
+               break;
+            case TEST_NOT_EQUAL:
+               stack[sp - 1] = (int) stack[sp - 1] != 0 ? 1 : 0;
+               break;
+            case TEST_LESS_THAN:
+               stack[sp - 1] = (int) stack[sp - 1] < 0 ? 1 : 0;
+               break;
+            case TEST_LESS_THAN_OR_EQUAL:
+               stack[sp - 1] = (int) stack[sp - 1] <= 0 ? 1 : 0;
+               break;
+            case TEST_GREATER_THAN:
+               stack[sp - 1] = (int) stack[sp - 1] > 0 ? 1 : 0;
+               break;
+            case TEST_GREATER_THAN_OR_EQUAL:
+               stack[sp - 1] = (int) stack[sp - 1] >= 0 ? 1 : 0;
+               break;
+            case JUMP_IF_FALSE:
+               if (stack[--sp] == 0) {
+                  pc = operand;
+               }
+               break;
+            case JUMP:
+               pc = operand;
+               break;
+            case END_IF:
+               break;
+            default:
+               throw new IllegalStateException("Unknown instruction: " + instruction);
+         }
+      }
+      return stack[0];
+   }
+
+   /**
+    * Returns a tree structure equal to the {@code Node} this program was created from.
+    * <p>
+    * The returned tree refers to the same {@code VariableNode} and {@code ConstantNode} instances as the tree the program was created from.
+    */
+   public Node toNode() {
+      // the condition of an if expression remains on the stack while the tree is recreated, so maxStackDepth cannot be used as the size of the stack
+      Node[] stack = new Node[instructions.length];
+      int sp = 0;
+      for (int instruction : instructions) {
+         int operand = instruction >>> OPCODE_BITS;
+         int opcode = instruction & OPCODE_MASK;
+         if (opcode <= NODE_BOOLEAN) {
+            stack[sp++] = nodes[operand];
+         } else if (isFunctionApplication(opcode)) {
+            Function function = functions[operand];
+            int arity = function.getSignature().getArgumentTypesLength();
+            sp -= arity;
+            stack[sp] = new FunctionNode(function, Arguments.createArguments(Arrays.copyOfRange(stack, sp, sp + arity)));
+            sp++;
+         }
+         // compare and jump instructions do not alter the structure of the tree
+      }
+      return stack[0];
+   }
+
+   private static boolean isFunctionApplication(int opcode) {
+      return (opcode >= INT_ADD && opcode <= DOUBLE_DIVIDE) || (opcode >= TEST_EQUAL && opcode <= TEST_GREATER_THAN_OR_EQUAL) || opcode == END_IF;
+   }
+
+   /** Replicates the behaviour of {@code If} - which treats anything other than {@code Boolean.TRUE} as false. */
+   private static long toLong(Object value) {
+      return Boolean.TRUE.equals(value) ? 1 : 0;
+   }
+
+   private static boolean isPrimitive(Type type) {
+      return type == integerType() || type == longType() || type == doubleType() || type == booleanType();
+   }
+
+   /** Accumulates the instructions and tables of a {@code PostfixProgram} while the tree structure is traversed. */
+   private static final class Builder {
+      private final List<Integer> instructions = new ArrayList<>();
+      private final List<Function> functions = new ArrayList<>();
+      private final Map<Function, Integer> functionIndexes = new IdentityHashMap<>();
+      private final List<Node> nodes = new ArrayList<>();
+      private final List<Long> values = new ArrayList<>();
+      private int stackDepth;
+      private int maxStackDepth;
+
+      void emit(Node node) {
+         Type type = node.getType();
+         if (node.getNodeType() == NodeType.CONSTANT) {
+            emitConstant((ConstantNode) node);
+         } else if (node.getNodeType() == NodeType.VARIABLE) {
+            int opcode = selectByType(type, VARIABLE_INT, VARIABLE_LONG, VARIABLE_DOUBLE, VARIABLE_BOOLEAN);
+            add(opcode, addNode(node, ((VariableNode) node).getId()), 1);
+         } else if (!emitFunction((FunctionNode) node)) {
+            // no specific support for this function, so evaluate the original node
+            int opcode = selectByType(type, NODE_INT, NODE_LONG, NODE_DOUBLE, NODE_BOOLEAN);
+            add(opcode, addNode(node, 0), 1);
+         }
+      }
+
+      private void emitConstant(ConstantNode node) {
+         Type type = node.getType();
+         Object value = node.evaluate(null);
+         long bits;
+         if (type == integerType()) {
+            bits = (Integer) value;
+         } else if (type == longType()) {
+            bits = (Long) value;
+         } else if (type == doubleType()) {
+            bits = Double.doubleToRawLongBits((Double) value);
+         } else {
+            bits = toLong(value);
+         }
+         add(CONSTANT, addNode(node, bits), 1);
+      }
+
+      /** Returns {@code false} if there are no specific instructions for the function of the specified node. */
+      private boolean emitFunction(FunctionNode node) {
+         Function function = node.getFunction();
+         Arguments arguments = node.getArguments();
+         Integer arithmeticOpcode = ARITHMETIC_OPCODES.get(function);
+         int testOpcode;
+         if (arithmeticOpcode != null) {
+            if (isDivide(arithmeticOpcode) && isZero(arguments.secondArg())) {
+               // division by a constant zero (which returns one) is handled by evaluating the original node
+               return false;
+            }
+            emit(arguments.firstArg());
+            emit(arguments.secondArg());
+            add(arithmeticOpcode, addFunction(function), -1);
+            return true;
+         } else if ((testOpcode = getClassifyOpcode(function)) != -1) {
+            emit(arguments.firstArg());
+            add(testOpcode, addFunction(function), 0);
+            return true;
+         } else if ((testOpcode = getComparisonOpcode(function)) != -1 && isNumeric(function.getSignature().getArgumentType(0))) {
+            emit(arguments.firstArg());
+            emit(arguments.secondArg());
+            add(selectByType(function.getSignature().getArgumentType(0), INT_COMPARE, LONG_COMPARE, DOUBLE_COMPARE, -1), NO_OPERAND, -1);
+            add(testOpcode, addFunction(function), 0);
+            return true;
+         } else if (function instanceof If) {
+            emit(arguments.firstArg());
+            int jumpToFalse = add(JUMP_IF_FALSE, NO_OPERAND, -1);
+            emit(arguments.secondArg());
+            int jumpToEnd = add(JUMP, NO_OPERAND, 0);
+            // only one of the two branches will be evaluated
+            stackDepth--;
+            setOperand(jumpToFalse, instructions.size());
+            emit(arguments.thirdArg());
+            setOperand(jumpToEnd, instructions.size());
+            // the branches have already been evaluated - so END_IF does not alter the stack, but is needed to recreate the tree structure
+            add(END_IF, addFunction(function), 0);
+            return true;
+         } else {
+            return false;
+         }
+      }
+
+      private int add(int opcode, int operand, int stackDelta) {
+         instructions.add(opcode | (operand << OPCODE_BITS));
+         stackDepth += stackDelta;
+         maxStackDepth = Math.max(maxStackDepth, stackDepth);
+         return instructions.size() - 1;
+      }
+
+      private void setOperand(int position, int operand) {
+         int opcode = instructions.get(position) & OPCODE_MASK;
+         instructions.set(position, opcode | (operand << OPCODE_BITS));
+      }
+
+      private int addFunction(Function function) {
+         return functionIndexes.computeIfAbsent(function, f -> {
+            functions.add(f);
+            return functions.size() - 1;
+         });
+      }
+
+      private int addNode(Node node, long value) {
+         nodes.add(node);
+         values.add(value);
+         return nodes.size() - 1;
+      }
+
+      private static int selectByType(Type type, int integerOption, int longOption, int doubleOption, int booleanOption) {
+         if (type == integerType()) {
+            return integerOption;
+         } else if (type == longType()) {
+            return longOption;
+         } else if (type == doubleType()) {
+            return doubleOption;
+         } else if (type == booleanType()) {
+            return booleanOption;
+         } else {
+            throw new IllegalArgumentException("Unsupported type: " + type);
+         }
+      }
+
+      private static boolean isDivide(int opcode) {
+         return opcode == INT_DIVIDE || opcode == LONG_DIVIDE || opcode == DOUBLE_DIVIDE;
+      }
+
+      private static boolean isZero(Node node) {
+         return INTEGER_UTILS.isZero(node) || LONG_UTILS.isZero(node) || DOUBLE_UTILS.isZero(node);
+      }
+
+      private static boolean isNumeric(Type type) {
+         return type == integerType() || type == longType() || type == doubleType();
+      }
+
+      private static int getClassifyOpcode(Function function) {
+         if (function instanceof IsZero) {
+            return TEST_EQUAL;
+         } else if (function instanceof IsPositive) {
+            return TEST_GREATER_THAN;
+         } else if (function instanceof IsNegative) {
+            return TEST_LESS_THAN;
+         } else {
+            return -1;
+         }
+      }
+
+      private static int getComparisonOpcode(Function function) {
+         if (function instanceof LessThan) {
+            return TEST_LESS_THAN;
+         } else if (function instanceof LessThanOrEqual) {
+            return TEST_LESS_THAN_OR_EQUAL;
+         } else if (function instanceof GreaterThan) {
+            return TEST_GREATER_THAN;
+         } else if (function instanceof GreaterThanOrEqual) {
+            return TEST_GREATER_THAN_OR_EQUAL;
+         } else if (function instanceof Equal) {
+            return TEST_EQUAL;
+         } else if (function instanceof NotEqual) {
+            return TEST_NOT_EQUAL;
+         } else {
+            return -1;
+         }
+      }
+   }
+}
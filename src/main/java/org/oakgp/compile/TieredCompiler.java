@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import org.oakgp.Assignments;
+import org.oakgp.node.Node;
+import org.oakgp.util.ConcurrentCache;
+
+/**
+ * Defers compiling a {@code Node} until it has been evaluated a specified number of times.
+ * <p>
+ * Compiling a tree structure is much more expensive than evaluating it. Many of the candidates created during a run will only be evaluated a small number of
+ * times before being discarded - so the cost of compiling them would never be recovered. The nodes returned by a {@code TieredCompiler} are initially evaluated
+ * by walking the original tree structure. Once a node has been evaluated more than {@code threshold} times it is compiled, using the {@code NodeCompiler}
+ * specified when this object was constructed, and all subsequent evaluations use the compiled version.
+ * <p>
+ * The number of evaluations is recorded per original node, rather than per call to {@link #compile(Node)}, so that evaluations are counted across generations
+ * - e.g. an elite that is evaluated in every generation will eventually be compiled even if each generation only evaluates it a few times. The state of the most
+ * frequently and recently compiled nodes is kept in a size-limited cache.
+ */
+public final class TieredCompiler implements NodeCompiler {
+   private static final int DEFAULT_MAX_SIZE = 10000;
+
+   private final NodeCompiler compiler;
+   private final int threshold;
+   private final ConcurrentCache<Node, TieredNode> nodes;
+
+   /**
+    * Creates a {@code TieredCompiler} that will delegate to the given {@code NodeCompiler} once a node has been evaluated {@code threshold} times.
+    *
+    * @param compiler
+    *           used to compile nodes once they have been evaluated more than {@code threshold} times
+    * @param threshold
+    *           the number of times a node will be evaluated by walking its tree structure before it is compiled
+    */
+   public TieredCompiler(NodeCompiler compiler, int threshold) {
+      this(compiler, threshold, DEFAULT_MAX_SIZE);
+   }
+
+   /**
+    * Creates a {@code TieredCompiler} that will delegate to the given {@code NodeCompiler} once a node has been evaluated {@code threshold} times.
+    *
+    * @param compiler
+    *           used to compile nodes once they have been evaluated more than {@code threshold} times
+    * @param threshold
+    *           the number of times a node will be evaluated by walking its tree structure before it is compiled
+    * @param maxSize
+    *           the maximum number of nodes to record the evaluation count, or compiled version, of
+    */
+   public TieredCompiler(NodeCompiler compiler, int threshold, int maxSize) {
+      if (threshold < 0) {
+         throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+      }
+      this.compiler = compiler;
+      this.threshold = threshold;
+      this.nodes = new ConcurrentCache<>(maxSize);
+   }
+
+   /** Returns the {@code TieredNode} previously returned for an equal node, if still cached, else a new {@code TieredNode}. */
+   @Override
+   public Node compile(Node node) {
+      TieredNode tieredNode = nodes.get(node);
+      if (tieredNode == null) {
+         // if multiple threads compile the same node at the same time then only one of the resulting instances will be cached - which means the evaluations
+         // of the others will not be counted, but that is preferable to the cost of locking
+         tieredNode = new TieredNode(node, compiler, threshold);
+         nodes.put(node, tieredNode);
+      }
+      return tieredNode;
+   }
+
+   /** Evaluates the original node until the evaluation threshold is reached, and then evaluates the compiled version. */
+   static final class TieredNode extends CompiledNode {
+      private final NodeCompiler compiler;
+      private final int threshold;
+      // the following fields are deliberately not synchronised - if multiple threads reach the threshold at the same time then the node may be compiled more
+      // than once, but as every compiled version is equivalent the only consequence is some wasted effort
+      private int evaluationCount;
+      private Node compiled;
+
+      private TieredNode(Node original, NodeCompiler compiler, int threshold) {
+         super(original);
+         this.compiler = compiler;
+         this.threshold = threshold;
+      }
+
+      @Override
+      public <T> T evaluate(Assignments assignments) {
+         Node n = compiled;
+         if (n == null) {
+            if (evaluationCount++ < threshold) {
+               return getOriginal().evaluate(assignments);
+            }
+            n = compiler.compile(getOriginal());
+            compiled = n;
+         }
+         return n.evaluate(assignments);
+      }
+
+      /** Returns {@code true} if the original node has been compiled. */
+      boolean isCompiled() {
+         return compiled != null;
+      }
+   }
+}
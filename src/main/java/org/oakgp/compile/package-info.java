@@ -0,0 +1,2 @@
+/** Provides mechanisms for compiling tree structures into forms that can be evaluated more efficiently than by walking the tree. */
+package org.oakgp.compile;
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.evolve;
+
+import java.util.function.Consumer;
+
+import org.oakgp.node.Node;
+import org.oakgp.select.NodeSelector;
+
+/**
+ * Applies a {@code GeneticOperator} a number of times - selecting all the parents required by those applications in a single batch when the operator
+ * declares how many parents it needs.
+ */
+final class BatchSelection {
+   /** Private constructor as all methods are static. */
+   private BatchSelection() {
+      // do nothing
+   }
+
+   /**
+    * Applies {@code operator} {@code count} times, passing each result to {@code consumer}.
+    * <p>
+    * If {@link GeneticOperator#getParentCount()} is positive then all the parents are obtained by a single call to {@link NodeSelector#next(int)}, else
+    * each application obtains its parents directly from {@code selector}.
+    *
+    * @param operator
+    *           the genetic operator to apply
+    * @param count
+    *           the number of times to apply {@code operator}
+    * @param selector
+    *           used to select the parents
+    * @param consumer
+    *           receives each of the new {@code Node} instances
+    */
+   static void evolve(GeneticOperator operator, int count, NodeSelector selector, Consumer<Node> consumer) {
+      int parentCount = operator.getParentCount();
+      if (parentCount > 0 && count > 0) {
+         Preselected preselected = new Preselected(selector.next(parentCount * count), selector);
+         for (int i = 0; i < count; i++) {
+            consumer.accept(operator.evolve(preselected));
+         }
+      } else {
+         for (int i = 0; i < count; i++) {
+            consumer.accept(operator.evolve(selector));
+         }
+      }
+   }
+
+   /** Returns the nodes of a batch in order - falling back to the original selector if an operator asks for more parents than it declared. */
+   private static final class Preselected implements NodeSelector {
+      private final Node[] nodes;
+      private final NodeSelector fallback;
+      private int ctr;
+
+      Preselected(Node[] nodes, NodeSelector fallback) {
+         this.nodes = nodes;
+         this.fallback = fallback;
+      }
+
+      @Override
+      public Node next() {
+         return ctr < nodes.length ? nodes[ctr++] : fallback.next();
+      }
+   }
+}
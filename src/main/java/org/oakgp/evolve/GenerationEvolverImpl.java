@@ -27,7 +27,12 @@ import org.oakgp.select.NodeSelector;
 import org.oakgp.select.NodeSelectorFactory;
 import org.oakgp.util.NodeSet;
 
-/** Uses a user-defined collection of {@code GeneticOperator} instances to evolve new generations from existing generations. */
+/**
+ * Uses a user-defined collection of {@code GeneticOperator} instances to evolve new generations from existing generations.
+ * <p>
+ * Where a genetic operator declares how many parents it needs (see {@link GeneticOperator#getParentCount()}) the parents for all its applications are obtained
+ * from a single call to {@link NodeSelector#next(int)}.
+ */
 public final class GenerationEvolverImpl implements GenerationEvolver {
    private final int elitismSize;
    private final NodeSelectorFactory selectorFactory;
@@ -68,11 +73,7 @@ public final class GenerationEvolverImpl implements GenerationEvolver {
       }
 
       for (Map.Entry<GeneticOperator, Integer> e : operators.entrySet()) {
-         GeneticOperator operator = e.getKey();
-         int count = e.getValue();
-         for (int i = 0; i < count; i++) {
-            newGeneration.add(operator.evolve(selector));
-         }
+         BatchSelection.evolve(e.getKey(), e.getValue(), selector, newGeneration::add);
       }
 
       return newGeneration;
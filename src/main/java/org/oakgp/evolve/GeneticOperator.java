@@ -29,4 +29,16 @@ public interface GeneticOperator {
     * @return a new {@code Node} evolved from existing instances obtained from {@code selector}
     */
    Node evolve(NodeSelector selector);
+
+   /**
+    * Returns the number of existing instances each invocation of {@link #evolve(NodeSelector)} obtains from its selector.
+    * <p>
+    * Allows the existing instances required by many invocations to be selected in a single batch. The default implementation returns {@code 0} to indicate
+    * the number is not declared - in which case existing instances are selected one at a time.
+    *
+    * @return the number of existing instances obtained by each invocation of {@link #evolve(NodeSelector)}, or {@code 0} if not declared
+    */
+   default int getParentCount() {
+      return 0;
+   }
 }
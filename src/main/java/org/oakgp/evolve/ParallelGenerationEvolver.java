@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.evolve;
+
+import static java.lang.Math.min;
+import static org.oakgp.NodeSimplifier.simplify;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.select.NodeSelector;
+import org.oakgp.select.NodeSelectorFactory;
+import org.oakgp.util.Random;
+
+/**
+ * Evolves new generations by applying {@code GeneticOperator} instances concurrently using a {@code ForkJoinPool}.
+ * <p>
+ * The work of each invocation of {@link #evolve(RankedCandidates)} is divided between a number of <i>streams</i> - one per thread of the pool. Each stream has
+ * its own {@code Random}, its own {@code NodeSelector} and its own instances of the genetic operators - so streams do not contend on shared random number
+ * generators or selectors. The new candidates are simplified by the thread that created them. Once all the streams have finished, their candidates are added
+ * to the new generation in the order of the streams - removing any duplicates - so the order of the new generation does not depend on how the work was
+ * scheduled.
+ *
+ * @see GenerationEvolverImpl
+ */
+public final class ParallelGenerationEvolver implements GenerationEvolver {
+   private final int elitismSize;
+   private final ForkJoinPool pool;
+   private final Stream[] streams;
+
+   /**
+    * Creates a {@code ParallelGenerationEvolver} that uses the given values to evolve new generations.
+    *
+    * @param elitismSize
+    *           the number of best candidates from an existing generation to automatically include "as-is" in the next generation
+    * @param selectorFactory
+    *           given the {@code Random} of a stream, returns the factory that stream should use to create selectors
+    * @param operators
+    *           given the {@code Random} of a stream, returns the genetic operators that stream should use - where the key = a genetic operator and the value =
+    *           the number of times that genetic operator should be applied, across all streams, during each single invocation of
+    *           {@link #evolve(RankedCandidates)}
+    * @param random
+    *           {@link Random#split() split} to create the {@code Random} of each stream
+    * @param pool
+    *           the pool used to run the streams - one stream is created for each thread of the pool
+    */
+   public ParallelGenerationEvolver(int elitismSize, java.util.function.Function<Random, NodeSelectorFactory> selectorFactory,
+         java.util.function.Function<Random, Map<GeneticOperator, Integer>> operators, Random random, ForkJoinPool pool) {
+      this(elitismSize, selectorFactory, operators, random, pool, pool.getParallelism());
+   }
+
+   /**
+    * Creates a {@code ParallelGenerationEvolver} that divides the work of each generation between the specified number of streams.
+    * <p>
+    * As the work of a stream is always performed by a single thread, using a fixed number of streams means that - given the same {@code random} and genetic
+    * operators whose only source of randomness is the {@code Random} of their stream - the same generations are evolved regardless of the number of threads of
+    * {@code pool}.
+    *
+    * @param pool
+    *           the pool used to run the streams - or {@code null} to run the streams one after another on the thread calling
+    *           {@link #evolve(RankedCandidates)}
+    * @param numStreams
+    *           the number of streams to divide the application of the genetic operators between
+    * @throws IllegalArgumentException
+    *            if {@code numStreams} is not a positive integer
+    * @see #ParallelGenerationEvolver(int, java.util.function.Function, java.util.function.Function, Random, ForkJoinPool)
+    */
+   public ParallelGenerationEvolver(int elitismSize, java.util.function.Function<Random, NodeSelectorFactory> selectorFactory,
+         java.util.function.Function<Random, Map<GeneticOperator, Integer>> operators, Random random, ForkJoinPool pool, int numStreams) {
+      if (numStreams < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + numStreams);
+      }
+      this.elitismSize = elitismSize;
+      this.pool = pool;
+      this.streams = new Stream[numStreams];
+      for (int i = 0; i < streams.length; i++) {
+         Random streamRandom = random.split();
+         streams[i] = new Stream(selectorFactory.apply(streamRandom), operators.apply(streamRandom), i, streams.length);
+      }
+   }
+
+   /**
+    * Returns a new generation of {@code Node} instances evolved from the specified existing generation.
+    *
+    * @param oldGeneration
+    *           the existing generation to use as a basis for evolving a new generation
+    * @return a new generation of {@code Node} instances evolved from the existing generation specified by {@code oldGeneration}
+    */
+   @Override
+   public Collection<Node> evolve(RankedCandidates oldGeneration) {
+      Set<Node> newGeneration = new LinkedHashSet<>();
+
+      final int elitismSizeForGeneration = min(elitismSize, oldGeneration.size());
+      for (int i = 0; i < elitismSizeForGeneration; i++) {
+         newGeneration.add(simplify(oldGeneration.get(i).getNode()));
+      }
+
+      if (pool == null) {
+         for (Stream stream : streams) {
+            newGeneration.addAll(stream.evolve(oldGeneration));
+         }
+      } else {
+         List<ForkJoinTask<List<Node>>> tasks = new ArrayList<>(streams.length);
+         for (Stream stream : streams) {
+            tasks.add(pool.submit(() -> stream.evolve(oldGeneration)));
+         }
+         for (ForkJoinTask<List<Node>> task : tasks) {
+            newGeneration.addAll(task.join());
+         }
+      }
+
+      return newGeneration;
+   }
+
+   /** The genetic operators, and the number of times to apply each of them, of a single stream. */
+   private static final class Stream {
+      private final NodeSelectorFactory selectorFactory;
+      private final GeneticOperator[] operators;
+      private final int[] counts;
+
+      Stream(NodeSelectorFactory selectorFactory, Map<GeneticOperator, Integer> operators, int streamIdx, int numStreams) {
+         this.selectorFactory = selectorFactory;
+         this.operators = new GeneticOperator[operators.size()];
+         this.counts = new int[operators.size()];
+         int i = 0;
+         for (Map.Entry<GeneticOperator, Integer> e : operators.entrySet()) {
+            // share the quota of each operator between the streams - with the remainder going to the first streams
+            int count = e.getValue();
+            this.operators[i] = e.getKey();
+            this.counts[i] = count / numStreams + (streamIdx < count % numStreams ? 1 : 0);
+            i++;
+         }
+      }
+
+      /** Returns the simplified versions of the candidates evolved by this stream. */
+      List<Node> evolve(RankedCandidates oldGeneration) {
+         NodeSelector selector = selectorFactory.getSelector(oldGeneration);
+         List<Node> children = new ArrayList<>();
+         for (int i = 0; i < operators.length; i++) {
+            BatchSelection.evolve(operators[i], counts[i], selector, n -> children.add(simplify(n)));
+         }
+         return children;
+      }
+   }
+}
@@ -51,4 +51,9 @@ public final class OnePointCrossover implements GeneticOperator {
          return CommonRegion.crossoverAt(parent1, parent2, crossoverPoint);
       }
    }
+
+   @Override
+   public int getParentCount() {
+      return 2;
+   }
 }
@@ -15,8 +15,6 @@
  */
 package org.oakgp.evolve.crossover;
 
-import java.util.function.Predicate;
-
 import org.oakgp.Type;
 import org.oakgp.evolve.GeneticOperator;
 import org.oakgp.node.Node;
@@ -58,14 +56,19 @@ public final class SubtreeCrossover implements GeneticOperator {
       return DepthWalk.replaceAt(parent1, to, (t, d) -> {
          int maxHeightParent2 = maxDepth - d;
          Type toType = t.getType();
-         Predicate<Node> treeWalkerStrategy = n -> n.getType() == toType && n.getHeight() <= maxHeightParent2 + 1;
-         int nodeCount = StrategyWalk.getNodeCount(parent2, treeWalkerStrategy);
+         // uses the heights and type counts cached by each node, rather than testing every node of parent2 against a predicate
+         int nodeCount = StrategyWalk.getNodeCount(parent2, toType, maxHeightParent2 + 1);
          if (nodeCount == 0) {
             return t;
          } else {
             int from = random.nextInt(nodeCount);
-            return StrategyWalk.getAt(parent2, from, treeWalkerStrategy);
+            return StrategyWalk.getAt(parent2, from, toType, maxHeightParent2 + 1);
          }
       });
    }
+
+   @Override
+   public int getParentCount() {
+      return 2;
+   }
 }
@@ -48,4 +48,9 @@ public final class ConstantToFunctionMutation implements GeneticOperator {
       int index = random.nextInt(nodeCount);
       return StrategyWalk.replaceAt(root, index, n -> treeGenerator.generate(n.getType(), 2), NodeType::isTerminal);
    }
+
+   @Override
+   public int getParentCount() {
+      return 1;
+   }
 }
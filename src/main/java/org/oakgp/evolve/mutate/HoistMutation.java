@@ -51,4 +51,9 @@ public final class HoistMutation implements GeneticOperator {
          return StrategyWalk.getAt(root, index, treeWalkerStrategy);
       }
    }
+
+   @Override
+   public int getParentCount() {
+      return 1;
+   }
 }
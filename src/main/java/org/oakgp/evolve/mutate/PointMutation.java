@@ -67,4 +67,9 @@ public final class PointMutation implements GeneticOperator {
          }
       });
    }
+
+   @Override
+   public int getParentCount() {
+      return 1;
+   }
 }
@@ -63,4 +63,9 @@ public final class ShrinkMutation implements GeneticOperator {
          return StrategyWalk.replaceAt(root, index, primitiveSet::nextAlternativeTerminal, NodeType::isFunction);
       }
    }
+
+   @Override
+   public int getParentCount() {
+      return 1;
+   }
 }
@@ -49,4 +49,9 @@ public final class SubTreeMutation implements GeneticOperator {
          return treeGenerator.generate(node.getType(), node.getHeight());
       });
    }
+
+   @Override
+   public int getParentCount() {
+      return 1;
+   }
 }
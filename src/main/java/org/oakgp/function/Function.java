@@ -17,6 +17,7 @@ package org.oakgp.function;
 
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.Type;
 import org.oakgp.node.Node;
 
@@ -33,6 +34,112 @@ public interface Function {
     */
    Object evaluate(Arguments arguments, Assignments assignments);
 
+   /**
+    * Returns the result of applying this operation, which must return values of type {@code integer}, as a primitive {@code int}.
+    * <p>
+    * Functions that operate on primitive values can override this method to avoid the cost of boxing intermediate values - by calling
+    * {@link Node#evaluateInt(Assignments)} (or equivalent) on their arguments. The default implementation unboxes the result of
+    * {@link #evaluate(Arguments, Assignments)}.
+    *
+    * @param arguments
+    *           represents the arguments to apply to the operation
+    * @param assignments
+    *           represents values assigned to variables belonging to {@code arguments}
+    * @return the result of applying this operation to the {@code arguments} and {@code assignments}
+    */
+   default int evaluateInt(Arguments arguments, Assignments assignments) {
+      return (Integer) evaluate(arguments, assignments);
+   }
+
+   /**
+    * Returns the result of applying this operation, which must return values of type {@code long}, as a primitive {@code long}.
+    *
+    * @see #evaluateInt(Arguments, Assignments)
+    */
+   default long evaluateLong(Arguments arguments, Assignments assignments) {
+      return (Long) evaluate(arguments, assignments);
+   }
+
+   /**
+    * Returns the result of applying this operation, which must return values of type {@code double}, as a primitive {@code double}.
+    *
+    * @see #evaluateInt(Arguments, Assignments)
+    */
+   default double evaluateDouble(Arguments arguments, Assignments assignments) {
+      return (Double) evaluate(arguments, assignments);
+   }
+
+   /**
+    * Returns the result of applying this operation, which must return values of type {@code boolean}, as a primitive {@code boolean}.
+    *
+    * @see #evaluateInt(Arguments, Assignments)
+    */
+   default boolean evaluateBoolean(Arguments arguments, Assignments assignments) {
+      return (Boolean) evaluate(arguments, assignments);
+   }
+
+   /**
+    * Returns the results of applying this operation to the specified {@code Arguments} for every row of the specified {@code ColumnarAssignments}.
+    * <p>
+    * Functions can override this method to process the results of evaluating their arguments for all rows at once - see
+    * {@link Node#evaluateBatch(ColumnarAssignments)}. The default implementation calls {@link #evaluate(Arguments, Assignments)} for each row.
+    *
+    * @param arguments
+    *           represents the arguments to apply to the operation
+    * @param assignments
+    *           the rows of values assigned to variables belonging to {@code arguments}
+    * @return the results of applying this operation - one element per row of {@code assignments}
+    */
+   default Object[] evaluateBatch(Arguments arguments, ColumnarAssignments assignments) {
+      Object[] result = new Object[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluate(arguments, assignments.getRow(i));
+      }
+      return result;
+   }
+
+   /**
+    * Returns the results of applying this operation, which must return values of type {@code integer}, for every row of the specified
+    * {@code ColumnarAssignments}.
+    *
+    * @see #evaluateBatch(Arguments, ColumnarAssignments)
+    */
+   default int[] evaluateIntBatch(Arguments arguments, ColumnarAssignments assignments) {
+      int[] result = new int[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluateInt(arguments, assignments.getRow(i));
+      }
+      return result;
+   }
+
+   /**
+    * Returns the results of applying this operation, which must return values of type {@code double}, for every row of the specified
+    * {@code ColumnarAssignments}.
+    *
+    * @see #evaluateBatch(Arguments, ColumnarAssignments)
+    */
+   default double[] evaluateDoubleBatch(Arguments arguments, ColumnarAssignments assignments) {
+      double[] result = new double[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluateDouble(arguments, assignments.getRow(i));
+      }
+      return result;
+   }
+
+   /**
+    * Returns the results of applying this operation, which must return values of type {@code boolean}, for every row of the specified
+    * {@code ColumnarAssignments}.
+    *
+    * @see #evaluateBatch(Arguments, ColumnarAssignments)
+    */
+   default boolean[] evaluateBooleanBatch(Arguments arguments, ColumnarAssignments assignments) {
+      boolean[] result = new boolean[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluateBoolean(arguments, assignments.getRow(i));
+      }
+      return result;
+   }
+
    /** Returns the return type and argument types associated with this function. */
    Signature getSignature();
 
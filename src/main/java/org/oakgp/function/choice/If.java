@@ -19,10 +19,13 @@ import static java.lang.Boolean.TRUE;
 import static org.oakgp.Type.booleanType;
 import static org.oakgp.node.NodeType.isConstant;
 
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
 
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.Type;
 import org.oakgp.function.Function;
 import org.oakgp.function.Signature;
@@ -58,6 +61,109 @@ public final class If implements Function {
       return arguments.getArg(index).evaluate(assignments);
    }
 
+   @Override
+   public int evaluateInt(Arguments arguments, Assignments assignments) {
+      int index = getOutcomeArgumentIndex(arguments, assignments);
+      return arguments.getArg(index).evaluateInt(assignments);
+   }
+
+   @Override
+   public long evaluateLong(Arguments arguments, Assignments assignments) {
+      int index = getOutcomeArgumentIndex(arguments, assignments);
+      return arguments.getArg(index).evaluateLong(assignments);
+   }
+
+   @Override
+   public double evaluateDouble(Arguments arguments, Assignments assignments) {
+      int index = getOutcomeArgumentIndex(arguments, assignments);
+      return arguments.getArg(index).evaluateDouble(assignments);
+   }
+
+   @Override
+   public boolean evaluateBoolean(Arguments arguments, Assignments assignments) {
+      int index = getOutcomeArgumentIndex(arguments, assignments);
+      return arguments.getArg(index).evaluateBoolean(assignments);
+   }
+
+   @Override
+   public Object[] evaluateBatch(Arguments arguments, ColumnarAssignments assignments) {
+      return evaluateBatch(arguments, assignments, Node::evaluateBatch, Object[]::new);
+   }
+
+   @Override
+   public int[] evaluateIntBatch(Arguments arguments, ColumnarAssignments assignments) {
+      return evaluateBatch(arguments, assignments, Node::evaluateIntBatch, int[]::new);
+   }
+
+   @Override
+   public double[] evaluateDoubleBatch(Arguments arguments, ColumnarAssignments assignments) {
+      return evaluateBatch(arguments, assignments, Node::evaluateDoubleBatch, double[]::new);
+   }
+
+   @Override
+   public boolean[] evaluateBooleanBatch(Arguments arguments, ColumnarAssignments assignments) {
+      return evaluateBatch(arguments, assignments, Node::evaluateBooleanBatch, boolean[]::new);
+   }
+
+   private static <T> T evaluateBatch(Arguments arguments, ColumnarAssignments assignments, BiFunction<Node, ColumnarAssignments, T> evaluator,
+         IntFunction<T> arrayFactory) {
+      boolean[] conditions = arguments.firstArg().evaluateBooleanBatch(assignments);
+      int[] trueRows = new int[conditions.length];
+      int[] falseRows = new int[conditions.length];
+      int trueCount = 0;
+      int falseCount = 0;
+      for (int i = 0; i < conditions.length; i++) {
+         if (conditions[i]) {
+            trueRows[trueCount++] = i;
+         } else {
+            falseRows[falseCount++] = i;
+         }
+      }
+
+      Node trueBranch = arguments.getArg(TRUE_IDX);
+      Node falseBranch = arguments.getArg(FALSE_IDX);
+      if (falseCount == 0) {
+         return evaluator.apply(trueBranch, assignments);
+      } else if (trueCount == 0) {
+         return evaluator.apply(falseBranch, assignments);
+      } else {
+         // only evaluate each branch against the rows it applies to - as evaluating a branch against other rows could fail (e.g. by dividing by zero)
+         T result = arrayFactory.apply(conditions.length);
+         scatter(evaluator.apply(trueBranch, assignments.subset(trueRows, trueCount)), trueRows, trueCount, result);
+         scatter(evaluator.apply(falseBranch, assignments.subset(falseRows, falseCount)), falseRows, falseCount, result);
+         return result;
+      }
+   }
+
+   /** Copies each element of {@code source} to the position of {@code destination} specified by the corresponding element of {@code indexes}. */
+   private static void scatter(Object source, int[] indexes, int count, Object destination) {
+      if (source instanceof int[]) {
+         int[] s = (int[]) source;
+         int[] d = (int[]) destination;
+         for (int i = 0; i < count; i++) {
+            d[indexes[i]] = s[i];
+         }
+      } else if (source instanceof double[]) {
+         double[] s = (double[]) source;
+         double[] d = (double[]) destination;
+         for (int i = 0; i < count; i++) {
+            d[indexes[i]] = s[i];
+         }
+      } else if (source instanceof boolean[]) {
+         boolean[] s = (boolean[]) source;
+         boolean[] d = (boolean[]) destination;
+         for (int i = 0; i < count; i++) {
+            d[indexes[i]] = s[i];
+         }
+      } else {
+         Object[] s = (Object[]) source;
+         Object[] d = (Object[]) destination;
+         for (int i = 0; i < count; i++) {
+            d[indexes[i]] = s[i];
+         }
+      }
+   }
+
    @Override
    public Signature getSignature() {
       return signature;
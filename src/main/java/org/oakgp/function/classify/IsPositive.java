@@ -20,6 +20,7 @@ import static org.oakgp.Type.integerType;
 
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.function.Function;
 import org.oakgp.function.Signature;
 
@@ -29,8 +30,22 @@ public final class IsPositive implements Function {
 
    @Override
    public Object evaluate(Arguments arguments, Assignments assignments) {
-      int i = arguments.firstArg().evaluate(assignments);
-      return i > 0;
+      return evaluateBoolean(arguments, assignments);
+   }
+
+   @Override
+   public boolean evaluateBoolean(Arguments arguments, Assignments assignments) {
+      return arguments.firstArg().evaluateInt(assignments) > 0;
+   }
+
+   @Override
+   public boolean[] evaluateBooleanBatch(Arguments arguments, ColumnarAssignments assignments) {
+      int[] values = arguments.firstArg().evaluateIntBatch(assignments);
+      boolean[] result = new boolean[values.length];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = values[i] > 0;
+      }
+      return result;
    }
 
    @Override
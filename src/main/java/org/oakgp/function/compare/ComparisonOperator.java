@@ -16,9 +16,13 @@
 package org.oakgp.function.compare;
 
 import static org.oakgp.Type.booleanType;
+import static org.oakgp.Type.doubleType;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.longType;
 
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.Type;
 import org.oakgp.function.Function;
 import org.oakgp.function.Signature;
@@ -26,26 +30,80 @@ import org.oakgp.node.Node;
 import org.oakgp.util.Utils;
 
 abstract class ComparisonOperator implements Function {
+   private final Type type;
    private final Signature signature;
    private final boolean equalsIsTrue;
 
    protected ComparisonOperator(Type type, boolean equalsIsTrue) {
+      this.type = type;
       this.signature = Signature.createSignature(booleanType(), type, type);
       this.equalsIsTrue = equalsIsTrue;
    }
 
    @Override
    public final Object evaluate(Arguments arguments, Assignments assignments) {
-      Comparable o1 = arguments.firstArg().evaluate(assignments);
-      Comparable o2 = arguments.secondArg().evaluate(assignments);
-      int diff = o1.compareTo(o2);
-      if (evaluate(diff)) {
+      if (evaluateBoolean(arguments, assignments)) {
          return Boolean.TRUE;
       } else {
          return Boolean.FALSE;
       }
    }
 
+   @Override
+   public final boolean evaluateBoolean(Arguments arguments, Assignments assignments) {
+      Node arg1 = arguments.firstArg();
+      Node arg2 = arguments.secondArg();
+      int diff;
+      // compare primitive values, where possible, to avoid boxing
+      if (type == integerType()) {
+         diff = Integer.compare(arg1.evaluateInt(assignments), arg2.evaluateInt(assignments));
+      } else if (type == longType()) {
+         diff = Long.compare(arg1.evaluateLong(assignments), arg2.evaluateLong(assignments));
+      } else if (type == doubleType()) {
+         diff = Double.compare(arg1.evaluateDouble(assignments), arg2.evaluateDouble(assignments));
+      } else {
+         Comparable o1 = arg1.evaluate(assignments);
+         Comparable o2 = arg2.evaluate(assignments);
+         diff = o1.compareTo(o2);
+      }
+      return evaluate(diff);
+   }
+
+   @Override
+   public final Object[] evaluateBatch(Arguments arguments, ColumnarAssignments assignments) {
+      boolean[] values = evaluateBooleanBatch(arguments, assignments);
+      Object[] result = new Object[values.length];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = values[i] ? Boolean.TRUE : Boolean.FALSE;
+      }
+      return result;
+   }
+
+   @Override
+   public final boolean[] evaluateBooleanBatch(Arguments arguments, ColumnarAssignments assignments) {
+      Node arg1 = arguments.firstArg();
+      Node arg2 = arguments.secondArg();
+      boolean[] result = new boolean[assignments.getRowCount()];
+      if (type == integerType()) {
+         int[] x = arg1.evaluateIntBatch(assignments);
+         int[] y = arg2.evaluateIntBatch(assignments);
+         for (int i = 0; i < result.length; i++) {
+            result[i] = evaluate(Integer.compare(x[i], y[i]));
+         }
+      } else if (type == doubleType()) {
+         double[] x = arg1.evaluateDoubleBatch(assignments);
+         double[] y = arg2.evaluateDoubleBatch(assignments);
+         for (int i = 0; i < result.length; i++) {
+            result[i] = evaluate(Double.compare(x[i], y[i]));
+         }
+      } else {
+         for (int i = 0; i < result.length; i++) {
+            result[i] = evaluateBoolean(arguments, assignments.getRow(i));
+         }
+      }
+      return result;
+   }
+
    protected abstract boolean evaluate(int diff);
 
    @Override
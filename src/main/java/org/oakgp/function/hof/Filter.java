@@ -29,6 +29,7 @@ import org.oakgp.Assignments;
 import org.oakgp.Type;
 import org.oakgp.function.Function;
 import org.oakgp.function.Signature;
+import org.oakgp.node.EvaluationBudget;
 import org.oakgp.node.Node;
 
 /**
@@ -58,6 +59,7 @@ public final class Filter implements Function {
       Collection<Node> candidates = arguments.secondArg().evaluate(assignments);
       List<Node> result = new ArrayList<>();
       for (Node candidate : candidates) {
+         EvaluationBudget.step();
          if ((Boolean) f.evaluate(Arguments.createArguments(candidate), assignments)) {
             result.add(candidate);
          }
@@ -29,6 +29,7 @@ import org.oakgp.Assignments;
 import org.oakgp.Type;
 import org.oakgp.function.Function;
 import org.oakgp.function.Signature;
+import org.oakgp.node.EvaluationBudget;
 import org.oakgp.node.Node;
 
 /** Uses a function to group elements of a collection. */
@@ -45,6 +46,7 @@ public class GroupBy implements Function {
       Collection<Node> candidates = arguments.secondArg().evaluate(assignments);
       LinkedHashMap<Object, ArrayList<Object>> result = new LinkedHashMap<>();
       for (Node inputNode : candidates) {
+         EvaluationBudget.step();
          Object evaluateResult = f.evaluate(Arguments.createArguments(inputNode), assignments);
          result.computeIfAbsent(evaluateResult, k -> new ArrayList<>()).add(inputNode.evaluate(assignments));
       }
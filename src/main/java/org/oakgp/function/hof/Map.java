@@ -29,6 +29,7 @@ import org.oakgp.Type;
 import org.oakgp.function.Function;
 import org.oakgp.function.Signature;
 import org.oakgp.node.ConstantNode;
+import org.oakgp.node.EvaluationBudget;
 import org.oakgp.node.Node;
 
 /**
@@ -61,6 +62,7 @@ public final class Map implements Function {
       Collection<Node> candidates = arguments.secondArg().evaluate(assignments);
       List<Node> result = new ArrayList<>();
       for (Node inputNode : candidates) {
+         EvaluationBudget.step();
          Object evaluateResult = f.evaluate(Arguments.createArguments(inputNode), assignments);
          ConstantNode outputNode = new ConstantNode(evaluateResult, returnType);
          result.add(outputNode);
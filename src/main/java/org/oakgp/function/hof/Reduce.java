@@ -27,6 +27,7 @@ import org.oakgp.Type;
 import org.oakgp.function.Function;
 import org.oakgp.function.Signature;
 import org.oakgp.node.ConstantNode;
+import org.oakgp.node.EvaluationBudget;
 import org.oakgp.node.Node;
 
 /**
@@ -60,6 +61,7 @@ public final class Reduce implements Function {
       Node result = arguments.secondArg();
       Collection<Node> candidates = arguments.thirdArg().evaluate(assignments);
       for (Node n : candidates) {
+         EvaluationBudget.step();
          result = new ConstantNode(f.evaluate(createArguments(result, n), assignments), f.getSignature().getReturnType());
       }
       return result.evaluate(assignments);
@@ -15,27 +15,124 @@
  */
 package org.oakgp.function.math;
 
+import static org.oakgp.Type.doubleType;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.longType;
+
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.Type;
 import org.oakgp.function.Function;
 import org.oakgp.function.Signature;
 import org.oakgp.node.Node;
 
 abstract class ArithmeticOperator implements Function {
+   private final Type type;
    private final Signature signature;
 
    protected ArithmeticOperator(Type type) {
-      signature = Signature.createSignature(type, type, type);
+      this.type = type;
+      this.signature = Signature.createSignature(type, type, type);
    }
 
    @Override
    public final Object evaluate(Arguments arguments, Assignments assignments) {
-      return evaluate(arguments.firstArg(), arguments.secondArg(), assignments);
+      Node arg1 = arguments.firstArg();
+      Node arg2 = arguments.secondArg();
+      // use primitive values, where possible, so only the final result is boxed
+      if (type == integerType()) {
+         return evaluateInt(arg1, arg2, assignments);
+      } else if (type == longType()) {
+         return evaluateLong(arg1, arg2, assignments);
+      } else if (type == doubleType()) {
+         return evaluateDouble(arg1, arg2, assignments);
+      } else {
+         return evaluate(arg1, arg2, assignments);
+      }
+   }
+
+   @Override
+   public final int evaluateInt(Arguments arguments, Assignments assignments) {
+      return evaluateInt(arguments.firstArg(), arguments.secondArg(), assignments);
+   }
+
+   @Override
+   public final long evaluateLong(Arguments arguments, Assignments assignments) {
+      return evaluateLong(arguments.firstArg(), arguments.secondArg(), assignments);
+   }
+
+   @Override
+   public final double evaluateDouble(Arguments arguments, Assignments assignments) {
+      return evaluateDouble(arguments.firstArg(), arguments.secondArg(), assignments);
+   }
+
+   @Override
+   public final Object[] evaluateBatch(Arguments arguments, ColumnarAssignments assignments) {
+      Object[] result = new Object[assignments.getRowCount()];
+      if (type == integerType()) {
+         int[] values = evaluateIntBatch(arguments, assignments);
+         for (int i = 0; i < result.length; i++) {
+            result[i] = values[i];
+         }
+      } else if (type == doubleType()) {
+         double[] values = evaluateDoubleBatch(arguments, assignments);
+         for (int i = 0; i < result.length; i++) {
+            result[i] = values[i];
+         }
+      } else {
+         for (int i = 0; i < result.length; i++) {
+            result[i] = evaluate(arguments, assignments.getRow(i));
+         }
+      }
+      return result;
+   }
+
+   @Override
+   public final int[] evaluateIntBatch(Arguments arguments, ColumnarAssignments assignments) {
+      return evaluateIntBatch(arguments.firstArg(), arguments.secondArg(), assignments);
+   }
+
+   @Override
+   public final double[] evaluateDoubleBatch(Arguments arguments, ColumnarAssignments assignments) {
+      return evaluateDoubleBatch(arguments.firstArg(), arguments.secondArg(), assignments);
    }
 
    protected abstract Object evaluate(Node arg1, Node arg2, Assignments assignments);
 
+   /** Returns the result of applying this operator to {@code integer} arguments. Sub-classes should override to avoid boxing. */
+   protected int evaluateInt(Node arg1, Node arg2, Assignments assignments) {
+      return (Integer) evaluate(arg1, arg2, assignments);
+   }
+
+   /** Returns the result of applying this operator to {@code long} arguments. Sub-classes should override to avoid boxing. */
+   protected long evaluateLong(Node arg1, Node arg2, Assignments assignments) {
+      return (Long) evaluate(arg1, arg2, assignments);
+   }
+
+   /** Returns the result of applying this operator to {@code double} arguments. Sub-classes should override to avoid boxing. */
+   protected double evaluateDouble(Node arg1, Node arg2, Assignments assignments) {
+      return (Double) evaluate(arg1, arg2, assignments);
+   }
+
+   /** Returns the results of applying this operator to {@code integer} arguments for every row. Sub-classes should override to process arrays directly. */
+   protected int[] evaluateIntBatch(Node arg1, Node arg2, ColumnarAssignments assignments) {
+      int[] result = new int[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluateInt(arg1, arg2, assignments.getRow(i));
+      }
+      return result;
+   }
+
+   /** Returns the results of applying this operator to {@code double} arguments for every row. Sub-classes should override to process arrays directly. */
+   protected double[] evaluateDoubleBatch(Node arg1, Node arg2, ColumnarAssignments assignments) {
+      double[] result = new double[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluateDouble(arg1, arg2, assignments.getRow(i));
+      }
+      return result;
+   }
+
    @Override
    public final Signature getSignature() {
       return signature;
@@ -15,8 +15,11 @@
  */
 package org.oakgp.function.math;
 
+import java.util.Arrays;
+
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.node.ConstantNode;
 import org.oakgp.node.Node;
 
@@ -41,6 +44,63 @@ final class Divide<T extends Comparable<T>> extends ArithmeticOperator {
       }
    }
 
+   @Override
+   protected int evaluateInt(Node arg1, Node arg2, Assignments assignments) {
+      if (numberUtils.isZero(arg2)) {
+         return 1;
+      } else {
+         return arg1.evaluateInt(assignments) / arg2.evaluateInt(assignments);
+      }
+   }
+
+   @Override
+   protected long evaluateLong(Node arg1, Node arg2, Assignments assignments) {
+      if (numberUtils.isZero(arg2)) {
+         return 1;
+      } else {
+         return arg1.evaluateLong(assignments) / arg2.evaluateLong(assignments);
+      }
+   }
+
+   @Override
+   protected double evaluateDouble(Node arg1, Node arg2, Assignments assignments) {
+      if (numberUtils.isZero(arg2)) {
+         return 1;
+      } else {
+         return arg1.evaluateDouble(assignments) / arg2.evaluateDouble(assignments);
+      }
+   }
+
+   @Override
+   protected int[] evaluateIntBatch(Node arg1, Node arg2, ColumnarAssignments assignments) {
+      int[] result = new int[assignments.getRowCount()];
+      if (numberUtils.isZero(arg2)) {
+         Arrays.fill(result, 1);
+      } else {
+         int[] x = arg1.evaluateIntBatch(assignments);
+         int[] y = arg2.evaluateIntBatch(assignments);
+         for (int i = 0; i < result.length; i++) {
+            result[i] = x[i] / y[i];
+         }
+      }
+      return result;
+   }
+
+   @Override
+   protected double[] evaluateDoubleBatch(Node arg1, Node arg2, ColumnarAssignments assignments) {
+      double[] result = new double[assignments.getRowCount()];
+      if (numberUtils.isZero(arg2)) {
+         Arrays.fill(result, 1);
+      } else {
+         double[] x = arg1.evaluateDoubleBatch(assignments);
+         double[] y = arg2.evaluateDoubleBatch(assignments);
+         for (int i = 0; i < result.length; i++) {
+            result[i] = x[i] / y[i];
+         }
+      }
+      return result;
+   }
+
    @Override
    public Node simplify(Arguments arguments) {
       Node arg2 = arguments.secondArg();
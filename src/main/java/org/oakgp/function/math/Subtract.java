@@ -19,6 +19,7 @@ import static org.oakgp.node.NodeType.isConstant;
 
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.function.Function;
 import org.oakgp.node.FunctionNode;
 import org.oakgp.node.Node;
@@ -45,6 +46,43 @@ final class Subtract<T extends Comparable<T>> extends ArithmeticOperator {
       return numberUtils.subtract(arg1, arg2, assignments);
    }
 
+   @Override
+   protected int evaluateInt(Node arg1, Node arg2, Assignments assignments) {
+      return arg1.evaluateInt(assignments) - arg2.evaluateInt(assignments);
+   }
+
+   @Override
+   protected long evaluateLong(Node arg1, Node arg2, Assignments assignments) {
+      return arg1.evaluateLong(assignments) - arg2.evaluateLong(assignments);
+   }
+
+   @Override
+   protected double evaluateDouble(Node arg1, Node arg2, Assignments assignments) {
+      return arg1.evaluateDouble(assignments) - arg2.evaluateDouble(assignments);
+   }
+
+   @Override
+   protected int[] evaluateIntBatch(Node arg1, Node arg2, ColumnarAssignments assignments) {
+      int[] x = arg1.evaluateIntBatch(assignments);
+      int[] y = arg2.evaluateIntBatch(assignments);
+      int[] result = new int[x.length];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = x[i] - y[i];
+      }
+      return result;
+   }
+
+   @Override
+   protected double[] evaluateDoubleBatch(Node arg1, Node arg2, ColumnarAssignments assignments) {
+      double[] x = arg1.evaluateDoubleBatch(assignments);
+      double[] y = arg2.evaluateDoubleBatch(assignments);
+      double[] result = new double[x.length];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = x[i] - y[i];
+      }
+      return result;
+   }
+
    @Override
    public Node simplify(Arguments arguments) {
       Node arg1 = arguments.firstArg();
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.function.Predicate;
+
+import org.oakgp.evolve.GenerationEvolver;
+import org.oakgp.node.Node;
+import org.oakgp.rank.GenerationRanker;
+import org.oakgp.rank.RankedCandidates;
+
+/** A single population of an island model - with its own mechanisms for ranking and evolving generations and for deciding when to stop. */
+public final class Island {
+   private final GenerationRanker generationRanker;
+   private final GenerationEvolver generationEvolver;
+   private final Predicate<RankedCandidates> terminator;
+   private final Collection<Node> initialPopulation;
+
+   /**
+    * Creates an island that uses the given values to evolve its population.
+    *
+    * @param generationRanker
+    *           ranks a generation by their fitness
+    * @param generationEvolver
+    *           creates a new generation based on the previous generation
+    * @param terminator
+    *           a function that determines if the run should finish - as terminators are often stateful each island should have its own instance
+    * @param initialPopulation
+    *           the initial population that will be used as a basis for generating future generations
+    */
+   public Island(GenerationRanker generationRanker, GenerationEvolver generationEvolver, Predicate<RankedCandidates> terminator,
+         Collection<Node> initialPopulation) {
+      this.generationRanker = requireNonNull(generationRanker);
+      this.generationEvolver = requireNonNull(generationEvolver);
+      this.terminator = requireNonNull(terminator);
+      this.initialPopulation = requireNonNull(initialPopulation);
+   }
+
+   GenerationRanker getGenerationRanker() {
+      return generationRanker;
+   }
+
+   GenerationEvolver getGenerationEvolver() {
+      return generationEvolver;
+   }
+
+   Predicate<RankedCandidates> getTerminator() {
+      return terminator;
+   }
+
+   Collection<Node> getInitialPopulation() {
+      return initialPopulation;
+   }
+}
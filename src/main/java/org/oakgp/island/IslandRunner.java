@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.NodeSet;
+
+/**
+ * Performs a Genetic Programming run using an island model.
+ * <p>
+ * Each island evolves its own population, on its own thread, independently of the other islands. Every {@code migrationInterval} generations the best
+ * {@code numMigrants} candidates of each island are sent to the islands specified by a {@link MigrationTopology}. Migrants are delivered asynchronously - an
+ * island never waits for another island - and are added to the next generation of the receiving island that is ranked after they arrive.
+ */
+public final class IslandRunner {
+   /** Private constructor as all methods are static. */
+   private IslandRunner() {
+      // do nothing
+   }
+
+   /**
+    * Performs a Genetic Programming run using an island model.
+    * <p>
+    * The run finishes when the terminator of any island is satisfied - the other islands will then stop once they have ranked their current generation.
+    *
+    * @param islands
+    *           the islands to evolve - each island is evolved on a separate thread
+    * @param migrationInterval
+    *           the number of generations between each migration
+    * @param numMigrants
+    *           the number of candidates each island sends on each migration
+    * @param topology
+    *           determines which islands the migrants of an island are sent to
+    * @return the final generation of the first island whose terminator was satisfied
+    * @throws IllegalArgumentException
+    *            if {@code islands} is empty or {@code migrationInterval} or {@code numMigrants} is not a positive integer
+    */
+   public static RankedCandidates process(List<Island> islands, int migrationInterval, int numMigrants, MigrationTopology topology) {
+      if (islands.isEmpty()) {
+         throw new IllegalArgumentException("No islands specified");
+      }
+      requiresPositive(migrationInterval);
+      requiresPositive(numMigrants);
+
+      List<LocalMigrationChannel> channels = new ArrayList<>();
+      for (int i = 0; i < islands.size(); i++) {
+         channels.add(new LocalMigrationChannel(i, channels, topology));
+      }
+      AtomicReference<RankedCandidates> result = new AtomicReference<>();
+      AtomicBoolean finished = new AtomicBoolean();
+
+      ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+      try {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int i = 0; i < islands.size(); i++) {
+            Island island = islands.get(i);
+            MigrationChannel channel = channels.get(i);
+            futures.add(executor.submit(() -> evolve(island, channel, result, finished, migrationInterval, numMigrants)));
+         }
+         for (Future<?> future : futures) {
+            join(future);
+         }
+      } finally {
+         executor.shutdown();
+      }
+
+      return result.get();
+   }
+
+   /**
+    * Evolves a single island, using the current thread, which exchanges migrants with other islands using the specified channel.
+    * <p>
+    * Allows an island model to be distributed across multiple JVMs - where each JVM evolves a single island and uses a {@link SocketMigrationChannel} to
+    * exchange migrants with the other JVMs. The run finishes when the terminator of the island is satisfied.
+    *
+    * @param island
+    *           the island to evolve
+    * @param migrationInterval
+    *           the number of generations between each migration
+    * @param numMigrants
+    *           the number of candidates the island sends on each migration
+    * @param channel
+    *           used to send and receive migrants
+    * @return the final generation of the island
+    * @throws IllegalArgumentException
+    *            if {@code migrationInterval} or {@code numMigrants} is not a positive integer
+    */
+   public static RankedCandidates process(Island island, int migrationInterval, int numMigrants, MigrationChannel channel) {
+      requiresPositive(migrationInterval);
+      requiresPositive(numMigrants);
+
+      AtomicReference<RankedCandidates> result = new AtomicReference<>();
+      evolve(island, channel, result, new AtomicBoolean(), migrationInterval, numMigrants);
+      return result.get();
+   }
+
+   private static void evolve(Island island, MigrationChannel channel, AtomicReference<RankedCandidates> result, AtomicBoolean finished, int migrationInterval,
+         int numMigrants) {
+      try {
+         RankedCandidates rankedCandidates = island.getGenerationRanker().rank(island.getInitialPopulation());
+         int generation = 0;
+         while (!finished.get() && !island.getTerminator().test(rankedCandidates)) {
+            if (++generation % migrationInterval == 0) {
+               channel.send(getBest(rankedCandidates, numMigrants));
+            }
+            Collection<Node> newGeneration = immigrate(island.getGenerationEvolver().evolve(rankedCandidates), channel.receive());
+            rankedCandidates = island.getGenerationRanker().rank(newGeneration);
+         }
+         if (!finished.get()) {
+            result.compareAndSet(null, rankedCandidates);
+         }
+      } finally {
+         // whether the island stopped due to its terminator being satisfied, or due to a failure, the other islands should also stop
+         finished.set(true);
+      }
+   }
+
+   private static List<Node> getBest(RankedCandidates rankedCandidates, int numMigrants) {
+      int migrantsSize = Math.min(numMigrants, rankedCandidates.size());
+      List<Node> migrants = new ArrayList<>(migrantsSize);
+      for (int i = 0; i < migrantsSize; i++) {
+         migrants.add(rankedCandidates.get(i).getNode());
+      }
+      return migrants;
+   }
+
+   /** Returns the specified generation combined with the specified migrants. */
+   private static Collection<Node> immigrate(Collection<Node> newGeneration, List<Node> migrants) {
+      if (migrants.isEmpty()) {
+         return newGeneration;
+      }
+
+      Collection<Node> withMigrants = new NodeSet();
+      withMigrants.addAll(newGeneration);
+      withMigrants.addAll(migrants);
+      return withMigrants;
+   }
+
+   private static void join(Future<?> future) {
+      try {
+         future.get();
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         } else if (cause instanceof Error) {
+            throw (Error) cause;
+         } else {
+            throw new IllegalStateException(cause);
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static int requiresPositive(final int i) {
+      if (i > 0) {
+         return i;
+      } else {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + i);
+      }
+   }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.oakgp.node.Node;
+
+/** Exchanges migrants between islands evolved by the same JVM - delivering migrants to the islands specified by a {@code MigrationTopology}. */
+final class LocalMigrationChannel implements MigrationChannel {
+   private final Queue<Node> inbox = new ConcurrentLinkedQueue<>();
+   private final int islandIdx;
+   private final List<LocalMigrationChannel> channels;
+   private final MigrationTopology topology;
+
+   /**
+    * @param islandIdx
+    *           the index, within {@code channels}, of the island this channel belongs to
+    * @param channels
+    *           the channels of all the islands - indexed by island
+    * @param topology
+    *           determines which islands the migrants of this island are sent to
+    */
+   LocalMigrationChannel(int islandIdx, List<LocalMigrationChannel> channels, MigrationTopology topology) {
+      this.islandIdx = islandIdx;
+      this.channels = channels;
+      this.topology = topology;
+   }
+
+   @Override
+   public void send(List<Node> migrants) {
+      for (int destination : topology.getDestinations(islandIdx, channels.size())) {
+         channels.get(destination).inbox.addAll(migrants);
+      }
+   }
+
+   @Override
+   public List<Node> receive() {
+      List<Node> migrants = new ArrayList<>();
+      Node migrant;
+      while ((migrant = inbox.poll()) != null) {
+         migrants.add(migrant);
+      }
+      return migrants;
+   }
+}
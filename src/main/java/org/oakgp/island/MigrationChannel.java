@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import java.util.List;
+
+import org.oakgp.node.Node;
+
+/**
+ * Exchanges migrants between an island and other islands.
+ * <p>
+ * Both operations return without waiting on other islands - so a slow island never stalls the evolution of another.
+ *
+ * @see IslandRunner
+ */
+public interface MigrationChannel {
+   /**
+    * Sends the specified migrants to the islands this channel is connected to.
+    *
+    * @param migrants
+    *           the candidates to send - typically the best candidates of the most recently ranked generation
+    */
+   void send(List<Node> migrants);
+
+   /**
+    * Returns the migrants that have arrived since the last call to this method.
+    *
+    * @return the migrants received from other islands - an empty list if no migrants have arrived
+    */
+   List<Node> receive();
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import org.oakgp.util.Random;
+
+/** Determines which islands the migrants of an island are sent to. */
+@FunctionalInterface
+public interface MigrationTopology {
+   /**
+    * Returns the indexes of the islands that migrants from the specified island should be sent to.
+    *
+    * @param source
+    *           the index of the island the migrants are leaving
+    * @param numIslands
+    *           the total number of islands
+    * @return the indexes of the islands the migrants should be sent to - which should not include {@code source}
+    */
+   int[] getDestinations(int source, int numIslands);
+
+   /** Returns a topology where each island sends its migrants to the next island - with the last island sending its migrants to the first. */
+   static MigrationTopology ring() {
+      return (source, numIslands) -> numIslands == 1 ? new int[0] : new int[] { (source + 1) % numIslands };
+   }
+
+   /** Returns a topology where each island sends its migrants to every other island. */
+   static MigrationTopology fullyConnected() {
+      return (source, numIslands) -> {
+         int[] destinations = new int[numIslands - 1];
+         for (int i = 0, d = 0; i < numIslands; i++) {
+            if (i != source) {
+               destinations[d++] = i;
+            }
+         }
+         return destinations;
+      };
+   }
+
+   /** Returns a topology where, on each migration, each island sends its migrants to another island chosen at random. */
+   static MigrationTopology random(Random random) {
+      return (source, numIslands) -> {
+         if (numIslands == 1) {
+            return new int[0];
+         }
+         int destination = random.nextInt(numIslands - 1);
+         return new int[] { destination < source ? destination : destination + 1 };
+      };
+   }
+}
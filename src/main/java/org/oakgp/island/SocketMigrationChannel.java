@@ -0,0 +1,384 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.oakgp.function.Function;
+import org.oakgp.node.ConstantNode;
+import org.oakgp.node.Node;
+import org.oakgp.primitive.VariableSet;
+import org.oakgp.serialize.NodeReader;
+import org.oakgp.serialize.NodeWriter;
+
+/**
+ * Exchanges migrants with islands evolved by other processes using TCP sockets.
+ * <p>
+ * Migrants are serialised using {@link NodeWriter} and sent, as length-prefixed UTF-8 frames, to every peer. All network I/O is non-blocking and is performed
+ * by a single background thread - so {@link #send(List)} and {@link #receive()} never wait on a peer. Connections to peers are established lazily and are
+ * re-established, after a delay, if they fail. If a peer is slow, or unavailable, then at most {@link #MAX_PENDING_FRAMES} migrants are queued for it - with
+ * the oldest being discarded. Migrants received from peers are read using {@link NodeReader} - again, at most {@link #MAX_PENDING_FRAMES} migrants are held
+ * waiting for {@link #receive()} to be called, with the oldest being discarded.
+ * <p>
+ * If the background thread fails then the failure is logged and the channel is closed - after which any migrants sent are discarded.
+ */
+public final class SocketMigrationChannel implements MigrationChannel, Closeable {
+   /** The maximum number of migrants waiting to be sent to a single peer, and the maximum number of received migrants waiting to be read. */
+   public static final int MAX_PENDING_FRAMES = 1000;
+   private static final int MAX_FRAME_SIZE = 1 << 24;
+   private static final int HEADER_SIZE = Integer.BYTES;
+   private static final long RECONNECT_DELAY_MILLIS = 1000;
+   private static final Logger LOGGER = Logger.getLogger(SocketMigrationChannel.class.getName());
+
+   private final NodeWriter writer = new NodeWriter();
+   private final BoundedQueue<String> received = new BoundedQueue<>();
+   private final AtomicLong receivedCount = new AtomicLong();
+   private final Function[] functions;
+   private final ConstantNode[] constants;
+   private final VariableSet variableSet;
+   private final Selector selector;
+   private final ServerSocketChannel server;
+   private final Peer[] peers;
+   private final Thread thread;
+   private volatile boolean closed;
+
+   /**
+    * Creates a channel which listens for migrants on the specified address and sends migrants to the specified peers.
+    *
+    * @param localAddress
+    *           the address to accept connections from peers on - a port of {@code 0} will bind to an ephemeral port, see {@link #getLocalAddress()}
+    * @param peerAddresses
+    *           the addresses of the other islands to send migrants to
+    * @param functions
+    *           the functions that may be contained in migrants received from peers
+    * @param constants
+    *           the constants that may be contained in migrants received from peers
+    * @param variableSet
+    *           the variables that may be contained in migrants received from peers
+    * @throws IOException
+    *            if {@code localAddress} could not be bound to
+    */
+   public SocketMigrationChannel(InetSocketAddress localAddress, List<InetSocketAddress> peerAddresses, Function[] functions, ConstantNode[] constants,
+         VariableSet variableSet) throws IOException {
+      this.functions = functions.clone();
+      this.constants = constants.clone();
+      this.variableSet = variableSet;
+      this.peers = new Peer[peerAddresses.size()];
+      for (int i = 0; i < peers.length; i++) {
+         peers[i] = new Peer(peerAddresses.get(i));
+      }
+      this.selector = Selector.open();
+      this.server = ServerSocketChannel.open();
+      try {
+         server.bind(localAddress);
+         server.configureBlocking(false);
+         server.register(selector, SelectionKey.OP_ACCEPT);
+      } catch (IOException e) {
+         server.close();
+         selector.close();
+         throw e;
+      }
+      this.thread = new Thread(this::run, "SocketMigrationChannel-" + getLocalAddress());
+      this.thread.setDaemon(true);
+      this.thread.start();
+   }
+
+   /** Returns the address this channel is accepting connections from peers on. */
+   public InetSocketAddress getLocalAddress() {
+      return (InetSocketAddress) server.socket().getLocalSocketAddress();
+   }
+
+   /**
+    * Queues the specified migrants to be sent to every peer - returns without waiting for them to be sent. The migrants are discarded if this channel has been
+    * closed.
+    */
+   @Override
+   public void send(List<Node> migrants) {
+      if (closed) {
+         return;
+      }
+      for (Node migrant : migrants) {
+         byte[] bytes = writer.writeNode(migrant).getBytes(UTF_8);
+         ByteBuffer frame = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+         frame.putInt(bytes.length).put(bytes).flip();
+         for (Peer peer : peers) {
+            peer.enqueue(frame.duplicate());
+         }
+      }
+      selector.wakeup();
+   }
+
+   /** Returns the migrants received from peers since the last call to this method. Any migrants that cannot be read are logged and ignored. */
+   @Override
+   public List<Node> receive() {
+      List<Node> migrants = new ArrayList<>();
+      String input;
+      while ((input = received.poll()) != null) {
+         try (NodeReader reader = new NodeReader(input, functions, constants, variableSet)) {
+            migrants.add(reader.readNode());
+         } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not read migrant: " + input, e);
+         }
+      }
+      return migrants;
+   }
+
+   /** Returns the total number of migrants received from peers - including any discarded before {@link #receive()} was called. */
+   public long getReceivedCount() {
+      return receivedCount.get();
+   }
+
+   /** Stops the background thread and closes all connections. Any migrants not yet sent are discarded. */
+   @Override
+   public void close() throws IOException {
+      closed = true;
+      selector.wakeup();
+      try {
+         thread.join();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      for (SelectionKey key : selector.keys()) {
+         key.channel().close();
+      }
+      selector.close();
+   }
+
+   private void run() {
+      try {
+         while (!closed) {
+            updatePeers();
+            selector.select(RECONNECT_DELAY_MILLIS);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+               SelectionKey key = keys.next();
+               keys.remove();
+               handle(key);
+            }
+         }
+      } catch (IOException | RuntimeException e) {
+         // only expected if the selector itself has failed - as failures of individual connections are handled by handle(SelectionKey)
+         // mark the channel as closed so send(List) stops queuing migrants that will never be sent
+         closed = true;
+         LOGGER.log(Level.SEVERE, "Closing channel as could not continue sending and receiving migrants", e);
+      }
+   }
+
+   /** Connects to any peers that have migrants waiting to be sent to them, and registers interest in writing to those that are already connected. */
+   private void updatePeers() throws IOException {
+      long now = System.currentTimeMillis();
+      for (Peer peer : peers) {
+         if (peer.key == null) {
+            if (peer.hasPending() && now >= peer.nextConnectionAttempt) {
+               peer.connect(now);
+            }
+         } else if (peer.key.isValid() && (peer.key.interestOps() & SelectionKey.OP_CONNECT) == 0) {
+            peer.key.interestOps(peer.hasPending() ? SelectionKey.OP_WRITE : 0);
+         }
+      }
+   }
+
+   private void handle(SelectionKey key) {
+      Object attachment = key.attachment();
+      try {
+         if (!key.isValid()) {
+            return;
+         } else if (key.isAcceptable()) {
+            accept();
+         } else if (attachment instanceof Peer) {
+            Peer peer = (Peer) attachment;
+            if (key.isConnectable()) {
+               peer.finishConnect();
+            } else if (key.isWritable()) {
+               peer.write();
+            }
+         } else if (key.isReadable()) {
+            ((Inbound) attachment).read();
+         }
+      } catch (IOException e) {
+         LOGGER.log(Level.FINE, "Closing connection", e);
+         key.cancel();
+         closeQuietly(key);
+         if (attachment instanceof Peer) {
+            ((Peer) attachment).disconnect();
+         }
+      }
+   }
+
+   private void accept() throws IOException {
+      SocketChannel channel = server.accept();
+      if (channel != null) {
+         channel.configureBlocking(false);
+         SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+         key.attach(new Inbound(key));
+      }
+   }
+
+   private static void closeQuietly(SelectionKey key) {
+      try {
+         key.channel().close();
+      } catch (IOException e) {
+         LOGGER.log(Level.FINE, "Could not close connection", e);
+      }
+   }
+
+   /** An island that migrants are sent to. */
+   private final class Peer {
+      private final InetSocketAddress address;
+      private final BoundedQueue<ByteBuffer> pending = new BoundedQueue<>();
+      /** The frame currently being written - only accessed by the background thread. */
+      private ByteBuffer current;
+      /** Only accessed by the background thread. */
+      private SelectionKey key;
+      /** Only accessed by the background thread. */
+      private long nextConnectionAttempt;
+
+      Peer(InetSocketAddress address) {
+         this.address = address;
+      }
+
+      void enqueue(ByteBuffer frame) {
+         pending.add(frame);
+      }
+
+      boolean hasPending() {
+         return current != null || !pending.isEmpty();
+      }
+
+      void connect(long now) throws IOException {
+         nextConnectionAttempt = now + RECONNECT_DELAY_MILLIS;
+         SocketChannel channel = SocketChannel.open();
+         channel.configureBlocking(false);
+         try {
+            boolean connected = channel.connect(address);
+            key = channel.register(selector, connected ? SelectionKey.OP_WRITE : SelectionKey.OP_CONNECT, this);
+         } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not connect to " + address, e);
+            channel.close();
+         }
+      }
+
+      void finishConnect() throws IOException {
+         if (((SocketChannel) key.channel()).finishConnect()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+         }
+      }
+
+      void write() throws IOException {
+         SocketChannel channel = (SocketChannel) key.channel();
+         while (current != null || (current = pending.poll()) != null) {
+            channel.write(current);
+            if (current.hasRemaining()) {
+               // socket buffer is full - continue when the channel is next writable
+               return;
+            }
+            current = null;
+         }
+         key.interestOps(0);
+      }
+
+      void disconnect() {
+         key = null;
+         nextConnectionAttempt = System.currentTimeMillis() + RECONNECT_DELAY_MILLIS;
+         if (current != null) {
+            // resend the whole of a partially sent frame once reconnected
+            current.rewind();
+         }
+      }
+   }
+
+   /** A connection migrants are received from. */
+   private final class Inbound {
+      private final SelectionKey key;
+      private ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+      Inbound(SelectionKey key) {
+         this.key = key;
+      }
+
+      void read() throws IOException {
+         if (((SocketChannel) key.channel()).read(buffer) == -1) {
+            throw new IOException("Connection closed by peer");
+         }
+         buffer.flip();
+         while (buffer.remaining() >= HEADER_SIZE) {
+            int length = buffer.getInt(buffer.position());
+            if (length < 0 || length > MAX_FRAME_SIZE) {
+               throw new IOException("Invalid frame length: " + length);
+            } else if (buffer.remaining() < HEADER_SIZE + length) {
+               break;
+            }
+            byte[] bytes = new byte[length];
+            buffer.position(buffer.position() + HEADER_SIZE);
+            buffer.get(bytes);
+            received.add(new String(bytes, UTF_8));
+            receivedCount.incrementAndGet();
+         }
+         buffer.compact();
+         if (!buffer.hasRemaining()) {
+            // the buffer is too small to contain the frame currently being received
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+         }
+      }
+   }
+
+   /** A queue, safe for use by multiple threads, that discards its oldest elements rather than hold more than {@link #MAX_PENDING_FRAMES} elements. */
+   private static final class BoundedQueue<T> {
+      private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+      private final AtomicInteger size = new AtomicInteger();
+
+      void add(T t) {
+         queue.add(t);
+         // discard the oldest elements, rather than let memory usage grow, if the consumer is not keeping up
+         if (size.incrementAndGet() > MAX_PENDING_FRAMES && queue.poll() != null) {
+            size.decrementAndGet();
+         }
+      }
+
+      T poll() {
+         T t = queue.poll();
+         if (t != null) {
+            size.decrementAndGet();
+         }
+         return t;
+      }
+
+      boolean isEmpty() {
+         return queue.isEmpty();
+      }
+   }
+}
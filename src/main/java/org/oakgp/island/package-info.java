@@ -0,0 +1,2 @@
+/** Provides an island model - where multiple populations evolve independently and periodically exchange their best candidates. */
+package org.oakgp.island;
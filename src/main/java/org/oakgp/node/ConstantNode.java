@@ -15,10 +15,15 @@
  */
 package org.oakgp.node;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.Type;
+import org.oakgp.function.Function;
 
 /**
  * Represents a constant value.
@@ -28,6 +33,8 @@ import org.oakgp.Type;
 public final class ConstantNode extends TerminalNode {
    private final Object value;
    private final Type type;
+   private final long variableMask;
+   private final boolean pure;
 
    /**
     * Constructs a new {@code ConstantNode} that represents the specified value.
@@ -40,6 +47,46 @@ public final class ConstantNode extends TerminalNode {
    public ConstantNode(Object value, Type type) {
       this.value = value;
       this.type = type;
+      this.variableMask = calculateVariableMask(value);
+      this.pure = isPure(value);
+   }
+
+   /** Collections of nodes (e.g. lists read by {@code NodeReader}) can contain variables that are read when the elements are evaluated. */
+   private static long calculateVariableMask(Object value) {
+      if (value instanceof Node) {
+         return ((Node) value).getVariableMask();
+      } else if (value instanceof Collection) {
+         long mask = 0;
+         for (Object o : (Collection<?>) value) {
+            mask |= calculateVariableMask(o);
+         }
+         return mask;
+      } else if (value instanceof Map) {
+         Map<?, ?> map = (Map<?, ?>) value;
+         return calculateVariableMask(map.keySet()) | calculateVariableMask(map.values());
+      } else {
+         return 0;
+      }
+   }
+
+   private static boolean isPure(Object value) {
+      if (value instanceof Node) {
+         return ((Node) value).isPure();
+      } else if (value instanceof Function) {
+         return ((Function) value).isPure();
+      } else if (value instanceof Collection) {
+         for (Object o : (Collection<?>) value) {
+            if (!isPure(o)) {
+               return false;
+            }
+         }
+         return true;
+      } else if (value instanceof Map) {
+         Map<?, ?> map = (Map<?, ?>) value;
+         return isPure(map.keySet()) && isPure(map.values());
+      } else {
+         return true;
+      }
    }
 
    /**
@@ -50,6 +97,44 @@ public final class ConstantNode extends TerminalNode {
       return value;
    }
 
+   @Override
+   public Object[] evaluateBatch(ColumnarAssignments assignments) {
+      Object[] result = new Object[assignments.getRowCount()];
+      Arrays.fill(result, value);
+      return result;
+   }
+
+   @Override
+   public int[] evaluateIntBatch(ColumnarAssignments assignments) {
+      int[] result = new int[assignments.getRowCount()];
+      Arrays.fill(result, (Integer) value);
+      return result;
+   }
+
+   @Override
+   public double[] evaluateDoubleBatch(ColumnarAssignments assignments) {
+      double[] result = new double[assignments.getRowCount()];
+      Arrays.fill(result, (Double) value);
+      return result;
+   }
+
+   @Override
+   public boolean[] evaluateBooleanBatch(ColumnarAssignments assignments) {
+      boolean[] result = new boolean[assignments.getRowCount()];
+      Arrays.fill(result, (Boolean) value);
+      return result;
+   }
+
+   @Override
+   public long getVariableMask() {
+      return variableMask;
+   }
+
+   @Override
+   public boolean isPure() {
+      return pure;
+   }
+
    @Override
    public Type getType() {
       return type;
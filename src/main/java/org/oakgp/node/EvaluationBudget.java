@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.node;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limits the amount of work performed evaluating a {@code Node} - in terms of the number of function nodes evaluated and/or elapsed time.
+ * <p>
+ * A budget is enforced cooperatively - each evaluation of a {@link FunctionNode} by a thread that is running {@link #evaluate(DoubleSupplier)} counts as a
+ * single step against the budget of that thread (or, when evaluated in batch, as one step per row). Code that evaluates trees without using
+ * {@code FunctionNode} - e.g. {@link org.oakgp.compile.ClosureCompiler} - and functions that loop - e.g. the higher-order functions of
+ * {@link org.oakgp.function.hof} - record their own steps by calling {@link #step()}. When the budget is exhausted an
+ * {@link EvaluationBudgetExceededException} is thrown - aborting the evaluation. This bounds the cost of pathological candidates, e.g. those which repeatedly
+ * apply higher-order functions to large collections, which would otherwise stall a whole generation.
+ */
+public final class EvaluationBudget {
+   /** Used to specify that there should be no limit on either the number of steps or elapsed time. */
+   public static final long UNLIMITED = Long.MAX_VALUE;
+   /** The number of steps between each check of the elapsed time - as reading the clock is relatively expensive. */
+   private static final int CLOCK_CHECK_INTERVAL = 256;
+   private static final ThreadLocal<Usage> CURRENT = new ThreadLocal<>();
+
+   private final long maxSteps;
+   private final long maxNanos;
+
+   /**
+    * Creates a budget of the specified number of steps and elapsed time.
+    *
+    * @param maxSteps
+    *           the maximum number of function nodes that can be evaluated - or {@link #UNLIMITED}
+    * @param maxMillis
+    *           the maximum number of milliseconds the evaluation can take - or {@link #UNLIMITED}
+    * @throws IllegalArgumentException
+    *            if {@code maxSteps} or {@code maxMillis} is not a positive integer
+    */
+   public EvaluationBudget(long maxSteps, long maxMillis) {
+      if (maxSteps < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + maxSteps);
+      }
+      if (maxMillis < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + maxMillis);
+      }
+      this.maxSteps = maxSteps;
+      this.maxNanos = maxMillis >= UNLIMITED / 1000000 ? UNLIMITED : maxMillis * 1000000;
+   }
+
+   /**
+    * Performs the specified evaluation, using the current thread, limited by this budget.
+    * <p>
+    * Budgets can be nested - steps taken while evaluating the inner budget only count against the inner budget.
+    *
+    * @param evaluation
+    *           the evaluation to perform - e.g. the application of a {@code FitnessFunction} to a candidate
+    * @return the result of {@code evaluation}
+    * @throws EvaluationBudgetExceededException
+    *            if the budget is exhausted before {@code evaluation} completes
+    */
+   public double evaluate(DoubleSupplier evaluation) {
+      Supplier<Double> boxed = evaluation::getAsDouble;
+      return evaluate(boxed);
+   }
+
+   /**
+    * Performs the specified evaluation, using the current thread, limited by this budget.
+    *
+    * @param evaluation
+    *           the evaluation to perform - e.g. the application of a {@code BoundedFitnessFunction} to a candidate
+    * @return the result of {@code evaluation}
+    * @throws EvaluationBudgetExceededException
+    *            if the budget is exhausted before {@code evaluation} completes
+    * @see #evaluate(DoubleSupplier)
+    */
+   public <T> T evaluate(Supplier<T> evaluation) {
+      Usage previous = CURRENT.get();
+      CURRENT.set(new Usage(maxSteps, maxNanos == UNLIMITED ? UNLIMITED : System.nanoTime() + maxNanos));
+      try {
+         return evaluation.get();
+      } finally {
+         if (previous == null) {
+            CURRENT.remove();
+         } else {
+            CURRENT.set(previous);
+         }
+      }
+   }
+
+   /**
+    * Records a single step against the budget, if any, of the current thread.
+    *
+    * @throws EvaluationBudgetExceededException
+    *            if the budget of the current thread is exhausted
+    */
+   public static void step() {
+      step(1);
+   }
+
+   /** Records the specified number of steps against the budget, if any, of the current thread. */
+   static void step(int numSteps) {
+      Usage usage = CURRENT.get();
+      if (usage != null) {
+         usage.step(numSteps);
+      }
+   }
+
+   /** The remaining budget of an evaluation in progress. */
+   private static final class Usage {
+      private final long deadline;
+      private long remainingSteps;
+      private int stepsUntilClockCheck = CLOCK_CHECK_INTERVAL;
+
+      Usage(long maxSteps, long deadline) {
+         this.remainingSteps = maxSteps;
+         this.deadline = deadline;
+      }
+
+      void step(int numSteps) {
+         remainingSteps -= numSteps;
+         if (remainingSteps < 0) {
+            throw new EvaluationBudgetExceededException("Exceeded maximum number of steps");
+         }
+         stepsUntilClockCheck -= numSteps;
+         if (stepsUntilClockCheck <= 0) {
+            stepsUntilClockCheck = CLOCK_CHECK_INTERVAL;
+            if (deadline != UNLIMITED && System.nanoTime() - deadline > 0) {
+               throw new EvaluationBudgetExceededException("Exceeded maximum elapsed time", true);
+            }
+         }
+      }
+   }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.node;
+
+/**
+ * Thrown to abort an evaluation that has exhausted its {@link EvaluationBudget}.
+ * <p>
+ * As it is used for control flow, rather than to report a programming error, no stack trace is recorded.
+ */
+public final class EvaluationBudgetExceededException extends RuntimeException {
+   private static final long serialVersionUID = 1L;
+
+   private final boolean elapsedTimeExceeded;
+
+   /** Constructs an exception with the specified detail message - for a budget exhausted by the number of steps taken. */
+   public EvaluationBudgetExceededException(String message) {
+      this(message, false);
+   }
+
+   /**
+    * Constructs an exception with the specified detail message.
+    *
+    * @param message
+    *           the detail message
+    * @param elapsedTimeExceeded
+    *           {@code true} if the budget was exhausted by elapsed time, {@code false} if it was exhausted by the number of steps taken
+    */
+   public EvaluationBudgetExceededException(String message, boolean elapsedTimeExceeded) {
+      super(message, null, false, false);
+      this.elapsedTimeExceeded = elapsedTimeExceeded;
+   }
+
+   /**
+    * Returns {@code true} if the budget was exhausted by elapsed time - in which case, unlike a budget exhausted by the number of steps, repeating the same
+    * evaluation may produce a different outcome.
+    */
+   public boolean isElapsedTimeExceeded() {
+      return elapsedTimeExceeded;
+   }
+}
@@ -15,8 +15,11 @@
  */
 package org.oakgp.node;
 
+import java.util.Arrays;
+
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.Type;
 import org.oakgp.function.Function;
 
@@ -34,7 +37,12 @@ public final class FunctionNode implements Node {
    private final Function function;
    private final Arguments arguments;
    private final int nodeCount;
+   private final int height;
+   /** Lazily calculated by {@link #getNodeCount(Type)}, as the signature of the function is not required to be available at construction. */
+   private volatile TypeCounts typeCounts;
    private final int hashCode;
+   private final boolean pure;
+   private final long variableMask;
 
    /**
     * Constructs a new {@code FunctionNode} with the specified function function and arguments.
@@ -60,7 +68,47 @@ public final class FunctionNode implements Node {
       this.function = function;
       this.arguments = arguments;
       this.nodeCount = calculateNodeCount(arguments);
+      this.height = calculateHeight(arguments);
       this.hashCode = (function.getClass().getName().hashCode() * 31) * createHashCode(arguments, nodeCount);
+      this.pure = function.isPure() && isPure(arguments);
+      this.variableMask = calculateVariableMask(arguments);
+   }
+
+   private static boolean isPure(Arguments arguments) {
+      for (int i = 0; i < arguments.getArgCount(); i++) {
+         if (!arguments.getArg(i).isPure()) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static long calculateVariableMask(Arguments arguments) {
+      long mask = 0;
+      for (int i = 0; i < arguments.getArgCount(); i++) {
+         mask |= arguments.getArg(i).getVariableMask();
+      }
+      return mask;
+   }
+
+   private static int addTypeCount(Type[] types, int[] counts, int size, Type type, int count) {
+      for (int i = 0; i < size; i++) {
+         if (types[i] == type) {
+            counts[i] += count;
+            return size;
+         }
+      }
+      types[size] = type;
+      counts[size] = count;
+      return size + 1;
+   }
+
+   private static int calculateHeight(Arguments arguments) {
+      int height = 0;
+      for (int i = 0; i < arguments.getArgCount(); i++) {
+         height = Math.max(height, arguments.getArg(i).getHeight());
+      }
+      return height + 1;
    }
 
    private static int calculateNodeCount(Arguments arguments) {
@@ -94,22 +142,185 @@ public final class FunctionNode implements Node {
    @SuppressWarnings("unchecked")
    @Override
    public Object evaluate(Assignments assignments) {
+      EvaluationBudget.step();
       return function.evaluate(arguments, assignments);
    }
 
+   @Override
+   public int evaluateInt(Assignments assignments) {
+      EvaluationBudget.step();
+      return function.evaluateInt(arguments, assignments);
+   }
+
+   @Override
+   public long evaluateLong(Assignments assignments) {
+      EvaluationBudget.step();
+      return function.evaluateLong(arguments, assignments);
+   }
+
+   @Override
+   public double evaluateDouble(Assignments assignments) {
+      EvaluationBudget.step();
+      return function.evaluateDouble(arguments, assignments);
+   }
+
+   @Override
+   public boolean evaluateBoolean(Assignments assignments) {
+      EvaluationBudget.step();
+      return function.evaluateBoolean(arguments, assignments);
+   }
+
+   @Override
+   public Object[] evaluateBatch(ColumnarAssignments assignments) {
+      Object[] cached = getCachedResults(assignments, Object[].class);
+      if (cached != null) {
+         return cached;
+      } else if (isConstant(assignments)) {
+         Object[] result = new Object[assignments.getRowCount()];
+         Arrays.fill(result, evaluate(assignments.getRow(0)));
+         return cacheResults(assignments, Object[].class, result);
+      } else {
+         EvaluationBudget.step(assignments.getRowCount());
+         return cacheResults(assignments, Object[].class, function.evaluateBatch(arguments, assignments));
+      }
+   }
+
+   @Override
+   public int[] evaluateIntBatch(ColumnarAssignments assignments) {
+      int[] cached = getCachedResults(assignments, int[].class);
+      if (cached != null) {
+         return cached;
+      } else if (isConstant(assignments)) {
+         int[] result = new int[assignments.getRowCount()];
+         Arrays.fill(result, evaluateInt(assignments.getRow(0)));
+         return cacheResults(assignments, int[].class, result);
+      } else {
+         EvaluationBudget.step(assignments.getRowCount());
+         return cacheResults(assignments, int[].class, function.evaluateIntBatch(arguments, assignments));
+      }
+   }
+
+   @Override
+   public double[] evaluateDoubleBatch(ColumnarAssignments assignments) {
+      double[] cached = getCachedResults(assignments, double[].class);
+      if (cached != null) {
+         return cached;
+      } else if (isConstant(assignments)) {
+         double[] result = new double[assignments.getRowCount()];
+         Arrays.fill(result, evaluateDouble(assignments.getRow(0)));
+         return cacheResults(assignments, double[].class, result);
+      } else {
+         EvaluationBudget.step(assignments.getRowCount());
+         return cacheResults(assignments, double[].class, function.evaluateDoubleBatch(arguments, assignments));
+      }
+   }
+
+   @Override
+   public boolean[] evaluateBooleanBatch(ColumnarAssignments assignments) {
+      boolean[] cached = getCachedResults(assignments, boolean[].class);
+      if (cached != null) {
+         return cached;
+      } else if (isConstant(assignments)) {
+         boolean[] result = new boolean[assignments.getRowCount()];
+         Arrays.fill(result, evaluateBoolean(assignments.getRow(0)));
+         return cacheResults(assignments, boolean[].class, result);
+      } else {
+         EvaluationBudget.step(assignments.getRowCount());
+         return cacheResults(assignments, boolean[].class, function.evaluateBooleanBatch(arguments, assignments));
+      }
+   }
+
+   /**
+    * Returns {@code true} if evaluating this node will return the same result for every row of the specified dataset.
+    * <p>
+    * A pure node that does not read any variables (e.g. a subtree not removed by {@link org.oakgp.NodeSimplifier}) only needs to be evaluated once per batch.
+    */
+   private boolean isConstant(ColumnarAssignments assignments) {
+      return pure && variableMask == 0 && assignments.getRowCount() > 1;
+   }
+
+   /**
+    * Returns the results of a previous evaluation of this node against the specified dataset, or {@code null} if not available.
+    * <p>
+    * Only the results of pure nodes are cached - as the result of evaluating an impure node can vary between evaluations.
+    */
+   private <T> T getCachedResults(ColumnarAssignments assignments, Class<T> resultsType) {
+      return pure ? assignments.getCachedResults(this, resultsType) : null;
+   }
+
+   private <T> T cacheResults(ColumnarAssignments assignments, Class<T> resultsType, T results) {
+      if (pure) {
+         assignments.cacheResults(this, resultsType, results);
+      }
+      return results;
+   }
+
+   /**
+    * Returns {@code true} if the function of this node, and the functions of all of the function nodes of its arguments, are pure.
+    *
+    * @see Function#isPure()
+    */
+   @Override
+   public boolean isPure() {
+      return pure;
+   }
+
+   @Override
+   public long getVariableMask() {
+      return variableMask;
+   }
+
    @Override
    public int getNodeCount() {
       return nodeCount;
    }
 
    @Override
-   public int getHeight() {
-      // TODO it may be beneficial to cache this result on its first call
-      int height = 0;
+   public int getNodeCount(Type type) {
+      TypeCounts c = getTypeCounts();
+      for (int i = 0; i < c.types.length; i++) {
+         if (c.types[i] == type) {
+            return c.counts[i];
+         }
+      }
+      return 0;
+   }
+
+   private TypeCounts getTypeCounts() {
+      TypeCounts c = typeCounts;
+      if (c == null) {
+         // if multiple threads get here at the same time they will each calculate an identical result
+         c = typeCounts = createTypeCounts();
+      }
+      return c;
+   }
+
+   private TypeCounts createTypeCounts() {
+      int maxTypes = 1;
       for (int i = 0; i < arguments.getArgCount(); i++) {
-         height = Math.max(height, arguments.getArg(i).getHeight());
+         Node arg = arguments.getArg(i);
+         maxTypes += arg instanceof FunctionNode ? ((FunctionNode) arg).getTypeCounts().types.length : 1;
       }
-      return height + 1;
+      Type[] types = new Type[maxTypes];
+      int[] counts = new int[maxTypes];
+      int size = addTypeCount(types, counts, 0, getType(), 1);
+      for (int i = 0; i < arguments.getArgCount(); i++) {
+         Node arg = arguments.getArg(i);
+         if (arg instanceof FunctionNode) {
+            TypeCounts c = ((FunctionNode) arg).getTypeCounts();
+            for (int t = 0; t < c.types.length; t++) {
+               size = addTypeCount(types, counts, size, c.types[t], c.counts[t]);
+            }
+         } else {
+            size = addTypeCount(types, counts, size, arg.getType(), arg.getNodeCount(arg.getType()));
+         }
+      }
+      return size == maxTypes ? new TypeCounts(types, counts) : new TypeCounts(Arrays.copyOf(types, size), Arrays.copyOf(counts, size));
+   }
+
+   @Override
+   public int getHeight() {
+      return height;
    }
 
    @Override
@@ -151,4 +362,15 @@ public final class FunctionNode implements Node {
       }
       return sb.append(')').toString();
    }
+
+   /** The distinct types of the nodes in a tree, each at the same index as the number of nodes of that type. */
+   private static final class TypeCounts {
+      final Type[] types;
+      final int[] counts;
+
+      TypeCounts(Type[] types, int[] counts) {
+         this.types = types;
+         this.counts = counts;
+      }
+   }
 }
@@ -16,6 +16,7 @@
 package org.oakgp.node;
 
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.Type;
 
 /** A node represents a single point of a tree structure. */
@@ -29,9 +30,144 @@ public interface Node {
     */
    <T> T evaluate(Assignments assignments);
 
+   /**
+    * Returns the result of evaluating this {@code Node}, which must be of type {@code integer}, as a primitive {@code int}.
+    * <p>
+    * Implementations can override this method to avoid the cost of boxing intermediate values. The default implementation unboxes the result of
+    * {@link #evaluate(Assignments)}.
+    *
+    * @param assignments
+    *           represents the values to assign to any variables used in the evaluation of this {@code Node}
+    * @return the result of evaluating this {@code Node} using the values of the specified {@code Assignments}
+    */
+   default int evaluateInt(Assignments assignments) {
+      return this.<Integer> evaluate(assignments);
+   }
+
+   /**
+    * Returns the result of evaluating this {@code Node}, which must be of type {@code long}, as a primitive {@code long}.
+    *
+    * @see #evaluateInt(Assignments)
+    */
+   default long evaluateLong(Assignments assignments) {
+      return this.<Long> evaluate(assignments);
+   }
+
+   /**
+    * Returns the result of evaluating this {@code Node}, which must be of type {@code double}, as a primitive {@code double}.
+    *
+    * @see #evaluateInt(Assignments)
+    */
+   default double evaluateDouble(Assignments assignments) {
+      return this.<Double> evaluate(assignments);
+   }
+
+   /**
+    * Returns the result of evaluating this {@code Node}, which must be of type {@code boolean}, as a primitive {@code boolean}.
+    *
+    * @see #evaluateInt(Assignments)
+    */
+   default boolean evaluateBoolean(Assignments assignments) {
+      return this.<Boolean> evaluate(assignments);
+   }
+
+   /**
+    * Returns the results of evaluating this {@code Node} against every row of the specified {@code ColumnarAssignments}.
+    * <p>
+    * Function nodes can override this method so the tree structure is traversed once for the whole dataset, rather than once per row. As a consequence, the
+    * order in which nodes are evaluated can differ from evaluating each row in turn. The default implementation calls {@link #evaluate(Assignments)} for each
+    * row. The returned array must not be modified.
+    *
+    * @param assignments
+    *           the rows of values to assign to any variables used in the evaluation of this {@code Node}
+    * @return the results of evaluating this {@code Node} - one element per row of {@code assignments}
+    */
+   default Object[] evaluateBatch(ColumnarAssignments assignments) {
+      Object[] result = new Object[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluate(assignments.getRow(i));
+      }
+      return result;
+   }
+
+   /**
+    * Returns the results of evaluating this {@code Node}, which must be of type {@code integer}, against every row of the specified
+    * {@code ColumnarAssignments}.
+    *
+    * @see #evaluateBatch(ColumnarAssignments)
+    */
+   default int[] evaluateIntBatch(ColumnarAssignments assignments) {
+      int[] result = new int[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluateInt(assignments.getRow(i));
+      }
+      return result;
+   }
+
+   /**
+    * Returns the results of evaluating this {@code Node}, which must be of type {@code double}, against every row of the specified
+    * {@code ColumnarAssignments}.
+    *
+    * @see #evaluateBatch(ColumnarAssignments)
+    */
+   default double[] evaluateDoubleBatch(ColumnarAssignments assignments) {
+      double[] result = new double[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluateDouble(assignments.getRow(i));
+      }
+      return result;
+   }
+
+   /**
+    * Returns the results of evaluating this {@code Node}, which must be of type {@code boolean}, against every row of the specified
+    * {@code ColumnarAssignments}.
+    *
+    * @see #evaluateBatch(ColumnarAssignments)
+    */
+   default boolean[] evaluateBooleanBatch(ColumnarAssignments assignments) {
+      boolean[] result = new boolean[assignments.getRowCount()];
+      for (int i = 0; i < result.length; i++) {
+         result[i] = evaluateBoolean(assignments.getRow(i));
+      }
+      return result;
+   }
+
    /** Returns the total number of nodes represented by this {@code Node} - including any child-nodes. */
    int getNodeCount();
 
+   /**
+    * Returns the number of nodes of the specified {@code Type} represented by this {@code Node} - including any child-nodes.
+    * <p>
+    * The default implementation is only suitable for nodes that have no child-nodes.
+    */
+   default int getNodeCount(Type type) {
+      return getType() == type ? 1 : 0;
+   }
+
+   /**
+    * Returns a bitmask of the IDs of the variables read when evaluating this {@code Node}.
+    * <p>
+    * A variable with ID {@code id} is represented by the bit {@code 1L << (id % 64)} - so if a bit is set then a variable with an ID that maps to that bit
+    * <i>may</i> be read, whereas if a bit is not set then no variable with an ID that maps to that bit is read. A value of {@code 0} indicates that the result
+    * of evaluating this {@code Node} does not depend on any variables.
+    * <p>
+    * The default implementation returns {@code -1} (i.e. every bit set) as it cannot determine which variables are read.
+    */
+   default long getVariableMask() {
+      return -1L;
+   }
+
+   /**
+    * Returns {@code true} if every function contained in the tree structure represented by this {@code Node} is pure.
+    * <p>
+    * The default implementation returns {@code false} as it cannot determine which functions are contained in the tree structure.
+    *
+    * @see org.oakgp.function.Function#isPure()
+    */
+   default boolean isPure() {
+      return false;
+   }
+
    /**
     * Returns the height of this {@code Node}.
     * <p>
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.node;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.oakgp.Arguments;
+import org.oakgp.Type;
+import org.oakgp.function.Function;
+
+/**
+ * Provides canonical instances of {@code FunctionNode} and {@code ConstantNode} so that structurally equal trees share a single instance.
+ * <p>
+ * Interned nodes can be compared by reference - as equal subtrees are the same object {@code FunctionNode.equals} returns without having to recurse through
+ * the arguments. Sharing instances also reduces the memory used by a population, as elites, parents and offspring can reuse the same subtrees.
+ * <p>
+ * Canonical instances are only weakly referenced, so nodes which are no longer used by any generation can still be garbage collected. Instances of this
+ * class are thread-safe.
+ */
+public final class NodeInterner {
+   private final Map<Node, WeakReference<Node>> nodes = new WeakHashMap<>();
+
+   /**
+    * Returns the canonical {@code ConstantNode} representing the specified value.
+    *
+    * @param value
+    *           the value to be represented by the {@code ConstantNode}
+    * @param type
+    *           the {@code Type} that the value represented by the node is of
+    * @return a {@code ConstantNode} equal to {@code new ConstantNode(value, type)}, shared with all other equal nodes interned by this object
+    */
+   public ConstantNode createConstantNode(Object value, Type type) {
+      return (ConstantNode) getOrPut(new ConstantNode(value, type));
+   }
+
+   /**
+    * Returns the canonical {@code FunctionNode} for the specified function and arguments.
+    *
+    * @param function
+    *           the function to associate with the {@code FunctionNode}
+    * @param arguments
+    *           the arguments (i.e. operands) to apply to {@code function} when evaluating the {@code FunctionNode}
+    * @return a {@code FunctionNode} equal to {@code new FunctionNode(function, arguments)}, shared with all other equal nodes interned by this object
+    */
+   public FunctionNode createFunctionNode(Function function, Node... arguments) {
+      return intern(new FunctionNode(function, arguments));
+   }
+
+   /**
+    * Returns the canonical instance of the specified tree.
+    * <p>
+    * Every {@code FunctionNode} and {@code ConstantNode} in the returned tree is canonical. {@code VariableNode} instances are already unique within their
+    * {@code VariableSet} and other types of node are returned unaltered.
+    *
+    * @param node
+    *           the tree to intern
+    * @return a tree equal to {@code node}, shared with all other equal trees interned by this object
+    */
+   public Node intern(Node node) {
+      if (node instanceof FunctionNode) {
+         return intern((FunctionNode) node);
+      } else if (node instanceof ConstantNode) {
+         return getOrPut(node);
+      } else {
+         return node;
+      }
+   }
+
+   /**
+    * Returns the canonical instance of the specified tree.
+    *
+    * @param node
+    *           the tree to intern
+    * @return a tree equal to {@code node}, shared with all other equal trees interned by this object
+    * @see #intern(Node)
+    */
+   public FunctionNode intern(FunctionNode node) {
+      Node existing = get(node);
+      if (existing != null) {
+         // the arguments of a canonical node are already canonical, so there is no need to visit them
+         return (FunctionNode) existing;
+      }
+
+      Arguments arguments = node.getArguments();
+      Node[] internedArguments = new Node[arguments.getArgCount()];
+      boolean updated = false;
+      for (int i = 0; i < internedArguments.length; i++) {
+         Node arg = arguments.getArg(i);
+         internedArguments[i] = intern(arg);
+         updated |= internedArguments[i] != arg;
+      }
+      return (FunctionNode) getOrPut(updated ? new FunctionNode(node.getFunction(), internedArguments) : node);
+   }
+
+   /** Returns the number of canonical nodes that have not yet been garbage collected. */
+   public int size() {
+      synchronized (nodes) {
+         return nodes.size();
+      }
+   }
+
+   private Node get(Node node) {
+      synchronized (nodes) {
+         WeakReference<Node> reference = nodes.get(node);
+         return reference == null ? null : reference.get();
+      }
+   }
+
+   private Node getOrPut(Node node) {
+      synchronized (nodes) {
+         WeakReference<Node> reference = nodes.get(node);
+         Node existing = reference == null ? null : reference.get();
+         if (existing == null) {
+            // the value must only be weakly referenced, otherwise it would prevent its own key from being collected
+            nodes.put(node, new WeakReference<>(node));
+            return node;
+         } else {
+            return existing;
+         }
+      }
+   }
+}
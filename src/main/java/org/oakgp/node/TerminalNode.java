@@ -15,6 +15,8 @@
  */
 package org.oakgp.node;
 
+import org.oakgp.Type;
+
 /** Represents a node that has no children. */
 abstract class TerminalNode implements Node {
    @Override
@@ -26,4 +28,9 @@ abstract class TerminalNode implements Node {
    public final int getNodeCount() {
       return 1;
    }
+
+   @Override
+   public final int getNodeCount(Type type) {
+      return getType() == type ? 1 : 0;
+   }
 }
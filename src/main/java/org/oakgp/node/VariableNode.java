@@ -16,6 +16,7 @@
 package org.oakgp.node;
 
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.Type;
 
 /**
@@ -26,6 +27,7 @@ import org.oakgp.Type;
 public final class VariableNode extends TerminalNode {
    private final int id;
    private final Type type;
+   private final long variableMask;
    private final int hashCode;
 
    /**
@@ -39,6 +41,7 @@ public final class VariableNode extends TerminalNode {
    public VariableNode(int id, Type type) {
       this.id = id;
       this.type = type;
+      this.variableMask = 1L << (id & 63);
       // +1 so never multiplying by 0
       // *997 as an alternative to *31 - so VariableNode with id 1 has a different hash code than a ConstantNode with an Integer with value 1
       this.hashCode = (id + 1) * 997;
@@ -63,6 +66,32 @@ public final class VariableNode extends TerminalNode {
       return assignments.get(id);
    }
 
+   @Override
+   public Object[] evaluateBatch(ColumnarAssignments assignments) {
+      return assignments.getColumn(id);
+   }
+
+   @Override
+   public int[] evaluateIntBatch(ColumnarAssignments assignments) {
+      return assignments.getIntColumn(id);
+   }
+
+   @Override
+   public double[] evaluateDoubleBatch(ColumnarAssignments assignments) {
+      return assignments.getDoubleColumn(id);
+   }
+
+   @Override
+   public long getVariableMask() {
+      return variableMask;
+   }
+
+   /** Returns {@code true} as evaluating a variable has no side-effects. */
+   @Override
+   public boolean isPure() {
+      return true;
+   }
+
    @Override
    public Type getType() {
       return type;
@@ -18,6 +18,7 @@ package org.oakgp.node.walk;
 import java.util.function.Predicate;
 
 import org.oakgp.Arguments;
+import org.oakgp.Type;
 import org.oakgp.node.FunctionNode;
 import org.oakgp.node.Node;
 import org.oakgp.node.NodeType;
@@ -47,6 +48,60 @@ public final class StrategyWalk {
       return total;
    }
 
+   /**
+    * Returns the total number of nodes contained in the tree-structure represented by the given {@code Node} that are of the specified type and no higher
+    * than the specified height.
+    * <p>
+    * Equivalent to calling {@link #getNodeCount(Node, Predicate)} with the predicate {@code n -> n.getType() == type && n.getHeight() <= maxHeight} - but
+    * uses the counts cached by each {@code Node} rather than visiting every node of subtrees no higher than {@code maxHeight}.
+    *
+    * @see Node#getNodeCount(Type)
+    */
+   public static int getNodeCount(Node node, Type type, int maxHeight) {
+      if (node.getHeight() <= maxHeight) {
+         return node.getNodeCount(type);
+      } else if (NodeType.isFunction(node)) {
+         FunctionNode functionNode = (FunctionNode) node;
+         Arguments arguments = functionNode.getArguments();
+         int total = 0;
+         for (int i = 0; i < arguments.getArgCount(); i++) {
+            total += getNodeCount(arguments.getArg(i), type, maxHeight);
+         }
+         return total;
+      } else {
+         return 0;
+      }
+   }
+
+   /**
+    * Returns a {@code Node} from the tree structure represented by the given {@code Node} that is of the specified type and no higher than the specified
+    * height.
+    * <p>
+    * Equivalent to calling {@link #getAt(Node, int, Predicate)} with the predicate {@code n -> n.getType() == type && n.getHeight() <= maxHeight}.
+    *
+    * @see #getNodeCount(Node, Type, int)
+    */
+   public static Node getAt(Node node, int index, Type type, int maxHeight) {
+      if (NodeType.isFunction(node)) {
+         FunctionNode functionNode = (FunctionNode) node;
+         Arguments arguments = functionNode.getArguments();
+         int total = 0;
+         for (int i = 0; i < arguments.getArgCount(); i++) {
+            Node child = arguments.getArg(i);
+            int c = getNodeCount(child, type, maxHeight);
+            if (total + c > index) {
+               return getAt(child, index - total, type, maxHeight);
+            } else {
+               total += c;
+            }
+         }
+         if (node.getType() != type || node.getHeight() > maxHeight) {
+            throw new IllegalStateException();
+         }
+      }
+      return node;
+   }
+
    /** Returns a {@code Node} from the tree structure represented by the given {@code Node} that matches the specified predicate. */
    public static Node getAt(Node node, int index, Predicate<Node> treeWalkerStrategy) {
       if (NodeType.isFunction(node)) {
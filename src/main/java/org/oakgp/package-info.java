@@ -10,6 +10,7 @@
  * <li>{@link org.oakgp.select} provides strategies for selecting ranked candidates.</li>
  * <li>{@link org.oakgp.evolve} provides mechanisms for using selected candidates as a basis for evolving new candidates.</li>
  * <li>{@link org.oakgp.terminate} provides predicates for determining when a genetic programming run is complete.</li>
+ * <li>{@link org.oakgp.compile} provides mechanisms for compiling tree structures into forms that can be evaluated more efficiently.</li>
  * </ul>
  */
 package org.oakgp;
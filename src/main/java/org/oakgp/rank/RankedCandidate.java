@@ -21,11 +21,28 @@ import org.oakgp.node.Node;
 public final class RankedCandidate implements Comparable<RankedCandidate> {
    private final double fitness;
    private final Node node;
+   private final boolean lowerBound;
 
    /** Creates a {@code RankedCandidate} which associates the given {@code Node} with the given fitness value. */
    public RankedCandidate(Node node, double fitness) {
+      this(node, fitness, false);
+   }
+
+   /**
+    * Creates a {@code RankedCandidate} which associates the given {@code Node} with the given fitness value.
+    *
+    * @param node
+    *           the candidate
+    * @param fitness
+    *           the fitness of {@code node}
+    * @param lowerBound
+    *           {@code true} if the evaluation of {@code node} was stopped early, so that {@code fitness} is only a lower bound of its actual fitness
+    * @see org.oakgp.rank.fitness.BoundedFitnessFunction
+    */
+   public RankedCandidate(Node node, double fitness, boolean lowerBound) {
       this.node = node;
       this.fitness = fitness;
+      this.lowerBound = lowerBound;
    }
 
    public double getFitness() {
@@ -36,6 +53,11 @@ public final class RankedCandidate implements Comparable<RankedCandidate> {
       return node;
    }
 
+   /** Returns {@code true} if the value returned from {@link #getFitness()} is only a lower bound of the actual fitness of the candidate. */
+   public boolean isLowerBound() {
+      return lowerBound;
+   }
+
    @Override
    public boolean equals(Object o) {
       if (o instanceof RankedCandidate) {
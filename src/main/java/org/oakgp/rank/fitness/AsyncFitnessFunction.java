@@ -0,0 +1,40 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.oakgp.node.Node;
+
+/**
+ * Calculates the fitness of a potential solution without blocking the calling thread.
+ * <p>
+ * Suited to fitness functions that spend most of their time waiting - e.g. on an external simulator process - as many evaluations can be in progress
+ * without requiring a thread per evaluation.
+ *
+ * @see AsyncFitnessFunctionGenerationRanker
+ */
+@FunctionalInterface
+public interface AsyncFitnessFunction {
+   /**
+    * Starts determining the fitness of the specified {@code Node}.
+    *
+    * @param n
+    *           the potential solution to evaluate
+    * @return a future that will be completed with the fitness of {@code n} - or completed exceptionally if its fitness could not be determined
+    */
+   CompletableFuture<Double> evaluate(Node n);
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.oakgp.compile.NodeCompiler;
+import org.oakgp.node.Node;
+import org.oakgp.util.ConcurrentCache;
+
+/**
+ * Wraps an {@code AsyncFitnessFunction} to provide caching of results.
+ * <p>
+ * Concurrent requests for the same {@code Node} share a single evaluation - only the first request is passed to the wrapped function, later requests receive
+ * a future that is completed when the first request completes. Results of evaluations that complete exceptionally are not cached.
+ * <p>
+ * Can be used concurrently by multiple threads. See {@link ConcurrentCache}.
+ * <p>
+ * If constructed with a {@code NodeCompiler} then results are cached against the original, uncompiled, candidates - and a candidate is only compiled when it
+ * is passed to the wrapped function.
+ *
+ * @see FitnessFunctionCache
+ */
+public final class AsyncFitnessFunctionCache implements AsyncFitnessFunction {
+   private final AsyncFitnessFunction fitnessFunction;
+   private final NodeCompiler compiler;
+   private final ConcurrentCache<Node, Double> cache;
+   private final ConcurrentHashMap<Node, CompletableFuture<Double>> inProgress = new ConcurrentHashMap<>();
+
+   /** Creates a cache of the given maximum size which will contain the results of evaluating the given {@code AsyncFitnessFunction}. */
+   public AsyncFitnessFunctionCache(int maxSize, AsyncFitnessFunction fitnessFunction) {
+      this(maxSize, fitnessFunction, n -> n);
+   }
+
+   /**
+    * Creates a cache of the given maximum size which will contain the results of evaluating the given {@code AsyncFitnessFunction} against compiled
+    * candidates.
+    *
+    * @param maxSize
+    *           the maximum number of results to cache
+    * @param fitnessFunction
+    *           the {@code AsyncFitnessFunction} to use when determining the fitness of candidates
+    * @param compiler
+    *           used to compile a candidate before providing it to {@code fitnessFunction} - only called when the fitness of the candidate is neither cached nor
+    *           already being evaluated
+    */
+   public AsyncFitnessFunctionCache(int maxSize, AsyncFitnessFunction fitnessFunction, NodeCompiler compiler) {
+      this.fitnessFunction = fitnessFunction;
+      this.compiler = compiler;
+      this.cache = new ConcurrentCache<>(maxSize);
+   }
+
+   @Override
+   public CompletableFuture<Double> evaluate(Node n) {
+      Double cached = cache.get(n);
+      if (cached != null) {
+         return CompletableFuture.completedFuture(cached);
+      }
+
+      CompletableFuture<Double> result = new CompletableFuture<>();
+      CompletableFuture<Double> existing = inProgress.putIfAbsent(n, result);
+      if (existing != null) {
+         return existing;
+      }
+
+      // check the cache again in case an evaluation completed after the previous check
+      cached = cache.get(n);
+      if (cached != null) {
+         inProgress.remove(n, result);
+         result.complete(cached);
+         return result;
+      }
+
+      CompletableFuture<Double> evaluation;
+      try {
+         evaluation = fitnessFunction.evaluate(compiler.compile(n));
+      } catch (RuntimeException e) {
+         evaluation = new CompletableFuture<>();
+         evaluation.completeExceptionally(e);
+      }
+      evaluation.whenComplete((fitness, exception) -> {
+         // update the cache before removing from inProgress - so later requests always find either the result or the evaluation in progress
+         if (exception == null) {
+            cache.put(n, fitness);
+         }
+         inProgress.remove(n, result);
+         if (exception == null) {
+            result.complete(fitness);
+         } else {
+            result.completeExceptionally(exception);
+         }
+      });
+      return result;
+   }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.oakgp.node.Node;
+import org.oakgp.rank.GenerationRanker;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+
+/**
+ * Ranks and sorts the fitness of {@code Node} instances using an {@code AsyncFitnessFunction}.
+ * <p>
+ * Starts evaluating candidates until the specified maximum number of evaluations are in progress - then starts evaluating another candidate each time an
+ * evaluation completes. The calling thread only blocks while waiting for an evaluation to complete - so many candidates can be evaluated concurrently without
+ * requiring a thread per evaluation.
+ */
+public final class AsyncFitnessFunctionGenerationRanker implements GenerationRanker {
+   private final AsyncFitnessFunction fitnessFunction;
+   private final int maxInProgress;
+
+   /**
+    * Constructs a {@code GenerationRanker} with the specified {@code AsyncFitnessFunction}.
+    *
+    * @param fitnessFunction
+    *           the {@code AsyncFitnessFunction} to use when determining the fitness of candidates
+    * @param maxInProgress
+    *           the maximum number of candidates whose evaluations can be in progress at the same time
+    * @throws IllegalArgumentException
+    *            if {@code maxInProgress} is not a positive integer
+    */
+   public AsyncFitnessFunctionGenerationRanker(AsyncFitnessFunction fitnessFunction, int maxInProgress) {
+      if (maxInProgress < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + maxInProgress);
+      }
+      this.fitnessFunction = fitnessFunction;
+      this.maxInProgress = maxInProgress;
+   }
+
+   /**
+    * Returns the sorted result of applying this object's {@code AsyncFitnessFunction} against each of the specified nodes.
+    *
+    * @param input
+    *           the {@code Node} instances to apply this object's {@code AsyncFitnessFunction} against
+    * @return a {@code List} of {@code RankedCandidate} - one for each {@code Node} specified in {@code input} - sorted by fitness
+    * @throws CompletionException
+    *            if the fitness of any of the candidates could not be determined - the exception the evaluation completed with is available via
+    *            {@link CompletionException#getCause()}
+    */
+   @Override
+   public RankedCandidates rank(Collection<Node> input) {
+      RankedCandidate[] output = new RankedCandidate[input.size()];
+      Semaphore permits = new Semaphore(maxInProgress);
+      AtomicReference<Throwable> failure = new AtomicReference<>();
+
+      int i = 0;
+      for (Node node : input) {
+         acquire(permits, 1);
+         if (failure.get() != null) {
+            // no point starting any more evaluations once one has failed
+            permits.release();
+            break;
+         }
+
+         final int idx = i++;
+         CompletableFuture<Double> evaluation;
+         try {
+            evaluation = fitnessFunction.evaluate(node);
+         } catch (RuntimeException e) {
+            permits.release();
+            failure.compareAndSet(null, e);
+            break;
+         }
+         evaluation.whenComplete((fitness, exception) -> {
+            try {
+               if (exception == null) {
+                  // throws a NullPointerException if the evaluation completed with null
+                  output[idx] = new RankedCandidate(node, fitness);
+               } else {
+                  failure.compareAndSet(null, exception);
+               }
+            } catch (RuntimeException e) {
+               failure.compareAndSet(null, e);
+            } finally {
+               // always release the permit, so rank does not wait forever - which also ensures the write to output is visible to the thread that acquires it
+               permits.release();
+            }
+         });
+      }
+
+      // wait for all evaluations still in progress to complete
+      acquire(permits, maxInProgress);
+
+      Throwable t = failure.get();
+      if (t instanceof CompletionException) {
+         throw (CompletionException) t;
+      } else if (t != null) {
+         throw new CompletionException(t);
+      }
+      return new RankedCandidates(output);
+   }
+
+   private static void acquire(Semaphore permits, int numPermits) {
+      try {
+         permits.acquire(numPermits);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CompletionException(e);
+      }
+   }
+}
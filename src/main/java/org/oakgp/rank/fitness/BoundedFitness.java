@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+/**
+ * The result of {@link BoundedFitnessFunction#evaluate(org.oakgp.node.Node, double)} - either the actual fitness of a candidate or, if the evaluation was
+ * stopped early, a lower bound of it.
+ * <p>
+ * A result can also be provisional - meaning that it depends on conditions at the time of the evaluation, e.g. a time limit, so should not be cached.
+ */
+public final class BoundedFitness {
+   private final double fitness;
+   private final boolean lowerBound;
+   private final boolean provisional;
+
+   /** Returns a {@code BoundedFitness} representing the actual fitness of a fully evaluated candidate. */
+   public static BoundedFitness exact(double fitness) {
+      return new BoundedFitness(fitness, false, false);
+   }
+
+   /** Returns a {@code BoundedFitness} representing a lower bound of the fitness of a candidate whose evaluation was stopped early. */
+   public static BoundedFitness lowerBound(double fitness) {
+      return new BoundedFitness(fitness, true, false);
+   }
+
+   /**
+    * Returns a {@code BoundedFitness} representing the fitness assigned to a candidate whose evaluation was abandoned for a reason that may not recur - e.g.
+    * exceeding a maximum elapsed time on a busy machine.
+    */
+   public static BoundedFitness provisional(double fitness) {
+      return new BoundedFitness(fitness, false, true);
+   }
+
+   private BoundedFitness(double fitness, boolean lowerBound, boolean provisional) {
+      this.fitness = fitness;
+      this.lowerBound = lowerBound;
+      this.provisional = provisional;
+   }
+
+   /** Returns the fitness - or, if {@link #isLowerBound()}, a lower bound of the fitness. */
+   public double getFitness() {
+      return fitness;
+   }
+
+   /** Returns {@code true} if the evaluation was stopped early, so that {@link #getFitness()} is only a lower bound of the actual fitness. */
+   public boolean isLowerBound() {
+      return lowerBound;
+   }
+
+   /** Returns {@code true} if repeating the evaluation may produce a different result - in which case the result should not be cached. */
+   public boolean isProvisional() {
+      return provisional;
+   }
+
+   @Override
+   public String toString() {
+      return (lowerBound ? ">=" : "") + fitness;
+   }
+}
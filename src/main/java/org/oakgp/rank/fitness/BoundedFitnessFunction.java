@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+import org.oakgp.node.Node;
+
+/**
+ * A {@code FitnessFunction} which can stop evaluating a potential solution once it is known to be worse than a specified cutoff.
+ * <p>
+ * Lower fitness values are better. When the fitness of a solution is determined to be greater than the cutoff the evaluation may be abandoned - in which case
+ * the returned value is a lower bound of the actual fitness, rather than the actual fitness.
+ *
+ * @see FitnessFunctionGenerationRanker#FitnessFunctionGenerationRanker(BoundedFitnessFunction, org.oakgp.compile.NodeCompiler, double)
+ */
+@FunctionalInterface
+public interface BoundedFitnessFunction extends FitnessFunction {
+   /**
+    * Returns the fitness of the solution represented by the given {@code Node}, or a lower bound of it if the fitness is greater than {@code cutoff}.
+    *
+    * @param n
+    *           the potential solution whose fitness will be determined
+    * @param cutoff
+    *           the value above which the actual fitness of {@code n} is not required
+    * @return the fitness of {@code n} - {@link BoundedFitness#isLowerBound()} indicates whether the evaluation was stopped early, in which case the value is
+    *         a lower bound of the fitness rather than the fitness itself
+    */
+   BoundedFitness evaluate(Node n, double cutoff);
+
+   /** Returns the fitness of the solution represented by the given {@code Node} - without stopping early. */
+   @Override
+   default double evaluate(Node n) {
+      return evaluate(n, Double.POSITIVE_INFINITY).getFitness();
+   }
+}
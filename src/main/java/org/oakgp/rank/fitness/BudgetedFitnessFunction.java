@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+import org.oakgp.node.EvaluationBudget;
+import org.oakgp.node.EvaluationBudgetExceededException;
+import org.oakgp.node.Node;
+
+/**
+ * Wraps a {@code FitnessFunction} to limit the work performed determining the fitness of a candidate.
+ * <p>
+ * If the evaluation of a candidate exhausts the {@link EvaluationBudget} then it is aborted and the candidate is assigned a penalty fitness. This bounds the
+ * time a single pathological candidate can add to the ranking of a generation.
+ * <p>
+ * Note: if the budget includes a maximum elapsed time then the fitness returned for a candidate may vary between invocations - depending on the load of the
+ * machine. So the penalty for exceeding the elapsed time is returned by {@link #evaluate(Node, double)} as {@link BoundedFitness#provisional(double)} -
+ * which {@link FitnessFunctionCache} does not cache - whereas the penalty for exceeding the number of steps, which is repeatable, is exact.
+ */
+public final class BudgetedFitnessFunction implements BoundedFitnessFunction {
+   private final FitnessFunction fitnessFunction;
+   private final EvaluationBudget budget;
+   private final double penaltyFitness;
+
+   /**
+    * Creates a {@code FitnessFunction} which applies the specified budget to each evaluation of the specified {@code FitnessFunction}.
+    *
+    * @param fitnessFunction
+    *           the {@code FitnessFunction} to limit the work of
+    * @param budget
+    *           the maximum work that can be performed determining the fitness of a single candidate
+    * @param penaltyFitness
+    *           the fitness to return for candidates whose evaluation exhausts {@code budget}
+    */
+   public BudgetedFitnessFunction(FitnessFunction fitnessFunction, EvaluationBudget budget, double penaltyFitness) {
+      this.fitnessFunction = fitnessFunction;
+      this.budget = budget;
+      this.penaltyFitness = penaltyFitness;
+   }
+
+   @Override
+   public double evaluate(Node n) {
+      try {
+         return budget.evaluate(() -> fitnessFunction.evaluate(n));
+      } catch (EvaluationBudgetExceededException e) {
+         return penaltyFitness;
+      }
+   }
+
+   /**
+    * Returns the fitness of the given candidate - if the wrapped {@code FitnessFunction} is a {@link BoundedFitnessFunction} then {@code cutoff} is
+    * forwarded to it, and its evaluation is limited by the budget, so candidates can still be abandoned early once they exceed the cutoff.
+    */
+   @Override
+   public BoundedFitness evaluate(Node n, double cutoff) {
+      try {
+         if (fitnessFunction instanceof BoundedFitnessFunction) {
+            BoundedFitnessFunction boundedFitnessFunction = (BoundedFitnessFunction) fitnessFunction;
+            return budget.evaluate(() -> boundedFitnessFunction.evaluate(n, cutoff));
+         } else {
+            return BoundedFitness.exact(budget.evaluate(() -> fitnessFunction.evaluate(n)));
+         }
+      } catch (EvaluationBudgetExceededException e) {
+         return e.isElapsedTimeExceeded() ? BoundedFitness.provisional(penaltyFitness) : BoundedFitness.exact(penaltyFitness);
+      }
+   }
+}
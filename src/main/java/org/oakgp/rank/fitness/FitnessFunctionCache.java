@@ -15,28 +15,66 @@
  */
 package org.oakgp.rank.fitness;
 
-import java.util.Map;
-
+import org.oakgp.compile.NodeCompiler;
 import org.oakgp.node.Node;
-import org.oakgp.util.CacheMap;
+import org.oakgp.util.ConcurrentCache;
 
-/** Wraps a {@code FitnessFunction} to provide caching of results. */
-public final class FitnessFunctionCache implements FitnessFunction {
+/**
+ * Wraps a {@code FitnessFunction} to provide caching of results.
+ * <p>
+ * Can be used concurrently by multiple threads. See {@link ConcurrentCache}.
+ * <p>
+ * If the wrapped function is a {@code BoundedFitnessFunction} then lower bounds returned from it are also cached - and reused for as long as they exceed the
+ * cutoff of later requests. Results that are {@link BoundedFitness#isProvisional() provisional} - e.g. the penalty assigned by a
+ * {@link BudgetedFitnessFunction} to a candidate that exceeded a maximum elapsed time - are not cached.
+ * <p>
+ * If constructed with a {@code NodeCompiler} then results are cached against the original, uncompiled, candidates - and a candidate is only compiled when its
+ * fitness is not already cached.
+ */
+public final class FitnessFunctionCache implements BoundedFitnessFunction {
    private final FitnessFunction fitnessFunction;
-   private final Map<Node, Double> cache;
+   private final NodeCompiler compiler;
+   private final ConcurrentCache<Node, BoundedFitness> cache;
 
    /** Creates a cache of the given maximum size which will contain the results of evaluating the given {@code FitnessFunction}. */
    public FitnessFunctionCache(int maxSize, FitnessFunction fitnessFunction) {
+      this(maxSize, fitnessFunction, n -> n);
+   }
+
+   /**
+    * Creates a cache of the given maximum size which will contain the results of evaluating the given {@code FitnessFunction} against compiled candidates.
+    *
+    * @param maxSize
+    *           the maximum number of results to cache
+    * @param fitnessFunction
+    *           the {@code FitnessFunction} to use when determining the fitness of candidates
+    * @param compiler
+    *           used to compile a candidate before providing it to {@code fitnessFunction} - only called when the fitness of the candidate is not cached
+    */
+   public FitnessFunctionCache(int maxSize, FitnessFunction fitnessFunction, NodeCompiler compiler) {
       this.fitnessFunction = fitnessFunction;
-      this.cache = CacheMap.createCache(maxSize);
+      this.compiler = compiler;
+      this.cache = new ConcurrentCache<>(maxSize);
    }
 
    @Override
    public double evaluate(Node n) {
-      Double result = cache.get(n);
-      if (result == null) {
-         result = fitnessFunction.evaluate(n);
-         cache.put(n, result);
+      return evaluate(n, Double.POSITIVE_INFINITY).getFitness();
+   }
+
+   @Override
+   public BoundedFitness evaluate(Node n, double cutoff) {
+      BoundedFitness result = cache.get(n);
+      if (result == null || (result.isLowerBound() && result.getFitness() <= cutoff)) {
+         Node compiled = compiler.compile(n);
+         if (fitnessFunction instanceof BoundedFitnessFunction) {
+            result = ((BoundedFitnessFunction) fitnessFunction).evaluate(compiled, cutoff);
+         } else {
+            result = BoundedFitness.exact(fitnessFunction.evaluate(compiled));
+         }
+         if (!result.isProvisional()) {
+            cache.put(n, result);
+         }
       }
       return result;
    }
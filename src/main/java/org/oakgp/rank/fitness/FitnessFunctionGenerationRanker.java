@@ -15,16 +15,35 @@
  */
 package org.oakgp.rank.fitness;
 
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import org.oakgp.compile.NodeCompiler;
 import org.oakgp.node.Node;
 import org.oakgp.rank.GenerationRanker;
 import org.oakgp.rank.RankedCandidate;
 import org.oakgp.rank.RankedCandidates;
 
-/** Ranks and sorts the fitness of {@code Node} instances using a {@code FitnessFunction}. */
+/**
+ * Ranks and sorts the fitness of {@code Node} instances using a {@code FitnessFunction}.
+ * <p>
+ * If constructed with a {@code ForkJoinPool} then the candidates of a generation are evaluated concurrently. As long as the {@code FitnessFunction} is
+ * deterministic and thread-safe the results are identical to those of evaluating the candidates one at a time.
+ */
 public final class FitnessFunctionGenerationRanker implements GenerationRanker {
+   /** The approximate number of tasks to create per thread of the pool - so threads that finish early can steal work from those that do not. */
+   private static final int TASKS_PER_THREAD = 8;
+
    private final FitnessFunction fitnessFunction;
+   private final NodeCompiler compiler;
+   private final BoundedFitnessFunction boundedFitnessFunction;
+   private final double cutoffQuantile;
+   private final ForkJoinPool pool;
+   private volatile double cutoff = Double.POSITIVE_INFINITY;
 
    /**
     * Constructs a {@code GenerationRanker} with the specified {@code FitnessFunction}.
@@ -33,7 +52,82 @@ public final class FitnessFunctionGenerationRanker implements GenerationRanker {
     *           the {@code FitnessFunction} to use when determining the fitness of candidates
     */
    public FitnessFunctionGenerationRanker(FitnessFunction fitnessFunction) {
+      this(fitnessFunction, n -> n);
+   }
+
+   /**
+    * Constructs a {@code GenerationRanker} which compiles candidates before providing them to the specified {@code FitnessFunction}.
+    * <p>
+    * The {@code RankedCandidate} instances returned by {@link #rank(Collection)} refer to the original, uncompiled, candidates.
+    *
+    * @param fitnessFunction
+    *           the {@code FitnessFunction} to use when determining the fitness of candidates
+    * @param compiler
+    *           used to compile each candidate before its fitness is determined
+    */
+   public FitnessFunctionGenerationRanker(FitnessFunction fitnessFunction, NodeCompiler compiler) {
+      this(fitnessFunction, compiler, null, 1, null);
+   }
+
+   /**
+    * Constructs a {@code GenerationRanker} which uses the specified {@code ForkJoinPool} to determine the fitness of candidates concurrently.
+    * <p>
+    * The candidates of a generation are divided between tasks by their estimated cost - so that a few large trees do not delay the completion of the
+    * generation. As every candidate is evaluated against the same test data, the cost of a candidate is estimated by its node count.
+    *
+    * @param fitnessFunction
+    *           the {@code FitnessFunction} to use when determining the fitness of candidates - must be safe for use by multiple threads
+    * @param compiler
+    *           used to compile each candidate before its fitness is determined - must be safe for use by multiple threads
+    * @param pool
+    *           used to determine the fitness of candidates concurrently
+    */
+   public FitnessFunctionGenerationRanker(FitnessFunction fitnessFunction, NodeCompiler compiler, ForkJoinPool pool) {
+      this(fitnessFunction, compiler, null, 1, requireNonNull(pool));
+   }
+
+   /**
+    * Constructs a {@code GenerationRanker} which stops evaluating candidates once they are known to be worse than most of the previous generation.
+    * <p>
+    * After each call to {@link #rank(Collection)} the fitness of the candidate at the position specified by {@code cutoffQuantile} is recorded. The next call
+    * to {@link #rank(Collection)} provides that value as the cutoff to {@link BoundedFitnessFunction#evaluate(Node, double)}. As most offspring are worse than
+    * the candidates they were produced from, this can avoid a large proportion of the work of evaluating a generation. Candidates which were not fully
+    * evaluated are still ranked after all of the candidates whose fitness is no greater than the cutoff, and are marked as
+    * {@link RankedCandidate#isLowerBound()}.
+    *
+    * @param fitnessFunction
+    *           the {@code BoundedFitnessFunction} to use when determining the fitness of candidates
+    * @param compiler
+    *           used to compile each candidate before its fitness is determined
+    * @param cutoffQuantile
+    *           the position, in the range {@code 0} (the best candidate) to {@code 1} (the worst candidate), of the candidate in the previous generation whose
+    *           fitness is used as the cutoff
+    */
+   public FitnessFunctionGenerationRanker(BoundedFitnessFunction fitnessFunction, NodeCompiler compiler, double cutoffQuantile) {
+      this(fitnessFunction, compiler, fitnessFunction, cutoffQuantile, null);
+   }
+
+   /**
+    * Constructs a {@code GenerationRanker} which stops evaluating candidates once they are known to be worse than most of the previous generation, and which
+    * uses the specified {@code ForkJoinPool} to determine the fitness of candidates concurrently.
+    *
+    * @see #FitnessFunctionGenerationRanker(BoundedFitnessFunction, NodeCompiler, double)
+    * @see #FitnessFunctionGenerationRanker(FitnessFunction, NodeCompiler, ForkJoinPool)
+    */
+   public FitnessFunctionGenerationRanker(BoundedFitnessFunction fitnessFunction, NodeCompiler compiler, double cutoffQuantile, ForkJoinPool pool) {
+      this(fitnessFunction, compiler, fitnessFunction, cutoffQuantile, requireNonNull(pool));
+   }
+
+   private FitnessFunctionGenerationRanker(FitnessFunction fitnessFunction, NodeCompiler compiler, BoundedFitnessFunction boundedFitnessFunction,
+         double cutoffQuantile, ForkJoinPool pool) {
+      if (cutoffQuantile < 0 || cutoffQuantile > 1) {
+         throw new IllegalArgumentException("Cutoff quantile must be in the range 0 to 1: " + cutoffQuantile);
+      }
       this.fitnessFunction = fitnessFunction;
+      this.compiler = compiler;
+      this.boundedFitnessFunction = boundedFitnessFunction;
+      this.cutoffQuantile = cutoffQuantile;
+      this.pool = pool;
    }
 
    /**
@@ -45,16 +139,91 @@ public final class FitnessFunctionGenerationRanker implements GenerationRanker {
     */
    @Override
    public RankedCandidates rank(Collection<Node> input) {
-      RankedCandidate[] output = new RankedCandidate[input.size()];
-      int ctr = 0;
-      for (Node n : input) {
-         RankedCandidate rankedCandidate = rankCandidate(n);
-         output[ctr++] = rankedCandidate;
+      // read the cutoff once so every candidate of the generation is evaluated against the same value
+      double generationCutoff = cutoff;
+      Node[] nodes = input.toArray(new Node[input.size()]);
+      RankedCandidate[] output = new RankedCandidate[nodes.length];
+      if (pool == null || nodes.length < 2) {
+         rankCandidates(nodes, output, 0, nodes.length, generationCutoff);
+      } else {
+         long[] cumulativeCosts = createCumulativeCosts(nodes);
+         long threshold = Math.max(1, cumulativeCosts[nodes.length] / ((long) pool.getParallelism() * TASKS_PER_THREAD));
+         pool.invoke(new RankTask(nodes, output, cumulativeCosts, threshold, 0, nodes.length, generationCutoff));
+      }
+      RankedCandidates rankedCandidates = new RankedCandidates(output);
+      updateCutoff(rankedCandidates);
+      return rankedCandidates;
+   }
+
+   private void rankCandidates(Node[] nodes, RankedCandidate[] output, int from, int to, double cutoff) {
+      for (int i = from; i < to; i++) {
+         output[i] = rankCandidate(nodes[i], cutoff);
+      }
+   }
+
+   /** Returns an array where the element at index {@code i} is the total estimated cost of evaluating the first {@code i} nodes. */
+   private static long[] createCumulativeCosts(Node[] nodes) {
+      long[] cumulativeCosts = new long[nodes.length + 1];
+      for (int i = 0; i < nodes.length; i++) {
+         cumulativeCosts[i + 1] = cumulativeCosts[i] + nodes[i].getNodeCount();
+      }
+      return cumulativeCosts;
+   }
+
+   private RankedCandidate rankCandidate(Node n, double cutoff) {
+      if (boundedFitnessFunction == null) {
+         return new RankedCandidate(n, fitnessFunction.evaluate(compiler.compile(n)));
+      } else {
+         BoundedFitness fitness = boundedFitnessFunction.evaluate(compiler.compile(n), cutoff);
+         return new RankedCandidate(n, fitness.getFitness(), fitness.isLowerBound());
+      }
+   }
+
+   private void updateCutoff(RankedCandidates rankedCandidates) {
+      if (boundedFitnessFunction != null && rankedCandidates.size() > 0) {
+         cutoff = rankedCandidates.get((int) Math.round(cutoffQuantile * (rankedCandidates.size() - 1))).getFitness();
       }
-      return new RankedCandidates(output);
    }
 
-   private RankedCandidate rankCandidate(Node n) {
-      return new RankedCandidate(n, fitnessFunction.evaluate(n));
+   /** Determines the fitness of a range of candidates - splitting the range in two, by estimated cost, until the cost is below a threshold. */
+   private final class RankTask extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+
+      private final Node[] nodes;
+      private final RankedCandidate[] output;
+      private final long[] cumulativeCosts;
+      private final long threshold;
+      private final int from;
+      private final int to;
+      private final double cutoff;
+
+      RankTask(Node[] nodes, RankedCandidate[] output, long[] cumulativeCosts, long threshold, int from, int to, double cutoff) {
+         this.nodes = nodes;
+         this.output = output;
+         this.cumulativeCosts = cumulativeCosts;
+         this.threshold = threshold;
+         this.from = from;
+         this.to = to;
+         this.cutoff = cutoff;
+      }
+
+      @Override
+      protected void compute() {
+         if (to - from < 2 || cumulativeCosts[to] - cumulativeCosts[from] <= threshold) {
+            rankCandidates(nodes, output, from, to, cutoff);
+         } else {
+            int mid = split();
+            invokeAll(new RankTask(nodes, output, cumulativeCosts, threshold, from, mid, cutoff),
+                  new RankTask(nodes, output, cumulativeCosts, threshold, mid, to, cutoff));
+         }
+      }
+
+      /** Returns the index which divides the range into two parts of approximately equal cost - each containing at least one candidate. */
+      private int split() {
+         long target = (cumulativeCosts[from] + cumulativeCosts[to]) / 2;
+         int idx = Arrays.binarySearch(cumulativeCosts, from + 1, to, target);
+         int mid = idx < 0 ? -idx - 1 : idx;
+         return Math.min(Math.max(mid, from + 1), to - 1);
+      }
    }
 }
@@ -15,10 +15,15 @@
  */
 package org.oakgp.rank.fitness;
 
+import static org.oakgp.ColumnarAssignments.createColumnarAssignments;
+import static org.oakgp.node.NodeType.isFunction;
+
 import java.util.Map;
 import java.util.function.ToDoubleBiFunction;
 
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
+import org.oakgp.compile.NodeCompiler;
 import org.oakgp.node.Node;
 
 /**
@@ -27,9 +32,17 @@ import org.oakgp.node.Node;
  * @param <T>
  *           the type of the expected values
  */
-public final class TestDataFitnessFunction<T> implements FitnessFunction {
-   private final Map<Assignments, T> tests;
+public final class TestDataFitnessFunction<T> implements BoundedFitnessFunction {
+   /**
+    * The number of test cases evaluated together by {@link #evaluate(Node, double)} before checking the cutoff - large enough to gain from evaluating in
+    * batch, small enough to skip most of the test cases of candidates that are worse than the cutoff.
+    */
+   static final int CHUNK_SIZE = 64;
+
+   private final ColumnarAssignments[] chunks;
+   private final Object[] expectedOutputs;
    private final ToDoubleBiFunction<T, T> rankingFunction;
+   private final NodeCompiler compiler;
 
    /**
     * Returns a new {@code FitnessFunction} which uses the specified test data to assess the fitness of potential solutions.
@@ -52,8 +65,56 @@ public final class TestDataFitnessFunction<T> implements FitnessFunction {
     *           entry in {@code tests} and returns a fitness value
     */
    public TestDataFitnessFunction(Map<Assignments, T> tests, ToDoubleBiFunction<T, T> rankingFunction) {
-      this.tests = tests;
+      this(tests, rankingFunction, n -> n);
+   }
+
+   /**
+    * Creates a {@code TestDataFitnessFunction} which compiles candidates before evaluating them against the given test cases.
+    * <p>
+    * As each candidate is evaluated once per test case, compiling it first can reduce the overall time taken to determine its fitness - particularly when
+    * there are a large number of test cases. See {@link org.oakgp.compile.TieredCompiler}.
+    *
+    * @param tests
+    *           a collection of test cases which associate an {@code Assignments} (used as input to {@link Node#evaluate(Assignments)}) with the corresponding
+    *           expected outcome
+    * @param rankingFunction
+    *           accepts the expected value (as the first argument) and the actual value (as the second argument) of applying a test case (as represented as an
+    *           entry in {@code tests} and returns a fitness value
+    * @param compiler
+    *           used to compile each candidate before it is evaluated against the test cases
+    */
+   public TestDataFitnessFunction(Map<Assignments, T> tests, ToDoubleBiFunction<T, T> rankingFunction, NodeCompiler compiler) {
+      this(createColumnarAssignments(tests.keySet()), tests, rankingFunction, compiler);
+   }
+
+   /**
+    * Creates a {@code TestDataFitnessFunction} which caches the results of evaluating pure subtrees against the given test cases.
+    * <p>
+    * As genetic operators copy most of a parent into its offspring, the same subtrees are evaluated generation after generation. Reusing their cached results
+    * reduces the overall time taken to determine the fitness of candidates - at the cost of memory used to store the results.
+    *
+    * @param tests
+    *           a collection of test cases which associate an {@code Assignments} (used as input to {@link Node#evaluate(Assignments)}) with the corresponding
+    *           expected outcome
+    * @param rankingFunction
+    *           accepts the expected value (as the first argument) and the actual value (as the second argument) of applying a test case (as represented as an
+    *           entry in {@code tests} and returns a fitness value
+    * @param cacheSize
+    *           the maximum number of subtrees to cache the results of
+    * @see org.oakgp.ColumnarAssignments#createColumnarAssignments(java.util.Collection, int)
+    */
+   public TestDataFitnessFunction(Map<Assignments, T> tests, ToDoubleBiFunction<T, T> rankingFunction, int cacheSize) {
+      this(createColumnarAssignments(tests.keySet(), cacheSize), tests, rankingFunction, n -> n);
+   }
+
+   private TestDataFitnessFunction(ColumnarAssignments inputs, Map<Assignments, T> tests, ToDoubleBiFunction<T, T> rankingFunction, NodeCompiler compiler) {
+      this.chunks = createChunks(inputs);
+      this.expectedOutputs = new Object[inputs.getRowCount()];
+      for (int i = 0; i < expectedOutputs.length; i++) {
+         expectedOutputs[i] = tests.get(inputs.getRow(i));
+      }
       this.rankingFunction = rankingFunction;
+      this.compiler = compiler;
    }
 
    /**
@@ -66,13 +127,69 @@ public final class TestDataFitnessFunction<T> implements FitnessFunction {
    @Override
    public double evaluate(Node node) {
       // TODO there is a possibility that the returned result may be 'Infinity' or '-Infinity' - is that OK or is BigDecimal required?
+      return evaluate(node, Double.POSITIVE_INFINITY).getFitness();
+   }
+
+   /**
+    * Evaluates the specified {@code Node} using the test data - stopping as soon as the accumulative difference exceeds {@code cutoff}.
+    * <p>
+    * The test cases are evaluated in batch, in chunks of {@link #CHUNK_SIZE}, and the cutoff is checked between chunks - so the evaluation stops at the end
+    * of the chunk in which the cutoff was exceeded.
+    * <p>
+    * The values returned by the ranking function are assumed to be non-negative, so that the accumulative difference at the point the evaluation is stopped is
+    * a lower bound of the result of {@link #evaluate(Node)}.
+    *
+    * @param node
+    *           the potential solution that whose fitness will be determined
+    * @param cutoff
+    *           the value above which the actual fitness of {@code node} is not required
+    * @return the accumulative difference between the expected and actual outputs of evaluating {@code node} - if the cutoff was exceeded before all the
+    *         test cases were evaluated then a lower bound containing only the difference accumulated from the test cases evaluated so far
+    */
+   @SuppressWarnings("unchecked")
+   @Override
+   public BoundedFitness evaluate(Node node, double cutoff) {
+      // evaluate the test cases a chunk at a time so the remaining chunks can be skipped once the cutoff has been exceeded
+      Node compiled = compiler.compile(node);
       double diff = 0;
-      for (Map.Entry<Assignments, T> test : tests.entrySet()) {
-         Assignments input = test.getKey();
-         T expected = test.getValue();
-         T actual = node.evaluate(input);
-         diff += rankingFunction.applyAsDouble(expected, actual);
+      int offset = 0;
+      int c = 0;
+      while (c < chunks.length && diff <= cutoff) {
+         Object[] actualOutputs = evaluateInputs(compiled, chunks[c]);
+         for (int i = 0; i < actualOutputs.length; i++) {
+            T expected = (T) expectedOutputs[offset + i];
+            T actual = (T) actualOutputs[i];
+            diff += rankingFunction.applyAsDouble(expected, actual);
+         }
+         offset += actualOutputs.length;
+         c++;
+      }
+      return c < chunks.length ? BoundedFitness.lowerBound(diff) : BoundedFitness.exact(diff);
+   }
+
+   private static Object[] evaluateInputs(Node node, ColumnarAssignments chunk) {
+      if (isFunction(node)) {
+         // evaluate all of the test cases of the chunk in a single traversal of the tree structure
+         return node.evaluateBatch(chunk);
+      } else {
+         Object[] result = new Object[chunk.getRowCount()];
+         for (int i = 0; i < result.length; i++) {
+            result[i] = node.evaluate(chunk.getRow(i));
+         }
+         return result;
+      }
+   }
+
+   /** Slices the test cases into chunks of {@link #CHUNK_SIZE} - the slices share the subtree cache, if any, of {@code inputs}. */
+   private static ColumnarAssignments[] createChunks(ColumnarAssignments inputs) {
+      int rowCount = inputs.getRowCount();
+      if (rowCount <= CHUNK_SIZE) {
+         return new ColumnarAssignments[] { inputs };
+      }
+      ColumnarAssignments[] chunks = new ColumnarAssignments[(rowCount + CHUNK_SIZE - 1) / CHUNK_SIZE];
+      for (int c = 0; c < chunks.length; c++) {
+         chunks[c] = inputs.slice(c * CHUNK_SIZE, Math.min(rowCount, (c + 1) * CHUNK_SIZE));
       }
-      return diff;
+      return chunks;
    }
 }
@@ -15,6 +15,11 @@
  */
 package org.oakgp.rank.tournament;
 
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 import org.oakgp.node.Node;
 
 /**
@@ -25,14 +30,42 @@ import org.oakgp.node.Node;
  */
 public final class FirstPlayerAdvantageGame implements TwoPlayerGame {
    private final TwoPlayerGame twoPlayerGame;
+   private final ForkJoinPool pool;
 
    /** Creates a {@code FirstPlayerAdvantageGame} that uses the given {@code TwoPlayerGame}. */
    public FirstPlayerAdvantageGame(TwoPlayerGame twoPlayerGame) {
       this.twoPlayerGame = twoPlayerGame;
+      this.pool = null;
+   }
+
+   /**
+    * Creates a {@code FirstPlayerAdvantageGame} that uses the specified {@code ForkJoinPool} to play both games of a pairing concurrently.
+    *
+    * @param twoPlayerGame
+    *           the game to play - must be safe for use by multiple threads
+    * @param pool
+    *           used to play the game where {@code player2} moves first while the current thread plays the game where {@code player1} moves first
+    */
+   public FirstPlayerAdvantageGame(TwoPlayerGame twoPlayerGame, ForkJoinPool pool) {
+      this.twoPlayerGame = twoPlayerGame;
+      this.pool = requireNonNull(pool);
    }
 
    @Override
    public double evaluate(Node player1, Node player2) {
-      return twoPlayerGame.evaluate(player1, player2) - twoPlayerGame.evaluate(player2, player1);
+      if (pool == null) {
+         return twoPlayerGame.evaluate(player1, player2) - twoPlayerGame.evaluate(player2, player1);
+      } else {
+         ForkJoinTask<Double> reverse = ForkJoinTask.adapt(() -> twoPlayerGame.evaluate(player2, player1));
+         if (ForkJoinTask.getPool() == pool) {
+            // already running in the pool (e.g. in a RoundRobinTournament) so push onto the queue of the current thread
+            reverse.fork();
+         } else {
+            pool.execute(reverse);
+         }
+         double result = twoPlayerGame.evaluate(player1, player2);
+         // if no other thread has started the reverse game then joining will play it on the current thread
+         return result - reverse.join();
+      }
    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.tournament;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.oakgp.node.Node;
+import org.oakgp.rank.GenerationRanker;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.Random;
+
+/**
+ * Ranks and sorts the fitness of {@code Node} instances using a {@code TwoPlayerGame} against a sample of randomly selected opponents.
+ * <p>
+ * Each candidate plays a fixed number of games against opponents selected at random from the rest of the generation. As candidates are also selected as
+ * opponents by others, the number of games each candidate plays varies - so the fitness of a candidate is the average, rather than the total, of the outcomes
+ * of the games it played. A generation of {@code n} candidates which each select {@code k} opponents plays {@code n * k} games - rather than the
+ * {@code n * (n - 1) / 2} games of a {@link RoundRobinTournament}.
+ */
+public final class RandomOpponentTournament implements GenerationRanker {
+   private final TwoPlayerGame game;
+   private final Random random;
+   private final int opponents;
+
+   /**
+    * Creates a {@code RandomOpponentTournament} for the given {@code TwoPlayerGame}.
+    *
+    * @param game
+    *           the game to play between each pair of candidates
+    * @param random
+    *           used to select opponents
+    * @param opponents
+    *           the number of opponents each candidate selects to play against
+    */
+   public RandomOpponentTournament(TwoPlayerGame game, Random random, int opponents) {
+      if (opponents < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + opponents);
+      }
+      this.game = game;
+      this.random = random;
+      this.opponents = opponents;
+   }
+
+   @Override
+   public RankedCandidates rank(Collection<Node> input) {
+      Node[] inputAsArray = input.toArray(new Node[input.size()]);
+      double[] fitness = evaluateFitness(inputAsArray);
+      RankedCandidate[] output = new RankedCandidate[inputAsArray.length];
+      for (int i = 0; i < output.length; i++) {
+         output[i] = new RankedCandidate(inputAsArray[i], fitness[i]);
+      }
+      return new RankedCandidates(output, Collections.reverseOrder());
+   }
+
+   private double[] evaluateFitness(Node[] input) {
+      int size = input.length;
+      double[] fitness = new double[size];
+      int[] gamesPlayed = new int[size];
+      if (size > 1) {
+         for (int i1 = 0; i1 < size; i1++) {
+            for (int k = 0; k < opponents; k++) {
+               // select any candidate other than i1
+               int i2 = random.nextInt(size - 1);
+               if (i2 >= i1) {
+                  i2++;
+               }
+               double result = game.evaluate(input[i1], input[i2]);
+               fitness[i1] += result;
+               fitness[i2] += -result;
+               gamesPlayed[i1]++;
+               gamesPlayed[i2]++;
+            }
+         }
+         for (int i = 0; i < size; i++) {
+            fitness[i] /= gamesPlayed[i];
+         }
+      }
+      return fitness;
+   }
+}
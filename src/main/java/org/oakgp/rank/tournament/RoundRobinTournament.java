@@ -15,27 +15,57 @@
  */
 package org.oakgp.rank.tournament;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.oakgp.node.Node;
 import org.oakgp.rank.GenerationRanker;
 import org.oakgp.rank.RankedCandidate;
 import org.oakgp.rank.RankedCandidates;
 
-/** Ranks and sorts the fitness of {@code Node} instances using a {@code TwoPlayerGame} in a round-robin tournament. */
+/**
+ * Ranks and sorts the fitness of {@code Node} instances using a {@code TwoPlayerGame} in a round-robin tournament.
+ * <p>
+ * If constructed with a {@code ForkJoinPool} then the games of a tournament are played concurrently. The matrix of pairings is partitioned into square tiles,
+ * each played by a single task. Each tile accumulates the results of its games in its own arrays - which are summed, in the order of the tiles, once all games
+ * have been played. As the size of the tiles does not depend on the number of threads, and the partial sums are combined in a fixed order, the results are
+ * identical regardless of the number of threads or how the work was scheduled. (They are also identical to the results of playing the games one at a time
+ * when the results of the games can be summed without rounding - e.g. integer values.)
+ */
 public final class RoundRobinTournament implements GenerationRanker {
+   /** The number of candidates along each side of a tile. */
+   private static final int TILE_SIZE = 32;
+
    private final TwoPlayerGame game;
+   private final ForkJoinPool pool;
 
    /** Creates a {@code RoundRobinTournament} for the given {@code TwoPlayerGame}. */
    public RoundRobinTournament(TwoPlayerGame game) {
       this.game = game;
+      this.pool = null;
+   }
+
+   /**
+    * Creates a {@code RoundRobinTournament} which uses the specified {@code ForkJoinPool} to play the games of a tournament concurrently.
+    *
+    * @param game
+    *           the game to play between each pair of candidates - must be safe for use by multiple threads
+    * @param pool
+    *           used to play the games concurrently
+    */
+   public RoundRobinTournament(TwoPlayerGame game, ForkJoinPool pool) {
+      this.game = game;
+      this.pool = requireNonNull(pool);
    }
 
    @Override
    public RankedCandidates rank(Collection<Node> input) {
       Node[] inputAsArray = input.toArray(new Node[input.size()]);
-      double[] fitness = evaluateFitness(inputAsArray);
+      double[] fitness = pool == null ? evaluateFitness(inputAsArray) : evaluateFitnessConcurrently(inputAsArray);
       return toRankedCandidates(inputAsArray, fitness);
    }
 
@@ -54,6 +84,40 @@ public final class RoundRobinTournament implements GenerationRanker {
       return fitness;
    }
 
+   private double[] evaluateFitnessConcurrently(Node[] input) {
+      int size = input.length;
+      // the tiles on or above the diagonal of a matrix of numTiles * numTiles
+      int numTiles = (size + TILE_SIZE - 1) / TILE_SIZE;
+      int[] tileRows = new int[numTiles * (numTiles + 1) / 2];
+      int[] tileColumns = new int[tileRows.length];
+      int ctr = 0;
+      for (int row = 0; row < numTiles; row++) {
+         for (int column = row; column < numTiles; column++) {
+            tileRows[ctr] = row;
+            tileColumns[ctr] = column;
+            ctr++;
+         }
+      }
+
+      // the results of each tile - for the players of the rows of the tile, and for the players of the columns of the tile
+      double[][] rowResults = new double[tileRows.length][];
+      double[][] columnResults = new double[tileRows.length][];
+      pool.invoke(new TileTask(input, tileRows, tileColumns, 0, tileRows.length, rowResults, columnResults));
+
+      double[] fitness = new double[size];
+      for (int tile = 0; tile < tileRows.length; tile++) {
+         add(fitness, tileRows[tile] * TILE_SIZE, rowResults[tile]);
+         add(fitness, tileColumns[tile] * TILE_SIZE, columnResults[tile]);
+      }
+      return fitness;
+   }
+
+   private static void add(double[] fitness, int offset, double[] results) {
+      for (int i = 0; i < results.length; i++) {
+         fitness[offset + i] += results[i];
+      }
+   }
+
    private RankedCandidates toRankedCandidates(Node[] input, double[] fitness) {
       int size = fitness.length;
       RankedCandidate[] output = new RankedCandidate[size];
@@ -62,4 +126,60 @@ public final class RoundRobinTournament implements GenerationRanker {
       }
       return new RankedCandidates(output, Collections.reverseOrder());
    }
+
+   /** Plays the games of a range of tiles - splitting the range in two until it contains a single tile. */
+   private final class TileTask extends RecursiveAction {
+      private static final long serialVersionUID = 1L;
+
+      private final Node[] input;
+      private final int[] tileRows;
+      private final int[] tileColumns;
+      private final int from;
+      private final int to;
+      private final double[][] rowResults;
+      private final double[][] columnResults;
+
+      TileTask(Node[] input, int[] tileRows, int[] tileColumns, int from, int to, double[][] rowResults, double[][] columnResults) {
+         this.input = input;
+         this.tileRows = tileRows;
+         this.tileColumns = tileColumns;
+         this.from = from;
+         this.to = to;
+         this.rowResults = rowResults;
+         this.columnResults = columnResults;
+      }
+
+      @Override
+      protected void compute() {
+         if (to - from == 1) {
+            playTile(from);
+         } else {
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileTask(input, tileRows, tileColumns, from, mid, rowResults, columnResults),
+                  new TileTask(input, tileRows, tileColumns, mid, to, rowResults, columnResults));
+         }
+      }
+
+      private void playTile(int tile) {
+         int row = tileRows[tile];
+         int column = tileColumns[tile];
+         int rowStart = row * TILE_SIZE;
+         int rowEnd = Math.min(input.length, rowStart + TILE_SIZE);
+         int columnStart = column * TILE_SIZE;
+         int columnEnd = Math.min(input.length, columnStart + TILE_SIZE);
+         double[] rowFitness = new double[rowEnd - rowStart];
+         double[] columnFitness = new double[columnEnd - columnStart];
+         for (int i1 = rowStart; i1 < rowEnd; i1++) {
+            Node player1 = input[i1];
+            // tiles on the diagonal only play the pairs above the diagonal of the matrix
+            for (int i2 = row == column ? i1 + 1 : columnStart; i2 < columnEnd; i2++) {
+               double result = game.evaluate(player1, input[i2]);
+               rowFitness[i1 - rowStart] += result;
+               columnFitness[i2 - columnStart] += -result;
+            }
+         }
+         rowResults[tile] = rowFitness;
+         columnResults[tile] = columnFitness;
+      }
+   }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.tournament;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.oakgp.node.Node;
+import org.oakgp.rank.GenerationRanker;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.Random;
+
+/**
+ * Ranks and sorts the fitness of {@code Node} instances using a {@code TwoPlayerGame} in a Swiss-system tournament.
+ * <p>
+ * The tournament consists of a fixed number of rounds. In each round candidates are ordered by their current score and paired with the next candidate in that
+ * order they have not already played. A tournament of {@code r} rounds between {@code n} candidates consists of {@code r * n / 2} games - rather than the
+ * {@code n * (n - 1) / 2} games of a {@link RoundRobinTournament}. As approximately {@code log2(n)} rounds are sufficient to determine the strongest
+ * candidates, this allows much larger populations to be ranked.
+ */
+public final class SwissTournament implements GenerationRanker {
+   private final TwoPlayerGame game;
+   private final Random random;
+   private final int rounds;
+
+   /**
+    * Creates a {@code SwissTournament} for the given {@code TwoPlayerGame}.
+    *
+    * @param game
+    *           the game to play between each pair of candidates
+    * @param random
+    *           used to determine the order of the candidates in the first round
+    * @param rounds
+    *           the number of rounds to play
+    */
+   public SwissTournament(TwoPlayerGame game, Random random, int rounds) {
+      if (rounds < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + rounds);
+      }
+      this.game = game;
+      this.random = random;
+      this.rounds = rounds;
+   }
+
+   @Override
+   public RankedCandidates rank(Collection<Node> input) {
+      Node[] inputAsArray = input.toArray(new Node[input.size()]);
+      double[] fitness = evaluateFitness(inputAsArray);
+      RankedCandidate[] output = new RankedCandidate[inputAsArray.length];
+      for (int i = 0; i < output.length; i++) {
+         output[i] = new RankedCandidate(inputAsArray[i], fitness[i]);
+      }
+      return new RankedCandidates(output, Collections.reverseOrder());
+   }
+
+   private double[] evaluateFitness(Node[] input) {
+      int size = input.length;
+      double[] fitness = new double[size];
+      Integer[] order = createRandomOrder(size);
+      Set<Long> played = new HashSet<>();
+      boolean[] paired = new boolean[size];
+      for (int round = 0; round < rounds; round++) {
+         // sorting is stable - so candidates with equal scores stay in the same relative order as the previous round
+         Arrays.sort(order, (i1, i2) -> Double.compare(fitness[i2], fitness[i1]));
+         Arrays.fill(paired, false);
+         for (int o1 = 0; o1 < size; o1++) {
+            int i1 = order[o1];
+            if (paired[i1]) {
+               continue;
+            }
+            int o2 = findOpponent(order, o1, paired, played);
+            if (o2 == -1) {
+               // odd number of candidates - the lowest ranked unpaired candidate does not play this round
+               break;
+            }
+            int i2 = order[o2];
+            paired[i1] = true;
+            paired[i2] = true;
+            played.add(toKey(i1, i2, size));
+            double result = game.evaluate(input[i1], input[i2]);
+            fitness[i1] += result;
+            fitness[i2] += -result;
+         }
+      }
+      return fitness;
+   }
+
+   private Integer[] createRandomOrder(int size) {
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+         int j = random.nextInt(i + 1);
+         order[i] = order[j];
+         order[j] = i;
+      }
+      return order;
+   }
+
+   /**
+    * Returns the position of the highest ranked unpaired candidate below {@code o1} which has not already played the candidate at {@code o1}.
+    * <p>
+    * If every unpaired candidate has already played the candidate at {@code o1} then a rematch is allowed. Returns {@code -1} if there are no unpaired
+    * candidates below {@code o1}.
+    */
+   private int findOpponent(Integer[] order, int o1, boolean[] paired, Set<Long> played) {
+      int size = order.length;
+      int rematch = -1;
+      for (int o2 = o1 + 1; o2 < size; o2++) {
+         if (!paired[order[o2]]) {
+            if (!played.contains(toKey(order[o1], order[o2], size))) {
+               return o2;
+            } else if (rematch == -1) {
+               rematch = o2;
+            }
+         }
+      }
+      return rematch;
+   }
+
+   private static long toKey(int i1, int i2, int size) {
+      return (long) Math.min(i1, i2) * size + Math.max(i1, i2);
+   }
+}
@@ -15,54 +15,149 @@
  */
 package org.oakgp.rank.tournament;
 
-import java.util.Map;
-
 import org.oakgp.node.Node;
-import org.oakgp.util.CacheMap;
 
-/** Wraps a {@code TwoPlayerGame} to provide caching of results. */
+/**
+ * Wraps a {@code TwoPlayerGame} to provide caching of results.
+ * <p>
+ * As {@code TwoPlayerGame} represents a zero-sum game, the outcome of {@code player2} playing {@code player1} is the negation of the outcome of
+ * {@code player1} playing {@code player2} - so only one entry is stored per pair of players. Entries are stored in a set-associative table of primitive arrays,
+ * located by a fingerprint of each player, so no objects are allocated when looking up or storing a result. When all of the slots of a set are used the
+ * oldest entry of the set is replaced.
+ * <p>
+ * The fingerprint of a player is derived from its node count and its (32-bit) {@code hashCode} - so, although stored as a {@code long}, it distinguishes
+ * players no better than their hash codes and node counts do. It is only used to locate entries and to avoid most calls to {@code equals} - players whose
+ * fingerprints match are still compared using {@code equals}.
+ * <p>
+ * Can be used concurrently by multiple threads.
+ */
 public final class TwoPlayerGameCache implements TwoPlayerGame {
+   /** The number of slots in each set - an entry can be stored in any of the slots of the set its fingerprints map to. */
+   private static final int WAYS = 4;
+   private static final int MAX_LOCKS = 64;
+
    private final TwoPlayerGame twoPlayerGame;
-   private final Map<NodePair, Double> cache;
+   private final int numSets;
+   private final long[] fingerprints1;
+   private final long[] fingerprints2;
+   private final Node[] players1;
+   private final Node[] players2;
+   private final double[] results;
+   /** The slot, within each set, to replace when the set is full. */
+   private final byte[] nextReplacement;
+   private final Object[] locks;
 
-   /** Creates a cache of the given maximum size which will contain the results of evaluating the given {@code TwoPlayerGame}. */
+   /**
+    * Creates a cache of the given maximum size which will contain the results of evaluating the given {@code TwoPlayerGame}.
+    *
+    * @param maxSize
+    *           the maximum number of results to store
+    * @param twoPlayerGame
+    *           the game whose results will be cached
+    * @throws IllegalArgumentException
+    *            if {@code maxSize} is not a positive integer
+    */
    public TwoPlayerGameCache(int maxSize, TwoPlayerGame twoPlayerGame) {
+      if (maxSize < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + maxSize);
+      }
       this.twoPlayerGame = twoPlayerGame;
-      this.cache = CacheMap.createCache(maxSize);
+      // exactly maxSize slots - if maxSize is not a multiple of WAYS then the last set has fewer slots than the others
+      int numSlots = maxSize;
+      this.numSets = (maxSize + WAYS - 1) / WAYS;
+      this.fingerprints1 = new long[numSlots];
+      this.fingerprints2 = new long[numSlots];
+      this.players1 = new Node[numSlots];
+      this.players2 = new Node[numSlots];
+      this.results = new double[numSlots];
+      this.nextReplacement = new byte[numSets];
+      this.locks = new Object[Math.min(MAX_LOCKS, numSets)];
+      for (int i = 0; i < locks.length; i++) {
+         locks[i] = new Object();
+      }
    }
 
    @Override
    public double evaluate(Node player1, Node player2) {
-      NodePair pair = new NodePair(player1, player2);
-      Double result = cache.get(pair);
-      if (result == null) {
-         result = twoPlayerGame.evaluate(player1, player2);
-         cache.put(new NodePair(player2, player1), -result);
-         cache.put(pair, result);
+      long fingerprint1 = fingerprint(player1);
+      long fingerprint2 = fingerprint(player2);
+      // the set is determined by the unordered pair of fingerprints - so both orderings of the same players map to the same set
+      int set = (int) Long.remainderUnsigned(mix(Math.min(fingerprint1, fingerprint2) * 31 + Math.max(fingerprint1, fingerprint2)), numSets);
+      Object lock = locks[set % locks.length];
+
+      synchronized (lock) {
+         int slot = findEntry(set, fingerprint1, player1, fingerprint2, player2);
+         if (slot != -1) {
+            return results[slot];
+         }
+         slot = findEntry(set, fingerprint2, player2, fingerprint1, player1);
+         if (slot != -1) {
+            return -results[slot];
+         }
       }
-      return result;
-   }
 
-   private static class NodePair {
-      private final Node n1;
-      private final Node n2;
-      private final int hashCode;
+      double result = twoPlayerGame.evaluate(player1, player2);
 
-      public NodePair(Node n1, Node n2) {
-         this.n1 = n1;
-         this.n2 = n2;
-         this.hashCode = (n1.hashCode() * 31) * n2.hashCode();
+      synchronized (lock) {
+         // another thread may have stored the result for the same players while the lock was released - in which case do not store a duplicate entry
+         if (findEntry(set, fingerprint1, player1, fingerprint2, player2) == -1 && findEntry(set, fingerprint2, player2, fingerprint1, player1) == -1) {
+            int slot = set * WAYS + findSlot(set);
+            fingerprints1[slot] = fingerprint1;
+            fingerprints2[slot] = fingerprint2;
+            players1[slot] = player1;
+            players2[slot] = player2;
+            results[slot] = result;
+         }
       }
 
-      @Override
-      public boolean equals(Object o) {
-         NodePair p = (NodePair) o;
-         return n1.equals(p.n1) && n2.equals(p.n2);
+      return result;
+   }
+
+   /** Returns the slot of the specified set containing the result of {@code player1} playing {@code player2} - or {@code -1} if there is no such slot. */
+   private int findEntry(int set, long fingerprint1, Node player1, long fingerprint2, Node player2) {
+      int start = set * WAYS;
+      int end = setEnd(start);
+      for (int slot = start; slot < end && players1[slot] != null; slot++) {
+         if (isMatch(slot, fingerprint1, player1, fingerprint2, player2)) {
+            return slot;
+         }
       }
+      return -1;
+   }
 
-      @Override
-      public int hashCode() {
-         return hashCode;
+   private boolean isMatch(int slot, long fingerprint1, Node player1, long fingerprint2, Node player2) {
+      // only compare the nodes if the fingerprints match - the nodes are still compared to avoid returning the wrong result when fingerprints collide
+      return fingerprints1[slot] == fingerprint1 && fingerprints2[slot] == fingerprint2 && players1[slot].equals(player1) && players2[slot].equals(player2);
+   }
+
+   /** Returns the first unused slot of the specified set or, if all the slots are used, the slot containing the oldest entry. */
+   private int findSlot(int set) {
+      int start = set * WAYS;
+      int size = setEnd(start) - start;
+      for (int i = 0; i < size; i++) {
+         if (players1[start + i] == null) {
+            return i;
+         }
       }
+      int replace = nextReplacement[set];
+      nextReplacement[set] = (byte) ((replace + 1) % size);
+      return replace;
+   }
+
+   /** Returns the index after the last slot of the set starting at the specified index. */
+   private int setEnd(int start) {
+      return Math.min(start + WAYS, players1.length);
+   }
+
+   /** Spreads the node count and hash code of the specified node over 64 bits - see the class comment for the limits of the result. */
+   private static long fingerprint(Node n) {
+      return mix(((long) n.getNodeCount() << 32) ^ (n.hashCode() & 0xFFFFFFFFL));
+   }
+
+   /** The finalisation step of the 64-bit MurmurHash3 hash function. */
+   private static long mix(long h) {
+      h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+      h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+      return h ^ (h >>> 33);
    }
 }
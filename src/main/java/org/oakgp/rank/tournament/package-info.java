@@ -1,2 +1,2 @@
-/** Provides classes for using a round-robin tournament to rank the candidates of a generation. */
+/** Provides classes for using tournaments of two player games to rank the candidates of a generation. */
 package org.oakgp.rank.tournament;
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.Random;
+
+/**
+ * The cumulative probabilities of selecting each of a collection of candidates - used to select a candidate in O(log n) time.
+ * <p>
+ * The probabilities are accumulated in the same order, and using the same arithmetic, as a linear walk of the candidates - so the candidate selected for a
+ * given random number is identical to that selected by walking the candidates until the accumulated probability exceeds the random number.
+ */
+final class CumulativeProbabilities {
+   private final RankedCandidates candidates;
+   private final double[] cumulative;
+
+   /**
+    * @param candidates
+    *           the candidates to select from
+    * @param weights
+    *           the weight of each candidate, indexed by the position of the candidate in {@code candidates}
+    * @param sum
+    *           the sum of {@code weights}
+    */
+   CumulativeProbabilities(RankedCandidates candidates, double[] weights, double sum) {
+      this.candidates = candidates;
+      this.cumulative = new double[weights.length];
+      double p = 0;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < weights.length; i++) {
+         p += weights[i] / sum;
+         // store the running maximum so the table is sorted (and binary search finds the first position a linear walk would stop at) even if some
+         // weights are negative or NaN
+         if (p > max) {
+            max = p;
+         }
+         cumulative[i] = max;
+      }
+   }
+
+   /** Returns the candidate selected by the next {@code double} of the given {@code Random}. */
+   Node next(Random random) {
+      int idx = indexOf(random.nextDouble());
+      if (idx == -1) {
+         // should only get here if rounding error - default to selecting the best candidate
+         return candidates.best().getNode();
+      } else {
+         return candidates.get(idx).getNode();
+      }
+   }
+
+   /**
+    * Returns the candidates selected by {@code count} evenly spaced pointers - in a single pass of the cumulative probabilities.
+    *
+    * @param start
+    *           the position of the first pointer, expected to be in the range [0, {@code 1/count})
+    * @param count
+    *           the number of pointers
+    * @return the candidates selected by the pointers, in the order they are ranked
+    */
+   Node[] next(double start, int count) {
+      Node[] nodes = new Node[count];
+      int idx = 0;
+      for (int i = 0; i < count; i++) {
+         double pointer = start + (double) i / count;
+         while (idx < cumulative.length && !(pointer < cumulative[idx])) {
+            idx++;
+         }
+         // default to selecting the best candidate if a rounding error means a pointer is beyond the end of the cumulative probabilities
+         nodes[i] = idx == cumulative.length ? candidates.best().getNode() : candidates.get(idx).getNode();
+      }
+      return nodes;
+   }
+
+   /** Returns the index of the first cumulative probability that is greater than {@code r} - or {@code -1} if there is no such probability. */
+   int indexOf(double r) {
+      int low = 0;
+      int high = cumulative.length;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (r < cumulative[mid]) {
+            high = mid;
+         } else {
+            low = mid + 1;
+         }
+      }
+      return low == cumulative.length ? -1 : low;
+   }
+}
@@ -23,20 +23,17 @@ import org.oakgp.util.Random;
 /**
  * The fitness of candidates is used to determine the probability that they will be selected.
  * <p>
- * Also known as roulette wheel selection.
+ * Also known as roulette wheel selection. The cumulative probabilities are calculated once, on construction, so each selection takes O(log n) time.
  */
 public final class FitnessProportionateSelection implements NodeSelector {
    private final Random random;
-   private final RankedCandidates candidates;
-   private final int size;
-   private final double sumFitness;
+   private final CumulativeProbabilities probabilities;
 
    /** Creates a {@code FitnessProportionateSelection} that uses the given {@code Random} to select from the given {@code RankedCandidates}. */
    public FitnessProportionateSelection(Random random, RankedCandidates candidates) {
       this.random = random;
-      this.candidates = candidates;
-      this.size = candidates.size();
-      this.sumFitness = sumFitness(candidates);
+      double[] fitness = candidates.stream().mapToDouble(RankedCandidate::getFitness).toArray();
+      this.probabilities = new CumulativeProbabilities(candidates, fitness, sumFitness(candidates));
    }
 
    private static double sumFitness(RankedCandidates candidates) {
@@ -45,16 +42,6 @@ public final class FitnessProportionateSelection implements NodeSelector {
 
    @Override
    public Node next() {
-      final double r = random.nextDouble();
-      double p = 0;
-      for (int i = 0; i < size; i++) {
-         RankedCandidate c = candidates.get(i);
-         p += c.getFitness() / sumFitness;
-         if (r < p) {
-            return c.getNode();
-         }
-      }
-      // should only get here if rounding error - default to selecting the best candidate
-      return candidates.best().getNode();
+      return probabilities.next(random);
    }
 }
@@ -30,4 +30,21 @@ public interface NodeSelector {
     * @return a {@code Node}
     */
    Node next();
+
+   /**
+    * Returns the specified number of {@code Node} instances.
+    * <p>
+    * The default implementation invokes {@link #next()} {@code count} times. Implementations can override it to select the whole batch in a single pass.
+    *
+    * @param count
+    *           the number of {@code Node} instances to return
+    * @return an array of length {@code count}
+    */
+   default Node[] next(int count) {
+      Node[] nodes = new Node[count];
+      for (int i = 0; i < count; i++) {
+         nodes[i] = next();
+      }
+      return nodes;
+   }
 }
@@ -16,41 +16,33 @@
 package org.oakgp.select;
 
 import org.oakgp.node.Node;
-import org.oakgp.rank.RankedCandidate;
 import org.oakgp.rank.RankedCandidates;
 import org.oakgp.util.Random;
 
-/** The <i>relative</i> fitness of candidates is used to determine the probability that they will be selected. */
+/**
+ * The <i>relative</i> fitness of candidates is used to determine the probability that they will be selected.
+ * <p>
+ * The cumulative probabilities are calculated once, on construction, so each selection takes O(log n) time.
+ */
 public final class RankSelection implements NodeSelector {
    private final Random random;
-   private final RankedCandidates candidates;
-   private final int size;
-   private final double sum;
+   private final CumulativeProbabilities probabilities;
 
    /** Creates a {@code RankSelection} that uses the given {@code Random} to select from the given {@code RankedCandidates}. */
    public RankSelection(Random random, RankedCandidates candidates) {
       this.random = random;
-      this.candidates = candidates;
-      this.size = candidates.size();
-      long s = 0;
-      for (int i = 1; i <= size; i++) {
-         s += i;
+      int size = candidates.size();
+      long sum = 0;
+      double[] weights = new double[size];
+      for (int i = 0; i < size; i++) {
+         weights[i] = size - i;
+         sum += i + 1;
       }
-      sum = s;
+      this.probabilities = new CumulativeProbabilities(candidates, weights, sum);
    }
 
    @Override
    public Node next() {
-      final double r = random.nextDouble();
-      double p = 0;
-      for (int i = 0; i < size; i++) {
-         p += (size - i) / sum;
-         if (r < p) {
-            RankedCandidate c = candidates.get(i);
-            return c.getNode();
-         }
-      }
-      // should only get here if rounding error - default to selecting the best candidate
-      return candidates.best().getNode();
+      return probabilities.next(random);
    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.Random;
+
+/**
+ * The fitness of candidates is used to determine the probability that they will be selected, with batches selected using evenly spaced pointers.
+ * <p>
+ * When selecting a batch of {@code n} candidates a single random number determines the position of the first of {@code n} pointers spaced {@code 1/n}
+ * apart, and all the candidates are then selected in one pass of the cumulative probabilities. Compared to selecting each candidate independently (as
+ * {@link FitnessProportionateSelection} does) the number of times a candidate is selected is much closer to its expected value. The selected candidates are
+ * shuffled before being returned so the order of a batch does not depend on the ranking of the candidates - which means the candidates that are paired as the
+ * parents of a crossover are chosen at random. Positioning the pointers only requires a single random number - the shuffle requires one per candidate.
+ * <p>
+ * Selecting a single candidate, using {@link #next()}, is equivalent to {@link FitnessProportionateSelection}.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Stochastic_universal_sampling">Stochastic universal sampling</a>
+ */
+public final class StochasticUniversalSampling implements NodeSelector {
+   private final Random random;
+   private final CumulativeProbabilities probabilities;
+
+   /** Creates a {@code StochasticUniversalSampling} that uses the given {@code Random} to select from the given {@code RankedCandidates}. */
+   public StochasticUniversalSampling(Random random, RankedCandidates candidates) {
+      this.random = random;
+      double[] fitness = candidates.stream().mapToDouble(RankedCandidate::getFitness).toArray();
+      this.probabilities = new CumulativeProbabilities(candidates, fitness, candidates.stream().mapToDouble(RankedCandidate::getFitness).sum());
+   }
+
+   @Override
+   public Node next() {
+      return probabilities.next(random);
+   }
+
+   @Override
+   public Node[] next(int count) {
+      if (count == 0) {
+         return new Node[0];
+      }
+
+      Node[] nodes = probabilities.next(random.nextDouble() / count, count);
+      for (int i = count - 1; i > 0; i--) {
+         int j = random.nextInt(i + 1);
+         Node tmp = nodes[i];
+         nodes[i] = nodes[j];
+         nodes[j] = tmp;
+      }
+      return nodes;
+   }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.Random;
+
+/** Returns instances of {@code StochasticUniversalSampling}. */
+public final class StochasticUniversalSamplingFactory implements NodeSelectorFactory {
+   private final Random random;
+
+   /** Creates a {@code StochasticUniversalSamplingFactory} that creates {@code StochasticUniversalSampling} instances that use the given {@code Random}. */
+   public StochasticUniversalSamplingFactory(Random random) {
+      this.random = random;
+   }
+
+   @Override
+   public StochasticUniversalSampling getSelector(RankedCandidates candidates) {
+      return new StochasticUniversalSampling(random, candidates);
+   }
+}
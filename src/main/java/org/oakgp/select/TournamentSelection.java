@@ -0,0 +1,63 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.Random;
+
+/**
+ * Selects the best of a number of randomly chosen candidates.
+ * <p>
+ * As the candidates are already ranked, the best of a tournament is the one with the lowest index - so each selection is a matter of drawing
+ * {@code tournamentSize} random indexes and returning the candidate at the lowest. No normalisation or other per-generation precomputation is required and
+ * selections do not allocate. Candidates are drawn with replacement, so the same candidate can appear in a tournament more than once.
+ */
+public final class TournamentSelection implements NodeSelector {
+   private final Random random;
+   private final RankedCandidates candidates;
+   private final int size;
+   private final int tournamentSize;
+
+   /**
+    * Creates a {@code TournamentSelection} that uses the given {@code Random} to select from the given {@code RankedCandidates}.
+    *
+    * @param random
+    *           used to choose the candidates that take part in each tournament
+    * @param candidates
+    *           the candidates to select from
+    * @param tournamentSize
+    *           the number of candidates that take part in each tournament
+    */
+   public TournamentSelection(Random random, RankedCandidates candidates, int tournamentSize) {
+      if (tournamentSize < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + tournamentSize);
+      }
+      this.random = random;
+      this.candidates = candidates;
+      this.size = candidates.size();
+      this.tournamentSize = tournamentSize;
+   }
+
+   @Override
+   public Node next() {
+      int best = random.nextInt(size);
+      for (int i = 1; i < tournamentSize; i++) {
+         best = Math.min(best, random.nextInt(size));
+      }
+      return candidates.get(best).getNode();
+   }
+}
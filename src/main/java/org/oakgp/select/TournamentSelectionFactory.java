@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.Random;
+
+/** Returns instances of {@code TournamentSelection}. */
+public final class TournamentSelectionFactory implements NodeSelectorFactory {
+   private final Random random;
+   private final int tournamentSize;
+
+   /**
+    * Creates a {@code TournamentSelectionFactory} that creates {@code TournamentSelection} instances that use the given values.
+    *
+    * @param random
+    *           used to choose the candidates that take part in each tournament
+    * @param tournamentSize
+    *           the number of candidates that take part in each tournament
+    */
+   public TournamentSelectionFactory(Random random, int tournamentSize) {
+      if (tournamentSize < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + tournamentSize);
+      }
+      this.random = random;
+      this.tournamentSize = tournamentSize;
+   }
+
+   @Override
+   public TournamentSelection getSelector(RankedCandidates candidates) {
+      return new TournamentSelection(random, candidates, tournamentSize);
+   }
+}
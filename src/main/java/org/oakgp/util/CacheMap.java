@@ -56,7 +56,8 @@ public final class CacheMap<K, V> extends LinkedHashMap<K, V> {
     * @see #createCache(int)
     */
    private CacheMap(int maxSize) {
-      super(maxSize, 0.1f, true);
+      // size the table so it never needs to be resized - as the map will contain at most maxSize + 1 entries (before the eldest entry is removed)
+      super((int) Math.ceil((maxSize + 1) / 0.75d), 0.75f, true);
       this.maxSize = maxSize;
    }
 
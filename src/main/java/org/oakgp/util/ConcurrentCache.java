@@ -0,0 +1,224 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A size-limited cache which can be used concurrently by multiple threads.
+ * <p>
+ * Unlike {@link CacheMap#createCache(int)}, which guards every access with a single lock, entries are spread over a number of independently locked segments -
+ * so threads accessing different keys rarely contend with each other.
+ * <p>
+ * When a segment is full a new entry is only admitted if it has been requested more often than the least-recently used entry it would replace. How often keys
+ * have been requested is estimated, using a fixed amount of memory, by a <a href="https://arxiv.org/abs/1512.00727">TinyLFU</a> frequency sketch. This prevents
+ * a sequence of keys that are only requested once (e.g. offspring that do not survive selection) from replacing entries which are requested repeatedly (e.g.
+ * elites that survive many generations).
+ *
+ * @param <K>
+ *           the type of keys maintained by this cache
+ * @param <V>
+ *           the type of cached values
+ */
+public final class ConcurrentCache<K, V> {
+   private static final int MAX_SEGMENTS = 16;
+
+   private final Segment<K, V>[] segments;
+   private final int segmentShift;
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   /**
+    * Creates a cache which will contain no more than the specified number of entries.
+    *
+    * @param maxSize
+    *           the maximum number of entries to store
+    * @throws IllegalArgumentException
+    *            if {@code maxSize} is not a positive integer
+    */
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   public ConcurrentCache(int maxSize) {
+      if (maxSize < 1) {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + maxSize);
+      }
+      // use fewer segments for small caches so that the capacity of each segment is not too small to be useful
+      int numSegments = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, maxSize / 64)));
+      this.segments = new Segment[numSegments];
+      this.segmentShift = 32 - Integer.numberOfTrailingZeros(numSegments);
+      for (int i = 0; i < numSegments; i++) {
+         // distribute any remainder over the first segments so that the total capacity is exactly maxSize
+         segments[i] = new Segment<>(maxSize / numSegments + (i < maxSize % numSegments ? 1 : 0));
+      }
+   }
+
+   /** Returns the value associated with the specified key, or {@code null} if this cache does not contain the key. */
+   public V get(K key) {
+      int hash = spread(key.hashCode());
+      V value = segmentFor(hash).get(key, hash);
+      (value == null ? misses : hits).increment();
+      return value;
+   }
+
+   /**
+    * Associates the specified value with the specified key.
+    * <p>
+    * If the cache is full then the value will only be stored if the key has been requested more often than the least-recently used entry.
+    */
+   public void put(K key, V value) {
+      int hash = spread(key.hashCode());
+      if (segmentFor(hash).put(key, value, hash)) {
+         evictions.increment();
+      }
+   }
+
+   /** Returns the number of entries currently stored in this cache. */
+   public int size() {
+      int size = 0;
+      for (Segment<K, V> segment : segments) {
+         size += segment.size();
+      }
+      return size;
+   }
+
+   /** Returns the number of calls to {@link #get(Object)} that returned a cached value. */
+   public long getHitCount() {
+      return hits.sum();
+   }
+
+   /** Returns the number of calls to {@link #get(Object)} that returned {@code null}. */
+   public long getMissCount() {
+      return misses.sum();
+   }
+
+   /** Returns the number of entries that have been removed to make room for new entries. */
+   public long getEvictionCount() {
+      return evictions.sum();
+   }
+
+   private Segment<K, V> segmentFor(int hash) {
+      // segmentShift is 32 when there is a single segment - as shifts use the lowest five bits, shift the result of a 31 bit shift by one more bit
+      return segments[(hash >>> (segmentShift - 1)) >>> 1];
+   }
+
+   private static int spread(int hashCode) {
+      int h = hashCode * 0x9E3779B9;
+      return h ^ (h >>> 16);
+   }
+
+   /** A least-recently used map, guarded by its own lock, with frequency based admission. */
+   private static final class Segment<K, V> {
+      private final int capacity;
+      private final LinkedHashMap<K, V> map;
+      private final FrequencySketch sketch;
+
+      Segment(int capacity) {
+         this.capacity = capacity;
+         this.map = new LinkedHashMap<>(16, 0.75f, true);
+         this.sketch = new FrequencySketch(capacity);
+      }
+
+      synchronized V get(K key, int hash) {
+         sketch.increment(hash);
+         return map.get(key);
+      }
+
+      /** Returns {@code true} if an existing entry was removed to make room for the new entry. */
+      synchronized boolean put(K key, V value, int hash) {
+         // only requests, made by get, are counted - so a key that is requested once and then stored is not counted twice
+         if (map.size() < capacity || map.containsKey(key)) {
+            map.put(key, value);
+            return false;
+         }
+
+         Iterator<Map.Entry<K, V>> eldest = map.entrySet().iterator();
+         K victim = eldest.next().getKey();
+         if (sketch.frequency(hash) > sketch.frequency(spread(victim.hashCode()))) {
+            eldest.remove();
+            map.put(key, value);
+            return true;
+         } else {
+            // the new entry has not been requested often enough to replace the existing entry
+            return false;
+         }
+      }
+
+      synchronized int size() {
+         return map.size();
+      }
+   }
+
+   /**
+    * Estimates how often keys have been requested.
+    * <p>
+    * A count-min sketch of 4-bit counters. All counters are halved once the number of increments reaches ten times the capacity of the segment - so that keys
+    * which were popular in the past, but are no longer requested, do not stay in the cache indefinitely.
+    */
+   private static final class FrequencySketch {
+      private static final long RESET_MASK = 0x7777777777777777L;
+      private static final int[] SEEDS = { 0x97CB3127, 0xB492B66F, 0x9AE16A3B, 0xC2B2AE35 };
+
+      private final long[] table;
+      private final int counterMask;
+      private final int sampleSize;
+      private int size;
+
+      FrequencySketch(int capacity) {
+         // 16 counters per long, with at least one long per entry - so that collisions rarely overestimate the frequency of a key
+         int length = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+         this.table = new long[length];
+         this.counterMask = length * 16 - 1;
+         this.sampleSize = 10 * capacity;
+      }
+
+      int frequency(int hash) {
+         int frequency = Integer.MAX_VALUE;
+         for (int seed : SEEDS) {
+            int index = indexOf(hash, seed);
+            frequency = Math.min(frequency, (int) ((table[index >>> 4] >>> ((index & 15) << 2)) & 15));
+         }
+         return frequency;
+      }
+
+      void increment(int hash) {
+         for (int seed : SEEDS) {
+            int index = indexOf(hash, seed);
+            int offset = (index & 15) << 2;
+            if (((table[index >>> 4] >>> offset) & 15) < 15) {
+               table[index >>> 4] += 1L << offset;
+            }
+         }
+         if (++size == sampleSize) {
+            reset();
+         }
+      }
+
+      private void reset() {
+         for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+         }
+         size /= 2;
+      }
+
+      private int indexOf(int hash, int seed) {
+         int h = (hash ^ seed) * seed;
+         return (h ^ (h >>> 15)) & counterMask;
+      }
+   }
+}
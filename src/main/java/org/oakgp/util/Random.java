@@ -44,4 +44,16 @@ public interface Random {
     * @return a {@code boolean} value
     */
    boolean nextBoolean();
+
+   /**
+    * Returns a new {@code Random} which can be used independently of this instance - e.g. by a different thread.
+    * <p>
+    * The default implementation returns a {@link JavaUtilRandomAdapter} seeded using a value generated by this instance. Implementations which are able to
+    * create a statistically independent stream of values (e.g. {@link SplitMixRandom}) should override this method.
+    *
+    * @return a new {@code Random} whose sequence of values is determined by the values previously generated by this instance
+    */
+   default Random split() {
+      return new JavaUtilRandomAdapter((long) (nextDouble() * Long.MAX_VALUE));
+   }
 }
@@ -21,16 +21,20 @@ import static org.oakgp.NodeSimplifier.simplify;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import org.oakgp.Type;
+import org.oakgp.compile.NodeCompiler;
 import org.oakgp.evolve.GenerationEvolver;
-import org.oakgp.evolve.GenerationEvolverImpl;
 import org.oakgp.evolve.GeneticOperator;
+import org.oakgp.evolve.ParallelGenerationEvolver;
 import org.oakgp.evolve.crossover.SubtreeCrossover;
 import org.oakgp.evolve.mutate.ConstantToFunctionMutation;
 import org.oakgp.evolve.mutate.PointMutation;
@@ -38,7 +42,11 @@ import org.oakgp.evolve.mutate.SubTreeMutation;
 import org.oakgp.function.Function;
 import org.oakgp.generate.TreeGenerator;
 import org.oakgp.generate.TreeGeneratorImpl;
+import org.oakgp.island.Island;
+import org.oakgp.island.IslandRunner;
+import org.oakgp.island.MigrationTopology;
 import org.oakgp.node.ConstantNode;
+import org.oakgp.node.EvaluationBudget;
 import org.oakgp.node.Node;
 import org.oakgp.primitive.ConstantSet;
 import org.oakgp.primitive.FunctionSet;
@@ -48,13 +56,17 @@ import org.oakgp.primitive.VariableSet;
 import org.oakgp.rank.GenerationRanker;
 import org.oakgp.rank.RankedCandidate;
 import org.oakgp.rank.RankedCandidates;
+import org.oakgp.rank.fitness.AsyncFitnessFunction;
+import org.oakgp.rank.fitness.AsyncFitnessFunctionCache;
+import org.oakgp.rank.fitness.AsyncFitnessFunctionGenerationRanker;
+import org.oakgp.rank.fitness.BoundedFitnessFunction;
+import org.oakgp.rank.fitness.BudgetedFitnessFunction;
 import org.oakgp.rank.fitness.FitnessFunction;
 import org.oakgp.rank.fitness.FitnessFunctionCache;
 import org.oakgp.rank.fitness.FitnessFunctionGenerationRanker;
 import org.oakgp.rank.tournament.RoundRobinTournament;
 import org.oakgp.rank.tournament.TwoPlayerGame;
 import org.oakgp.rank.tournament.TwoPlayerGameCache;
-import org.oakgp.select.NodeSelectorFactory;
 import org.oakgp.select.RankSelectionFactory;
 import org.oakgp.terminate.CompositeTerminator;
 import org.oakgp.terminate.MaxGenerationsTerminator;
@@ -67,16 +79,33 @@ import org.oakgp.terminate.TargetFitnessTerminator;
  * @see <a href="http://oakgp.org/getting-started-with-oakgp">Getting Started with OakGP</a>
  */
 public final class RunBuilder {
-   private static final Random RANDOM = new JavaUtilRandomAdapter();
    private static final double RATIO_VARIABLES = .6;
+   private static final double RATIO_NEW_TREES = .08;
+   private static final double RATIO_SUBTREE_CROSSOVER = .4;
+   private static final double RATIO_POINT_MUTATION = .4;
+   private static final double RATIO_SUBTREE_MUTATION = .04;
+   private static final double RATIO_CONSTANT_TO_FUNCTION_MUTATION = .04;
    private static final int DEFAULT_CACHE_SIZE = 10000;
+   /** The number of streams the work of the default {@code GenerationEvolver} is divided between - fixed so results do not depend on the parallelism. */
+   private static final int NUM_STREAMS = 16;
 
    private Type _returnType;
-   private Random _random = RANDOM;
+   private Random _random = new SplitMixRandom();
    private PrimitiveSet _primitiveSet;
-   private GenerationRanker _generationRanker;
+   private java.util.function.Function<Random, PrimitiveSet> _primitiveSetFactory;
+   private Supplier<GenerationRanker> _generationRanker;
    private GenerationEvolver _generationEvolver;
-   private Collection<Node> _initialPopulation;
+   private Supplier<Collection<Node>> _initialPopulation;
+   private int _parallelism = 1;
+   private ForkJoinPool _pool;
+   private boolean _ownsPool;
+   private NodeCompiler _compiler = n -> n;
+   private EvaluationBudget _evaluationBudget;
+   private double _penaltyFitness;
+   private int _numIslands = 1;
+   private int _migrationInterval;
+   private int _numMigrants;
+   private MigrationTopology _migrationTopology;
 
    /** Sets the required {@code Type} associated with the values produced as a result of evaluating the programs that are automatically generated by the run. */
    public RandomSetter setReturnType(final Type returnType) {
@@ -87,7 +116,7 @@ public final class RunBuilder {
    /**
     * Provides the option to set a random number generator, or to skip that option and instead configure the primitive set.
     * <p>
-    * If you do not explicitly specify a random number generator then the {@code RunBuilder} will default to using {@link JavaUtilRandomAdapter}. Unless you
+    * If you do not explicitly specify a random number generator then the {@code RunBuilder} will default to using a new {@link SplitMixRandom}. Unless you
     * have a specific requirement about how random numbers are generated then the default random number generator will be sufficient.
     */
    public final class RandomSetter extends PrimitiveSetSetter {
@@ -106,9 +135,16 @@ public final class RunBuilder {
       private PrimitiveSetSetter() {
       }
 
-      /** Sets the functions and terminal nodes that are available for use in the construction of programs generated by the run. */
+      /**
+       * Sets the functions and terminal nodes that are available for use in the construction of programs generated by the run.
+       * <p>
+       * The specified {@code PrimitiveSet} is shared by all the streams of the default {@code GenerationEvolver} - so a run configured using this method will
+       * only produce the same results, for a given random number generator, regardless of its parallelism if {@code primitiveSet} does not depend on the order
+       * in which it is called.
+       */
       public GenerationRankerSetter setPrimitiveSet(final PrimitiveSet primitiveSet) {
          _primitiveSet = requireNonNull(primitiveSet);
+         _primitiveSetFactory = r -> primitiveSet;
          return new GenerationRankerSetter();
       }
 
@@ -193,6 +229,7 @@ public final class RunBuilder {
 
          FunctionSet functionSet = new FunctionSet(functions);
          _primitiveSet = new PrimitiveSetImpl(functionSet, constantSet, variableSet, _random, ratioVariables);
+         _primitiveSetFactory = r -> new PrimitiveSetImpl(functionSet, constantSet, variableSet, r, ratioVariables);
          return new GenerationRankerSetter();
       }
 
@@ -225,30 +262,239 @@ public final class RunBuilder {
       private GenerationRankerSetter() {
       }
 
+      /**
+       * Sets the number of threads to use when determining the fitness of the candidates of a generation.
+       * <p>
+       * If not specified then candidates are evaluated one at a time. This option only applies to the {@code GenerationRanker} created by
+       * {@link #setFitnessFunction(FitnessFunction)}, {@link #setFitnessFunction(BoundedFitnessFunction, double)} and
+       * {@link #setTwoPlayerGame(TwoPlayerGame)} - which will then require the {@code FitnessFunction} or {@code TwoPlayerGame} to be safe for use by
+       * multiple threads. It also applies to the default {@code GenerationEvolver}, used when {@link GenerationEvolverSetter#setGenerationEvolver} is not
+       * called, which always evolves new candidates using a {@link ParallelGenerationEvolver} with a fixed number of streams - each with its own
+       * {@code Random}, {@code PrimitiveSet} and tree generators - so, for a given random number generator, produces the same results regardless of the
+       * parallelism.
+       * <p>
+       * The threads belong to a {@code ForkJoinPool} created by this method - which is shut down when {@link ProcessRunner#process()} returns.
+       *
+       * @param parallelism
+       *           the number of threads to use
+       * @throws IllegalArgumentException
+       *            if {@code parallelism} is not a positive integer
+       * @see #setParallelism(ForkJoinPool)
+       */
+      public GenerationRankerSetter setParallelism(final int parallelism) {
+         requiresPositive(parallelism);
+         return setPool(parallelism == 1 ? null : new ForkJoinPool(parallelism), true);
+      }
+
+      /**
+       * Sets the {@code ForkJoinPool} to use when determining the fitness of the candidates of a generation, and when evolving new candidates.
+       * <p>
+       * Equivalent to {@link #setParallelism(int)} except the threads belong to the specified pool - which is not shut down when the run finishes, so can be
+       * shared between runs.
+       *
+       * @param pool
+       *           the pool whose threads to use
+       */
+      public GenerationRankerSetter setParallelism(final ForkJoinPool pool) {
+         return setPool(requireNonNull(pool), false);
+      }
+
+      private GenerationRankerSetter setPool(final ForkJoinPool pool, final boolean ownsPool) {
+         if (_ownsPool) {
+            // a pool created by an earlier call is being replaced before it has been used
+            _pool.shutdown();
+         }
+         _pool = pool;
+         _ownsPool = ownsPool && pool != null;
+         _parallelism = pool == null ? 1 : pool.getParallelism();
+         return this;
+      }
+
+      /**
+       * Sets the run to use an island model - where the specified number of populations are evolved concurrently, on separate threads, and periodically
+       * exchange their best candidates.
+       * <p>
+       * If not specified then a single population is evolved. Each island has its own initial population - created by a separate call to the function
+       * specified by {@link InitialPopulationSetter#setInitialPopulation} or, if {@link InitialPopulationSetter#setInitialPopulationSize} is used, separately
+       * randomly generated.
+       * <p>
+       * Each island has its own instance of the {@code GenerationRanker} created by {@link #setFitnessFunction(FitnessFunction)},
+       * {@link #setFitnessFunction(BoundedFitnessFunction, double)}, {@link #setAsyncFitnessFunction(AsyncFitnessFunction, int)} or
+       * {@link #setTwoPlayerGame} (all of which share a single cache of fitness values) - but a {@code GenerationRanker} specified by
+       * {@link #setGenerationRanker(GenerationRanker)} is shared by all islands, so must be safe for use by multiple threads. Similarly, each island has its own
+       * instance of the default {@code GenerationEvolver} - but a {@code GenerationEvolver} specified by {@link GenerationEvolverSetter#setGenerationEvolver} is
+       * shared.
+       * <p>
+       * Each island has its own instance of the termination criteria specified by {@code setTargetFitness}, {@code setMaxGenerations} and
+       * {@code setMaxGenerationsWithoutImprovement} - but a terminator specified by {@link TerminatorSetter#setTerminator(Predicate)} is shared by all
+       * islands, so must be safe for use by multiple threads. The run finishes when the termination criteria of any island is satisfied.
+       *
+       * @param numIslands
+       *           the number of populations to evolve
+       * @param migrationInterval
+       *           the number of generations between each migration
+       * @param numMigrants
+       *           the number of candidates each island sends on each migration
+       * @param topology
+       *           determines which islands the migrants of an island are sent to
+       * @throws IllegalArgumentException
+       *            if {@code numIslands}, {@code migrationInterval} or {@code numMigrants} is not a positive integer
+       * @see IslandRunner
+       */
+      public GenerationRankerSetter setIslands(final int numIslands, final int migrationInterval, final int numMigrants, final MigrationTopology topology) {
+         _numIslands = requiresPositive(numIslands);
+         _migrationInterval = requiresPositive(migrationInterval);
+         _numMigrants = requiresPositive(numMigrants);
+         _migrationTopology = requireNonNull(topology);
+         return this;
+      }
+
+      /**
+       * Sets the {@code NodeCompiler} used to compile candidates before they are provided to the fitness function.
+       * <p>
+       * If not specified then candidates are provided to the fitness function as-is. This option only applies to the {@code GenerationRanker} created by
+       * {@link #setFitnessFunction(FitnessFunction)}, {@link #setFitnessFunction(BoundedFitnessFunction, double)} and
+       * {@link #setAsyncFitnessFunction(AsyncFitnessFunction, int)} - and only when the fitness function is not already wrapped in a cache, in which case the
+       * compiler should be specified when creating the cache. Candidates are only compiled when their fitness is not already cached.
+       * <p>
+       * <b>Note:</b> The structure of a compiled candidate cannot be inspected - so a compiler should only be specified for fitness functions that only
+       * evaluate the candidates they are provided with.
+       *
+       * @param compiler
+       *           used to compile candidates, e.g. a {@link org.oakgp.compile.ClosureCompiler}
+       */
+      public GenerationRankerSetter setCompiler(final NodeCompiler compiler) {
+         _compiler = requireNonNull(compiler);
+         return this;
+      }
+
+      /**
+       * Sets the maximum work that can be performed determining the fitness of a single candidate.
+       * <p>
+       * If not specified then evaluations are not limited. This option only applies to the {@code GenerationRanker} created by
+       * {@link #setFitnessFunction(FitnessFunction)} and {@link #setFitnessFunction(BoundedFitnessFunction, double)} - and only when the fitness function is
+       * not already wrapped in a cache, in which case the fitness function should be wrapped in a {@link BudgetedFitnessFunction} before creating the cache.
+       *
+       * @param budget
+       *           the maximum work that can be performed determining the fitness of a single candidate
+       * @param penaltyFitness
+       *           the fitness to assign to candidates whose evaluation exhausts {@code budget}
+       * @see BudgetedFitnessFunction
+       */
+      public GenerationRankerSetter setEvaluationBudget(final EvaluationBudget budget, final double penaltyFitness) {
+         _evaluationBudget = requireNonNull(budget);
+         _penaltyFitness = penaltyFitness;
+         return this;
+      }
+
       /** Set the {@code GenerationRanker} used to rank and sort the candidates of a generation. */
       public InitialPopulationSetter setGenerationRanker(final GenerationRanker generationRanker) {
-         _generationRanker = requireNonNull(generationRanker);
+         requireNonNull(generationRanker);
+         return setGenerationRankerFactory(() -> generationRanker);
+      }
+
+      /** Sets the function that creates the {@code GenerationRanker} of each island. */
+      private InitialPopulationSetter setGenerationRankerFactory(final Supplier<GenerationRanker> generationRanker) {
+         _generationRanker = generationRanker;
          return new InitialPopulationSetter();
       }
 
-      /** Set the {@code FitnessFunction} used to determine the fitness of a candidate. */
+      /**
+       * Set the {@code FitnessFunction} used to determine the fitness of a candidate.
+       *
+       * @see #setCompiler(NodeCompiler)
+       */
       public InitialPopulationSetter setFitnessFunction(final FitnessFunction fitnessFunction) {
+         FitnessFunctionCache cached = ensureCached(requireNonNull(fitnessFunction));
+         ForkJoinPool pool = _pool;
+         if (pool == null) {
+            return setGenerationRankerFactory(() -> new FitnessFunctionGenerationRanker(cached));
+         } else {
+            return setGenerationRankerFactory(() -> new FitnessFunctionGenerationRanker(cached, n -> n, pool));
+         }
+      }
+
+      /**
+       * Set the {@code BoundedFitnessFunction} used to determine the fitness of a candidate - stopping early for candidates that are worse than the previous
+       * generation.
+       *
+       * @see FitnessFunctionGenerationRanker#FitnessFunctionGenerationRanker(BoundedFitnessFunction, NodeCompiler, double)
+       * @see #setCompiler(NodeCompiler)
+       */
+      public InitialPopulationSetter setFitnessFunction(final BoundedFitnessFunction fitnessFunction, final double cutoffQuantile) {
+         FitnessFunctionCache cached = ensureCached(requireNonNull(fitnessFunction));
+         ForkJoinPool pool = _pool;
+         // each island has its own ranker - so each has its own cutoff, based on the previous generation of that island
+         if (pool == null) {
+            return setGenerationRankerFactory(() -> new FitnessFunctionGenerationRanker(cached, n -> n, cutoffQuantile));
+         } else {
+            return setGenerationRankerFactory(() -> new FitnessFunctionGenerationRanker(cached, n -> n, cutoffQuantile, pool));
+         }
+      }
+
+      /**
+       * Set the {@code AsyncFitnessFunction} used to determine the fitness of a candidate - without requiring a thread per evaluation in progress.
+       * <p>
+       * Results are cached, and concurrent requests for the same candidate share a single evaluation, using an {@link AsyncFitnessFunctionCache}.
+       *
+       * @param fitnessFunction
+       *           the {@code AsyncFitnessFunction} to use when determining the fitness of candidates
+       * @param maxInProgress
+       *           the maximum number of candidates whose evaluations can be in progress at the same time
+       * @throws IllegalArgumentException
+       *            if {@code maxInProgress} is not a positive integer
+       * @see #setCompiler(NodeCompiler)
+       */
+      public InitialPopulationSetter setAsyncFitnessFunction(final AsyncFitnessFunction fitnessFunction, final int maxInProgress) {
          requireNonNull(fitnessFunction);
-         return setGenerationRanker(new FitnessFunctionGenerationRanker(ensureCached(fitnessFunction)));
+         requiresPositive(maxInProgress);
+         AsyncFitnessFunction cached = fitnessFunction instanceof AsyncFitnessFunctionCache ? fitnessFunction
+               : new AsyncFitnessFunctionCache(DEFAULT_CACHE_SIZE, fitnessFunction, _compiler);
+         return setGenerationRankerFactory(() -> new AsyncFitnessFunctionGenerationRanker(cached, maxInProgress));
       }
 
-      private FitnessFunction ensureCached(final FitnessFunction fitnessFunction) {
+      private FitnessFunctionCache ensureCached(final FitnessFunction fitnessFunction) {
          if (fitnessFunction instanceof FitnessFunctionCache) {
-            return fitnessFunction;
+            return (FitnessFunctionCache) fitnessFunction;
+         } else if (_evaluationBudget != null) {
+            // the budget is applied inside the cache - so it limits the evaluation of a compiled candidate, not the look up of a cached result
+            return new FitnessFunctionCache(DEFAULT_CACHE_SIZE, new BudgetedFitnessFunction(fitnessFunction, _evaluationBudget, _penaltyFitness), _compiler);
          } else {
-            return new FitnessFunctionCache(DEFAULT_CACHE_SIZE, fitnessFunction);
+            return new FitnessFunctionCache(DEFAULT_CACHE_SIZE, fitnessFunction, _compiler);
          }
       }
 
       /** Set the {@code TwoPlayerGame} used to determine the relative fitness of two candidates. */
       public InitialPopulationSetter setTwoPlayerGame(final TwoPlayerGame twoPlayerGame) {
-         requireNonNull(twoPlayerGame);
-         return setGenerationRanker(new RoundRobinTournament(ensureCached(twoPlayerGame)));
+         TwoPlayerGame cached = ensureCached(requireNonNull(twoPlayerGame));
+         ForkJoinPool pool = _pool;
+         if (pool == null) {
+            return setGenerationRankerFactory(() -> new RoundRobinTournament(cached));
+         } else {
+            return setGenerationRankerFactory(() -> new RoundRobinTournament(cached, pool));
+         }
+      }
+
+      /**
+       * Set the {@code TwoPlayerGame} used to determine the relative fitness of two candidates, and the type of tournament used to decide which candidates play
+       * each other.
+       * <p>
+       * e.g. {@code setTwoPlayerGame(game, (g, r) -> new SwissTournament(g, r, 10))}
+       *
+       * @param twoPlayerGame
+       *           the game to play between pairs of candidates
+       * @param tournament
+       *           creates the {@code GenerationRanker} from the (cached) {@code twoPlayerGame} and a {@code Random} {@link Random#split() split} from the
+       *           {@code Random} of the run - called once for each island, so each island has its own {@code Random}
+       * @see org.oakgp.rank.tournament.SwissTournament
+       * @see org.oakgp.rank.tournament.RandomOpponentTournament
+       */
+      public InitialPopulationSetter setTwoPlayerGame(final TwoPlayerGame twoPlayerGame,
+            final BiFunction<TwoPlayerGame, Random, GenerationRanker> tournament) {
+         requireNonNull(tournament);
+         TwoPlayerGame cached = ensureCached(requireNonNull(twoPlayerGame));
+         // the rankers of all the islands are created, in order, before any island starts - so splitting here keeps runs with a given seed reproducible
+         return setGenerationRankerFactory(() -> tournament.apply(cached, _random.split()));
       }
 
       private TwoPlayerGame ensureCached(final TwoPlayerGame twoPlayerGame) {
@@ -265,17 +511,21 @@ public final class RunBuilder {
       private InitialPopulationSetter() {
       }
 
-      /** Set the contents of the initial population. */
+      /**
+       * Set the contents of the initial population.
+       * <p>
+       * When the run uses an island model, {@code initialPopulation} is called once for each island.
+       */
       public GenerationEvolverSetter setInitialPopulation(final java.util.function.Function<Config, Collection<Node>> initialPopulation) {
-         return setInitialPopulation(initialPopulation.apply(new Config()));
+         requireNonNull(initialPopulation);
+         return setInitialPopulationFactory(() -> requireNonNull(initialPopulation.apply(new Config())));
       }
 
-      /** Set the contents of the initial population. */
-      private GenerationEvolverSetter setInitialPopulation(Collection<Node> initialPopulation) {
-         _initialPopulation = requireNonNull(initialPopulation);
+      /** Sets the function that creates the initial population of each island. */
+      private GenerationEvolverSetter setInitialPopulationFactory(Supplier<Collection<Node>> initialPopulation) {
+         _initialPopulation = initialPopulation;
          return new GenerationEvolverSetter();
       }
-
       /** Set the number of randomly generated trees to include in the initial population. */
       public TreeDepthSetter setInitialPopulationSize(final int generationSize) {
          return new TreeDepthSetter(generationSize);
@@ -290,10 +540,13 @@ public final class RunBuilder {
          this.generationSize = requiresPositive(generationSize);
       }
 
-      /** Set the maximum depth of the trees randomly generated for the initial population. */
+      /** Set the maximum depth of the trees randomly generated for the initial population - a separate population is generated for each island. */
       public GenerationEvolverSetter setTreeDepth(final int treeDepth) {
          requiresPositive(treeDepth);
+         return new InitialPopulationSetter().setInitialPopulationFactory(() -> generateInitialPopulation(treeDepth));
+      }
 
+      private Collection<Node> generateInitialPopulation(final int treeDepth) {
          // NOTE could use a NodeSet rather than an ArrayList - but then the resulting population may be < generationSize (due to duplicates)
          // NOTE could generate using a 50:50 split of TreeGeneratorImpl.grow and TreeGeneratorImpl.full
          Collection<Node> initialPopulation = new ArrayList<>();
@@ -302,15 +555,15 @@ public final class RunBuilder {
             Node n = treeGenerator.generate(_returnType, treeDepth);
             initialPopulation.add(n);
          }
-         return new InitialPopulationSetter().setInitialPopulation(initialPopulation);
+         return initialPopulation;
       }
+   }
 
-      private int requiresPositive(final int i) {
-         if (i > 0) {
-            return i;
-         } else {
-            throw new IllegalArgumentException("Expected a positive integer but got: " + i);
-         }
+   private static int requiresPositive(final int i) {
+      if (i > 0) {
+         return i;
+      } else {
+         throw new IllegalArgumentException("Expected a positive integer but got: " + i);
       }
    }
 
@@ -337,14 +590,15 @@ public final class RunBuilder {
    }
 
    private class FirstTerminatorSetter implements TerminatorSetter {
-      private final List<Predicate<RankedCandidates>> terminators = new ArrayList<>();
+      private final List<Supplier<Predicate<RankedCandidates>>> terminators = new ArrayList<>();
 
       private FirstTerminatorSetter() {
       }
 
       @Override
       public TerminatorSetterOrProcessRunner setTerminator(final Predicate<RankedCandidates> terminator) {
-         terminators.add(requireNonNull(terminator));
+         requireNonNull(terminator);
+         terminators.add(() -> terminator);
          return new SubsequentTerminatorSetter(terminators);
       }
 
@@ -365,46 +619,46 @@ public final class RunBuilder {
    }
 
    private final class SubsequentTerminatorSetter extends MaxGenerationsTerminatorSetterImpl implements TerminatorSetterOrProcessRunner {
-      private SubsequentTerminatorSetter(List<Predicate<RankedCandidates>> terminators) {
+      private SubsequentTerminatorSetter(List<Supplier<Predicate<RankedCandidates>>> terminators) {
          super(terminators);
       }
 
       @Override
       public TerminatorSetterOrProcessRunner setTerminator(final Predicate<RankedCandidates> terminator) {
-         terminators.add(terminator);
+         terminators.add(() -> terminator);
          return this;
       }
 
       @Override
       public MaxGenerationsTerminatorSetterOrProcessRunner setTargetFitness(double targetFitness) {
-         terminators.add(new TargetFitnessTerminator(c -> Math.abs(c.getFitness() - targetFitness) < .0000001));
+         terminators.add(() -> new TargetFitnessTerminator(c -> Math.abs(c.getFitness() - targetFitness) < .0000001));
          return new MaxGenerationsTerminatorSetterImpl(terminators);
       }
    }
 
    private class MaxGenerationsTerminatorSetterImpl extends MaxGenerationsWithoutImprovementTerminatorSetterImpl implements
    MaxGenerationsTerminatorSetterOrProcessRunner {
-      private MaxGenerationsTerminatorSetterImpl(List<Predicate<RankedCandidates>> terminators) {
+      private MaxGenerationsTerminatorSetterImpl(List<Supplier<Predicate<RankedCandidates>>> terminators) {
          super(terminators);
       }
 
       @Override
       public final MaxGenerationsWithoutImprovementTerminatorSetterOrProcessRunner setMaxGenerations(int maxGenerations) {
-         terminators.add(new MaxGenerationsTerminator(maxGenerations));
+         terminators.add(() -> new MaxGenerationsTerminator(maxGenerations));
          return new MaxGenerationsWithoutImprovementTerminatorSetterImpl(terminators);
       }
    }
 
    private class MaxGenerationsWithoutImprovementTerminatorSetterImpl implements MaxGenerationsWithoutImprovementTerminatorSetterOrProcessRunner {
-      protected final List<Predicate<RankedCandidates>> terminators;
+      protected final List<Supplier<Predicate<RankedCandidates>>> terminators;
 
-      private MaxGenerationsWithoutImprovementTerminatorSetterImpl(List<Predicate<RankedCandidates>> terminators) {
+      private MaxGenerationsWithoutImprovementTerminatorSetterImpl(List<Supplier<Predicate<RankedCandidates>>> terminators) {
          this.terminators = terminators;
       }
 
       @Override
       public final ProcessRunner setMaxGenerationsWithoutImprovement(int maxGenerationsWithoutImprovement) {
-         terminators.add(new MaxGenerationsWithoutImprovementTerminator(maxGenerationsWithoutImprovement));
+         terminators.add(() -> new MaxGenerationsWithoutImprovementTerminator(maxGenerationsWithoutImprovement));
          return new ProcessRunnerImpl(terminators);
       }
 
@@ -415,50 +669,84 @@ public final class RunBuilder {
    }
 
    private final class ProcessRunnerImpl implements ProcessRunner {
-      private Predicate<RankedCandidates> terminator;
+      private final List<Supplier<Predicate<RankedCandidates>>> terminators;
 
-      @SuppressWarnings("unchecked")
-      private ProcessRunnerImpl(List<Predicate<RankedCandidates>> terminators) {
+      private ProcessRunnerImpl(List<Supplier<Predicate<RankedCandidates>>> terminators) {
          if (terminators.isEmpty()) {
             throw new IllegalStateException("No termination criteria set");
-         } else if (terminators.size() == 1) {
-            terminator = terminators.get(0);
-         } else {
-            terminator = new CompositeTerminator(terminators.toArray(new Predicate[terminators.size()]));
          }
+         this.terminators = terminators;
       }
 
       @Override
       public RankedCandidates process() {
-         if (_generationEvolver == null) {
-            _generationEvolver = createDefaultGenerationEvolver();
+         try {
+            return processRun();
+         } finally {
+            if (_ownsPool) {
+               _pool.shutdown();
+            }
          }
+      }
 
-         RankedCandidates rankedCandidates = Runner.process(_generationRanker, _generationEvolver, terminator, _initialPopulation);
+      private RankedCandidates processRun() {
+         RankedCandidates rankedCandidates;
+         if (_numIslands == 1) {
+            Collection<Node> initialPopulation = _initialPopulation.get();
+            if (_generationEvolver == null) {
+               _generationEvolver = createDefaultGenerationEvolver(initialPopulation.size());
+            }
+            rankedCandidates = Runner.process(_generationRanker.get(), _generationEvolver, createTerminator(), initialPopulation);
+         } else {
+            List<Island> islands = new ArrayList<>();
+            for (int i = 0; i < _numIslands; i++) {
+               Collection<Node> initialPopulation = _initialPopulation.get();
+               GenerationEvolver generationEvolver = _generationEvolver == null ? createDefaultGenerationEvolver(initialPopulation.size()) : _generationEvolver;
+               islands.add(new Island(_generationRanker.get(), generationEvolver, createTerminator(), initialPopulation));
+            }
+            rankedCandidates = IslandRunner.process(islands, _migrationInterval, _numMigrants, _migrationTopology);
+         }
          RankedCandidate best = rankedCandidates.best();
          Node simplifiedBestNode = simplify(best.getNode());
          Logger.getGlobal().info("Best candidate: Fitness: " + best.getFitness() + " Structure: " + simplifiedBestNode);
          return rankedCandidates;
       }
 
-      private GenerationEvolver createDefaultGenerationEvolver() {
-         int populationSize = _initialPopulation.size();
-         NodeSelectorFactory nodeSelectorFactory = new RankSelectionFactory(_random);
-         Map<GeneticOperator, Integer> operators = createDefaultGeneticOperators(populationSize);
-         int operatorsSize = operators.values().stream().mapToInt(l -> l).sum();
-         int elitismSize = populationSize - operatorsSize;
-         Logger.getGlobal().info("total: " + populationSize + " elitism: " + elitismSize + " " + operators);
-         return new GenerationEvolverImpl(elitismSize, nodeSelectorFactory, operators);
+      /**
+       * Returns a new instance of the terminator - so each island of a run using an island model can have its own instance of the stateful built-in
+       * terminators. Terminators specified by {@link TerminatorSetter#setTerminator(Predicate)} are shared.
+       */
+      @SuppressWarnings("unchecked")
+      private Predicate<RankedCandidates> createTerminator() {
+         if (terminators.size() == 1) {
+            return terminators.get(0).get();
+         } else {
+            return new CompositeTerminator(terminators.stream().map(Supplier::get).toArray(Predicate[]::new));
+         }
       }
 
-      private Map<GeneticOperator, Integer> createDefaultGeneticOperators(int populationSize) {
-         Map<GeneticOperator, Integer> operators = new HashMap<>();
-         TreeGenerator treeGenerator = TreeGeneratorImpl.grow(_primitiveSet, _random);
-         operators.put(t -> treeGenerator.generate(_returnType, 4), ratio(populationSize, .08));
-         operators.put(new SubtreeCrossover(_random, 5), ratio(populationSize, .4));
-         operators.put(new PointMutation(_random, _primitiveSet), ratio(populationSize, .4));
-         operators.put(new SubTreeMutation(_random, treeGenerator), ratio(populationSize, .04));
-         operators.put(new ConstantToFunctionMutation(_random, TreeGeneratorImpl.full(_primitiveSet)), ratio(populationSize, .04));
+      private GenerationEvolver createDefaultGenerationEvolver(int populationSize) {
+         // the remainder of the population, after the quotas of each of the operators, is filled by elitism
+         int operatorsSize = ratio(populationSize, RATIO_NEW_TREES) + ratio(populationSize, RATIO_SUBTREE_CROSSOVER)
+               + ratio(populationSize, RATIO_POINT_MUTATION) + ratio(populationSize, RATIO_SUBTREE_MUTATION)
+               + ratio(populationSize, RATIO_CONSTANT_TO_FUNCTION_MUTATION);
+         int elitismSize = populationSize - operatorsSize;
+         Logger.getGlobal().info("total: " + populationSize + " elitism: " + elitismSize + " operators: " + operatorsSize);
+         return new ParallelGenerationEvolver(elitismSize, RankSelectionFactory::new, r -> createDefaultGeneticOperators(populationSize, r), _random, _pool,
+               NUM_STREAMS);
+      }
+
+      private Map<GeneticOperator, Integer> createDefaultGeneticOperators(int populationSize, Random random) {
+         // use a LinkedHashMap so the order the operators are applied in, and so the order they consume random numbers, is the same for every run
+         Map<GeneticOperator, Integer> operators = new LinkedHashMap<>();
+         PrimitiveSet primitiveSet = _primitiveSetFactory.apply(random);
+         TreeGenerator treeGenerator = TreeGeneratorImpl.grow(primitiveSet, random);
+         operators.put(t -> treeGenerator.generate(_returnType, 4), ratio(populationSize, RATIO_NEW_TREES));
+         operators.put(new SubtreeCrossover(random, 5), ratio(populationSize, RATIO_SUBTREE_CROSSOVER));
+         operators.put(new PointMutation(random, primitiveSet), ratio(populationSize, RATIO_POINT_MUTATION));
+         operators.put(new SubTreeMutation(random, treeGenerator), ratio(populationSize, RATIO_SUBTREE_MUTATION));
+         operators.put(new ConstantToFunctionMutation(random, TreeGeneratorImpl.full(primitiveSet)),
+               ratio(populationSize, RATIO_CONSTANT_TO_FUNCTION_MUTATION));
          return operators;
       }
 
@@ -482,7 +770,11 @@ public final class RunBuilder {
 
    /** Allows termination criteria to be configured. */
    public interface TerminatorSetter extends MaxGenerationsTerminatorSetter {
-      /** Sets the criteria used by this run to determine when it should stop. */
+      /**
+       * Sets the criteria used by this run to determine when it should stop.
+       * <p>
+       * When the run uses an island model the same {@code terminator} is used by all islands - so it must be safe for use by multiple threads.
+       */
       TerminatorSetterOrProcessRunner setTerminator(Predicate<RankedCandidates> terminator);
 
       /** Set the target fitness that when found should cause the run to stop. */
@@ -533,5 +825,9 @@ public final class RunBuilder {
       public Type getReturnType() {
          return _returnType;
       }
+
+      public int getParallelism() {
+         return _parallelism;
+      }
    }
 }
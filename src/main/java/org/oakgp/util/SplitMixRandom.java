@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A random number generator based on the SplitMix64 algorithm which can be split into independent streams of random numbers.
+ * <p>
+ * Produces the same sequence of values as {@code java.util.SplittableRandom} (as implemented in Java 8) created with the same seed. Unlike
+ * {@code java.util.Random} (which updates a shared seed using compare-and-swap) each value is derived from a counter that is incremented atomically - so an
+ * instance can be shared by multiple threads without them retrying on each other's updates. To avoid any contention, and to allow runs to be reproduced
+ * regardless of how work is scheduled across threads, use {@link #split()} to give each worker its own instance.
+ *
+ * @see <a href="http://dx.doi.org/10.1145/2714064.2660195">Fast Splittable Pseudorandom Number Generators</a>
+ */
+public final class SplitMixRandom implements Random {
+   private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+   private static final double DOUBLE_UNIT = 0x1.0p-53;
+   private static final AtomicLong DEFAULT_SEED_GENERATOR = new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+   private final AtomicLong seed;
+   private final long gamma;
+
+   /** Creates a new random number generator with a seed very likely to be distinct from any other invocation of the constructor. */
+   public SplitMixRandom() {
+      this(mix64(DEFAULT_SEED_GENERATOR.getAndAdd(2 * GOLDEN_GAMMA)), mixGamma(DEFAULT_SEED_GENERATOR.addAndGet(GOLDEN_GAMMA)));
+   }
+
+   /**
+    * Creates a new random number generator using the specified seed.
+    *
+    * @param seed
+    *           the initial seed - instances created with the same seed produce the same sequence of values
+    */
+   public SplitMixRandom(long seed) {
+      this(seed, GOLDEN_GAMMA);
+   }
+
+   private SplitMixRandom(long seed, long gamma) {
+      this.seed = new AtomicLong(seed);
+      this.gamma = gamma;
+   }
+
+   @Override
+   public int nextInt(int bound) {
+      if (bound < 1) {
+         throw new IllegalArgumentException("bound must be positive");
+      }
+      int r = mix32(nextSeed());
+      int m = bound - 1;
+      if ((bound & m) == 0) {
+         r &= m;
+      } else {
+         // reject values from the top of the range which would otherwise bias the result towards smaller values
+         for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+         }
+      }
+      return r;
+   }
+
+   @Override
+   public double nextDouble() {
+      return (mix64(nextSeed()) >>> 11) * DOUBLE_UNIT;
+   }
+
+   @Override
+   public boolean nextBoolean() {
+      return mix32(nextSeed()) < 0;
+   }
+
+   /** Returns a pseudorandom {@code long} value. */
+   public long nextLong() {
+      return mix64(nextSeed());
+   }
+
+   /**
+    * Returns a new {@code SplitMixRandom} which shares no mutable state with this instance.
+    * <p>
+    * The sequence of values produced by the returned instance is determined by the values previously produced by this instance - so a run which splits a
+    * generator with a known seed, in a known order, is reproducible.
+    */
+   @Override
+   public SplitMixRandom split() {
+      return new SplitMixRandom(nextLong(), mixGamma(nextSeed()));
+   }
+
+   private long nextSeed() {
+      return seed.addAndGet(gamma);
+   }
+
+   private static long mix64(long z) {
+      z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+      return z ^ (z >>> 31);
+   }
+
+   private static int mix32(long z) {
+      z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+      return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+   }
+
+   /** Returns an odd value, with enough bit transitions to produce well distributed values, to add to the seed of a new generator. */
+   private static long mixGamma(long z) {
+      z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+      z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+      z = (z ^ (z >>> 33)) | 1L;
+      int n = Long.bitCount(z ^ (z >>> 1));
+      return n < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+   }
+}
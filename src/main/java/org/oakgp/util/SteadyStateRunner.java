@@ -0,0 +1,286 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.util;
+
+import static org.oakgp.NodeSimplifier.simplify;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.oakgp.evolve.GeneticOperator;
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.rank.fitness.FitnessFunction;
+import org.oakgp.select.NodeSelector;
+import org.oakgp.select.NodeSelectorFactory;
+
+/**
+ * Performs a <i>steady-state</i> Genetic Programming run.
+ * <p>
+ * Unlike {@link Runner} - which ranks a whole generation before evolving the next - a steady-state run has no barrier between generations. Each thread of a
+ * {@code ForkJoinPool} repeatedly evolves a single new candidate from the current population, determines its fitness and then, if it is fitter than the least
+ * fit member of the population, replaces that member. As each thread only waits for its own evaluations, threads are not left idle while a slow candidate is
+ * evaluated - which makes a steady-state run suited to fitness functions whose cost varies between candidates.
+ * <p>
+ * Candidates are ranked by their natural ordering - so lower fitness values are considered better. The terminator is tested after every <i>epoch</i> - where an
+ * epoch is the creation of as many candidates as there are in the initial population. This means terminators expressed in terms of generations (e.g. a maximum
+ * number of generations) retain their meaning.
+ * <p>
+ * To avoid re-sorting the population, and creating a new selector, for every new candidate, the view of the population that new candidates are selected from
+ * is only refreshed ten times per epoch.
+ */
+public final class SteadyStateRunner {
+   /** The number of times during each epoch that the view of the population used to select candidates from is refreshed. */
+   private static final int REFRESHES_PER_EPOCH = 10;
+
+   /** Private constructor as all methods are static. */
+   private SteadyStateRunner() {
+      // do nothing
+   }
+
+   /**
+    * Performs a steady-state Genetic Programming run.
+    *
+    * @param fitnessFunction
+    *           determines the fitness of candidates - must be safe for use by multiple threads
+    * @param selectorFactory
+    *           given the {@code Random} of a thread, returns the factory that thread should use to create selectors
+    * @param operators
+    *           given the {@code Random} of a thread, returns the genetic operators that thread should use - where the key = a genetic operator and the value =
+    *           the relative likelihood of that genetic operator being used to create each new candidate
+    * @param terminator
+    *           a function that determines if the run should finish
+    * @param initialPopulation
+    *           the initial population - its size determines the size of the population maintained throughout the run
+    * @param random
+    *           {@link Random#split() split} to create the {@code Random} of each thread
+    * @param pool
+    *           the pool used to evolve and evaluate candidates - one task is run for each thread of the pool
+    * @return the population at the end of the run - the best candidate can be retrieved using {@link RankedCandidates#best()}
+    */
+   public static RankedCandidates process(FitnessFunction fitnessFunction, java.util.function.Function<Random, NodeSelectorFactory> selectorFactory,
+         java.util.function.Function<Random, Map<GeneticOperator, Integer>> operators, Predicate<RankedCandidates> terminator, Collection<Node> initialPopulation,
+         Random random, ForkJoinPool pool) {
+      Node[] initial = initialPopulation.toArray(new Node[initialPopulation.size()]);
+      Population population = new Population(initial.length, terminator);
+      AtomicInteger nextInitial = new AtomicInteger();
+
+      ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[pool.getParallelism()];
+      for (int i = 0; i < tasks.length; i++) {
+         Random workerRandom = random.split();
+         Worker worker = new Worker(fitnessFunction, selectorFactory.apply(workerRandom), operators.apply(workerRandom), workerRandom, population, initial,
+               nextInitial);
+         tasks[i] = pool.submit(worker);
+      }
+      for (ForkJoinTask<?> task : tasks) {
+         task.join();
+      }
+
+      return population.snapshot();
+   }
+
+   /** Repeatedly evaluates a candidate - either from the initial population or evolved from the current population - until the run is finished. */
+   private static final class Worker implements Runnable {
+      private final FitnessFunction fitnessFunction;
+      private final NodeSelectorFactory selectorFactory;
+      private final GeneticOperator[] operators;
+      private final int[] cumulativeWeights;
+      private final Random random;
+      private final Population population;
+      private final Node[] initial;
+      private final AtomicInteger nextInitial;
+      private RankedCandidates selectorCandidates;
+      private NodeSelector selector;
+
+      Worker(FitnessFunction fitnessFunction, NodeSelectorFactory selectorFactory, Map<GeneticOperator, Integer> operators, Random random,
+            Population population, Node[] initial, AtomicInteger nextInitial) {
+         this.fitnessFunction = fitnessFunction;
+         this.selectorFactory = selectorFactory;
+         this.operators = new GeneticOperator[operators.size()];
+         this.cumulativeWeights = new int[operators.size()];
+         int i = 0;
+         int total = 0;
+         for (Map.Entry<GeneticOperator, Integer> e : operators.entrySet()) {
+            total += e.getValue();
+            this.operators[i] = e.getKey();
+            this.cumulativeWeights[i] = total;
+            i++;
+         }
+         if (total < 1) {
+            throw new IllegalArgumentException("Expected a positive integer but got: " + total);
+         }
+         this.random = random;
+         this.population = population;
+         this.initial = initial;
+         this.nextInitial = nextInitial;
+      }
+
+      @Override
+      public void run() {
+         try {
+            while (!population.isFinished()) {
+               Node candidate = nextCandidate();
+               if (candidate == null) {
+                  // the population is still empty as other threads have yet to finish evaluating the initial population
+                  population.awaitCandidates();
+               } else if (population.contains(candidate)) {
+                  population.skip();
+               } else {
+                  population.add(new RankedCandidate(candidate, fitnessFunction.evaluate(candidate)));
+               }
+            }
+         } catch (RuntimeException | Error e) {
+            // stop the other threads, rather than leave them running indefinitely, before propagating the failure
+            population.finish();
+            throw e;
+         } catch (InterruptedException e) {
+            population.finish();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+         }
+      }
+
+      private Node nextCandidate() {
+         if (nextInitial.get() < initial.length) {
+            int i = nextInitial.getAndIncrement();
+            if (i < initial.length) {
+               return initial[i];
+            }
+         }
+
+         RankedCandidates candidates = population.selectable();
+         if (candidates.size() == 0) {
+            return null;
+         }
+         if (candidates != selectorCandidates) {
+            selectorCandidates = candidates;
+            selector = selectorFactory.getSelector(candidates);
+         }
+         return simplify(nextOperator().evolve(selector));
+      }
+
+      private GeneticOperator nextOperator() {
+         int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+         int i = 0;
+         while (r >= cumulativeWeights[i]) {
+            i++;
+         }
+         return operators[i];
+      }
+   }
+
+   /** The current members of the population, sorted by fitness, shared by all the threads of a run. */
+   private static final class Population {
+      private static final RankedCandidates EMPTY = new RankedCandidates(new RankedCandidate[0]);
+
+      private final int maxSize;
+      private final int refreshInterval;
+      private final Predicate<RankedCandidates> terminator;
+      private final List<RankedCandidate> sortedCandidates = new ArrayList<>();
+      private final Set<Node> nodes = new HashSet<>();
+      private RankedCandidates snapshot = EMPTY;
+      private RankedCandidates selectable = EMPTY;
+      private boolean changed;
+      private int created;
+      private volatile boolean finished;
+
+      Population(int maxSize, Predicate<RankedCandidates> terminator) {
+         this.maxSize = maxSize;
+         this.refreshInterval = Math.max(1, maxSize / REFRESHES_PER_EPOCH);
+         this.terminator = terminator;
+         this.finished = maxSize == 0;
+      }
+
+      synchronized boolean contains(Node n) {
+         return nodes.contains(n);
+      }
+
+      synchronized void add(RankedCandidate c) {
+         if (!nodes.contains(c.getNode())) {
+            if (sortedCandidates.size() < maxSize) {
+               insert(c);
+            } else if (c.compareTo(sortedCandidates.get(maxSize - 1)) < 0) {
+               nodes.remove(sortedCandidates.remove(maxSize - 1).getNode());
+               insert(c);
+            }
+         }
+         skip();
+      }
+
+      /**
+       * Records the creation of a candidate - refreshing the candidates available for selection if a refresh is due and, if it completes an epoch, testing if
+       * the run should finish.
+       */
+      synchronized void skip() {
+         created++;
+         boolean endOfEpoch = created % maxSize == 0;
+         if (endOfEpoch || created % refreshInterval == 0) {
+            selectable = snapshot();
+            notifyAll();
+         }
+         if (endOfEpoch && !finished && terminator.test(selectable)) {
+            finish();
+         }
+      }
+
+      /** Returns the candidates to select from when evolving new candidates - which may not reflect the most recent additions to the population. */
+      synchronized RankedCandidates selectable() {
+         return selectable;
+      }
+
+      /** Waits until there are candidates available for selection or the run has finished. */
+      synchronized void awaitCandidates() throws InterruptedException {
+         while (selectable.size() == 0 && !finished) {
+            wait();
+         }
+      }
+
+      /** Returns the current members of the population. */
+      synchronized RankedCandidates snapshot() {
+         if (changed) {
+            snapshot = new RankedCandidates(sortedCandidates.toArray(new RankedCandidate[sortedCandidates.size()]));
+            changed = false;
+         }
+         return snapshot;
+      }
+
+      boolean isFinished() {
+         return finished;
+      }
+
+      synchronized void finish() {
+         finished = true;
+         notifyAll();
+      }
+
+      private void insert(RankedCandidate c) {
+         int idx = Collections.binarySearch(sortedCandidates, c);
+         sortedCandidates.add(idx < 0 ? -idx - 1 : idx, c);
+         nodes.add(c.getNode());
+         changed = true;
+      }
+   }
+}
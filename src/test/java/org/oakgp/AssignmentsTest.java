@@ -36,6 +36,7 @@ public class AssignmentsTest {
       values[0] = 10;
       assertEquals(x, assignments.get(0));
       assertEquals(y, assignments.get(1));
+      assertEquals(2, assignments.size());
 
       assertArrayIndexOutOfBoundsException(assignments, -1);
       assertArrayIndexOutOfBoundsException(assignments, 2);
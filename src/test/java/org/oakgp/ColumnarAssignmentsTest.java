@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.oakgp.Assignments.createAssignments;
+import static org.oakgp.ColumnarAssignments.createColumnarAssignments;
+import static org.oakgp.TestUtils.readNode;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+
+public class ColumnarAssignmentsTest {
+   @Test
+   public void test() {
+      Assignments row1 = createAssignments(1, 2.5, "a");
+      Assignments row2 = createAssignments(3, -1.0, "b");
+      Assignments row3 = createAssignments(5, 0.0, null);
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(row1, row2, row3));
+
+      assertEquals(3, assignments.getRowCount());
+      assertSame(row1, assignments.getRow(0));
+      assertSame(row2, assignments.getRow(1));
+      assertSame(row3, assignments.getRow(2));
+
+      assertArrayEquals(new Object[] { 1, 3, 5 }, assignments.getColumn(0));
+      assertArrayEquals(new Object[] { 2.5, -1.0, 0.0 }, assignments.getColumn(1));
+      assertArrayEquals(new Object[] { "a", "b", null }, assignments.getColumn(2));
+      assertArrayEquals(new int[] { 1, 3, 5 }, assignments.getIntColumn(0));
+      assertArrayEquals(new double[] { 2.5, -1.0, 0.0 }, assignments.getDoubleColumn(1), 0);
+      // primitive columns are created once, when the ColumnarAssignments is constructed
+      assertSame(assignments.getIntColumn(0), assignments.getIntColumn(0));
+      assertSame(assignments.getDoubleColumn(1), assignments.getDoubleColumn(1));
+   }
+
+   @Test
+   public void testInvalidPrimitiveColumn() {
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(createAssignments(1, "a"), createAssignments(2, "b")));
+      try {
+         assignments.getIntColumn(1);
+         fail();
+      } catch (ClassCastException e) {
+         // expected
+      }
+      try {
+         assignments.getDoubleColumn(0);
+         fail();
+      } catch (ClassCastException e) {
+         // expected
+      }
+   }
+
+   @Test
+   public void testSubset() {
+      Assignments row1 = createAssignments(1, 2.5);
+      Assignments row2 = createAssignments(3, -1.0);
+      Assignments row3 = createAssignments(5, 0.0);
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(row1, row2, row3));
+
+      ColumnarAssignments subset = assignments.subset(new int[] { 2, 0, 1 }, 2);
+      assertEquals(2, subset.getRowCount());
+      assertSame(row3, subset.getRow(0));
+      assertSame(row1, subset.getRow(1));
+      assertArrayEquals(new int[] { 5, 1 }, subset.getIntColumn(0));
+      assertArrayEquals(new double[] { 0.0, 2.5 }, subset.getDoubleColumn(1), 0);
+      assertArrayEquals(new Object[] { 5, 1 }, subset.getColumn(0));
+
+      ColumnarAssignments nested = subset.subset(new int[] { 1 }, 1);
+      assertEquals(1, nested.getRowCount());
+      assertSame(row1, nested.getRow(0));
+      assertArrayEquals(new int[] { 1 }, nested.getIntColumn(0));
+      assertArrayEquals(new double[] { 2.5 }, nested.getDoubleColumn(1), 0);
+   }
+
+   @Test
+   public void testSubsetOfMixedTypes() {
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(createAssignments(1, "a"), createAssignments("b", 2), createAssignments(3, 4)));
+
+      ColumnarAssignments subset = assignments.subset(new int[] { 0, 2 }, 2);
+      assertArrayEquals(new int[] { 1, 3 }, subset.getIntColumn(0));
+      assertArrayEquals(new Object[] { "a", 4 }, subset.getColumn(1));
+   }
+
+   @Test
+   public void testCache() {
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(createAssignments(1), createAssignments(2)), 2);
+      Node a = readNode("(+ 1 v0)");
+      Node b = readNode("(+ 2 v0)");
+      Node c = readNode("(+ 3 v0)");
+      int[] aResults = { 2, 3 };
+      assertNull(assignments.getCachedResults(a, int[].class));
+      assignments.cacheResults(a, int[].class, aResults);
+      assertSame(aResults, assignments.getCachedResults(a, int[].class));
+      assertSame(aResults, assignments.getCachedResults(readNode("(+ 1 v0)"), int[].class));
+
+      // once the maximum size is reached results of subtrees that have been requested repeatedly are kept in preference to new results
+      assignments.cacheResults(b, int[].class, new int[] { 3, 4 });
+      assignments.cacheResults(c, int[].class, new int[] { 4, 5 });
+      assertSame(aResults, assignments.getCachedResults(a, int[].class));
+      assertNotNull(assignments.getCachedResults(b, int[].class));
+      assertNull(assignments.getCachedResults(c, int[].class));
+
+      // subsets do not cache results
+      ColumnarAssignments subset = assignments.subset(new int[] { 1 }, 1);
+      subset.cacheResults(a, int[].class, aResults);
+      assertNull(subset.getCachedResults(a, int[].class));
+   }
+
+   @Test
+   public void testSlice() {
+      Assignments row1 = createAssignments(1, 2.5);
+      Assignments row2 = createAssignments(3, -1.0);
+      Assignments row3 = createAssignments(5, 0.0);
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(row1, row2, row3), 10);
+
+      ColumnarAssignments slice = assignments.slice(1, 3);
+      assertEquals(2, slice.getRowCount());
+      assertSame(row2, slice.getRow(0));
+      assertSame(row3, slice.getRow(1));
+      assertArrayEquals(new int[] { 3, 5 }, slice.getIntColumn(0));
+      assertArrayEquals(new double[] { -1.0, 0.0 }, slice.getDoubleColumn(1), 0);
+
+      // slices share the cache of the original - but results are stored separately for each slice
+      Node a = readNode("(+ 1 v0)");
+      int[] sliceResults = { 4, 6 };
+      slice.cacheResults(a, int[].class, sliceResults);
+      assertSame(sliceResults, slice.getCachedResults(a, int[].class));
+      assertNull(assignments.getCachedResults(a, int[].class));
+      assertNull(assignments.slice(1, 3).getCachedResults(a, int[].class));
+   }
+
+   @Test
+   public void testNoCache() {
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(createAssignments(1), createAssignments(2)));
+      Node a = readNode("(+ 1 v0)");
+      assignments.cacheResults(a, int[].class, new int[] { 2, 3 });
+      assertNull(assignments.getCachedResults(a, int[].class));
+   }
+
+   @Test
+   public void testEmpty() {
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList());
+      assertEquals(0, assignments.getRowCount());
+   }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.oakgp.Assignments.createAssignments;
+import static org.oakgp.TestUtils.createVariable;
+import static org.oakgp.TestUtils.doubleConstant;
+import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.longConstant;
+import static org.oakgp.TestUtils.readNode;
+import static org.oakgp.Type.booleanType;
+import static org.oakgp.Type.doubleType;
+import static org.oakgp.Type.longType;
+import static org.oakgp.function.math.DoubleUtils.DOUBLE_UTILS;
+import static org.oakgp.function.math.LongUtils.LONG_UTILS;
+
+import org.junit.Test;
+import org.oakgp.Assignments;
+import org.oakgp.function.choice.If;
+import org.oakgp.function.compare.LessThan;
+import org.oakgp.node.ConstantNode;
+import org.oakgp.node.FunctionNode;
+import org.oakgp.node.Node;
+
+public class ClosureCompilerTest {
+   private final ClosureCompiler compiler = new ClosureCompiler();
+
+   @Test
+   public void testTerminalsNotCompiled() {
+      Node constant = integerConstant(7);
+      assertSame(constant, compiler.compile(constant));
+      Node variable = createVariable(0);
+      assertSame(variable, compiler.compile(variable));
+   }
+
+   @Test
+   public void testCompiledNodeDelegatesToOriginal() {
+      Node original = readNode("(+ 1 v0)");
+      Node compiled = compiler.compile(original);
+      assertTrue(compiled instanceof CompiledNode);
+      assertSame(original, ((CompiledNode) compiled).getOriginal());
+      assertFalse(original.equals(compiled));
+      assertFalse(compiled.equals(original));
+      assertEquals(original.hashCode(), compiled.hashCode());
+      assertEquals(original.toString(), compiled.toString());
+      assertEquals(original.getNodeCount(), compiled.getNodeCount());
+      assertEquals(original.getHeight(), compiled.getHeight());
+      assertSame(original.getType(), compiled.getType());
+      assertSame(original.getNodeType(), compiled.getNodeType());
+   }
+
+   @Test
+   public void testIntegerArithmetic() {
+      assertCompiled("(+ 1 v0)");
+      assertCompiled("(- v0 v1)");
+      assertCompiled("(* v0 (- 2147483647 v1))");
+      assertCompiled("(/ v0 v1)");
+      assertCompiled("(/ (* 7 v1) (+ 3 v0))");
+      assertCompiled("(/ v0 0)");
+   }
+
+   @Test
+   public void testIntegerComparisons() {
+      assertCompiled("(< v0 v1)");
+      assertCompiled("(<= v0 v1)");
+      assertCompiled("(> v0 v1)");
+      assertCompiled("(>= v0 v1)");
+      assertCompiled("(= v0 v1)");
+      assertCompiled("(!= v0 v1)");
+   }
+
+   @Test
+   public void testClassify() {
+      assertCompiled("(zero? (- v0 v1))");
+      assertCompiled("(pos? (- v0 v1))");
+      assertCompiled("(neg? (- v0 v1))");
+   }
+
+   @Test
+   public void testIf() {
+      assertCompiled("(if (< v0 v1) v0 v1)");
+      assertCompiled("(if (< v0 v1) (if (zero? v2) 1 (* v0 v2)) (+ v1 (if (> v2 v0) 5 v2)))");
+   }
+
+   @Test
+   public void testUnsupportedFunctionsEvaluatedByOriginalNode() {
+      assertCompiled("(+ 3 (count [1 2 v0]))");
+      assertCompiled("(if (< v0 v1) (reduce + 0 [v0 v1 v2]) v2)");
+      assertCompiled("(if (< (count [v0 (* v1 v2)]) v1) (if (< v0 (count [v2])) 1 v0) v2)");
+   }
+
+   @Test
+   public void testLongArithmetic() {
+      Node v0 = createVariable(0);
+      Node n = new FunctionNode(LONG_UTILS.getMultiply(), new FunctionNode(LONG_UTILS.getAdd(), v0, longConstant(9)),
+            new FunctionNode(LONG_UTILS.getDivide(), longConstant(Long.MAX_VALUE), v0));
+      assertCompiled(n, createAssignments(3L));
+      assertCompiled(n, createAssignments(-7L));
+      assertCompiled(new FunctionNode(LONG_UTILS.getDivide(), v0, longConstant(0)), createAssignments(3L));
+      assertCompiled(new FunctionNode(new If(longType()), new FunctionNode(LessThan.create(longType()), v0, longConstant(5)), v0, longConstant(5)),
+            createAssignments(3L));
+   }
+
+   @Test
+   public void testDoubleArithmetic() {
+      Node v0 = createVariable(0);
+      Node n = new FunctionNode(DOUBLE_UTILS.getSubtract(), new FunctionNode(DOUBLE_UTILS.getAdd(), v0, doubleConstant(.5)),
+            new FunctionNode(DOUBLE_UTILS.getDivide(), doubleConstant(1), v0));
+      assertCompiled(n, createAssignments(3d));
+      assertCompiled(n, createAssignments(0d));
+      assertCompiled(new FunctionNode(DOUBLE_UTILS.getDivide(), v0, doubleConstant(0)), createAssignments(3d));
+      assertCompiled(new FunctionNode(new If(doubleType()), new FunctionNode(LessThan.create(doubleType()), v0, doubleConstant(Double.NaN)), v0,
+            doubleConstant(-1)), createAssignments(3d));
+   }
+
+   @Test
+   public void testBooleanConstantAsCondition() {
+      Node n = new FunctionNode(new If(booleanType()), new ConstantNode(Boolean.FALSE, booleanType()), readNode("(< v0 v1)"),
+            new ConstantNode(Boolean.TRUE, booleanType()));
+      assertCompiled(n, createAssignments(1, 2));
+   }
+
+   @Test
+   public void testEachCompilationEqual() {
+      Node n = readNode("(+ 1 v0)");
+      CompiledNode first = (CompiledNode) compiler.compile(n);
+      CompiledNode second = (CompiledNode) compiler.compile(n);
+      assertNotSame(first, second);
+      assertEquals(first, second);
+   }
+
+   private void assertCompiled(String input) {
+      Node n = readNode(input);
+      int[][] values = { { 0, 0, 0 }, { 1, 2, 3 }, { 3, 2, 1 }, { -5, 7, 0 }, { 2, 2, -2 }, { 9, -4, 9 }, { Integer.MAX_VALUE, Integer.MIN_VALUE, 1 } };
+      for (int[] v : values) {
+         if (!input.contains("/") || v[1] != 0) {
+            assertCompiled(n, createAssignments(v[0], v[1], v[2]));
+         }
+      }
+   }
+
+   private void assertCompiled(Node original, Assignments assignments) {
+      Node compiled = compiler.compile(original);
+      assertTrue(compiled instanceof CompiledNode);
+      Object expected = original.evaluate(assignments);
+      Object actual = compiled.evaluate(assignments);
+      assertEquals(expected, actual);
+   }
+}
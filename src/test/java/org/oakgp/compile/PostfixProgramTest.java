@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.oakgp.Assignments.createAssignments;
+import static org.oakgp.TestUtils.createVariable;
+import static org.oakgp.TestUtils.doubleConstant;
+import static org.oakgp.TestUtils.longConstant;
+import static org.oakgp.TestUtils.readNode;
+import static org.oakgp.TestUtils.stringConstant;
+import static org.oakgp.Type.doubleType;
+import static org.oakgp.Type.longType;
+import static org.oakgp.compile.PostfixProgram.createPostfixProgram;
+import static org.oakgp.function.math.DoubleUtils.DOUBLE_UTILS;
+import static org.oakgp.function.math.LongUtils.LONG_UTILS;
+
+import org.junit.Test;
+import org.oakgp.Assignments;
+import org.oakgp.function.choice.If;
+import org.oakgp.function.compare.LessThan;
+import org.oakgp.node.FunctionNode;
+import org.oakgp.node.Node;
+import org.oakgp.node.VariableNode;
+
+public class PostfixProgramTest {
+   @Test
+   public void testIntegerArithmetic() {
+      assertProgram("(+ 1 v0)", 3);
+      assertProgram("(- v0 v1)", 3);
+      assertProgram("(* v0 (- 2147483647 v1))", 5);
+      assertProgram("(/ (* 7 v1) (+ 3 v0))", 7);
+      assertProgram("(/ v0 0)", 1);
+      assertProgram("(+ v2 (/ v0 0))", 3);
+   }
+
+   @Test
+   public void testComparisonsAndClassify() {
+      assertProgram("(< v0 v1)", 4);
+      assertProgram("(<= v0 v1)", 4);
+      assertProgram("(> v0 v1)", 4);
+      assertProgram("(>= v0 v1)", 4);
+      assertProgram("(= v0 v1)", 4);
+      assertProgram("(!= v0 v1)", 4);
+      assertProgram("(zero? (- v0 v1))", 4);
+      assertProgram("(pos? (- v0 v1))", 4);
+      assertProgram("(neg? (- v0 v1))", 4);
+   }
+
+   @Test
+   public void testIf() {
+      assertProgram("(if (< v0 v1) v0 v1)", 9);
+      assertProgram("(if (< v0 v1) (if (zero? v2) 1 (* v0 v2)) (+ v1 (if (> v2 v0) 5 v2)))", 27);
+   }
+
+   @Test
+   public void testUnsupportedFunctions() {
+      assertProgram("(+ 3 (count [1 2 v0]))", 3);
+      assertProgram("(if (< v0 v1) (reduce + 0 [v0 v1 v2]) v2)", 9);
+   }
+
+   @Test
+   public void testLongAndDouble() {
+      Node v0 = new VariableNode(0, longType());
+      Node longNode = new FunctionNode(new If(longType()), new FunctionNode(LessThan.create(longType()), v0, longConstant(5)),
+            new FunctionNode(LONG_UTILS.getMultiply(), v0, longConstant(Long.MAX_VALUE)), new FunctionNode(LONG_UTILS.getDivide(), v0, longConstant(0)));
+      assertProgram(longNode, createAssignments(3L));
+      assertProgram(longNode, createAssignments(7L));
+
+      v0 = new VariableNode(0, doubleType());
+      Node doubleNode = new FunctionNode(DOUBLE_UTILS.getSubtract(), new FunctionNode(DOUBLE_UTILS.getAdd(), v0, doubleConstant(.5)),
+            new FunctionNode(DOUBLE_UTILS.getDivide(), doubleConstant(1), v0));
+      assertProgram(doubleNode, createAssignments(3d));
+      assertProgram(doubleNode, createAssignments(0d));
+      assertProgram(new FunctionNode(new If(doubleType()), new FunctionNode(LessThan.create(doubleType()), v0, doubleConstant(Double.NaN)), v0,
+            doubleConstant(-1)), createAssignments(3d));
+   }
+
+   @Test
+   public void testUnsupportedType() {
+      try {
+         createPostfixProgram(stringConstant("hello"));
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals("Unsupported type: string", e.getMessage());
+      }
+   }
+
+   @Test
+   public void testTerminals() {
+      assertProgram("7", 1);
+      assertProgram("v1", 1);
+   }
+
+   @Test
+   public void testCompiler() {
+      PostfixCompiler compiler = new PostfixCompiler();
+      Node terminal = createVariable(0);
+      assertSame(terminal, compiler.compile(terminal));
+
+      Node original = readNode("(if (< v0 v1) (+ v0 1) v1)");
+      Node compiled = compiler.compile(original);
+      assertTrue(compiled instanceof CompiledNode);
+      assertSame(original, ((CompiledNode) compiled).getOriginal());
+      Assignments assignments = createAssignments(3, 9);
+      assertEquals(4, (int) compiled.evaluate(assignments));
+   }
+
+   private void assertProgram(String input, int expectedLength) {
+      Node node = readNode(input);
+      PostfixProgram program = createPostfixProgram(node);
+      assertEquals(expectedLength, program.getLength());
+      int[][] values = { { 0, 0, 0 }, { 1, 2, 3 }, { 3, 2, 1 }, { -5, 7, 0 }, { 2, 2, -2 }, { 9, -4, 9 }, { Integer.MAX_VALUE, Integer.MIN_VALUE, 1 } };
+      for (int[] v : values) {
+         assertProgram(node, createAssignments(v[0], v[1], v[2]));
+      }
+   }
+
+   private void assertProgram(Node node, Assignments assignments) {
+      PostfixProgram program = createPostfixProgram(node);
+      assertSame(node.getType(), program.getType());
+      Object expected = node.evaluate(assignments);
+      assertEquals(expected, program.evaluate(assignments));
+
+      // assert round-trip back to the original tree structure
+      Node recreated = program.toNode();
+      assertEquals(node, recreated);
+      Object actual = recreated.evaluate(assignments);
+      assertEquals(expected, actual);
+   }
+}
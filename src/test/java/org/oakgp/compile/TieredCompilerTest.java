@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.compile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.oakgp.Assignments.createAssignments;
+import static org.oakgp.TestUtils.readNode;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.oakgp.Assignments;
+import org.oakgp.compile.TieredCompiler.TieredNode;
+import org.oakgp.node.Node;
+
+public class TieredCompilerTest {
+   @Test
+   public void testCompiledOnceThresholdExceeded() {
+      AtomicInteger compileCount = new AtomicInteger();
+      BytecodeCompiler bytecodeCompiler = new BytecodeCompiler();
+      TieredCompiler tieredCompiler = new TieredCompiler(n -> {
+         compileCount.incrementAndGet();
+         return bytecodeCompiler.compile(n);
+      }, 3);
+
+      Node original = readNode("(* v0 (+ v1 7))");
+      TieredNode tieredNode = (TieredNode) tieredCompiler.compile(original);
+      assertSame(original, tieredNode.getOriginal());
+      assertEquals(original.hashCode(), tieredNode.hashCode());
+
+      for (int i = 0; i < 3; i++) {
+         assertEvaluate(original, tieredNode, createAssignments(i, i * 2));
+         assertFalse(tieredNode.isCompiled());
+         assertEquals(0, compileCount.get());
+      }
+
+      for (int i = 3; i < 10; i++) {
+         assertEvaluate(original, tieredNode, createAssignments(i, i * 2));
+         assertTrue(tieredNode.isCompiled());
+         assertEquals(1, compileCount.get());
+      }
+   }
+
+   @Test
+   public void testEvaluationsCountedAcrossCompilations() {
+      TieredCompiler tieredCompiler = new TieredCompiler(new BytecodeCompiler(), 2);
+
+      // each call to compile represents a separate fitness evaluation, e.g. in a different generation
+      TieredNode first = (TieredNode) tieredCompiler.compile(readNode("(+ v0 1)"));
+      assertEquals(Integer.valueOf(2), first.evaluate(createAssignments(1)));
+      TieredNode second = (TieredNode) tieredCompiler.compile(readNode("(+ v0 1)"));
+      assertSame(first, second);
+      assertEquals(Integer.valueOf(3), second.evaluate(createAssignments(2)));
+      assertFalse(second.isCompiled());
+      TieredNode third = (TieredNode) tieredCompiler.compile(readNode("(+ v0 1)"));
+      assertEquals(Integer.valueOf(4), third.evaluate(createAssignments(3)));
+      assertTrue(third.isCompiled());
+
+      assertFalse(((TieredNode) tieredCompiler.compile(readNode("(+ v0 2)"))).isCompiled());
+   }
+
+   @Test
+   public void testZeroThreshold() {
+      TieredNode tieredNode = (TieredNode) new TieredCompiler(new BytecodeCompiler(), 0).compile(readNode("(+ v0 1)"));
+      assertFalse(tieredNode.isCompiled());
+      assertEquals(Integer.valueOf(8), tieredNode.evaluate(createAssignments(7)));
+      assertTrue(tieredNode.isCompiled());
+   }
+
+   @Test
+   public void testNegativeThreshold() {
+      try {
+         new TieredCompiler(new BytecodeCompiler(), -1);
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals("Threshold must not be negative: -1", e.getMessage());
+      }
+   }
+
+   private void assertEvaluate(Node original, Node tieredNode, Assignments assignments) {
+      Object expected = original.evaluate(assignments);
+      Object actual = tieredNode.evaluate(assignments);
+      assertEquals(expected, actual);
+   }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.evolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.oakgp.TestUtils.integerConstant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+import org.oakgp.select.NodeSelector;
+
+public class BatchSelectionTest {
+   @Test
+   public void testDeclaredParentCount() {
+      NodeSelector selector = mock(NodeSelector.class);
+      Node[] parents = { integerConstant(1), integerConstant(2), integerConstant(3), integerConstant(4), integerConstant(5), integerConstant(6) };
+      when(selector.next(6)).thenReturn(parents);
+
+      List<Node> output = new ArrayList<>();
+      BatchSelection.evolve(new SumOperator(2), 3, selector, output::add);
+
+      assertEquals(Arrays.asList(integerConstant(3), integerConstant(7), integerConstant(11)), output);
+      verify(selector).next(6);
+      verify(selector, never()).next();
+   }
+
+   @Test
+   public void testUndeclaredParentCount() {
+      NodeSelector selector = mock(NodeSelector.class);
+      when(selector.next()).thenReturn(integerConstant(1), integerConstant(2), integerConstant(3), integerConstant(4));
+
+      List<Node> output = new ArrayList<>();
+      BatchSelection.evolve(new SumOperator(0), 2, selector, output::add);
+
+      assertEquals(Arrays.asList(integerConstant(3), integerConstant(7)), output);
+      verify(selector, never()).next(2);
+   }
+
+   @Test
+   public void testMoreParentsThanDeclared() {
+      NodeSelector selector = mock(NodeSelector.class);
+      when(selector.next(1)).thenReturn(new Node[] { integerConstant(1) });
+      when(selector.next()).thenReturn(integerConstant(2));
+
+      List<Node> output = new ArrayList<>();
+      BatchSelection.evolve(new SumOperator(1), 1, selector, output::add);
+
+      assertEquals(Arrays.asList(integerConstant(3)), output);
+   }
+
+   @Test
+   public void testZeroCount() {
+      NodeSelector selector = mock(NodeSelector.class);
+      List<Node> output = new ArrayList<>();
+      BatchSelection.evolve(new SumOperator(2), 0, selector, output::add);
+      assertEquals(0, output.size());
+      verify(selector, never()).next(0);
+   }
+
+   /** Returns the sum of the two parents it selects - only declaring how many parents it needs if {@code parentCount} is positive. */
+   private static class SumOperator implements GeneticOperator {
+      private final int parentCount;
+
+      SumOperator(int parentCount) {
+         this.parentCount = parentCount;
+      }
+
+      @Override
+      public Node evolve(NodeSelector selector) {
+         int a = selector.next().evaluateInt(null);
+         int b = selector.next().evaluateInt(null);
+         return integerConstant(a + b);
+      }
+
+      @Override
+      public int getParentCount() {
+         return parentCount;
+      }
+   }
+}
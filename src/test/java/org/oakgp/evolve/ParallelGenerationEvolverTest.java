@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.evolve;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.mockNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.DummyRandom;
+import org.oakgp.util.Random;
+import org.oakgp.util.SplitMixRandom;
+
+public class ParallelGenerationEvolverTest {
+   @Test
+   public void test() {
+      Node[] elites = { mockNode(), mockNode() };
+      RankedCandidates input = new RankedCandidates(new RankedCandidate[] { new RankedCandidate(elites[0], 1), new RankedCandidate(elites[1], 2),
+            new RankedCandidate(mockNode(), 3) });
+
+      AtomicInteger ctr1 = new AtomicInteger();
+      AtomicInteger ctr2 = new AtomicInteger();
+      List<Random> streamRandoms = new CopyOnWriteArrayList<>();
+      List<Thread> threads = new CopyOnWriteArrayList<>();
+      java.util.function.Function<Random, Map<GeneticOperator, Integer>> operators = r -> {
+         streamRandoms.add(r);
+         Map<GeneticOperator, Integer> m = new HashMap<>();
+         m.put(s -> {
+            threads.add(Thread.currentThread());
+            return integerConstant(ctr1.incrementAndGet());
+         }, 7);
+         m.put(s -> integerConstant(-ctr2.incrementAndGet()), 2);
+         return m;
+      };
+
+      ForkJoinPool pool = new ForkJoinPool(3);
+      try {
+         ParallelGenerationEvolver evolver = new ParallelGenerationEvolver(2, r -> c -> () -> c.best().getNode(), operators, new DummyRandom(.5, .25, .75),
+               pool);
+         assertEquals(3, streamRandoms.size());
+         assertNotSame(streamRandoms.get(0), streamRandoms.get(1));
+         assertNotSame(streamRandoms.get(1), streamRandoms.get(2));
+
+         Collection<Node> actual = evolver.evolve(input);
+
+         // each operator is applied the number of times specified by its quota - across all streams
+         assertEquals(7, ctr1.get());
+         assertEquals(2, ctr2.get());
+         assertEquals(11, actual.size());
+         assertTrue(actual.contains(elites[0]));
+         assertTrue(actual.contains(elites[1]));
+         for (int i = 1; i <= 7; i++) {
+            assertTrue(actual.contains(integerConstant(i)));
+         }
+         assertTrue(actual.contains(integerConstant(-1)));
+         assertTrue(actual.contains(integerConstant(-2)));
+         for (Thread t : threads) {
+            assertSame(pool, ((ForkJoinWorkerThread) t).getPool());
+         }
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   @Test
+   public void testDuplicatesRemoved() {
+      RankedCandidates input = new RankedCandidates(new RankedCandidate[] { new RankedCandidate(integerConstant(1), 1) });
+      java.util.function.Function<Random, Map<GeneticOperator, Integer>> operators = r -> {
+         Map<GeneticOperator, Integer> m = new HashMap<>();
+         m.put(s -> integerConstant(1), 10);
+         return m;
+      };
+
+      ForkJoinPool pool = new ForkJoinPool(2);
+      try {
+         ParallelGenerationEvolver evolver = new ParallelGenerationEvolver(1, r -> c -> () -> c.best().getNode(), operators, new DummyRandom(.5, .5), pool);
+         Collection<Node> actual = evolver.evolve(input);
+         assertEquals(1, actual.size());
+         assertTrue(actual.contains(integerConstant(1)));
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   @Test
+   public void testSameResultRegardlessOfNumberOfThreads() {
+      RankedCandidates input = new RankedCandidates(new RankedCandidate[] { new RankedCandidate(integerConstant(0), 1) });
+      java.util.function.Function<Random, Map<GeneticOperator, Integer>> operators = r -> {
+         Map<GeneticOperator, Integer> m = new HashMap<>();
+         m.put(s -> integerConstant(r.nextInt(1000000)), 50);
+         return m;
+      };
+
+      // compare as lists so the order of the new generation, and not just its contents, is the same
+      List<Node> expected = new ArrayList<>(evolve(operators, input, 1));
+      assertEquals(51, expected.size());
+      assertEquals(expected, new ArrayList<>(evolve(operators, input, 2)));
+      assertEquals(expected, new ArrayList<>(evolve(operators, input, 5)));
+      // a null pool runs the streams one after another on the calling thread
+      assertEquals(expected, new ArrayList<>(evolve(operators, input, null)));
+   }
+
+   private static Collection<Node> evolve(java.util.function.Function<Random, Map<GeneticOperator, Integer>> operators, RankedCandidates input, int numThreads) {
+      ForkJoinPool pool = new ForkJoinPool(numThreads);
+      try {
+         return evolve(operators, input, pool);
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   private static Collection<Node> evolve(java.util.function.Function<Random, Map<GeneticOperator, Integer>> operators, RankedCandidates input,
+         ForkJoinPool pool) {
+      return new ParallelGenerationEvolver(1, r -> c -> () -> c.best().getNode(), operators, new SplitMixRandom(3), pool, 4).evolve(input);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidNumStreams() {
+      new ParallelGenerationEvolver(1, r -> c -> () -> c.best().getNode(), r -> new HashMap<>(), new SplitMixRandom(3), ForkJoinPool.commonPool(), 0);
+   }
+}
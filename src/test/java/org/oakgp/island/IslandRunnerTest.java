@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.oakgp.TestUtils.integerConstant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.oakgp.evolve.GenerationEvolver;
+import org.oakgp.node.Node;
+import org.oakgp.rank.GenerationRanker;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+
+public class IslandRunnerTest {
+   private static final int TARGET = 100;
+   /** Ranks candidates by how close they are to {@link #TARGET}. */
+   private static final GenerationRanker RANKER = input -> new RankedCandidates(input.stream()
+         .map(n -> new RankedCandidate(n, Math.abs(TARGET - (Integer) n.evaluate(null)))).toArray(RankedCandidate[]::new));
+
+   @Test
+   public void testMigration() {
+      // island 0 moves closer to the target each generation but never terminates
+      GenerationEvolver increment = c -> Collections.singleton(integerConstant((Integer) c.best().getNode().evaluate(null) + 1));
+      Island island0 = new Island(RANKER, increment, c -> false, Collections.singleton(integerConstant(0)));
+      // island 1 never improves by itself - so can only find the target through migration
+      GenerationEvolver unchanged = c -> Collections.singleton(c.best().getNode());
+      Island island1 = new Island(RANKER, unchanged, c -> c.best().getFitness() == 0, Collections.singleton(integerConstant(-50)));
+
+      RankedCandidates output = IslandRunner.process(Arrays.asList(island0, island1), 1, 1, MigrationTopology.ring());
+
+      assertEquals(integerConstant(TARGET), output.best().getNode());
+   }
+
+   @Test
+   public void testMigrationInterval() {
+      int[] generations = new int[1];
+      GenerationEvolver counter = c -> {
+         generations[0]++;
+         return Collections.singleton(c.best().getNode());
+      };
+      Collection<Node> receivedMigrants = Collections.synchronizedList(new ArrayList<>());
+      GenerationRanker recordingRanker = input -> {
+         receivedMigrants.addAll(input);
+         return RANKER.rank(input);
+      };
+      Island source = new Island(RANKER, counter, c -> generations[0] == 9, Collections.singleton(integerConstant(TARGET)));
+      Island destination = new Island(recordingRanker, c -> Collections.emptySet(), c -> false, Collections.singleton(integerConstant(0)));
+
+      RankedCandidates output = IslandRunner.process(Arrays.asList(source, destination), 3, 1, MigrationTopology.ring());
+
+      assertEquals(integerConstant(TARGET), output.best().getNode());
+      // migrants sent on generations 3, 6 and 9 - although the destination may not have ranked the last migrant before the run finished
+      long migrantsReceived = receivedMigrants.stream().filter(integerConstant(TARGET)::equals).count();
+      assertTrue(migrantsReceived <= 3);
+   }
+
+   @Test
+   public void testFailure() {
+      IllegalStateException expected = new IllegalStateException();
+      Island failing = new Island(input -> {
+         throw expected;
+      }, c -> Collections.emptySet(), c -> false, Collections.singleton(integerConstant(0)));
+      Island running = new Island(RANKER, c -> Collections.singleton(c.best().getNode()), c -> false, Collections.singleton(integerConstant(0)));
+
+      try {
+         IslandRunner.process(Arrays.asList(running, failing), 1, 1, MigrationTopology.ring());
+         fail();
+      } catch (IllegalStateException e) {
+         assertSame(expected, e);
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testNoIslands() {
+      IslandRunner.process(Collections.emptyList(), 1, 1, MigrationTopology.ring());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidMigrationInterval() {
+      IslandRunner.process(Collections.singletonList(new Island(RANKER, c -> null, c -> true, Collections.emptySet())), 0, 1, MigrationTopology.ring());
+   }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+import org.oakgp.util.DummyRandom;
+import org.oakgp.util.DummyValuesMap;
+import org.oakgp.util.SplitMixRandom;
+
+public class MigrationTopologyTest {
+   @Test
+   public void testRing() {
+      MigrationTopology ring = MigrationTopology.ring();
+      assertArrayEquals(new int[] { 1 }, ring.getDestinations(0, 3));
+      assertArrayEquals(new int[] { 2 }, ring.getDestinations(1, 3));
+      assertArrayEquals(new int[] { 0 }, ring.getDestinations(2, 3));
+      assertArrayEquals(new int[0], ring.getDestinations(0, 1));
+   }
+
+   @Test
+   public void testFullyConnected() {
+      MigrationTopology fullyConnected = MigrationTopology.fullyConnected();
+      assertArrayEquals(new int[] { 1, 2, 3 }, fullyConnected.getDestinations(0, 4));
+      assertArrayEquals(new int[] { 0, 1, 3 }, fullyConnected.getDestinations(2, 4));
+      assertArrayEquals(new int[0], fullyConnected.getDestinations(0, 1));
+   }
+
+   @Test
+   public void testRandom() {
+      DummyRandom random = new DummyRandom(new DummyValuesMap<>(3, 0, 1, 2, 0));
+      MigrationTopology topology = MigrationTopology.random(random);
+      assertArrayEquals(new int[] { 0 }, topology.getDestinations(1, 4));
+      assertArrayEquals(new int[] { 2 }, topology.getDestinations(1, 4));
+      assertArrayEquals(new int[] { 3 }, topology.getDestinations(1, 4));
+      assertArrayEquals(new int[] { 1 }, topology.getDestinations(0, 4));
+      random.assertEmpty();
+      assertEquals(0, MigrationTopology.random(random).getDestinations(0, 1).length);
+   }
+
+   @Test
+   public void testRandomNeverReturnsSource() {
+      MigrationTopology topology = MigrationTopology.random(new SplitMixRandom(1));
+      for (int i = 0; i < 100; i++) {
+         assertNotEquals(i % 5, topology.getDestinations(i % 5, 5)[0]);
+      }
+   }
+}
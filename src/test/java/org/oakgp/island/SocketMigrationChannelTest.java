@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.island;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.oakgp.TestUtils.VARIABLE_SET;
+import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.readNode;
+import static org.oakgp.function.math.IntegerUtils.INTEGER_UTILS;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.oakgp.Type;
+import org.oakgp.function.Function;
+import org.oakgp.node.ConstantNode;
+import org.oakgp.node.Node;
+import org.oakgp.rank.GenerationRanker;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+
+public class SocketMigrationChannelTest {
+   private static final Function[] FUNCTIONS = { INTEGER_UTILS.getAdd(), INTEGER_UTILS.getMultiply() };
+   private static final long TIMEOUT_MILLIS = 10000;
+
+   @Test(timeout = TIMEOUT_MILLIS * 2)
+   public void testSendAndReceive() throws Exception {
+      try (SocketMigrationChannel receiver = createChannel(Collections.emptyList());
+            SocketMigrationChannel sender = createChannel(Collections.singletonList(receiver.getLocalAddress()))) {
+         List<Node> migrants = Arrays.asList(readNode("(+ v0 (* 7 v1))"), integerConstant(42), readNode("(* v2 v2)"));
+
+         sender.send(migrants);
+
+         assertEquals(migrants, receiveAtLeast(receiver, 3));
+         assertTrue(sender.receive().isEmpty());
+      }
+   }
+
+   @Test(timeout = TIMEOUT_MILLIS * 2)
+   public void testSendToMultiplePeers() throws Exception {
+      try (SocketMigrationChannel receiver1 = createChannel(Collections.emptyList());
+            SocketMigrationChannel receiver2 = createChannel(Collections.emptyList());
+            SocketMigrationChannel sender = createChannel(Arrays.asList(receiver1.getLocalAddress(), receiver2.getLocalAddress()))) {
+         sender.send(Collections.singletonList(integerConstant(1)));
+         sender.send(Collections.singletonList(integerConstant(2)));
+
+         List<Node> expected = Arrays.asList(integerConstant(1), integerConstant(2));
+         assertEquals(expected, receiveAtLeast(receiver1, 2));
+         assertEquals(expected, receiveAtLeast(receiver2, 2));
+      }
+   }
+
+   @Test(timeout = TIMEOUT_MILLIS * 2)
+   public void testLargeMigrant() throws Exception {
+      // large enough to be received over multiple reads and to require the receive buffer to grow
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 5000; i++) {
+         sb.append(i);
+      }
+      Node migrant = new ConstantNode(sb.toString(), Type.stringType());
+
+      try (SocketMigrationChannel receiver = createChannel(Collections.emptyList());
+            SocketMigrationChannel sender = createChannel(Collections.singletonList(receiver.getLocalAddress()))) {
+         sender.send(Collections.singletonList(migrant));
+         assertEquals(Collections.singletonList(migrant), receiveAtLeast(receiver, 1));
+      }
+   }
+
+   @Test(timeout = TIMEOUT_MILLIS * 2)
+   public void testUnavailablePeerDoesNotBlock() throws Exception {
+      InetSocketAddress unavailable = getUnusedAddress();
+      try (SocketMigrationChannel sender = createChannel(Collections.singletonList(unavailable))) {
+         List<Node> migrants = new ArrayList<>();
+         for (int i = 0; i < SocketMigrationChannel.MAX_PENDING_FRAMES * 2; i++) {
+            migrants.add(integerConstant(i));
+         }
+         long start = System.currentTimeMillis();
+         sender.send(migrants);
+         assertTrue(System.currentTimeMillis() - start < TIMEOUT_MILLIS);
+      }
+   }
+
+   @Test(timeout = TIMEOUT_MILLIS * 2)
+   public void testReceivedMigrantsBounded() throws Exception {
+      try (SocketMigrationChannel receiver = createChannel(Collections.emptyList());
+            SocketMigrationChannel sender = createChannel(Collections.singletonList(receiver.getLocalAddress()))) {
+         // send in batches smaller than the limit, waiting for each batch to be delivered, so the sender does not discard any migrants
+         int batchSize = SocketMigrationChannel.MAX_PENDING_FRAMES * 3 / 5;
+         int numBatches = 3;
+         for (int batch = 0; batch < numBatches; batch++) {
+            List<Node> migrants = new ArrayList<>();
+            for (int i = 0; i < batchSize; i++) {
+               migrants.add(integerConstant(batch * batchSize + i));
+            }
+            sender.send(migrants);
+            awaitReceivedCount(receiver, (batch + 1) * batchSize);
+         }
+
+         // only the most recently received migrants are kept
+         int numMigrants = batchSize * numBatches;
+         List<Node> received = receiver.receive();
+         assertEquals(SocketMigrationChannel.MAX_PENDING_FRAMES, received.size());
+         assertEquals(integerConstant(numMigrants - SocketMigrationChannel.MAX_PENDING_FRAMES), received.get(0));
+         assertEquals(integerConstant(numMigrants - 1), received.get(received.size() - 1));
+      }
+   }
+
+   @Test(timeout = TIMEOUT_MILLIS * 2)
+   public void testIslandsInSeparateChannels() throws Exception {
+      // island 0 moves closer to the target each generation - island 1 can only reach the target through migrants received from island 0
+      int target = 100;
+      GenerationRanker ranker = input -> new RankedCandidates(input.stream()
+            .map(n -> new RankedCandidate(n, Math.abs(target - (Integer) n.evaluate(null)))).toArray(RankedCandidate[]::new));
+      Island island0 = new Island(ranker, c -> Collections.singleton(integerConstant((Integer) c.best().getNode().evaluate(null) + 1)),
+            c -> c.best().getFitness() == 0, Collections.singleton(integerConstant(0)));
+      Island island1 = new Island(ranker, c -> Collections.singleton(c.best().getNode()), c -> c.best().getFitness() <= 10,
+            Collections.singleton(integerConstant(-50)));
+
+      try (SocketMigrationChannel channel1 = createChannel(Collections.emptyList());
+            SocketMigrationChannel channel0 = createChannel(Collections.singletonList(channel1.getLocalAddress()))) {
+         RankedCandidates output0 = IslandRunner.process(island0, 1, 1, channel0);
+         assertEquals(integerConstant(target), output0.best().getNode());
+
+         RankedCandidates output1 = IslandRunner.process(island1, 1, 1, channel1);
+         // island 1 will have received all, or most, of the migrants sent by island 0 by the time it ranks its first generation
+         assertTrue(output1.best().getFitness() <= 10);
+      }
+   }
+
+   private static List<Node> receiveAtLeast(SocketMigrationChannel channel, int expectedSize) throws InterruptedException {
+      List<Node> received = new ArrayList<>();
+      long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+      while (received.size() < expectedSize && System.currentTimeMillis() < deadline) {
+         received.addAll(channel.receive());
+         Thread.sleep(10);
+      }
+      return received;
+   }
+
+   private static void awaitReceivedCount(SocketMigrationChannel channel, long expectedCount) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+      while (channel.getReceivedCount() < expectedCount && System.currentTimeMillis() < deadline) {
+         Thread.sleep(10);
+      }
+      assertEquals(expectedCount, channel.getReceivedCount());
+   }
+
+   private static SocketMigrationChannel createChannel(List<InetSocketAddress> peers) throws IOException {
+      return new SocketMigrationChannel(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), peers, FUNCTIONS, new ConstantNode[0], VARIABLE_SET);
+   }
+
+   private static InetSocketAddress getUnusedAddress() throws IOException {
+      try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+         return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+      }
+   }
+}
@@ -22,14 +22,21 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 import static org.oakgp.TestUtils.createVariable;
 import static org.oakgp.TestUtils.integerConstant;
 import static org.oakgp.TestUtils.stringConstant;
+import static org.oakgp.Type.integerListType;
+import static org.oakgp.Type.integerToBooleanFunctionType;
 import static org.oakgp.Type.integerType;
 import static org.oakgp.Type.nullableType;
 import static org.oakgp.Type.stringType;
 
+import java.util.Arrays;
+
 import org.junit.Test;
+import org.oakgp.function.ImpureFunction;
 
 public class ConstantNodeTest {
    @Test
@@ -101,4 +108,19 @@ public class ConstantNodeTest {
       assertFalse(nullConstant.equals(nonNullConstant));
       assertFalse(nonNullConstant.equals(nullConstant));
    }
+
+   @Test
+   public void testVariableMaskAndPurity() {
+      assertEquals(0, integerConstant(7).getVariableMask());
+      assertTrue(integerConstant(7).isPure());
+
+      ConstantNode list = new ConstantNode(Arrays.asList(createVariable(2), integerConstant(1), createVariable(5)), integerListType());
+      assertEquals(0b100100L, list.getVariableMask());
+      assertTrue(list.isPure());
+
+      ImpureFunction impure = mock(ImpureFunction.class);
+      given(impure.isPure()).willReturn(false);
+      assertFalse(new ConstantNode(impure, integerToBooleanFunctionType()).isPure());
+      assertFalse(new ConstantNode(Arrays.asList(new FunctionNode(impure)), integerListType()).isPure());
+   }
 }
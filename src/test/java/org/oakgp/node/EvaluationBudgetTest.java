@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.oakgp.Assignments.createAssignments;
+import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.readNode;
+import static org.oakgp.Type.functionType;
+import static org.oakgp.Type.integerListType;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.function.math.IntegerUtils.INTEGER_UTILS;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.oakgp.Assignments;
+import org.oakgp.compile.ClosureCompiler;
+import org.oakgp.function.hof.Reduce;
+
+public class EvaluationBudgetTest {
+   private static final Node NODE = readNode("(+ v0 (* v1 v1))");
+   private static final Assignments ASSIGNMENTS = createAssignments(3, 2);
+
+   @Test
+   public void testWithinBudget() {
+      // each evaluation of NODE evaluates two function nodes
+      EvaluationBudget budget = new EvaluationBudget(6, EvaluationBudget.UNLIMITED);
+      assertEquals(21, budget.evaluate(() -> evaluateTimes(3)), 0);
+   }
+
+   @Test
+   public void testStepsExceeded() {
+      EvaluationBudget budget = new EvaluationBudget(5, EvaluationBudget.UNLIMITED);
+      assertFalse(assertExceeded(budget, () -> evaluateTimes(3), "Exceeded maximum number of steps").isElapsedTimeExceeded());
+   }
+
+   @Test
+   public void testTimeExceeded() {
+      EvaluationBudget budget = new EvaluationBudget(EvaluationBudget.UNLIMITED, 1);
+      assertTrue(assertExceeded(budget, () -> {
+         while (true) {
+            evaluateTimes(1);
+         }
+      }, "Exceeded maximum elapsed time").isElapsedTimeExceeded());
+   }
+
+   @Test
+   public void testNoBudgetOutsideEvaluate() {
+      new EvaluationBudget(1, 1).evaluate(() -> 0);
+      // budget no longer applies once evaluate has returned
+      assertEquals(7 * 1000, evaluateTimes(1000), 0);
+   }
+
+   @Test
+   public void testNestedBudgets() {
+      EvaluationBudget outer = new EvaluationBudget(4, EvaluationBudget.UNLIMITED);
+      EvaluationBudget inner = new EvaluationBudget(100, EvaluationBudget.UNLIMITED);
+      // steps taken by the inner budget do not count against the outer budget
+      assertEquals(7 * 22, outer.evaluate(() -> inner.evaluate(() -> evaluateTimes(20)) + evaluateTimes(2)), 0);
+      assertExceeded(outer, () -> inner.evaluate(() -> evaluateTimes(20)) + evaluateTimes(3), "Exceeded maximum number of steps");
+   }
+
+   @Test
+   public void testReduceOverLargeList() {
+      List<Node> list = new ArrayList<>();
+      for (int i = 0; i < 100000; i++) {
+         list.add(integerConstant(i));
+      }
+      // a single function node - but each element reduced counts as a step
+      Node reduce = new FunctionNode(new Reduce(integerType()), new ConstantNode(INTEGER_UTILS.getAdd(), functionType(integerType(), integerType(),
+            integerType())), integerConstant(0), new ConstantNode(list, integerListType()));
+      EvaluationBudget budget = new EvaluationBudget(1000, EvaluationBudget.UNLIMITED);
+
+      assertExceeded(budget, () -> (Integer) reduce.evaluate(null), "Exceeded maximum number of steps");
+      Node compiled = new ClosureCompiler().compile(reduce);
+      assertExceeded(budget, () -> (Integer) compiled.evaluate(null), "Exceeded maximum number of steps");
+   }
+
+   @Test
+   public void testCompiledStepsExceeded() {
+      Node compiled = new ClosureCompiler().compile(NODE);
+      // each evaluation of the compiled version of NODE also counts as two steps
+      assertEquals(7, new EvaluationBudget(2, EvaluationBudget.UNLIMITED).evaluate(() -> (Integer) compiled.evaluate(ASSIGNMENTS)), 0);
+      assertExceeded(new EvaluationBudget(1, EvaluationBudget.UNLIMITED), () -> (Integer) compiled.evaluate(ASSIGNMENTS), "Exceeded maximum number of steps");
+   }
+
+   @Test
+   public void testInvalidArguments() {
+      for (long invalid : new long[] { 0, -1, Long.MIN_VALUE }) {
+         assertInvalid(invalid, 1);
+         assertInvalid(1, invalid);
+      }
+   }
+
+   private static void assertInvalid(long maxSteps, long maxMillis) {
+      try {
+         new EvaluationBudget(maxSteps, maxMillis);
+         fail();
+      } catch (IllegalArgumentException e) {
+         // expected
+      }
+   }
+
+   private static EvaluationBudgetExceededException assertExceeded(EvaluationBudget budget, java.util.function.DoubleSupplier evaluation,
+         String expectedMessage) {
+      try {
+         budget.evaluate(evaluation);
+         throw new AssertionError();
+      } catch (EvaluationBudgetExceededException e) {
+         assertEquals(expectedMessage, e.getMessage());
+         return e;
+      }
+   }
+
+   private static double evaluateTimes(int times) {
+      int total = 0;
+      for (int i = 0; i < times; i++) {
+         total += (Integer) NODE.evaluate(ASSIGNMENTS);
+      }
+      return total;
+   }
+}
@@ -15,24 +15,42 @@
  */
 package org.oakgp.node;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.oakgp.Arguments.createArguments;
 import static org.oakgp.Assignments.createAssignments;
+import static org.oakgp.ColumnarAssignments.createColumnarAssignments;
 import static org.oakgp.TestUtils.createVariable;
+import static org.oakgp.TestUtils.doubleConstant;
 import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.longConstant;
+import static org.oakgp.TestUtils.readFunctionNode;
 import static org.oakgp.TestUtils.readNode;
+import static org.oakgp.Type.booleanType;
+import static org.oakgp.Type.integerListType;
 import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.stringType;
+import static org.oakgp.function.math.DoubleUtils.DOUBLE_UTILS;
 import static org.oakgp.function.math.IntegerUtils.INTEGER_UTILS;
+import static org.oakgp.function.math.LongUtils.LONG_UTILS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
 import org.oakgp.function.Function;
+import org.oakgp.function.ImpureFunction;
 import org.oakgp.function.Signature;
 
 public class FunctionNodeTest {
@@ -66,6 +84,190 @@ public class FunctionNodeTest {
       assertEquals(126, functionNode.evaluate(assignments));
    }
 
+   @Test
+   public void testEvaluatePrimitives() {
+      Assignments assignments = createAssignments(3, 7, 0);
+      assertEquals(126, readNode("(* 42 v0)").evaluateInt(assignments));
+      assertEquals(7, readNode("(if (< v0 v1) (+ v1 (* 2 v2)) (- v0 (/ v1 0)))").evaluateInt(assignments));
+      assertEquals(2, readNode("(if (zero? v1) (+ v1 (* 2 v2)) (- v0 (/ v1 0)))").evaluateInt(assignments));
+      assertTrue(readNode("(< v0 v1)").evaluateBoolean(assignments));
+      assertFalse(readNode("(>= v0 v1)").evaluateBoolean(assignments));
+      assertTrue(readNode("(zero? (* v0 v2))").evaluateBoolean(assignments));
+
+      FunctionNode longNode = new FunctionNode(LONG_UTILS.getAdd(), longConstant(Long.MAX_VALUE - 1), createVariable(0));
+      assertEquals(Long.MAX_VALUE, longNode.evaluateLong(createAssignments(1L)));
+      assertEquals(Long.MAX_VALUE, (long) longNode.evaluate(createAssignments(1L)));
+
+      FunctionNode doubleNode = new FunctionNode(DOUBLE_UTILS.getDivide(), createVariable(0), doubleConstant(4));
+      assertEquals(.25d, doubleNode.evaluateDouble(createAssignments(1d)), 0d);
+      assertEquals(.25d, (double) doubleNode.evaluate(createAssignments(1d)), 0d);
+   }
+
+   @Test
+   public void testEvaluatePrimitivesBoxedFallback() {
+      // functions that do not override the primitive evaluation methods have their result unboxed
+      Assignments assignments = createAssignments(3);
+      assertEquals(2, readNode("(count [v0 v0])").evaluateInt(assignments));
+      assertEquals(5, readNode("(+ v0 (count [v0 v0]))").evaluateInt(assignments));
+   }
+
+   @Test
+   public void testEvaluateBatch() {
+      List<Assignments> rows = new ArrayList<>();
+      for (int i = -3; i < 4; i++) {
+         rows.add(createAssignments(i, i * i - 4, 7 - i));
+      }
+      ColumnarAssignments assignments = createColumnarAssignments(rows);
+
+      assertEvaluateBatch("(* 42 v0)", assignments);
+      assertEvaluateBatch("(+ v0 (- v1 (* v2 v0)))", assignments);
+      assertEvaluateBatch("(/ v1 0)", assignments);
+      assertEvaluateBatch("(< v0 v1)", assignments);
+      assertEvaluateBatch("(neg? (- v0 v1))", assignments);
+      assertEvaluateBatch("(if (zero? v0) (+ v1 2) v2)", assignments);
+      assertEvaluateBatch("(if (< v0 9) (+ v1 2) v2)", assignments);
+      assertEvaluateBatch("(if (> v0 9) (+ v1 2) v2)", assignments);
+      // only evaluates each branch against the rows it applies to - so avoids dividing by zero
+      assertEvaluateBatch("(if (zero? v0) 0 (/ v1 v0))", assignments);
+      assertEvaluateBatch("(+ (count [v0 v1]) (if (= v1 v2) (/ v2 (- v2 v1)) v0))", assignments);
+
+      FunctionNode doubleNode = new FunctionNode(DOUBLE_UTILS.getDivide(), new FunctionNode(DOUBLE_UTILS.getAdd(), createVariable(0), doubleConstant(4)),
+            createVariable(1));
+      List<Assignments> doubleRows = Arrays.asList(createAssignments(1d, 2d), createAssignments(-4d, .5d), createAssignments(3d, 0d));
+      ColumnarAssignments doubleAssignments = createColumnarAssignments(doubleRows);
+      assertEquals(Arrays.asList(2.5d, 0d, Double.POSITIVE_INFINITY), Arrays.asList(doubleNode.evaluateBatch(doubleAssignments)));
+      assertArrayEquals(new double[] { 2.5d, 0d, Double.POSITIVE_INFINITY }, doubleNode.evaluateDoubleBatch(doubleAssignments), 0d);
+   }
+
+   @Test
+   public void testEvaluateBatchCachesPureSubtrees() {
+      List<Assignments> rows = Arrays.asList(createAssignments(1, 2), createAssignments(3, 4));
+      ColumnarAssignments assignments = createColumnarAssignments(rows, 10);
+
+      Node subtree = readNode("(* v0 v1)");
+      Node node = new FunctionNode(INTEGER_UTILS.getAdd(), subtree, integerConstant(1));
+      assertArrayEquals(new Object[] { 3, 13 }, node.evaluateBatch(assignments));
+      assertArrayEquals(new int[] { 2, 12 }, assignments.getCachedResults(subtree, int[].class));
+
+      // a structurally equal subtree reuses the cached results
+      Node equalSubtree = readNode("(* v0 v1)");
+      assertNotSame(subtree, equalSubtree);
+      assertSame(assignments.getCachedResults(subtree, int[].class), equalSubtree.evaluateIntBatch(assignments));
+
+      // results are not cached when the ColumnarAssignments was created without a cache
+      ColumnarAssignments uncached = createColumnarAssignments(rows);
+      assertArrayEquals(new Object[] { 3, 13 }, node.evaluateBatch(uncached));
+      assertNull(uncached.getCachedResults(subtree, int[].class));
+      assertNotSame(subtree.evaluateIntBatch(uncached), subtree.evaluateIntBatch(uncached));
+   }
+
+   @Test
+   public void testEvaluateBatchCachesEachTypeOfResultsSeparately() {
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(createAssignments(1, 2), createAssignments(3, 4)), 10);
+      Node node = readNode("(* v0 v1)");
+
+      int[] intResults = node.evaluateIntBatch(assignments);
+      Object[] objectResults = node.evaluateBatch(assignments);
+      // evaluating the node as a root does not replace the results of evaluating it as an arithmetic argument, or vice versa
+      assertSame(intResults, node.evaluateIntBatch(assignments));
+      assertSame(objectResults, node.evaluateBatch(assignments));
+      assertSame(intResults, assignments.getCachedResults(node, int[].class));
+      assertSame(objectResults, assignments.getCachedResults(node, Object[].class));
+   }
+
+   @Test
+   public void testEvaluateBatchDoesNotCacheImpureSubtrees() {
+      int[] counter = new int[1];
+      Function impure = new ImpureFunction() {
+         @Override
+         public Object evaluate(Arguments arguments, Assignments assignments) {
+            return ++counter[0];
+         }
+
+         @Override
+         public Signature getSignature() {
+            return Signature.createSignature(integerType());
+         }
+      };
+      FunctionNode impureNode = new FunctionNode(impure);
+      FunctionNode node = new FunctionNode(INTEGER_UTILS.getAdd(), impureNode, integerConstant(1));
+      assertFalse(impureNode.isPure());
+      assertFalse(node.isPure());
+
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(createAssignments(), createAssignments()), 10);
+      assertArrayEquals(new int[] { 2, 3 }, node.evaluateIntBatch(assignments));
+      assertArrayEquals(new int[] { 4, 5 }, node.evaluateIntBatch(assignments));
+      assertNull(assignments.getCachedResults(node, int[].class));
+      assertNull(assignments.getCachedResults(impureNode, int[].class));
+   }
+
+   @Test
+   public void testEvaluateBatchEvaluatesConstantSubtreesOnce() {
+      int[] counter = new int[1];
+      Function pure = new Function() {
+         @Override
+         public Object evaluate(Arguments arguments, Assignments assignments) {
+            counter[0]++;
+            return 7;
+         }
+
+         @Override
+         public Signature getSignature() {
+            return Signature.createSignature(integerType());
+         }
+      };
+      FunctionNode constantSubtree = new FunctionNode(pure);
+      FunctionNode node = new FunctionNode(INTEGER_UTILS.getAdd(), constantSubtree, createVariable(0));
+      assertEquals(0, constantSubtree.getVariableMask());
+
+      ColumnarAssignments assignments = createColumnarAssignments(Arrays.asList(createAssignments(1), createAssignments(2), createAssignments(3)));
+      assertArrayEquals(new int[] { 8, 9, 10 }, node.evaluateIntBatch(assignments));
+      assertEquals(1, counter[0]);
+      assertArrayEquals(new Object[] { 7, 7, 7 }, constantSubtree.evaluateBatch(assignments));
+      assertEquals(2, counter[0]);
+   }
+
+   @Test
+   public void testGetVariableMask() {
+      assertEquals(0L, readNode("(+ 1 (* 2 3))").getVariableMask());
+      assertEquals(0b101L, readNode("(+ v0 (* 2 v2))").getVariableMask());
+      // variables contained in collection constants are included
+      assertEquals(0b1011L, readNode("(if (< v1 v3) (count [v0 v1]) v1)").getVariableMask());
+      assertEquals(0b1000L, readNode("(if (< 1 v3) (count [0 1]) 1)").getVariableMask());
+      // IDs are folded modulo 64
+      assertEquals(0b11L, new FunctionNode(INTEGER_UTILS.getAdd(), createVariable(64), createVariable(1)).getVariableMask());
+   }
+
+   @Test
+   public void testGetNodeCountByType() {
+      FunctionNode n = readFunctionNode("(if (< v0 (+ v1 7)) (count [v0 v1]) 3)");
+      assertEquals(9, n.getNodeCount());
+      assertEquals(7, n.getNodeCount(integerType()));
+      assertEquals(1, n.getNodeCount(booleanType()));
+      assertEquals(1, n.getNodeCount(integerListType()));
+      assertEquals(0, n.getNodeCount(stringType()));
+      assertEquals(4, n.getHeight());
+   }
+
+   @Test
+   public void testIsPure() {
+      assertTrue(readFunctionNode("(+ v0 (* 2 v1))").isPure());
+      assertTrue(readFunctionNode("(if (< v0 v1) (count [v0 v1]) v1)").isPure());
+      assertFalse(new FunctionNode(mock(Function.class)).isPure());
+      assertTrue(integerConstant(1).isPure());
+      assertTrue(createVariable(1).isPure());
+      assertFalse(new FunctionNode(INTEGER_UTILS.getAdd(), createVariable(0), new FunctionNode(mock(Function.class))).isPure());
+   }
+
+   private void assertEvaluateBatch(String input, ColumnarAssignments assignments) {
+      Node node = readNode(input);
+      Object[] expected = new Object[assignments.getRowCount()];
+      for (int i = 0; i < expected.length; i++) {
+         expected[i] = node.evaluate(assignments.getRow(i));
+      }
+      assertArrayEquals(expected, node.evaluateBatch(assignments));
+   }
+
    @Test
    public void testCountAndHeight() {
       assertCountAndHeight("(* 7 7)", 3, 2);
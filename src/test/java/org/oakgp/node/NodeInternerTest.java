@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.node;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.oakgp.TestUtils.createVariable;
+import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.readFunctionNode;
+import static org.oakgp.TestUtils.readNode;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.longType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.oakgp.function.math.IntegerUtils;
+
+public class NodeInternerTest {
+   @Test
+   public void testCreateConstantNode() {
+      NodeInterner interner = new NodeInterner();
+      ConstantNode n = interner.createConstantNode(7, integerType());
+      assertEquals(integerConstant(7), n);
+      assertSame(n, interner.createConstantNode(7, integerType()));
+      assertNotSame(n, interner.createConstantNode(8, integerType()));
+      assertNotSame(n, interner.createConstantNode(7L, longType()));
+      assertSame(n, interner.intern(integerConstant(7)));
+   }
+
+   @Test
+   public void testCreateFunctionNode() {
+      NodeInterner interner = new NodeInterner();
+      FunctionNode n = interner.createFunctionNode(IntegerUtils.INTEGER_UTILS.getAdd(), integerConstant(1), createVariable(0));
+      assertEquals(readNode("(+ 1 v0)"), n);
+      assertSame(n, interner.createFunctionNode(IntegerUtils.INTEGER_UTILS.getAdd(), integerConstant(1), createVariable(0)));
+      assertSame(n, interner.intern(readNode("(+ 1 v0)")));
+      assertSame(n.getArguments().getArg(0), interner.createConstantNode(1, integerType()));
+   }
+
+   @Test
+   public void testInternSharesSubtrees() {
+      NodeInterner interner = new NodeInterner();
+      FunctionNode a = interner.intern(readFunctionNode("(* (+ 1 v0) (+ 1 v0))"));
+      FunctionNode b = interner.intern(readFunctionNode("(- 7 (+ 1 v0))"));
+      assertSame(a.getArguments().getArg(0), a.getArguments().getArg(1));
+      assertSame(a.getArguments().getArg(0), b.getArguments().getArg(1));
+      assertSame(a, interner.intern(readFunctionNode("(* (+ 1 v0) (+ 1 v0))")));
+      // 1, (+ 1 v0), (* (+ 1 v0) (+ 1 v0)), 7, (- 7 (+ 1 v0))
+      assertEquals(5, interner.size());
+   }
+
+   @Test
+   public void testInternReturnsCanonicalInputUnaltered() {
+      NodeInterner interner = new NodeInterner();
+      FunctionNode input = readFunctionNode("(+ v1 v0)");
+      assertSame(input, interner.intern(input));
+      assertSame(input, interner.intern(readFunctionNode("(+ v1 v0)")));
+   }
+
+   @Test
+   public void testInternVariable() {
+      NodeInterner interner = new NodeInterner();
+      VariableNode v = createVariable(3);
+      assertSame(v, interner.intern(v));
+      assertEquals(0, interner.size());
+   }
+
+   @Test
+   public void testConcurrentIntern() throws Exception {
+      NodeInterner interner = new NodeInterner();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Callable<Node>> tasks = new ArrayList<>();
+         for (int i = 0; i < 16; i++) {
+            tasks.add(() -> interner.intern(readNode("(if (< v0 v1) (+ 1 (* v0 9)) (- v1 (* v0 9)))")));
+         }
+         List<Future<Node>> results = executor.invokeAll(tasks);
+         Node expected = results.get(0).get();
+         for (Future<Node> f : results) {
+            assertSame(expected, f.get());
+         }
+      } finally {
+         executor.shutdown();
+      }
+   }
+}
@@ -24,11 +24,15 @@ import static org.oakgp.TestUtils.integerConstant;
 import static org.oakgp.TestUtils.mockNode;
 import static org.oakgp.TestUtils.readNode;
 import static org.oakgp.function.math.IntegerUtils.INTEGER_UTILS;
+import static org.oakgp.Type.booleanType;
+import static org.oakgp.Type.integerType;
+import static org.oakgp.Type.stringType;
 import static org.oakgp.util.Utils.TRUE_NODE;
 
 import java.util.function.Predicate;
 
 import org.junit.Test;
+import org.oakgp.Type;
 import org.oakgp.function.Function;
 import org.oakgp.node.ConstantNode;
 import org.oakgp.node.FunctionNode;
@@ -143,4 +147,20 @@ public class StrategyWalkTest {
       assertSame(r, StrategyWalk.replaceAt(terminalNode, 0, n -> r, n -> true));
       assertSame(r, StrategyWalk.replaceAt(terminalNode, 0, n -> r, n -> false));
    }
+
+   @Test
+   public void testTypeAndHeight() {
+      Node tree = readNode("(if (< v0 (+ v1 7)) (+ (* v0 v1) (count [v0 v1])) (- 3 v0))");
+      for (Type type : new Type[] { integerType(), booleanType(), stringType() }) {
+         for (int maxHeight = 0; maxHeight <= tree.getHeight() + 1; maxHeight++) {
+            final int h = maxHeight;
+            Predicate<Node> treeWalkerStrategy = n -> n.getType() == type && n.getHeight() <= h;
+            int expectedNodeCount = StrategyWalk.getNodeCount(tree, treeWalkerStrategy);
+            assertEquals(expectedNodeCount, StrategyWalk.getNodeCount(tree, type, maxHeight));
+            for (int i = 0; i < expectedNodeCount; i++) {
+               assertSame(StrategyWalk.getAt(tree, i, treeWalkerStrategy), StrategyWalk.getAt(tree, i, type, maxHeight));
+            }
+         }
+      }
+   }
 }
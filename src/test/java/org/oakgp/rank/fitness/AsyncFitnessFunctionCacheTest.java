@@ -0,0 +1,117 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.oakgp.TestUtils.integerConstant;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+
+public class AsyncFitnessFunctionCacheTest {
+   @Test
+   public void testConcurrentRequestsShareEvaluation() throws Exception {
+      AtomicInteger evaluateCtr = new AtomicInteger();
+      CompletableFuture<Double> evaluation = new CompletableFuture<>();
+      AsyncFitnessFunctionCache cache = new AsyncFitnessFunctionCache(3, n -> {
+         evaluateCtr.incrementAndGet();
+         return evaluation;
+      });
+      Node n = integerConstant(1);
+
+      CompletableFuture<Double> first = cache.evaluate(n);
+      CompletableFuture<Double> second = cache.evaluate(integerConstant(1));
+      assertSame(first, second);
+      assertFalse(first.isDone());
+      assertEquals(1, evaluateCtr.get());
+
+      evaluation.complete(7d);
+      assertEquals(7d, first.get(), 0);
+
+      // once complete the result is cached
+      CompletableFuture<Double> third = cache.evaluate(n);
+      assertTrue(third.isDone());
+      assertEquals(7d, third.get(), 0);
+      assertEquals(1, evaluateCtr.get());
+   }
+
+   @Test
+   public void testDistinctNodes() throws Exception {
+      AtomicInteger evaluateCtr = new AtomicInteger();
+      AsyncFitnessFunctionCache cache = new AsyncFitnessFunctionCache(3, n -> {
+         evaluateCtr.incrementAndGet();
+         return CompletableFuture.completedFuture((double) (Integer) n.evaluate(null));
+      });
+
+      assertEquals(1d, cache.evaluate(integerConstant(1)).get(), 0);
+      assertEquals(2d, cache.evaluate(integerConstant(2)).get(), 0);
+      assertEquals(1d, cache.evaluate(integerConstant(1)).get(), 0);
+      assertEquals(2, evaluateCtr.get());
+   }
+
+   @Test
+   public void testFailureNotCached() throws Exception {
+      AtomicInteger evaluateCtr = new AtomicInteger();
+      IllegalStateException expected = new IllegalStateException();
+      AsyncFitnessFunctionCache cache = new AsyncFitnessFunctionCache(3, n -> {
+         if (evaluateCtr.incrementAndGet() == 1) {
+            throw expected;
+         }
+         return CompletableFuture.completedFuture(9d);
+      });
+      Node n = integerConstant(1);
+
+      try {
+         cache.evaluate(n).get();
+      } catch (ExecutionException e) {
+         assertSame(expected, e.getCause());
+      }
+      assertEquals(9d, cache.evaluate(n).get(), 0);
+      assertEquals(2, evaluateCtr.get());
+   }
+
+   @Test
+   public void testCompiledOnlyWhenEvaluated() throws Exception {
+      AtomicInteger compileCtr = new AtomicInteger();
+      CompletableFuture<Double> evaluation = new CompletableFuture<>();
+      AsyncFitnessFunctionCache cache = new AsyncFitnessFunctionCache(3, n -> {
+         // the wrapped function is given the compiled candidate
+         assertEquals(integerConstant(2), n);
+         return evaluation;
+      }, n -> {
+         compileCtr.incrementAndGet();
+         return integerConstant((Integer) n.evaluate(null) * 2);
+      });
+      Node n = integerConstant(1);
+
+      CompletableFuture<Double> first = cache.evaluate(n);
+      // a request for a candidate already being evaluated is not compiled
+      assertSame(first, cache.evaluate(integerConstant(1)));
+      assertEquals(1, compileCtr.get());
+
+      evaluation.complete(5d);
+      // results are cached against the original candidate - so a cached candidate is not compiled
+      assertEquals(5d, cache.evaluate(n).get(), 0);
+      assertEquals(1, compileCtr.get());
+   }
+}
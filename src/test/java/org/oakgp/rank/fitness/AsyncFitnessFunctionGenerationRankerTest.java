@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.oakgp.TestUtils.integerConstant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+
+public class AsyncFitnessFunctionGenerationRankerTest {
+   @Test
+   public void testRank() {
+      List<Node> input = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+         input.add(integerConstant(i));
+      }
+      AtomicInteger inProgress = new AtomicInteger();
+      AtomicInteger maxObserved = new AtomicInteger();
+      ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+      try {
+         // evaluations complete, on a single thread, after a delay that varies between candidates
+         AsyncFitnessFunction fitnessFunction = n -> {
+            int current = inProgress.incrementAndGet();
+            maxObserved.accumulateAndGet(current, Math::max);
+            int value = (Integer) n.evaluate(null);
+            CompletableFuture<Double> f = new CompletableFuture<>();
+            executor.schedule(() -> {
+               inProgress.decrementAndGet();
+               f.complete((double) (value % 7));
+            }, value % 3, TimeUnit.MILLISECONDS);
+            return f;
+         };
+
+         RankedCandidates output = new AsyncFitnessFunctionGenerationRanker(fitnessFunction, 10).rank(input);
+
+         assertEquals(50, output.size());
+         for (int i = 0; i < output.size(); i++) {
+            RankedCandidate c = output.get(i);
+            assertEquals((Integer) c.getNode().evaluate(null) % 7, c.getFitness(), 0);
+            if (i > 0) {
+               assertTrue(output.get(i - 1).getFitness() <= c.getFitness());
+            }
+         }
+         assertTrue(maxObserved.get() <= 10);
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   @Test(timeout = 10000)
+   public void testNullFitness() {
+      AsyncFitnessFunction fitnessFunction = n -> CompletableFuture.completedFuture((Integer) n.evaluate(null) == 2 ? null : 1d);
+      try {
+         new AsyncFitnessFunctionGenerationRanker(fitnessFunction, 2).rank(Arrays.asList(integerConstant(1), integerConstant(2), integerConstant(3)));
+         fail();
+      } catch (CompletionException e) {
+         assertTrue(e.getCause() instanceof NullPointerException);
+      }
+   }
+
+   @Test
+   public void testFailure() {
+      IllegalStateException expected = new IllegalStateException();
+      AsyncFitnessFunction fitnessFunction = n -> {
+         CompletableFuture<Double> f = new CompletableFuture<>();
+         if ((Integer) n.evaluate(null) == 2) {
+            f.completeExceptionally(expected);
+         } else {
+            f.complete(0d);
+         }
+         return f;
+      };
+
+      try {
+         new AsyncFitnessFunctionGenerationRanker(fitnessFunction, 2).rank(Arrays.asList(integerConstant(1), integerConstant(2), integerConstant(3)));
+         fail();
+      } catch (CompletionException e) {
+         assertSame(expected, e.getCause());
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidMaxInProgress() {
+      new AsyncFitnessFunctionGenerationRanker(n -> CompletableFuture.completedFuture(0d), 0);
+   }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.fitness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.oakgp.Assignments.createAssignments;
+import static org.oakgp.TestUtils.readNode;
+
+import org.junit.Test;
+import org.oakgp.Assignments;
+import org.oakgp.node.EvaluationBudget;
+import org.oakgp.node.Node;
+
+public class BudgetedFitnessFunctionTest {
+   @Test
+   public void test() {
+      Assignments assignments = createAssignments(5);
+      // evaluates the candidate a number of times determined by the candidate itself
+      FitnessFunction fitnessFunction = n -> {
+         int result = 0;
+         int repetitions = (Integer) n.evaluate(assignments);
+         for (int i = 0; i < repetitions; i++) {
+            result += (Integer) n.evaluate(assignments);
+         }
+         return result;
+      };
+      BudgetedFitnessFunction budgeted = new BudgetedFitnessFunction(fitnessFunction, new EvaluationBudget(10, EvaluationBudget.UNLIMITED), 1000);
+
+      Node cheap = readNode("(+ v0 1)");
+      Node expensive = readNode("(* v0 v0)");
+      // cheap: 1 evaluation to determine repetitions (6) + 6 evaluations = 7 steps
+      assertEquals(36, budgeted.evaluate(cheap), 0);
+      // expensive: 1 evaluation to determine repetitions (25) + 25 evaluations = 26 steps
+      assertEquals(625, fitnessFunction.evaluate(expensive), 0);
+      assertEquals(1000, budgeted.evaluate(expensive), 0);
+   }
+
+   @Test
+   public void testBounded() {
+      Assignments assignments = createAssignments(5);
+      // evaluates the candidate a number of times determined by the candidate itself - stopping early once the total exceeds the cutoff
+      BoundedFitnessFunction fitnessFunction = (n, cutoff) -> {
+         int result = 0;
+         int repetitions = (Integer) n.evaluate(assignments);
+         for (int i = 0; i < repetitions; i++) {
+            result += (Integer) n.evaluate(assignments);
+            if (result > cutoff) {
+               return BoundedFitness.lowerBound(result);
+            }
+         }
+         return BoundedFitness.exact(result);
+      };
+      BudgetedFitnessFunction budgeted = new BudgetedFitnessFunction(fitnessFunction, new EvaluationBudget(10, EvaluationBudget.UNLIMITED), 1000);
+
+      Node cheap = readNode("(+ v0 1)");
+      Node expensive = readNode("(* v0 v0)");
+      // cheap: 1 evaluation to determine repetitions (6) + 6 evaluations = 7 steps
+      assertBoundedFitness(36, false, budgeted.evaluate(cheap, Double.POSITIVE_INFINITY));
+      // the cutoff is forwarded - cheap: 1 evaluation to determine repetitions (6) + 3 evaluations to exceed the cutoff = 4 steps
+      assertBoundedFitness(18, true, budgeted.evaluate(cheap, 15));
+      // expensive: 1 evaluation to determine repetitions (25) + 25 evaluations = 26 steps
+      assertBoundedFitness(1000, false, budgeted.evaluate(expensive, Double.POSITIVE_INFINITY));
+      // expensive: 1 evaluation to determine repetitions (25) + 2 evaluations to exceed the cutoff = 3 steps
+      assertBoundedFitness(50, true, budgeted.evaluate(expensive, 30));
+   }
+
+   @Test
+   public void testPenaltyForElapsedTimeIsProvisional() {
+      Assignments assignments = createAssignments(5);
+      Node n = readNode("(+ v0 1)");
+      // never completes - so always exceeds the budget
+      FitnessFunction fitnessFunction = c -> {
+         while (true) {
+            c.evaluate(assignments);
+         }
+      };
+
+      BoundedFitness stepsExceeded = new BudgetedFitnessFunction(fitnessFunction, new EvaluationBudget(10, EvaluationBudget.UNLIMITED), 1000).evaluate(n,
+            Double.POSITIVE_INFINITY);
+      assertEquals(1000, stepsExceeded.getFitness(), 0);
+      assertFalse(stepsExceeded.isProvisional());
+
+      BoundedFitness timeExceeded = new BudgetedFitnessFunction(fitnessFunction, new EvaluationBudget(EvaluationBudget.UNLIMITED, 1), 1000).evaluate(n,
+            Double.POSITIVE_INFINITY);
+      assertEquals(1000, timeExceeded.getFitness(), 0);
+      assertTrue(timeExceeded.isProvisional());
+   }
+
+   private static void assertBoundedFitness(double expectedFitness, boolean expectedLowerBound, BoundedFitness actual) {
+      assertEquals(expectedFitness, actual.getFitness(), 0);
+      assertEquals(expectedLowerBound, actual.isLowerBound());
+   }
+}
@@ -16,11 +16,16 @@
 package org.oakgp.rank.fitness;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.readNode;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
+import org.oakgp.compile.ClosureCompiler;
+import org.oakgp.compile.CompiledNode;
 import org.oakgp.node.Node;
 
 public class FitnessFunctionCacheTest {
@@ -55,4 +60,100 @@ public class FitnessFunctionCacheTest {
       assertEquals(fitness2, cache.evaluate(n2), 0);
       assertEquals(2, evaluateCtr.get());
    }
+
+   @Test
+   public void testBoundedFitnessFunction() {
+      final Node n = integerConstant(1);
+      final AtomicInteger evaluateCtr = new AtomicInteger(0);
+      final BoundedFitnessFunction mockFitnessFunction = (node, cutoff) -> {
+         evaluateCtr.incrementAndGet();
+         return cutoff + 1 < 50 ? BoundedFitness.lowerBound(cutoff + 1) : BoundedFitness.exact(50);
+      };
+      final FitnessFunctionCache cache = new FitnessFunctionCache(3, mockFitnessFunction);
+
+      // lower bound is reused while it still exceeds the cutoff
+      assertEquals(11, cache.evaluate(n, 10).getFitness(), 0);
+      assertTrue(cache.evaluate(n, 10).isLowerBound());
+      assertEquals(1, evaluateCtr.get());
+      assertEquals(11, cache.evaluate(n, 5).getFitness(), 0);
+      assertEquals(1, evaluateCtr.get());
+
+      // lower bound is not reused when a higher cutoff is specified
+      assertEquals(21, cache.evaluate(n, 20).getFitness(), 0);
+      assertEquals(2, evaluateCtr.get());
+
+      // lower bound is not reused when the actual fitness is required
+      assertEquals(50, cache.evaluate(n), 0);
+      assertEquals(3, evaluateCtr.get());
+
+      // actual fitness is reused regardless of cutoff
+      assertEquals(50, cache.evaluate(n, 100).getFitness(), 0);
+      assertEquals(50, cache.evaluate(n, 10).getFitness(), 0);
+      assertFalse(cache.evaluate(n, 10).isLowerBound());
+      assertEquals(50, cache.evaluate(n), 0);
+      assertEquals(3, evaluateCtr.get());
+   }
+
+   @Test
+   public void testCompiledOnlyWhenNotCached() {
+      final Node n = readNode("(+ 3 4)");
+      final AtomicInteger compileCtr = new AtomicInteger(0);
+      final FitnessFunctionCache cache = new FitnessFunctionCache(3, node -> {
+         assertTrue(node instanceof CompiledNode);
+         return (Integer) node.evaluate(null);
+      }, node -> {
+         compileCtr.incrementAndGet();
+         return new ClosureCompiler().compile(node);
+      });
+
+      assertEquals(7, cache.evaluate(n), 0);
+      assertEquals(1, compileCtr.get());
+      assertEquals(7, cache.evaluate(n), 0);
+      assertEquals(7, cache.evaluate(readNode("(+ 3 4)")), 0);
+      assertEquals(1, compileCtr.get());
+   }
+
+   @Test
+   public void testUnboundedFitnessFunctionIgnoresCutoff() {
+      final Node n = integerConstant(1);
+      final FitnessFunctionCache cache = new FitnessFunctionCache(3, node -> 42);
+      assertEquals(42, cache.evaluate(n, 10).getFitness(), 0);
+      assertFalse(cache.evaluate(n, 10).isLowerBound());
+   }
+
+   @Test
+   public void testExactFitnessAboveCutoffNotReevaluated() {
+      final Node n = integerConstant(1);
+      final AtomicInteger evaluateCtr = new AtomicInteger(0);
+      // a fully evaluated candidate whose fitness is worse than the cutoff
+      final BoundedFitnessFunction mockFitnessFunction = (node, cutoff) -> {
+         evaluateCtr.incrementAndGet();
+         return BoundedFitness.exact(30);
+      };
+      final FitnessFunctionCache cache = new FitnessFunctionCache(3, mockFitnessFunction);
+
+      assertFalse(cache.evaluate(n, 10).isLowerBound());
+      assertEquals(30, cache.evaluate(n, 40).getFitness(), 0);
+      assertEquals(30, cache.evaluate(n), 0);
+      assertEquals(1, evaluateCtr.get());
+   }
+
+   @Test
+   public void testProvisionalFitnessNotCached() {
+      final Node n = integerConstant(1);
+      final AtomicInteger evaluateCtr = new AtomicInteger(0);
+      // e.g. the penalty assigned to a candidate whose evaluation exceeded a time limit
+      final BoundedFitnessFunction mockFitnessFunction = (node, cutoff) -> {
+         evaluateCtr.incrementAndGet();
+         return BoundedFitness.provisional(1000);
+      };
+      final FitnessFunctionCache cache = new FitnessFunctionCache(3, mockFitnessFunction);
+
+      assertTrue(cache.evaluate(n, 10).isProvisional());
+      assertEquals(1, evaluateCtr.get());
+      assertEquals(1000, cache.evaluate(n, 10).getFitness(), 0);
+      assertEquals(2, evaluateCtr.get());
+      assertEquals(1000, cache.evaluate(n), 0);
+      assertEquals(3, evaluateCtr.get());
+   }
 }
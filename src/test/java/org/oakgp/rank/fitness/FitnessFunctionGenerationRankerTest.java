@@ -15,15 +15,31 @@
  */
 package org.oakgp.rank.fitness;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
+import static org.oakgp.Assignments.createAssignments;
 import static org.oakgp.TestUtils.assertRankedCandidate;
+import static org.oakgp.TestUtils.createVariable;
 import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.readNode;
+import static org.oakgp.function.math.IntegerUtils.INTEGER_UTILS;
+import static org.oakgp.rank.fitness.TestDataFitnessFunction.createIntegerTestDataFitnessFunction;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
+import org.oakgp.Assignments;
+import org.oakgp.compile.ClosureCompiler;
+import org.oakgp.node.FunctionNode;
 import org.oakgp.node.Node;
 import org.oakgp.rank.GenerationRanker;
 import org.oakgp.rank.RankedCandidates;
@@ -55,4 +71,134 @@ public class FitnessFunctionGenerationRankerTest {
       assertRankedCandidate(output.get(1), a, aFitness);
       assertRankedCandidate(output.get(2), b, bFitness);
    }
+
+   @Test
+   public void testCompiler() {
+      // test data
+      Node a = readNode("(+ v0 1)");
+      Node b = readNode("(* v0 v0)");
+      Map<Assignments, Integer> tests = new HashMap<>();
+      tests.put(createAssignments(3), 9);
+      FitnessFunction fitnessFunction = createIntegerTestDataFitnessFunction(tests);
+
+      // invoke rank method
+      GenerationRanker generationRanker = new FitnessFunctionGenerationRanker(fitnessFunction, new ClosureCompiler());
+      RankedCandidates output = generationRanker.rank(Arrays.asList(a, b));
+
+      // assert output refers to the original, rather than compiled, nodes
+      assertRankedCandidate(output.get(0), b, 0);
+      assertRankedCandidate(output.get(1), a, 5);
+      assertSame(b, output.get(0).getNode());
+      assertSame(a, output.get(1).getNode());
+   }
+
+   @Test
+   public void testCutoff() {
+      // test data
+      Node a = integerConstant(1);
+      Node b = integerConstant(2);
+      Node c = integerConstant(3);
+      Node d = integerConstant(4);
+      Map<Node, Double> fitness = new HashMap<>();
+      fitness.put(a, 4d);
+      fitness.put(b, 7d);
+      fitness.put(c, 3d);
+      fitness.put(d, 9d);
+      List<Double> cutoffs = new ArrayList<>();
+      BoundedFitnessFunction fitnessFunction = (n, cutoff) -> {
+         cutoffs.add(cutoff);
+         return fitness.get(n) > cutoff ? BoundedFitness.lowerBound(cutoff + .5) : BoundedFitness.exact(fitness.get(n));
+      };
+
+      // the first generation is fully evaluated
+      GenerationRanker generationRanker = new FitnessFunctionGenerationRanker(fitnessFunction, n -> n, .5);
+      RankedCandidates output = generationRanker.rank(Arrays.asList(a, b, c, d));
+      assertEquals(Arrays.asList(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY), cutoffs);
+      assertRankedCandidate(output.get(0), c, 3);
+      assertRankedCandidate(output.get(1), a, 4);
+      assertRankedCandidate(output.get(2), b, 7);
+      assertRankedCandidate(output.get(3), d, 9);
+      assertFalse(output.get(3).isLowerBound());
+
+      // the next generation uses the fitness of the median of the previous generation as the cutoff
+      cutoffs.clear();
+      output = generationRanker.rank(Arrays.asList(d, a, b));
+      assertEquals(Arrays.asList(7d, 7d, 7d), cutoffs);
+      assertRankedCandidate(output.get(0), a, 4);
+      assertFalse(output.get(0).isLowerBound());
+      assertRankedCandidate(output.get(1), b, 7);
+      assertFalse(output.get(1).isLowerBound());
+      assertRankedCandidate(output.get(2), d, 7.5);
+      assertTrue(output.get(2).isLowerBound());
+
+      cutoffs.clear();
+      generationRanker.rank(Arrays.asList(c));
+      assertEquals(Arrays.asList(7d), cutoffs);
+   }
+
+   @Test
+   public void testParallel() {
+      // test data - candidates of varying size, including duplicates
+      List<Node> input = new ArrayList<>();
+      for (int i = 0; i < 300; i++) {
+         Node n = createVariable(0);
+         for (int j = 0; j < i % 37; j++) {
+            n = new FunctionNode(j % 2 == 0 ? INTEGER_UTILS.getAdd() : INTEGER_UTILS.getMultiply(), n, integerConstant(i % 5));
+         }
+         input.add(n);
+      }
+      Map<Assignments, Integer> tests = new HashMap<>();
+      for (int i = 0; i < 20; i++) {
+         tests.put(createAssignments(i), i * i);
+      }
+      FitnessFunction fitnessFunction = createIntegerTestDataFitnessFunction(tests);
+
+      RankedCandidates expected = new FitnessFunctionGenerationRanker(fitnessFunction, new ClosureCompiler()).rank(input);
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+         GenerationRanker parallel = new FitnessFunctionGenerationRanker(new FitnessFunctionCache(100, fitnessFunction), new ClosureCompiler(), pool);
+         for (int attempt = 0; attempt < 3; attempt++) {
+            RankedCandidates actual = parallel.rank(input);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+               assertSame(expected.get(i).getNode(), actual.get(i).getNode());
+               assertEquals(expected.get(i).getFitness(), actual.get(i).getFitness(), 0);
+            }
+         }
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   @Test
+   public void testParallelCutoff() {
+      List<Node> input = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+         input.add(integerConstant(i));
+      }
+      BoundedFitnessFunction fitnessFunction = (n, cutoff) -> {
+         int fitness = n.evaluateInt(null);
+         return fitness > cutoff ? BoundedFitness.lowerBound(cutoff + 1) : BoundedFitness.exact(fitness);
+      };
+      ForkJoinPool pool = new ForkJoinPool(3);
+      try {
+         GenerationRanker serial = new FitnessFunctionGenerationRanker(fitnessFunction, n -> n, .25);
+         GenerationRanker parallel = new FitnessFunctionGenerationRanker(fitnessFunction, n -> n, .25, pool);
+         for (int generation = 0; generation < 3; generation++) {
+            RankedCandidates expected = serial.rank(input);
+            RankedCandidates actual = parallel.rank(input);
+            for (int i = 0; i < expected.size(); i++) {
+               assertEquals(expected.get(i), actual.get(i));
+               assertEquals(expected.get(i).isLowerBound(), actual.get(i).isLowerBound());
+            }
+         }
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidCutoffQuantile() {
+      new FitnessFunctionGenerationRanker((n, cutoff) -> BoundedFitness.exact(0), n -> n, 1.5);
+   }
 }
@@ -16,16 +16,29 @@
 package org.oakgp.rank.fitness;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.oakgp.Assignments.createAssignments;
 import static org.oakgp.TestUtils.mockNode;
+import static org.oakgp.TestUtils.readNode;
+import static org.oakgp.Type.integerType;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
+import org.oakgp.Arguments;
 import org.oakgp.Assignments;
+import org.oakgp.ColumnarAssignments;
+import org.oakgp.compile.BytecodeCompiler;
+import org.oakgp.compile.TieredCompiler;
+import org.oakgp.function.Function;
+import org.oakgp.function.Signature;
+import org.oakgp.node.FunctionNode;
 import org.oakgp.node.Node;
+import org.oakgp.node.VariableNode;
 
 public class TestDataFitnessFunctionTest {
    @Test
@@ -85,4 +98,108 @@ public class TestDataFitnessFunctionTest {
       // assert result
       assertEquals(4d, result, 0d);
    }
+
+   @Test
+   public void testCompiler() {
+      // test data
+      Map<Assignments, Integer> testData = new HashMap<>();
+      testData.put(createAssignments(1), 9);
+      testData.put(createAssignments(2), 2);
+      testData.put(createAssignments(3), 7);
+
+      // invoke evaluate method, compiling the node before evaluating it
+      Node node = readNode("(* 3 v0)");
+      FitnessFunction fitnessFunction = new TestDataFitnessFunction<Integer>(testData, (e, a) -> Math.abs(e - a), new TieredCompiler(new BytecodeCompiler(), 1));
+      double result = fitnessFunction.evaluate(node);
+
+      // assert result
+      assertEquals(12d, result, 0d);
+   }
+
+   @Test
+   public void testCache() {
+      // test data
+      Map<Assignments, Integer> testData = new HashMap<>();
+      testData.put(createAssignments(1), 9);
+      testData.put(createAssignments(2), 2);
+      testData.put(createAssignments(3), 7);
+
+      // invoke evaluate method, caching the results of pure subtrees
+      FitnessFunction fitnessFunction = new TestDataFitnessFunction<Integer>(testData, (e, a) -> Math.abs(e - a), 10);
+      assertEquals(12d, fitnessFunction.evaluate(readNode("(* 3 v0)")), 0d);
+      assertEquals(13d, fitnessFunction.evaluate(readNode("(+ 1 (* 3 v0))")), 0d);
+      assertEquals(12d, fitnessFunction.evaluate(readNode("(* 3 v0)")), 0d);
+   }
+
+   @Test
+   public void testCutoff() {
+      // four chunks - three of CHUNK_SIZE test cases and a final, smaller, chunk of 8 test cases
+      int numTests = TestDataFitnessFunction.CHUNK_SIZE * 3 + 8;
+      Map<Assignments, Integer> testData = new HashMap<>();
+      for (int i = 0; i < numTests; i++) {
+         testData.put(createAssignments(i), 0);
+      }
+      TestDataFitnessFunction<Integer> fitnessFunction = TestDataFitnessFunction.createIntegerTestDataFitnessFunction(testData);
+      Node node = readNode("(+ 99 1)");
+      double chunkDiff = 100d * TestDataFitnessFunction.CHUNK_SIZE;
+
+      assertEquals(100d * numTests, fitnessFunction.evaluate(node), 0d);
+      assertExact(100d * numTests, fitnessFunction.evaluate(node, Double.POSITIVE_INFINITY));
+      assertExact(100d * numTests, fitnessFunction.evaluate(node, 100d * numTests));
+      // all chunks evaluated - so exact even though the fitness is greater than the cutoff
+      assertExact(100d * numTests, fitnessFunction.evaluate(node, chunkDiff * 3));
+      // stops at the end of the chunk in which the accumulated difference exceeds the cutoff
+      assertLowerBound(chunkDiff * 3, fitnessFunction.evaluate(node, chunkDiff * 3 - 1));
+      assertLowerBound(chunkDiff * 2, fitnessFunction.evaluate(node, chunkDiff + 1));
+      assertLowerBound(chunkDiff, fitnessFunction.evaluate(node, 0));
+   }
+
+   @Test
+   public void testCutoffUsesSubtreeCache() {
+      int numTests = TestDataFitnessFunction.CHUNK_SIZE * 2;
+      Map<Assignments, Integer> testData = new HashMap<>();
+      for (int i = 0; i < numTests; i++) {
+         testData.put(createAssignments(i), i * 3);
+      }
+      AtomicInteger evaluations = new AtomicInteger();
+      // a pure node whose batch evaluations are counted
+      Node counted = new FunctionNode(new Function() {
+         private final Signature signature = Signature.createSignature(integerType(), integerType());
+
+         @Override
+         public Signature getSignature() {
+            return signature;
+         }
+
+         @Override
+         public Object evaluate(Arguments arguments, Assignments assignments) {
+            return (Integer) arguments.firstArg().evaluate(assignments) * 3;
+         }
+
+         @Override
+         public Object[] evaluateBatch(Arguments arguments, ColumnarAssignments assignments) {
+            evaluations.incrementAndGet();
+            return Function.super.evaluateBatch(arguments, assignments);
+         }
+      }, new VariableNode(0, integerType()));
+      TestDataFitnessFunction<Integer> fitnessFunction = new TestDataFitnessFunction<>(testData, (e, a) -> Math.abs(e - a), 10);
+
+      // evaluated in batch, one chunk at a time
+      assertExact(0, fitnessFunction.evaluate(counted, 0));
+      assertEquals(2, evaluations.get());
+      // results of each chunk are cached
+      assertExact(0, fitnessFunction.evaluate(counted, 0));
+      assertEquals(0, fitnessFunction.evaluate(counted), 0);
+      assertEquals(2, evaluations.get());
+   }
+
+   private static void assertExact(double expected, BoundedFitness actual) {
+      assertEquals(expected, actual.getFitness(), 0d);
+      assertFalse(actual.isLowerBound());
+   }
+
+   private static void assertLowerBound(double expected, BoundedFitness actual) {
+      assertEquals(expected, actual.getFitness(), 0d);
+      assertTrue(actual.isLowerBound());
+   }
 }
@@ -16,10 +16,15 @@
 package org.oakgp.rank.tournament;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.oakgp.TestUtils.integerConstant;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 import org.oakgp.node.Node;
 
@@ -37,4 +42,28 @@ public class FirstPlayerAdvantageGameTest {
       assertEquals(3d, g.evaluate(n1, n2), 0);
       assertEquals(-3d, g.evaluate(n2, n1), 0);
    }
+
+   @Test
+   public void testConcurrent() throws Exception {
+      Node n1 = integerConstant(1);
+      Node n2 = integerConstant(2);
+      CountDownLatch latch = new CountDownLatch(2);
+      TwoPlayerGame game = (p1, p2) -> {
+         // both orderings must be in progress at the same time for the latch to be released
+         latch.countDown();
+         try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+         } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+         }
+         return p1 == n1 ? 7 : 4;
+      };
+      ForkJoinPool pool = new ForkJoinPool(2);
+      try {
+         FirstPlayerAdvantageGame g = new FirstPlayerAdvantageGame(game, pool);
+         assertEquals(3d, g.evaluate(n1, n2), 0);
+      } finally {
+         pool.shutdown();
+      }
+   }
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.tournament;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.oakgp.rank.tournament.SwissTournamentTest.createCandidates;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.JavaUtilRandomAdapter;
+
+public class RandomOpponentTournamentTest {
+   @Test
+   public void test() {
+      List<Node> input = createCandidates(10);
+      int[] ctr = new int[1];
+      TwoPlayerGame game = (p1, p2) -> {
+         assertNotSame(p1, p2);
+         ctr[0]++;
+         return Integer.signum((Integer) p1.evaluate(null) - (Integer) p2.evaluate(null));
+      };
+
+      RankedCandidates output = new RandomOpponentTournament(game, new JavaUtilRandomAdapter(1), 3).rank(input);
+
+      // each of the 10 candidates selects 3 opponents
+      assertEquals(30, ctr[0]);
+      // fitness is normalised by the number of games each candidate played
+      assertEquals(input.get(9), output.best().getNode());
+      assertEquals(1, output.best().getFitness(), 0);
+      assertEquals(-1, output.get(9).getFitness(), 0);
+      for (RankedCandidate c : output) {
+         assertTrue(c.getFitness() >= -1 && c.getFitness() <= 1);
+         if (c.getNode() == input.get(0)) {
+            assertEquals(-1, c.getFitness(), 0);
+         }
+      }
+   }
+
+   @Test
+   public void testSingleCandidate() {
+      TwoPlayerGame game = (p1, p2) -> {
+         throw new AssertionError();
+      };
+
+      RankedCandidates output = new RandomOpponentTournament(game, new JavaUtilRandomAdapter(1), 3).rank(createCandidates(1));
+
+      assertEquals(0, output.best().getFitness(), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidOpponents() {
+      new RandomOpponentTournament((p1, p2) -> 0, new JavaUtilRandomAdapter(), 0);
+   }
+}
@@ -15,13 +15,17 @@
  */
 package org.oakgp.rank.tournament;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.oakgp.TestUtils.assertRankedCandidate;
 import static org.oakgp.TestUtils.integerConstant;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Test;
 import org.oakgp.node.Node;
@@ -52,4 +56,84 @@ public class RoundRobinTournamentTest {
       assertRankedCandidate(output.get(1), c, 1);
       assertRankedCandidate(output.get(2), b, -3);
    }
+
+   @Test
+   public void testConcurrent() {
+      // test data
+      List<Node> input = new ArrayList<>();
+      for (int i = 0; i < 97; i++) {
+         input.add(integerConstant(i));
+      }
+      // deterministic game where the result depends on the order of the players
+      TwoPlayerGame game = (p1, p2) -> {
+         int i1 = (Integer) p1.evaluate(null);
+         int i2 = (Integer) p2.evaluate(null);
+         return ((i1 * 31 + i2 * 17) % 7) - 3;
+      };
+
+      RankedCandidates expected = new RoundRobinTournament(game).rank(input);
+      for (int parallelism : new int[] { 1, 3, 8 }) {
+         ForkJoinPool pool = new ForkJoinPool(parallelism);
+         try {
+            RankedCandidates actual = new RoundRobinTournament(game, pool).rank(input);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+               assertEquals(expected.get(i), actual.get(i));
+            }
+         } finally {
+            pool.shutdown();
+         }
+      }
+   }
+
+   @Test
+   public void testConcurrentNonIntegerResultsIdenticalRegardlessOfThreads() {
+      List<Node> input = new ArrayList<>();
+      for (int i = 0; i < 150; i++) {
+         input.add(integerConstant(i));
+      }
+      // results which cannot be summed without rounding - so the totals depend on the order they are summed in
+      TwoPlayerGame game = (p1, p2) -> {
+         int i1 = (Integer) p1.evaluate(null);
+         int i2 = (Integer) p2.evaluate(null);
+         return Math.sin(i1 * 31 + i2 * 17) / 3;
+      };
+
+      RankedCandidates expected = null;
+      for (int parallelism : new int[] { 1, 3, 8, 8 }) {
+         ForkJoinPool pool = new ForkJoinPool(parallelism);
+         try {
+            RankedCandidates actual = new RoundRobinTournament(game, pool).rank(input);
+            if (expected == null) {
+               expected = actual;
+            }
+            for (int i = 0; i < expected.size(); i++) {
+               assertSame(expected.get(i).getNode(), actual.get(i).getNode());
+               assertEquals(Double.doubleToLongBits(expected.get(i).getFitness()), Double.doubleToLongBits(actual.get(i).getFitness()));
+            }
+         } finally {
+            pool.shutdown();
+         }
+      }
+   }
+
+   @Test
+   public void testConcurrentFirstPlayerAdvantageGame() {
+      List<Node> input = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+         input.add(integerConstant(i));
+      }
+      TwoPlayerGame game = (p1, p2) -> (Integer) p1.evaluate(null) % 3 == 0 ? 1 : 0;
+
+      RankedCandidates expected = new RoundRobinTournament(new FirstPlayerAdvantageGame(game)).rank(input);
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+         RankedCandidates actual = new RoundRobinTournament(new FirstPlayerAdvantageGame(game, pool), pool).rank(input);
+         for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+         }
+      } finally {
+         pool.shutdown();
+      }
+   }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.rank.tournament;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.oakgp.TestUtils.integerConstant;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.JavaUtilRandomAdapter;
+
+public class SwissTournamentTest {
+   @Test
+   public void test() {
+      List<Node> input = createCandidates(16);
+      List<String> games = new ArrayList<>();
+      TwoPlayerGame game = (p1, p2) -> {
+         games.add(p1 + " " + p2);
+         return Integer.signum((Integer) p1.evaluate(null) - (Integer) p2.evaluate(null));
+      };
+
+      RankedCandidates output = new SwissTournament(game, new JavaUtilRandomAdapter(1), 4).rank(input);
+
+      // 4 rounds of 8 games with no rematches
+      assertEquals(32, games.size());
+      Set<String> pairs = new HashSet<>();
+      for (String g : games) {
+         String[] players = g.split(" ");
+         assertTrue(pairs.add(players[0] + " " + players[1]));
+         assertTrue(pairs.add(players[1] + " " + players[0]));
+      }
+
+      // the strongest candidate wins every game, and is the only candidate to do so
+      assertEquals(16, output.size());
+      assertEquals(input.get(15), output.best().getNode());
+      assertEquals(4, output.best().getFitness(), 0);
+      assertEquals(2, output.get(1).getFitness(), 0);
+   }
+
+   @Test
+   public void testOddNumberOfCandidates() {
+      int[] ctr = new int[1];
+      TwoPlayerGame game = (p1, p2) -> {
+         ctr[0]++;
+         return 1;
+      };
+
+      RankedCandidates output = new SwissTournament(game, new JavaUtilRandomAdapter(1), 3).rank(createCandidates(5));
+
+      assertEquals(5, output.size());
+      assertEquals(6, ctr[0]);
+   }
+
+   @Test
+   public void testSingleCandidate() {
+      TwoPlayerGame game = (p1, p2) -> {
+         throw new AssertionError();
+      };
+
+      RankedCandidates output = new SwissTournament(game, new JavaUtilRandomAdapter(1), 3).rank(createCandidates(1));
+
+      assertEquals(0, output.best().getFitness(), 0);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidRounds() {
+      new SwissTournament((p1, p2) -> 0, new JavaUtilRandomAdapter(), 0);
+   }
+
+   static List<Node> createCandidates(int size) {
+      List<Node> input = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+         input.add(integerConstant(i));
+      }
+      return input;
+   }
+}
@@ -17,10 +17,12 @@ package org.oakgp.rank.tournament;
 
 import static org.junit.Assert.assertEquals;
 import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.TestUtils.longConstant;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
+import org.oakgp.node.ConstantNode;
 import org.oakgp.node.Node;
 
 public class TwoPlayerGameCacheTest {
@@ -60,4 +62,69 @@ public class TwoPlayerGameCacheTest {
       assertEquals(-fitness2, cache.evaluate(n3, n1), 0);
       assertEquals(2, evaluateCtr.get());
    }
+
+   @Test
+   public void testOldestEntryReplacedWhenFull() {
+      final AtomicInteger evaluateCtr = new AtomicInteger(0);
+      final TwoPlayerGame mockTwoPlayerGame = (player1, player2) -> {
+         evaluateCtr.incrementAndGet();
+         return (Long) ((ConstantNode) player1).evaluate(null) - (Long) ((ConstantNode) player2).evaluate(null);
+      };
+      final TwoPlayerGameCache cache = new TwoPlayerGameCache(4, mockTwoPlayerGame);
+      final Node n0 = longConstant(0);
+
+      for (int i = 1; i <= 4; i++) {
+         assertEquals(-i, cache.evaluate(n0, longConstant(i)), 0);
+      }
+      assertEquals(4, evaluateCtr.get());
+      for (int i = 1; i <= 4; i++) {
+         assertEquals(i, cache.evaluate(longConstant(i), n0), 0);
+      }
+      assertEquals(4, evaluateCtr.get());
+
+      // cache is full so storing a fifth result replaces the oldest
+      assertEquals(-5, cache.evaluate(n0, longConstant(5)), 0);
+      assertEquals(5, evaluateCtr.get());
+      assertEquals(-2, cache.evaluate(n0, longConstant(2)), 0);
+      assertEquals(5, evaluateCtr.get());
+      assertEquals(-1, cache.evaluate(n0, longConstant(1)), 0);
+      assertEquals(6, evaluateCtr.get());
+   }
+
+   @Test
+   public void testMaxSizeHonoured() {
+      final AtomicInteger evaluateCtr = new AtomicInteger(0);
+      final TwoPlayerGameCache cache = new TwoPlayerGameCache(1, (player1, player2) -> {
+         evaluateCtr.incrementAndGet();
+         return 1;
+      });
+      final Node n0 = longConstant(0);
+
+      assertEquals(1, cache.evaluate(n0, longConstant(1)), 0);
+      assertEquals(1, cache.evaluate(n0, longConstant(1)), 0);
+      assertEquals(1, evaluateCtr.get());
+      // only one result can be stored - so storing a second result replaces the first
+      assertEquals(1, cache.evaluate(n0, longConstant(2)), 0);
+      assertEquals(1, cache.evaluate(n0, longConstant(1)), 0);
+      assertEquals(3, evaluateCtr.get());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidMaxSize() {
+      new TwoPlayerGameCache(0, (player1, player2) -> 0);
+   }
+
+   @Test
+   public void testSamePlayer() {
+      final AtomicInteger evaluateCtr = new AtomicInteger(0);
+      final TwoPlayerGameCache cache = new TwoPlayerGameCache(3, (player1, player2) -> {
+         evaluateCtr.incrementAndGet();
+         return 0;
+      });
+      final Node n = integerConstant(1);
+
+      assertEquals(0, cache.evaluate(n, n), 0);
+      assertEquals(0, cache.evaluate(n, integerConstant(1)), 0);
+      assertEquals(1, evaluateCtr.get());
+   }
 }
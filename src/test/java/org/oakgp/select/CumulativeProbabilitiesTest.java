@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import static org.junit.Assert.assertEquals;
+import static org.oakgp.TestUtils.integerConstant;
+
+import org.junit.Test;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+
+public class CumulativeProbabilitiesTest {
+   @Test
+   public void testIndexOf() {
+      CumulativeProbabilities p = new CumulativeProbabilities(createCandidates(3), new double[] { 1, 2, 1 }, 4);
+      assertEquals(0, p.indexOf(0));
+      assertEquals(0, p.indexOf(.2499));
+      assertEquals(1, p.indexOf(.25));
+      assertEquals(1, p.indexOf(.7499));
+      assertEquals(2, p.indexOf(.75));
+      assertEquals(2, p.indexOf(.9999));
+      assertEquals(-1, p.indexOf(1));
+   }
+
+   @Test
+   public void testNegativeAndZeroWeights() {
+      double[] weights = { 2, -1, 0, 3, -4, 4 };
+      assertMatchesLinearWalk(weights, 4);
+   }
+
+   @Test
+   public void testZeroSum() {
+      double[] weights = { 0, 0, 0 };
+      CumulativeProbabilities p = new CumulativeProbabilities(createCandidates(weights.length), weights, 0);
+      assertEquals(-1, p.indexOf(0));
+      assertEquals(-1, p.indexOf(.5));
+   }
+
+   @Test
+   public void testMatchesLinearWalk() {
+      java.util.Random random = new java.util.Random(42);
+      double[] weights = new double[1000];
+      double sum = 0;
+      for (int i = 0; i < weights.length; i++) {
+         weights[i] = random.nextDouble() * 100;
+         sum += weights[i];
+      }
+      assertMatchesLinearWalk(weights, sum);
+   }
+
+   private static void assertMatchesLinearWalk(double[] weights, double sum) {
+      CumulativeProbabilities p = new CumulativeProbabilities(createCandidates(weights.length), weights, sum);
+      for (int i = 0; i <= 10000; i++) {
+         double r = i / 10000d;
+         assertEquals(linearWalk(weights, sum, r), p.indexOf(r));
+      }
+   }
+
+   /** The algorithm previously used by {@code FitnessProportionateSelection} and {@code RankSelection}. */
+   private static int linearWalk(double[] weights, double sum, double r) {
+      double p = 0;
+      for (int i = 0; i < weights.length; i++) {
+         p += weights[i] / sum;
+         if (r < p) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   private static RankedCandidates createCandidates(int size) {
+      RankedCandidate[] candidates = new RankedCandidate[size];
+      for (int i = 0; i < size; i++) {
+         candidates[i] = new RankedCandidate(integerConstant(i), i);
+      }
+      return new RankedCandidates(candidates);
+   }
+}
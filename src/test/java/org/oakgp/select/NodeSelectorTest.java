@@ -0,0 +1,31 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.oakgp.TestUtils.integerConstant;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+
+public class NodeSelectorTest {
+   @Test
+   public void testDefaultBatch() {
+      DummyNodeSelector selector = new DummyNodeSelector(integerConstant(1), integerConstant(2), integerConstant(3));
+      assertArrayEquals(new Node[] { integerConstant(1), integerConstant(2), integerConstant(3) }, selector.next(3));
+      selector.assertEmpty();
+   }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.oakgp.TestUtils.integerConstant;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.DummyRandom;
+import org.oakgp.util.Random;
+import org.oakgp.util.SplitMixRandom;
+
+public class StochasticUniversalSamplingTest {
+   private final RankedCandidate c1 = new RankedCandidate(integerConstant(1), 4);
+   private final RankedCandidate c2 = new RankedCandidate(integerConstant(2), 2);
+   private final RankedCandidate c3 = new RankedCandidate(integerConstant(3), 1);
+   private final RankedCandidates candidates = new RankedCandidates(new RankedCandidate[] { c1, c2, c3 }, Collections.reverseOrder());
+
+   @Test
+   public void testNext() {
+      DummyRandom r = new DummyRandom(.0, .57, .58, .85, .86, .999);
+      NodeSelector s = createStochasticUniversalSampling(r);
+
+      assertEquals(c1.getNode(), s.next());
+      assertEquals(c1.getNode(), s.next());
+      assertEquals(c2.getNode(), s.next());
+      assertEquals(c2.getNode(), s.next());
+      assertEquals(c3.getNode(), s.next());
+      assertEquals(c3.getNode(), s.next());
+
+      r.assertEmpty();
+   }
+
+   @Test
+   public void testBatchMatchesExpectedCounts() {
+      // return the upper bound for every call to nextInt so that the shuffle leaves the order unchanged
+      DummyRandom r = DummyRandom.random().setDoubles(.0, .99).nextInt(7).returns(6, 6).nextInt(6).returns(5, 5).nextInt(5).returns(4, 4).nextInt(4)
+            .returns(3, 3).nextInt(3).returns(2, 2).nextInt(2).returns(1, 1).build();
+      NodeSelector s = createStochasticUniversalSampling(r);
+
+      Node[] expected = { c1.getNode(), c1.getNode(), c1.getNode(), c1.getNode(), c2.getNode(), c2.getNode(), c3.getNode() };
+      assertArrayEquals(expected, s.next(7));
+      assertArrayEquals(expected, s.next(7));
+
+      r.assertEmpty();
+   }
+
+   @Test
+   public void testBatchShuffled() {
+      DummyRandom r = DummyRandom.random().setDoubles(.9).nextInt(3).returns(0).nextInt(2).returns(1).build();
+      NodeSelector s = createStochasticUniversalSampling(r);
+
+      assertArrayEquals(new Node[] { c3.getNode(), c2.getNode(), c1.getNode() }, s.next(3));
+
+      r.assertEmpty();
+   }
+
+   @Test
+   public void testPairingsVaryAcrossSeeds() {
+      RankedCandidate[] ranked = new RankedCandidate[10];
+      for (int i = 0; i < ranked.length; i++) {
+         ranked[i] = new RankedCandidate(integerConstant(i), ranked.length - i);
+      }
+      RankedCandidates tenCandidates = new RankedCandidates(ranked, Collections.reverseOrder());
+
+      // the candidates paired as the first two parents of a batch should depend on the random number generator
+      Set<List<Node>> pairings = new HashSet<>();
+      for (long seed = 0; seed < 20; seed++) {
+         Node[] batch = new StochasticUniversalSamplingFactory(new SplitMixRandom(seed)).getSelector(tenCandidates).next(10);
+         pairings.add(Arrays.asList(batch[0], batch[1]));
+      }
+      assertTrue(pairings.size() > 5);
+   }
+
+   @Test
+   public void testEmptyBatch() {
+      NodeSelector s = createStochasticUniversalSampling(DummyRandom.EMPTY);
+      assertEquals(0, s.next(0).length);
+   }
+
+   private StochasticUniversalSampling createStochasticUniversalSampling(Random random) {
+      StochasticUniversalSamplingFactory f = new StochasticUniversalSamplingFactory(random);
+      return f.getSelector(candidates);
+   }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.select;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.oakgp.TestUtils.integerConstant;
+import static org.oakgp.util.DummyRandom.GetIntExpectation.nextInt;
+
+import org.junit.Test;
+import org.oakgp.rank.RankedCandidate;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.util.DummyRandom;
+import org.oakgp.util.Random;
+
+public class TournamentSelectionTest {
+   private final RankedCandidate c1 = new RankedCandidate(integerConstant(1), 1);
+   private final RankedCandidate c2 = new RankedCandidate(integerConstant(2), 2);
+   private final RankedCandidate c3 = new RankedCandidate(integerConstant(3), 3);
+   private final RankedCandidate c4 = new RankedCandidate(integerConstant(4), 4);
+   private final RankedCandidates candidates = new RankedCandidates(new RankedCandidate[] { c1, c2, c3, c4 });
+
+   @Test
+   public void testTournamentSizeOne() {
+      DummyRandom r = nextInt(4).returns(3, 0, 2, 1);
+      NodeSelector s = createTournamentSelection(r, 1);
+
+      assertEquals(c4.getNode(), s.next());
+      assertEquals(c1.getNode(), s.next());
+      assertEquals(c3.getNode(), s.next());
+      assertEquals(c2.getNode(), s.next());
+
+      r.assertEmpty();
+   }
+
+   @Test
+   public void testTournamentSizeThree() {
+      DummyRandom r = nextInt(4).returns(2, 3, 2, 3, 0, 3, 3, 3, 3, 1, 2, 3);
+      NodeSelector s = createTournamentSelection(r, 3);
+
+      assertEquals(c3.getNode(), s.next());
+      assertEquals(c1.getNode(), s.next());
+      assertEquals(c4.getNode(), s.next());
+      assertEquals(c2.getNode(), s.next());
+
+      r.assertEmpty();
+   }
+
+   @Test
+   public void testInvalidTournamentSize() {
+      assertInvalidTournamentSize(0);
+      assertInvalidTournamentSize(-1);
+   }
+
+   private void assertInvalidTournamentSize(int tournamentSize) {
+      try {
+         new TournamentSelectionFactory(DummyRandom.EMPTY, tournamentSize);
+         fail();
+      } catch (IllegalArgumentException e) {
+         assertEquals("Expected a positive integer but got: " + tournamentSize, e.getMessage());
+      }
+   }
+
+   private TournamentSelection createTournamentSelection(Random random, int tournamentSize) {
+      TournamentSelectionFactory f = new TournamentSelectionFactory(random, tournamentSize);
+      return f.getSelector(candidates);
+   }
+}
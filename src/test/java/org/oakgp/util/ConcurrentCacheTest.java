@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class ConcurrentCacheTest {
+   @Test
+   public void testGetAndPut() {
+      ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(3);
+      assertNull(cache.get("a"));
+      cache.put("a", 1);
+      cache.put("b", 2);
+      assertEquals(Integer.valueOf(1), cache.get("a"));
+      assertEquals(Integer.valueOf(2), cache.get("b"));
+      cache.put("a", 3);
+      assertEquals(Integer.valueOf(3), cache.get("a"));
+      assertEquals(2, cache.size());
+
+      assertEquals(3, cache.getHitCount());
+      assertEquals(1, cache.getMissCount());
+      assertEquals(0, cache.getEvictionCount());
+   }
+
+   @Test
+   public void testFrequentlyRequestedEntriesAreRetained() {
+      int maxSize = 100;
+      ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(maxSize);
+      for (int i = 0; i < maxSize; i++) {
+         cache.put("a" + i, i);
+         for (int j = 0; j < 4; j++) {
+            cache.get("a" + i);
+         }
+      }
+
+      // keys requested only once do not replace keys that are requested repeatedly - a least-recently used cache would retain none of the original keys
+      for (int i = 0; i < maxSize * 2; i++) {
+         cache.put("x" + i, i);
+      }
+      assertEquals(maxSize, cache.size());
+      int retained = 0;
+      for (int i = 0; i < maxSize; i++) {
+         if (cache.get("a" + i) != null) {
+            retained++;
+         }
+      }
+      assertTrue("retained: " + retained, retained > maxSize * .9);
+
+      // a key that is requested more often than the least-recently used entry replaces it
+      long evictions = cache.getEvictionCount();
+      for (int i = 0; i < 20; i++) {
+         cache.get("y");
+      }
+      cache.put("y", -1);
+      assertEquals(maxSize, cache.size());
+      assertEquals(evictions + 1, cache.getEvictionCount());
+      assertEquals(Integer.valueOf(-1), cache.get("y"));
+   }
+
+   @Test
+   public void testPutsAreNotCountedAsRequests() {
+      ConcurrentCache<String, Integer> cache = new ConcurrentCache<>(1);
+      cache.put("a", 1);
+      cache.get("a");
+
+      // storing a key does not count as a request for it - so a key that has never been requested cannot replace one that has
+      for (int i = 0; i < 10; i++) {
+         cache.put("b", i);
+      }
+      assertEquals(Integer.valueOf(1), cache.get("a"));
+      assertNull(cache.get("b"));
+      assertEquals(0, cache.getEvictionCount());
+   }
+
+   @Test
+   public void testMaxSize() {
+      int maxSize = 1000;
+      ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(maxSize);
+      for (int i = 0; i < maxSize * 3; i++) {
+         cache.get(i);
+         cache.put(i, i);
+         cache.get(i);
+      }
+      assertTrue(cache.size() <= maxSize);
+      assertTrue(cache.size() + cache.getEvictionCount() <= maxSize * 3);
+   }
+
+   @Test
+   public void testConcurrentAccess() throws Exception {
+      ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(500);
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<?>> futures = new ArrayList<>();
+         for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+               for (int i = 0; i < 10000; i++) {
+                  int key = i % 700;
+                  Integer value = cache.get(key);
+                  if (value == null) {
+                     cache.put(key, key * 2);
+                  } else {
+                     assertEquals(key * 2, value.intValue());
+                  }
+               }
+            }));
+         }
+         for (Future<?> f : futures) {
+            f.get();
+         }
+      } finally {
+         executor.shutdown();
+      }
+      assertTrue(cache.size() <= 500);
+      assertEquals(40000, cache.getHitCount() + cache.getMissCount());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidMaxSize() {
+      new ConcurrentCache<>(0);
+   }
+}
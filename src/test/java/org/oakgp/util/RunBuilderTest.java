@@ -16,25 +16,44 @@
 package org.oakgp.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.oakgp.TestUtils.integerConstant;
 import static org.oakgp.TestUtils.singletonRankedCandidates;
+import static org.oakgp.rank.fitness.TestDataFitnessFunction.createIntegerTestDataFitnessFunction;
+import static org.oakgp.util.Utils.createIntegerConstants;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Predicate;
 
 import org.junit.Test;
+import org.oakgp.Assignments;
 import org.oakgp.Type;
 import org.oakgp.evolve.GenerationEvolver;
+import org.oakgp.function.math.IntegerUtils;
+import org.oakgp.island.MigrationTopology;
+import org.oakgp.node.EvaluationBudget;
 import org.oakgp.node.Node;
 import org.oakgp.primitive.DummyPrimitiveSet;
+import org.oakgp.rank.fitness.FitnessFunction;
 import org.oakgp.rank.GenerationRanker;
 import org.oakgp.rank.RankedCandidate;
 import org.oakgp.rank.RankedCandidates;
 import org.oakgp.util.RunBuilder.Config;
+import org.oakgp.util.RunBuilder.GenerationRankerSetter;
 import org.oakgp.util.RunBuilder.InitialPopulationSetter;
 import org.oakgp.util.RunBuilder.TreeDepthSetter;
 
@@ -88,6 +107,174 @@ public class RunBuilderTest {
       assertInvalidSizes(setter::setTreeDepth);
    }
 
+   @Test
+   public void testInvalidParallelism() {
+      GenerationRankerSetter setter = new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET);
+      assertInvalidSizes(setter::setParallelism);
+   }
+
+   @Test
+   public void testInvalidIslands() {
+      GenerationRankerSetter setter = new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET);
+      assertInvalidSizes(i -> setter.setIslands(i, 1, 1, MigrationTopology.ring()));
+      assertInvalidSizes(i -> setter.setIslands(2, i, 1, MigrationTopology.ring()));
+      assertInvalidSizes(i -> setter.setIslands(2, 1, i, MigrationTopology.ring()));
+   }
+
+   @Test
+   public void testIslands() {
+      GenerationRanker ranker = input -> new RankedCandidates(input.stream().map(n -> new RankedCandidate(n, 0)).toArray(RankedCandidate[]::new));
+      Collection<Node> initialPopulation = Collections.singleton(integerConstant(1));
+      AtomicInteger evolved = new AtomicInteger();
+      GenerationEvolver evolver = c -> {
+         evolved.incrementAndGet();
+         return initialPopulation;
+      };
+
+      RankedCandidates output = new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET)
+            .setIslands(3, 2, 1, MigrationTopology.ring()).setGenerationRanker(ranker).setInitialPopulation(c -> initialPopulation)
+            .setGenerationEvolver(c -> evolver).setMaxGenerations(5).process();
+
+      assertEquals(integerConstant(1), output.best().getNode());
+      // each island has its own max generations terminator - so the run finishes after the first island has evolved 5 generations
+      assertTrue(evolved.get() >= 5);
+      assertTrue(evolved.get() <= 15);
+   }
+
+   @Test
+   public void testInitialPopulationPerIsland() {
+      GenerationRanker ranker = input -> new RankedCandidates(input.stream().map(n -> new RankedCandidate(n, 0)).toArray(RankedCandidate[]::new));
+      AtomicInteger populations = new AtomicInteger();
+      java.util.function.Function<Config, Collection<Node>> initialPopulation = c -> Collections
+            .singleton(integerConstant(populations.incrementAndGet()));
+
+      new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET).setIslands(3, 2, 1, MigrationTopology.ring())
+            .setGenerationRanker(ranker).setInitialPopulation(initialPopulation).setGenerationEvolver(c -> g -> Collections.singleton(g.best().getNode()))
+            .setMaxGenerations(1).process();
+
+      // each island has its own initial population
+      assertEquals(3, populations.get());
+   }
+
+   @Test
+   public void testTournamentRandomPerIsland() {
+      GenerationRanker ranker = input -> new RankedCandidates(input.stream().map(n -> new RankedCandidate(n, 0)).toArray(RankedCandidate[]::new));
+      List<Random> randoms = new ArrayList<>();
+      Random random = new SplitMixRandom(1);
+
+      new RunBuilder().setReturnType(RETURN_TYPE).setRandom(random).setPrimitiveSet(DUMMY_PRIMITIVE_SET).setIslands(3, 2, 1, MigrationTopology.ring())
+            .setTwoPlayerGame((a, b) -> 0, (g, r) -> {
+               randoms.add(r);
+               return ranker;
+            }).setInitialPopulation(c -> Collections.singleton(integerConstant(1))).setGenerationEvolver(c -> g -> Collections.singleton(g.best().getNode()))
+            .setMaxGenerations(1).process();
+
+      // each island has its own Random - so islands do not draw from a shared Random concurrently
+      assertEquals(3, randoms.size());
+      assertEquals(3, new HashSet<>(randoms).size());
+      assertFalse(randoms.contains(random));
+   }
+
+   @Test
+   public void testCompiler() {
+      Collection<Node> initialPopulation = Collections.singleton(integerConstant(1));
+      AtomicInteger evaluated = new AtomicInteger();
+      AtomicInteger compiled = new AtomicInteger();
+
+      new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET).setCompiler(n -> {
+         compiled.incrementAndGet();
+         return n;
+      }).setFitnessFunction(n -> evaluated.incrementAndGet()).setInitialPopulation(c -> initialPopulation).setGenerationEvolver(c -> g -> initialPopulation)
+            .setMaxGenerations(5).process();
+
+      // the candidate is only evaluated, and so only compiled, once - as its fitness is cached for later generations
+      assertEquals(1, evaluated.get());
+      assertEquals(1, compiled.get());
+   }
+
+   @Test
+   public void testEvaluationBudget() {
+      Node cheap = integerConstant(3);
+      Node expensive = integerConstant(7);
+      Collection<Node> initialPopulation = new ArrayList<>();
+      initialPopulation.add(cheap);
+      initialPopulation.add(expensive);
+
+      // each candidate takes a number of steps equal to its value - so only the cheap candidate can be evaluated within the budget of 5 steps
+      RankedCandidates output = new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET)
+            .setEvaluationBudget(new EvaluationBudget(5, EvaluationBudget.UNLIMITED), 1000).setFitnessFunction(n -> {
+               int steps = (Integer) n.evaluate(null);
+               for (int i = 0; i < steps; i++) {
+                  EvaluationBudget.step();
+               }
+               return steps;
+            }).setInitialPopulation(c -> initialPopulation).setGenerationEvolver(c -> g -> initialPopulation).setMaxGenerations(1).process();
+
+      assertEquals(2, output.size());
+      assertSame(cheap, output.get(0).getNode());
+      assertEquals(3, output.get(0).getFitness(), 0);
+      assertSame(expensive, output.get(1).getNode());
+      assertEquals(1000, output.get(1).getFitness(), 0);
+   }
+
+   @Test
+   public void testNotCompiledByDefault() {
+      Collection<Node> initialPopulation = Collections.singleton(integerConstant(1));
+      Collection<Node> evaluated = Collections.synchronizedList(new ArrayList<>());
+
+      new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET).setFitnessFunction(n -> {
+         evaluated.add(n);
+         return 0;
+      }).setInitialPopulation(c -> initialPopulation).setGenerationEvolver(c -> g -> initialPopulation).setMaxGenerations(2).process();
+
+      assertEquals(Collections.singletonList(integerConstant(1)), evaluated);
+      assertSame(initialPopulation.iterator().next(), evaluated.iterator().next());
+   }
+
+   @Test
+   public void testCallerSuppliedPool() {
+      Collection<Node> initialPopulation = Collections.singleton(integerConstant(1));
+      ForkJoinPool pool = new ForkJoinPool(2);
+      try {
+         for (int run = 0; run < 2; run++) {
+            RankedCandidates output = new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET)
+                  .setParallelism(pool).setFitnessFunction(n -> 0).setInitialPopulation(c -> initialPopulation)
+                  .setGenerationEvolver(c -> g -> initialPopulation).setMaxGenerations(2).process();
+            assertEquals(integerConstant(1), output.best().getNode());
+            // a pool provided by the caller is not shut down when the run finishes - so can be reused by later runs
+            assertFalse(pool.isShutdown());
+         }
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   @Test
+   public void testSameResultRegardlessOfParallelism() {
+      RankedCandidates expected = processWithParallelism(1);
+      for (int parallelism : new int[] { 2, 4 }) {
+         RankedCandidates actual = processWithParallelism(parallelism);
+         assertEquals(expected.size(), actual.size());
+         for (int i = 0; i < expected.size(); i++) {
+            // compare string representations as each run has its own instances of the variable nodes
+            assertEquals(expected.get(i).getNode().toString(), actual.get(i).getNode().toString());
+            assertEquals(expected.get(i).getFitness(), actual.get(i).getFitness(), 0);
+         }
+      }
+   }
+
+   private RankedCandidates processWithParallelism(int parallelism) {
+      Map<Assignments, Integer> tests = new HashMap<>();
+      for (int x = -5; x < 6; x++) {
+         tests.put(Assignments.createAssignments(x), x * x * 3 - x + 7);
+      }
+      FitnessFunction fitnessFunction = createIntegerTestDataFitnessFunction(tests);
+      return new RunBuilder().setReturnType(Type.integerType()).setRandom(new SplitMixRandom(42)).setConstants(createIntegerConstants(0, 5))
+            .setVariables(Type.integerType()).setFunctions(IntegerUtils.INTEGER_UTILS.getAdd(), IntegerUtils.INTEGER_UTILS.getSubtract(),
+                  IntegerUtils.INTEGER_UTILS.getMultiply())
+            .setParallelism(parallelism).setFitnessFunction(fitnessFunction).setInitialPopulationSize(50).setTreeDepth(4).setMaxGenerations(5).process();
+   }
+
    private InitialPopulationSetter createInitialPopulationSetter() {
       GenerationRanker ranker = mock(GenerationRanker.class);
       return new RunBuilder().setReturnType(RETURN_TYPE).setRandom(DUMMY_RANDOM).setPrimitiveSet(DUMMY_PRIMITIVE_SET).setGenerationRanker(ranker);
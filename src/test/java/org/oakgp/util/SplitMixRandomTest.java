@@ -0,0 +1,96 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class SplitMixRandomTest {
+   @Test
+   public void testSameSequenceAsSplittableRandom() {
+      long seed = 42;
+      SplitMixRandom random = new SplitMixRandom(seed);
+      SplittableRandom splittableRandom = new SplittableRandom(seed);
+
+      assertSameSequence(splittableRandom, random);
+   }
+
+   @Test
+   public void testSplit() {
+      SplitMixRandom random = new SplitMixRandom(7);
+      SplittableRandom splittableRandom = new SplittableRandom(7);
+
+      SplitMixRandom split = random.split();
+      assertSameSequence(splittableRandom.split(), split);
+      assertSameSequence(splittableRandom, random);
+   }
+
+   @Test
+   public void testSplitIsReproducible() {
+      SplitMixRandom split1 = new SplitMixRandom(7).split();
+      SplitMixRandom split2 = new SplitMixRandom(7).split();
+      for (int i = 0; i < 100; i++) {
+         assertEquals(split1.nextLong(), split2.nextLong());
+      }
+   }
+
+   @Test
+   public void testDefaultSeedsAreDistinct() {
+      assertNotEquals(new SplitMixRandom().nextLong(), new SplitMixRandom().nextLong());
+   }
+
+   @Test
+   public void testNextIntWithinBounds() {
+      SplitMixRandom random = new SplitMixRandom(1);
+      for (int bound : new int[] { 1, 2, 3, 7, 8, 1000, Integer.MAX_VALUE }) {
+         for (int i = 0; i < 100; i++) {
+            int r = random.nextInt(bound);
+            assertTrue(r >= 0 && r < bound);
+         }
+      }
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testInvalidBound() {
+      new SplitMixRandom(1).nextInt(0);
+   }
+
+   @Test
+   public void testDefaultSplit() {
+      Random adapter = new JavaUtilRandomAdapter(5);
+      java.util.Random javaUtilRandom = new java.util.Random(5);
+      Random split = adapter.split();
+      java.util.Random expected = new java.util.Random((long) (javaUtilRandom.nextDouble() * Long.MAX_VALUE));
+      assertEquals(expected.nextInt(1000), split.nextInt(1000));
+      assertEquals(expected.nextDouble(), split.nextDouble(), 0);
+   }
+
+   private static void assertSameSequence(SplittableRandom expected, SplitMixRandom actual) {
+      for (int i = 0; i < 10; i++) {
+         assertEquals(expected.nextInt(5), actual.nextInt(5));
+         assertEquals(expected.nextInt(8), actual.nextInt(8));
+         assertEquals(expected.nextInt(Integer.MAX_VALUE), actual.nextInt(Integer.MAX_VALUE));
+         assertEquals(expected.nextDouble(), actual.nextDouble(), 0);
+         assertEquals(expected.nextBoolean(), actual.nextBoolean());
+         assertEquals(expected.nextLong(), actual.nextLong());
+      }
+   }
+}
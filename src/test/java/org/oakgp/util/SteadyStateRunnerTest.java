@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 S. Webber
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.oakgp.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.oakgp.TestUtils.integerConstant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+import org.oakgp.evolve.GeneticOperator;
+import org.oakgp.node.Node;
+import org.oakgp.rank.RankedCandidates;
+import org.oakgp.rank.fitness.FitnessFunction;
+import org.oakgp.select.RankSelectionFactory;
+import org.oakgp.terminate.MaxGenerationsTerminator;
+import org.oakgp.terminate.TargetFitnessTerminator;
+
+public class SteadyStateRunnerTest {
+   private static final FitnessFunction DISTANCE_FROM_TEN = n -> Math.abs(10 - (Integer) n.evaluate(null));
+
+   @Test
+   public void testFindsTarget() {
+      Predicate<RankedCandidates> terminator = new TargetFitnessTerminator(c -> c.getFitness() == 0).or(new MaxGenerationsTerminator(1000));
+
+      RankedCandidates output = process(DISTANCE_FROM_TEN, terminator, createInitialPopulation(), 3);
+
+      assertEquals(integerConstant(10), output.best().getNode());
+      assertEquals(0, output.best().getFitness(), 0);
+      assertEquals(5, output.size());
+      for (int i = 1; i < output.size(); i++) {
+         assertTrue(output.get(i - 1).getFitness() <= output.get(i).getFitness());
+      }
+   }
+
+   @Test
+   public void testTerminatorTestedEachEpoch() {
+      AtomicInteger evaluations = new AtomicInteger();
+      AtomicInteger terminatorTests = new AtomicInteger();
+      FitnessFunction fitnessFunction = n -> {
+         evaluations.incrementAndGet();
+         return DISTANCE_FROM_TEN.evaluate(n);
+      };
+      Predicate<RankedCandidates> terminator = c -> {
+         assertEquals(5, c.size());
+         return terminatorTests.incrementAndGet() == 3;
+      };
+
+      process(fitnessFunction, terminator, createInitialPopulation(), 1);
+
+      // a single thread creates 3 epochs of 5 candidates - candidates already in the population are not evaluated
+      assertEquals(3, terminatorTests.get());
+      assertTrue(evaluations.get() >= 5);
+      assertTrue(evaluations.get() <= 15);
+   }
+
+   @Test
+   public void testSelectorsOnlyCreatedWhenPopulationRefreshed() {
+      List<Node> initialPopulation = new ArrayList<>();
+      for (int i = 0; i < 50; i++) {
+         initialPopulation.add(integerConstant(1000 + i));
+      }
+      AtomicInteger selectors = new AtomicInteger();
+      ForkJoinPool pool = new ForkJoinPool(1);
+      try {
+         SteadyStateRunner.process(DISTANCE_FROM_TEN, r -> c -> {
+            selectors.incrementAndGet();
+            return new RankSelectionFactory(r).getSelector(c);
+         }, SteadyStateRunnerTest::createOperators, new MaxGenerationsTerminator(4), initialPopulation, new SplitMixRandom(1), pool);
+      } finally {
+         pool.shutdown();
+      }
+
+      // the population is refreshed ten times per epoch - so, over the three epochs that follow the initial population, at most 30 selectors are created
+      // even though most new candidates are fitter than the candidates they replace
+      assertTrue(selectors.get() > 0);
+      assertTrue(selectors.get() <= 30);
+   }
+
+   @Test
+   public void testFitnessFunctionException() {
+      IllegalStateException expected = new IllegalStateException();
+      try {
+         process(n -> {
+            throw expected;
+         }, c -> false, createInitialPopulation(), 2);
+         fail();
+      } catch (IllegalStateException e) {
+         assertTrue(e == expected || e.getCause() == expected);
+      }
+   }
+
+   private static RankedCandidates process(FitnessFunction fitnessFunction, Predicate<RankedCandidates> terminator, List<Node> initialPopulation,
+         int numThreads) {
+      ForkJoinPool pool = new ForkJoinPool(numThreads);
+      try {
+         return SteadyStateRunner.process(fitnessFunction, RankSelectionFactory::new, SteadyStateRunnerTest::createOperators, terminator, initialPopulation,
+               new SplitMixRandom(1), pool);
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   private static Map<GeneticOperator, Integer> createOperators(Random random) {
+      Map<GeneticOperator, Integer> operators = new HashMap<>();
+      operators.put(s -> integerConstant((Integer) s.next().evaluate(null) + 1), 1);
+      operators.put(s -> integerConstant((Integer) s.next().evaluate(null) - 1), 1);
+      operators.put(s -> integerConstant(random.nextInt(30)), 1);
+      return operators;
+   }
+
+   private static List<Node> createInitialPopulation() {
+      List<Node> initialPopulation = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+         initialPopulation.add(integerConstant(20 + i));
+      }
+      Collections.shuffle(initialPopulation);
+      return initialPopulation;
+   }
+}